@@ -558,7 +558,15 @@ public class Analysis {
                 Logger.error("error during {} {}", currentPatch.getFileName(Time.AFTER), currentPatch.getCommitHash());
                 throw t;
             } finally {
-                runReverseHook(patchHook, Hooks::endPatch);
+                try {
+                    runReverseHook(patchHook, Hooks::endPatch);
+                } finally {
+                    // Patches parsed with recycled nodes are only valid until here.
+                    if (repository.getParseOptions().recycleNodes()) {
+                        currentPatch.releaseVariationDiff();
+                        currentVariationDiff = null;
+                    }
+                }
             }
         }
     }
@@ -7,6 +7,7 @@ import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
 import org.variantsync.diffdetective.analysis.strategies.AnalysisStrategy;
 import org.variantsync.diffdetective.editclass.EditClass;
 import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
@@ -50,9 +51,14 @@ public class EditClassOccurenceAnalysis implements Analysis.Hooks {
         var editClassCounts = new LinkedHashMap<EditClass, Integer>();
         ProposedEditClasses.Instance.all().forEach(e -> editClassCounts.put(e, 0));
 
+        // With a feature model, all presence conditions of a VariationDiff are encoded in a single
+        // incremental solver which is preloaded with the precompiled feature model of the repository.
+        // Without a feature model, SAT and its cache are faster for the small presence conditions
+        // of typical diffs (see EditClassificationBenchmark).
+        final SolverSession session = analysis.getRepository().getFeatureModel().map(SolverSession::new).orElse(null);
         analysis.getCurrentVariationDiff().forAll(node -> {
             if (node.isArtifact()) {
-                final EditClass editClass = ProposedEditClasses.Instance.match(node);
+                final EditClass editClass = ProposedEditClasses.Instance.match(node, session);
 
                 analysis.get(EditClassCount.KEY).reportOccurrenceFor(
                         editClass,
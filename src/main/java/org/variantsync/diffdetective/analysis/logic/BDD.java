@@ -0,0 +1,435 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reduced ordered binary decision diagram (ROBDD) package.
+ *
+ * <p>BDD nodes are represented by {@code int} handles into the node table of a {@code BDD}
+ * instance. The table is hash-consed by a unique table, so equivalent formulas are represented by
+ * the same handle and equivalence checks reduce to {@code ==}. Boolean operations are implemented
+ * by {@link #ite if-then-else} with a direct-mapped computed cache.
+ *
+ * <p>The size of the node table is bounded by a node limit. Operations exceeding the limit throw a
+ * {@link NodeLimitExceededException}, after which the caller should {@link #clear()} this BDD and
+ * fall back to a SAT solver. BDDs are small for presence conditions, which typically consist of a
+ * few features, so most queries never hit the limit.
+ *
+ * <p>The variable order is fixed when a variable is created. Unknown variables are appended to the
+ * order. A good order can be seeded with {@link #seedVariableOrder} based on how often features
+ * occur together (see {@link #orderByCooccurrence}).
+ *
+ * <p>Nodes are never freed individually, so a {@code BDD} should be used for one run over a set
+ * of related formulas (e.g., the presence conditions of a repository) and cleared when it is full.
+ * This class is not thread-safe. {@link SAT} uses one instance per thread.
+ */
+public class BDD {
+    /** Handle of the constant false. */
+    public static final int FALSE = 0;
+    /** Handle of the constant true. */
+    public static final int TRUE = 1;
+    /** The node limit used by {@link SAT}. */
+    public static final int DEFAULT_NODE_LIMIT = 1 << 20;
+
+    /** Thrown when an operation would create more nodes than the node limit of a {@link BDD}. */
+    public static final class NodeLimitExceededException extends RuntimeException {
+        private NodeLimitExceededException(final int limit) {
+            super("The BDD node limit of " + limit + " was exceeded", null, false, false);
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int CACHE_SIZE = 1 << 16;
+    /** The variable index of the terminal nodes, which is larger than that of any variable. */
+    private static final int TERMINAL = Integer.MAX_VALUE;
+
+    private final int nodeLimit;
+
+    // Node table. The variable index of a node is its level in the variable order.
+    private int[] variable;
+    private int[] low;
+    private int[] high;
+    /** Chains of the unique table. */
+    private int[] next;
+    private int[] buckets;
+    private int size;
+
+    // Computed cache of ite(f, g, h), direct-mapped.
+    private final int[] cacheF = new int[CACHE_SIZE];
+    private final int[] cacheG = new int[CACHE_SIZE];
+    private final int[] cacheH = new int[CACHE_SIZE];
+    private final int[] cacheResult = new int[CACHE_SIZE];
+
+    private final Map<Object, Integer> variableIndices = new HashMap<>();
+    private final List<Object> variableNames = new ArrayList<>();
+
+    private int limitExceeded = 0;
+
+    /**
+     * Creates an empty BDD whose node table holds at most {@code nodeLimit} nodes.
+     */
+    public BDD(final int nodeLimit) {
+        if (nodeLimit < 2) {
+            throw new IllegalArgumentException("The node limit must be at least 2 but was " + nodeLimit);
+        }
+        this.nodeLimit = nodeLimit;
+        clear();
+    }
+
+    /**
+     * Removes all nodes except for the terminals.
+     * The variable order is kept. All handles obtained before are invalidated.
+     */
+    public void clear() {
+        final int capacity = Math.min(INITIAL_CAPACITY, nodeLimit);
+        variable = new int[capacity];
+        low = new int[capacity];
+        high = new int[capacity];
+        next = new int[capacity];
+        buckets = new int[Integer.highestOneBit(Math.max(2, capacity)) * 2];
+        Arrays.fill(buckets, -1);
+        // Handle 0 of cacheF means "empty" because FALSE is never cached as condition.
+        Arrays.fill(cacheF, FALSE);
+
+        variable[FALSE] = TERMINAL;
+        variable[TRUE] = TERMINAL;
+        size = 2;
+    }
+
+    /**
+     * Clears this BDD and fixes the order of the given variables.
+     * Variables not contained in {@code order} are ordered after all given variables in the order
+     * of their first use.
+     */
+    public void seedVariableOrder(final List<?> order) {
+        variableIndices.clear();
+        variableNames.clear();
+        for (final Object name : order) {
+            getVariableIndex(name);
+        }
+        clear();
+    }
+
+    /**
+     * Computes a variable order in which variables that often occur in the same formula are close
+     * to each other, which usually keeps BDDs small.
+     * Starting with the most frequent variable, the order is extended greedily by the variable
+     * which occurs together with the already ordered variables most often.
+     *
+     * @param formulas formulas whose variables should be ordered (e.g., feature mappings)
+     * @return the names of all variables of {@code formulas}
+     */
+    public static List<Object> orderByCooccurrence(final Iterable<Node> formulas) {
+        final Map<Object, Integer> ids = new HashMap<>();
+        final List<Object> names = new ArrayList<>();
+        final List<int[]> variablesOfFormulas = new ArrayList<>();
+        for (final Node formula : formulas) {
+            final Set<Object> variables = new LinkedHashSet<>();
+            collectVariables(formula, variables);
+            final int[] vs = new int[variables.size()];
+            int i = 0;
+            for (final Object v : variables) {
+                vs[i++] = ids.computeIfAbsent(v, x -> {
+                    names.add(x);
+                    return names.size() - 1;
+                });
+            }
+            variablesOfFormulas.add(vs);
+        }
+
+        final int n = names.size();
+        final int[] frequency = new int[n];
+        final List<Map<Integer, Integer>> cooccurrence = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            cooccurrence.add(new HashMap<>());
+        }
+        for (final int[] vs : variablesOfFormulas) {
+            for (final int a : vs) {
+                ++frequency[a];
+                for (final int b : vs) {
+                    if (a != b) {
+                        cooccurrence.get(a).merge(b, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        final List<Object> order = new ArrayList<>(n);
+        final boolean[] placed = new boolean[n];
+        final long[] score = new long[n];
+        for (int k = 0; k < n; ++k) {
+            int best = -1;
+            for (int v = 0; v < n; ++v) {
+                if (!placed[v] && (best < 0
+                        || score[v] > score[best]
+                        || (score[v] == score[best] && frequency[v] > frequency[best]))) {
+                    best = v;
+                }
+            }
+
+            placed[best] = true;
+            order.add(names.get(best));
+            for (final Map.Entry<Integer, Integer> neighbour : cooccurrence.get(best).entrySet()) {
+                score[neighbour.getKey()] += neighbour.getValue();
+            }
+        }
+        return order;
+    }
+
+    private static void collectVariables(final Node formula, final Set<Object> variables) {
+        if (formula instanceof Literal l) {
+            if (!FixTrueFalse.isTrueLiteral(l) && !FixTrueFalse.isFalseLiteral(l)) {
+                variables.add(l.var);
+            }
+        } else {
+            for (final Node child : formula.getChildren()) {
+                collectVariables(child, variables);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the node table including the two terminals.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * Returns how often an operation of this BDD exceeded the node limit.
+     */
+    public int getNumberOfExceededLimits() {
+        return limitExceeded;
+    }
+
+    public int getNumberOfVariables() {
+        return variableNames.size();
+    }
+
+    /**
+     * Returns the variables of this BDD in their order.
+     */
+    public List<Object> getVariableOrder() {
+        return List.copyOf(variableNames);
+    }
+
+    private int getVariableIndex(final Object name) {
+        return variableIndices.computeIfAbsent(name, n -> {
+            variableNames.add(n);
+            return variableNames.size() - 1;
+        });
+    }
+
+    /**
+     * Returns the BDD of the variable with the given name.
+     */
+    public int variable(final Object name) {
+        return mk(getVariableIndex(name), FALSE, TRUE);
+    }
+
+    public int not(final int f) {
+        return ite(f, FALSE, TRUE);
+    }
+
+    public int and(final int f, final int g) {
+        return ite(f, g, FALSE);
+    }
+
+    public int or(final int f, final int g) {
+        return ite(f, TRUE, g);
+    }
+
+    public int implies(final int f, final int g) {
+        return ite(f, g, TRUE);
+    }
+
+    public int equivalent(final int f, final int g) {
+        return ite(f, g, not(g));
+    }
+
+    /**
+     * Returns the BDD of {@code (f & g) | (!f & h)}.
+     * @throws NodeLimitExceededException if the result would exceed the node limit
+     */
+    public int ite(final int f, final int g, final int h) {
+        // terminal cases
+        if (f == TRUE) {
+            return g;
+        }
+        if (f == FALSE) {
+            return h;
+        }
+        if (g == h) {
+            return g;
+        }
+        if (g == TRUE && h == FALSE) {
+            return f;
+        }
+
+        final int slot = cacheSlot(f, g, h);
+        if (cacheF[slot] == f && cacheG[slot] == g && cacheH[slot] == h) {
+            return cacheResult[slot];
+        }
+
+        final int top = Math.min(variable[f], Math.min(variable[g], variable[h]));
+        final int r = mk(top,
+                ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false)),
+                ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true)));
+
+        cacheF[slot] = f;
+        cacheG[slot] = g;
+        cacheH[slot] = h;
+        cacheResult[slot] = r;
+        return r;
+    }
+
+    private int cofactor(final int f, final int top, final boolean value) {
+        if (variable[f] != top) {
+            return f;
+        }
+        return value ? high[f] : low[f];
+    }
+
+    private static int cacheSlot(final int f, final int g, final int h) {
+        int hash = f * 0x9E3779B1 + g * 0x85EBCA77 + h * 0xC2B2AE3D;
+        hash ^= hash >>> 15;
+        return hash & (CACHE_SIZE - 1);
+    }
+
+    /**
+     * Returns the unique node with the given variable and children.
+     */
+    private int mk(final int var, final int lo, final int hi) {
+        if (lo == hi) {
+            return lo;
+        }
+
+        int hash = (var * 31 + lo) * 31 + hi;
+        hash ^= hash >>> 16;
+        final int bucket = hash & (buckets.length - 1);
+        for (int n = buckets[bucket]; n >= 0; n = next[n]) {
+            if (variable[n] == var && low[n] == lo && high[n] == hi) {
+                return n;
+            }
+        }
+
+        if (size == variable.length) {
+            grow();
+            return mk(var, lo, hi);
+        }
+
+        final int n = size++;
+        variable[n] = var;
+        low[n] = lo;
+        high[n] = hi;
+        next[n] = buckets[bucket];
+        buckets[bucket] = n;
+        return n;
+    }
+
+    private void grow() {
+        if (variable.length >= nodeLimit) {
+            ++limitExceeded;
+            throw new NodeLimitExceededException(nodeLimit);
+        }
+
+        final int capacity = (int) Math.min(nodeLimit, 2L * variable.length);
+        variable = Arrays.copyOf(variable, capacity);
+        low = Arrays.copyOf(low, capacity);
+        high = Arrays.copyOf(high, capacity);
+        next = Arrays.copyOf(next, capacity);
+
+        buckets = new int[Integer.highestOneBit(capacity) * 2];
+        Arrays.fill(buckets, -1);
+        for (int n = 2; n < size; ++n) {
+            int hash = (variable[n] * 31 + low[n]) * 31 + high[n];
+            hash ^= hash >>> 16;
+            final int bucket = hash & (buckets.length - 1);
+            next[n] = buckets[bucket];
+            buckets[bucket] = n;
+        }
+    }
+
+    /**
+     * Converts a prop4j formula to a BDD.
+     * Variables named like constants (see {@link FixTrueFalse}) are converted to the constants.
+     *
+     * @throws NodeLimitExceededException if the result would exceed the node limit
+     * @throws IllegalArgumentException if {@code formula} contains operators other than
+     * {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals} and {@link Literal}
+     */
+    public int fromNode(final Node formula) {
+        return fromNode(formula, new IdentityHashMap<>());
+    }
+
+    private int fromNode(final Node formula, final Map<Node, Integer> converted) {
+        final Integer known = converted.get(formula);
+        if (known != null) {
+            return known;
+        }
+
+        final int result;
+        if (formula instanceof Literal l) {
+            final int value;
+            if (FixTrueFalse.isTrueLiteral(l)) {
+                value = TRUE;
+            } else if (FixTrueFalse.isFalseLiteral(l)) {
+                value = FALSE;
+            } else {
+                value = variable(l.var);
+            }
+            result = l.positive ? value : not(value);
+        } else if (formula instanceof Not) {
+            result = not(fromNode(formula.getChildren()[0], converted));
+        } else if (formula instanceof And) {
+            int r = TRUE;
+            for (final Node child : formula.getChildren()) {
+                r = and(r, fromNode(child, converted));
+                if (r == FALSE) {
+                    break;
+                }
+            }
+            result = r;
+        } else if (formula instanceof Or) {
+            int r = FALSE;
+            for (final Node child : formula.getChildren()) {
+                r = or(r, fromNode(child, converted));
+                if (r == TRUE) {
+                    break;
+                }
+            }
+            result = r;
+        } else if (formula instanceof Implies) {
+            final Node[] children = formula.getChildren();
+            result = implies(fromNode(children[0], converted), fromNode(children[1], converted));
+        } else if (formula instanceof Equals) {
+            final Node[] children = formula.getChildren();
+            result = equivalent(fromNode(children[0], converted), fromNode(children[1], converted));
+        } else {
+            throw new IllegalArgumentException("Unsupported operator " + formula.getClass().getSimpleName() + " in " + formula);
+        }
+
+        converted.put(formula, result);
+        return result;
+    }
+}
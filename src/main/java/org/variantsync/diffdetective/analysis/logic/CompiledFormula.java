@@ -0,0 +1,280 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A formula compiled to a flat list of instructions on bit vectors, which evaluates the formula on
+ * many configurations at once.
+ *
+ * <p>Each instruction computes one register from a variable or from previously computed
+ * registers, so subformulas which occur multiple times (by identity) are evaluated once. A
+ * register holds the values of a subformula for 64 configurations per {@code long}. To give the
+ * JIT the chance to vectorize the evaluation, {@link #evaluate(ConfigurationMatrix)} processes
+ * blocks of {@value #BLOCK_SIZE} {@code long}s per instruction.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class CompiledFormula {
+    /** Number of {@code long}s evaluated per instruction. */
+    private static final int BLOCK_SIZE = 4;
+
+    private static final byte VARIABLE = 0;
+    private static final byte NEGATED_VARIABLE = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte NOT = 4;
+    private static final byte AND = 5;
+    private static final byte OR = 6;
+    private static final byte IMPLIES = 7;
+    private static final byte EQUALS = 8;
+
+    private final byte[] opcodes;
+    /** Variable index for (negated) variables, first operand register otherwise. */
+    private final int[] left;
+    /** Second operand register for binary operators. */
+    private final int[] right;
+    /** The register holding the value of the whole formula. */
+    private final int result;
+    private final List<Object> variables;
+
+    private CompiledFormula(final byte[] opcodes, final int[] left, final int[] right, final int result, final List<Object> variables) {
+        this.opcodes = opcodes;
+        this.left = left;
+        this.right = right;
+        this.result = result;
+        this.variables = Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * Compiles the given formula.
+     * Literals representing true or false (see {@link FixTrueFalse}) are compiled to constants.
+     *
+     * @throws IllegalArgumentException if {@code formula} contains operators other than
+     * {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals} and {@link Literal}
+     */
+    public static CompiledFormula compile(final Node formula) {
+        final Compiler compiler = new Compiler();
+        return compiler.build(compiler.compile(formula));
+    }
+
+    /**
+     * Returns the variables of this formula. The index of a variable in this list is its index
+     * for {@link #evaluate(long...)}.
+     */
+    public List<Object> getVariables() {
+        return variables;
+    }
+
+    /** Returns the number of instructions of this formula. */
+    public int size() {
+        return opcodes.length;
+    }
+
+    /**
+     * Evaluates this formula on 64 assignments.
+     * @param values the values of all {@link #getVariables() variables} in all assignments: bit
+     * {@code j} of {@code values[i]} is the value of variable {@code i} in assignment {@code j}
+     * @return a bit vector whose bit {@code j} is set iff assignment {@code j} satisfies this formula
+     */
+    public long evaluate(final long... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected values for " + variables.size() + " variables but got " + values.length);
+        }
+
+        final long[][] columns = new long[values.length][];
+        for (int i = 0; i < values.length; ++i) {
+            columns[i] = new long[]{values[i]};
+        }
+        final long[] registers = new long[opcodes.length];
+        run(columns, 0, 1, registers);
+        return registers[result];
+    }
+
+    /**
+     * Evaluates this formula on all configurations of {@code configurations}.
+     * @return the indices of all configurations satisfying this formula
+     */
+    public BitSet evaluate(final ConfigurationMatrix configurations) {
+        final long[][] columns = new long[variables.size()][];
+        for (int i = 0; i < columns.length; ++i) {
+            columns[i] = configurations.getColumn(variables.get(i));
+        }
+
+        final int words = configurations.getNumberOfWords();
+        final long[] result = new long[words];
+        final long[] registers = new long[opcodes.length * BLOCK_SIZE];
+        for (int offset = 0; offset < words; offset += BLOCK_SIZE) {
+            final int blockSize = Math.min(BLOCK_SIZE, words - offset);
+            run(columns, offset, blockSize, registers);
+            System.arraycopy(registers, this.result * blockSize, result, offset, blockSize);
+        }
+
+        if (words > 0) {
+            result[words - 1] &= configurations.lastWordMask();
+        }
+        return BitSet.valueOf(result);
+    }
+
+    /**
+     * Executes all instructions on the words {@code offset} to {@code offset + blockSize - 1} of
+     * {@code columns}. Register {@code i} occupies {@code registers[i * blockSize]} to
+     * {@code registers[(i + 1) * blockSize - 1]}.
+     * A column which is {@code null} is treated as all zeros.
+     */
+    private void run(final long[][] columns, final int offset, final int blockSize, final long[] registers) {
+        for (int i = 0; i < opcodes.length; ++i) {
+            final int target = i * blockSize;
+            final int a = left[i] * blockSize;
+            final int b = right[i] * blockSize;
+            switch (opcodes[i]) {
+                case VARIABLE, NEGATED_VARIABLE -> {
+                    final long[] column = columns[left[i]];
+                    final long negation = opcodes[i] == NEGATED_VARIABLE ? -1L : 0L;
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = (column == null ? 0L : column[offset + k]) ^ negation;
+                    }
+                }
+                case TRUE -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = -1L;
+                    }
+                }
+                case FALSE -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = 0L;
+                    }
+                }
+                case NOT -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = ~registers[a + k];
+                    }
+                }
+                case AND -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = registers[a + k] & registers[b + k];
+                    }
+                }
+                case OR -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = registers[a + k] | registers[b + k];
+                    }
+                }
+                case IMPLIES -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = ~registers[a + k] | registers[b + k];
+                    }
+                }
+                case EQUALS -> {
+                    for (int k = 0; k < blockSize; ++k) {
+                        registers[target + k] = ~(registers[a + k] ^ registers[b + k]);
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + opcodes[i]);
+            }
+        }
+    }
+
+    /** Emits the instructions of a formula in post-order. */
+    private static final class Compiler {
+        private byte[] opcodes = new byte[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int size = 0;
+
+        private final List<Object> variables = new ArrayList<>();
+        private final Map<Object, Integer> variableIndices = new HashMap<>();
+        /** Registers of literals by variable index and polarity. */
+        private final Map<Long, Integer> literals = new HashMap<>();
+        private final Map<Node, Integer> subformulas = new IdentityHashMap<>();
+
+        /** Emits the instructions for {@code formula} and returns the register of its value. */
+        int compile(final Node formula) {
+            if (formula instanceof Literal l) {
+                if (FixTrueFalse.isTrueLiteral(l) || FixTrueFalse.isFalseLiteral(l)) {
+                    return emit(FixTrueFalse.isTrueLiteral(l) == l.positive ? TRUE : FALSE, 0, 0);
+                }
+
+                final int variable = variableIndices.computeIfAbsent(l.var, v -> {
+                    variables.add(v);
+                    return variables.size() - 1;
+                });
+                final long key = 2L * variable + (l.positive ? 1 : 0);
+                final Integer register = literals.get(key);
+                if (register != null) {
+                    return register;
+                }
+                final int result = emit(l.positive ? VARIABLE : NEGATED_VARIABLE, variable, 0);
+                literals.put(key, result);
+                return result;
+            }
+
+            final Integer register = subformulas.get(formula);
+            if (register != null) {
+                return register;
+            }
+
+            final Node[] children = formula.getChildren();
+            final int result;
+            if (formula instanceof Not) {
+                result = emit(NOT, compile(children[0]), 0);
+            } else if (formula instanceof And || formula instanceof Or) {
+                final boolean isAnd = formula instanceof And;
+                if (children.length == 0) {
+                    result = emit(isAnd ? TRUE : FALSE, 0, 0);
+                } else {
+                    int accumulator = compile(children[0]);
+                    for (int i = 1; i < children.length; ++i) {
+                        accumulator = emit(isAnd ? AND : OR, accumulator, compile(children[i]));
+                    }
+                    result = accumulator;
+                }
+            } else if (formula instanceof Implies) {
+                result = emit(IMPLIES, compile(children[0]), compile(children[1]));
+            } else if (formula instanceof Equals) {
+                result = emit(EQUALS, compile(children[0]), compile(children[1]));
+            } else {
+                throw new IllegalArgumentException("Unsupported operator " + formula.getClass().getSimpleName() + " in " + formula);
+            }
+
+            subformulas.put(formula, result);
+            return result;
+        }
+
+        private int emit(final byte opcode, final int a, final int b) {
+            if (size == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, 2 * size);
+                left = Arrays.copyOf(left, 2 * size);
+                right = Arrays.copyOf(right, 2 * size);
+            }
+            opcodes[size] = opcode;
+            left[size] = a;
+            right[size] = b;
+            return size++;
+        }
+
+        CompiledFormula build(final int result) {
+            return new CompiledFormula(
+                    Arrays.copyOf(opcodes, size),
+                    Arrays.copyOf(left, size),
+                    Arrays.copyOf(right, size),
+                    result,
+                    variables);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A list of configurations, stored column-wise: for each feature, the selection of that feature in
+ * all configurations is stored as a bit vector. Bit {@code i} of a column describes the
+ * configuration with index {@code i}. Features without a column are deselected in all
+ * configurations.
+ *
+ * <p>This layout allows {@link CompiledFormula} to evaluate a formula on 64 configurations with a
+ * single machine instruction per operator.
+ */
+public final class ConfigurationMatrix {
+    private final int size;
+    private final int words;
+    private final Map<Object, long[]> columns = new HashMap<>();
+
+    /**
+     * Creates {@code size} configurations in which all features are deselected.
+     */
+    public ConfigurationMatrix(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The number of configurations must not be negative but was " + size);
+        }
+        this.size = size;
+        this.words = (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Creates one configuration for each set of selected features in {@code configurations}.
+     */
+    public static ConfigurationMatrix of(final List<? extends Collection<?>> configurations) {
+        final ConfigurationMatrix matrix = new ConfigurationMatrix(configurations.size());
+        for (int i = 0; i < configurations.size(); ++i) {
+            for (final Object feature : configurations.get(i)) {
+                matrix.set(i, feature, true);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Creates {@code size} configurations in which each of the given features is selected
+     * uniformly at random.
+     */
+    public static ConfigurationMatrix random(final Collection<?> features, final int size, final Random random) {
+        final ConfigurationMatrix matrix = new ConfigurationMatrix(size);
+        final long lastWordMask = matrix.lastWordMask();
+        for (final Object feature : features) {
+            final long[] column = matrix.column(feature);
+            for (int i = 0; i < column.length; ++i) {
+                column[i] = random.nextLong();
+            }
+            if (column.length > 0) {
+                column[column.length - 1] &= lastWordMask;
+            }
+        }
+        return matrix;
+    }
+
+    /** Returns the number of configurations. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the number of {@code long}s per column. */
+    public int getNumberOfWords() {
+        return words;
+    }
+
+    /** Returns all features which are selected in at least one configuration. */
+    public Set<Object> getFeatures() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    public void set(final int configuration, final Object feature, final boolean selected) {
+        checkIndex(configuration);
+        final long bit = 1L << configuration;
+        if (selected) {
+            column(feature)[configuration / Long.SIZE] |= bit;
+        } else {
+            final long[] column = columns.get(feature);
+            if (column != null) {
+                column[configuration / Long.SIZE] &= ~bit;
+            }
+        }
+    }
+
+    public boolean isSelected(final int configuration, final Object feature) {
+        checkIndex(configuration);
+        final long[] column = columns.get(feature);
+        return column != null && (column[configuration / Long.SIZE] & (1L << configuration)) != 0;
+    }
+
+    /**
+     * Returns the column of {@code feature} or {@code null} if {@code feature} is deselected in all
+     * configurations. The returned array must not be modified.
+     */
+    long[] getColumn(final Object feature) {
+        return columns.get(feature);
+    }
+
+    /** The bits of the last word which belong to a configuration. */
+    long lastWordMask() {
+        final int remainder = size % Long.SIZE;
+        return remainder == 0 ? -1L : (1L << remainder) - 1;
+    }
+
+    private long[] column(final Object feature) {
+        return columns.computeIfAbsent(feature, f -> new long[words]);
+    }
+
+    private void checkIndex(final int configuration) {
+        if (configuration < 0 || configuration >= size) {
+            throw new IndexOutOfBoundsException("Configuration " + configuration + " does not exist in a matrix of " + size + " configurations");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import de.ovgu.featureide.fm.core.base.IFeatureModel;
+import de.ovgu.featureide.fm.core.editing.NodeCreator;
+import org.prop4j.Node;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.tools.DimacsOutputSolver;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The constraints of a feature model, compiled to clauses of a SAT solver once, so they can be
+ * loaded cheaply into many incremental solvers.
+ *
+ * <p>The constraints are encoded into clauses only once on construction. Instead of a CNF, which
+ * may be exponentially larger than the constraints, the {@link PlaistedGreenbaum} encoding is used
+ * which introduces auxiliary variables for nested subformulas. Each variable of the constraints is
+ * mapped to a fixed solver variable {@code 1} to {@link #getNumberOfVariables()}, followed by the
+ * auxiliary variables. Thus, loading the constraints into a solver ({@link #loadInto}) just copies
+ * the precompiled clauses. Queries then add only the clauses of their own formulas and decide them
+ * via assumptions (see {@link SolverSession}).
+ *
+ * <p>Instances are immutable and thread-safe. The queries {@link #isSatisfiable(Node)},
+ * {@link #implies(Node, Node)} and {@link #equivalent(Node, Node)} reuse one incremental
+ * {@link SolverSession} per thread, which is recreated once it grew too large.
+ */
+public final class FeatureModelConstraints {
+    /**
+     * The number of variables which a per-thread session may create in addition to the variables
+     * of the constraints before it is recreated.
+     */
+    private static final int MAX_ADDITIONAL_VARIABLES = 1 << 16;
+    private final int[][] clauses;
+    private final Map<String, Integer> variables;
+    /** The number of variables of the constraints including auxiliary variables. */
+    private final int numberOfSolverVariables;
+    private final ThreadLocal<SolverSession> sessions = new ThreadLocal<>();
+
+    /**
+     * Encodes the given constraints into clauses.
+     * @param constraints a propositional formula over the features of a feature model. It is
+     * neither modified nor retained.
+     */
+    public FeatureModelConstraints(final Node constraints) {
+        final Map<String, Integer> variables = new HashMap<>();
+        final List<int[]> clauses = new ArrayList<>();
+        // Records the clauses of the encoder instead of solving them.
+        final ISolver recorder = new DimacsOutputSolver(new PrintWriter(Writer.nullWriter())) {
+            @Override
+            public IConstr addClause(final IVecInt literals) {
+                final int[] clause = new int[literals.size()];
+                literals.copyTo(clause);
+                clauses.add(clause);
+                return null;
+            }
+        };
+
+        final FixTrueFalse.Formula formula = FixTrueFalse.EliminateTrueAndFalse(constraints);
+        if (formula.isFalseConstant()) {
+            clauses.add(new int[0]);
+        } else if (!formula.isTrueConstant()) {
+            final Node encodable = formula.get();
+            final PlaistedGreenbaum encoder = new PlaistedGreenbaum(recorder);
+            // Allocate the variables of the constraints before any auxiliary variable.
+            for (final Object variable : encodable.getVariables()) {
+                variables.computeIfAbsent(variable.toString(), name -> encoder.getVariable(variable));
+            }
+
+            try {
+                encoder.assertFormula(encodable);
+            } catch (ContradictionException e) {
+                // The recorder never detects contradictions.
+                throw new IllegalStateException(e);
+            }
+        }
+
+        this.clauses = clauses.toArray(int[][]::new);
+        this.variables = Collections.unmodifiableMap(variables);
+        this.numberOfSolverVariables = recorder.nVars();
+    }
+
+    /**
+     * Compiles the constraints of the given feature model, including its tree constraints and
+     * cross-tree constraints.
+     */
+    public static FeatureModelConstraints fromFeatureModel(final IFeatureModel featureModel) {
+        return new FeatureModelConstraints(NodeCreator.createNodes(featureModel));
+    }
+
+    /** Returns the number of clauses encoding the constraints. */
+    public int getNumberOfClauses() {
+        return clauses.length;
+    }
+
+    /** Returns the number of variables occurring in the constraints. */
+    public int getNumberOfVariables() {
+        return variables.size();
+    }
+
+    /** Returns the number of auxiliary variables introduced by the encoding of the constraints. */
+    public int getNumberOfAuxiliaryVariables() {
+        return numberOfSolverVariables - variables.size();
+    }
+
+    /**
+     * Returns the solver variable of the variable with the given name or {@code 0} if it does not
+     * occur in the constraints.
+     */
+    public int getVariable(final String name) {
+        return variables.getOrDefault(name, 0);
+    }
+
+    /**
+     * Adds all clauses of the constraints to the given solver, which must not have any variables
+     * yet. Afterwards, the solver variables {@code 1} to {@link #getNumberOfVariables()} are used
+     * by the constraints (see {@link #getVariable}), followed by the
+     * {@link #getNumberOfAuxiliaryVariables() auxiliary variables}.
+     *
+     * @throws ContradictionException if the constraints are unsatisfiable
+     */
+    public void loadInto(final ISolver solver) throws ContradictionException {
+        if (solver.nVars() != 0) {
+            throw new IllegalArgumentException("Constraints can only be loaded into an empty solver");
+        }
+
+        solver.newVar(numberOfSolverVariables);
+        for (final int[] clause : clauses) {
+            solver.addClause(new VecInt(clause));
+        }
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable together with the constraints.
+     * @see SAT#isSatisfiable(Node)
+     */
+    public boolean isSatisfiable(final Node formula) {
+        return session().isSatisfiable(formula);
+    }
+
+    /**
+     * Checks whether <code>left</code> =&gt; <code>right</code> holds in all configurations
+     * satisfying the constraints.
+     * @see SAT#implies(Node, Node)
+     */
+    public boolean implies(final Node left, final Node right) {
+        return session().implies(left, right);
+    }
+
+    /**
+     * Checks whether <code>left</code> &lt;=&gt; <code>right</code> holds in all configurations
+     * satisfying the constraints.
+     * @see SAT#equivalent(Node, Node)
+     */
+    public boolean equivalent(final Node left, final Node right) {
+        return session().equivalent(left, right);
+    }
+
+    /** Returns the session of the current thread. */
+    private SolverSession session() {
+        SolverSession session = sessions.get();
+        if (session == null || session.getNumberOfVariables() > numberOfSolverVariables + MAX_ADDITIONAL_VARIABLES) {
+            session = new SolverSession(this);
+            sessions.set(session);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,383 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.variantsync.diffdetective.analysis.logic.InternedFormula.Kind;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates hash-consed {@link InternedFormula}s.
+ *
+ * <p>The factory remembers every formula it ever created such that structurally equal formulas
+ * are represented by the same object. Variable names are interned as well and mapped to ids
+ * starting at {@code 1}, which allows to use them directly as DIMACS variables.
+ *
+ * <p>The smart constructors ({@link #and}, {@link #or}, {@link #not}, ...) perform cheap
+ * simplifications which do not change the semantics of a formula:
+ * <ul>
+ * <li>the constants true and false are folded,
+ * <li>double negations are removed,
+ * <li>nested conjunctions (disjunctions) are flattened, duplicate operands are removed and
+ *     operands are sorted by {@link InternedFormula#getId() id},
+ * <li>conjunctions (disjunctions) containing a variable and its negation are folded.
+ * </ul>
+ * Hence, formulas which are equal modulo associativity, commutativity and idempotency of
+ * conjunction and disjunction are represented by the same object.
+ *
+ * <p>This class is thread-safe. As formulas are never removed from a factory, a factory should be
+ * discarded when its formulas are not needed anymore.
+ */
+public class FormulaFactory {
+    /**
+     * A factory shared by the whole program.
+     * Variables of all formulas converted by this factory stay interned for the whole runtime.
+     */
+    public static final FormulaFactory Default = new FormulaFactory();
+
+    private final Map<InternedFormula, InternedFormula> formulas = new ConcurrentHashMap<>();
+    private final Map<String, Integer> variableIds = new ConcurrentHashMap<>();
+    /**
+     * Names of all variables indexed by their id. Only grows while holding the lock of
+     * {@link #variableIds} and is replaced when it is full, so it can be read without locking.
+     */
+    private volatile String[] variableNames = new String[16];
+    private int numberOfVariables = 0;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /** The constant true of this factory. */
+    public final InternedFormula True;
+    /** The constant false of this factory. */
+    public final InternedFormula False;
+
+    public FormulaFactory() {
+        True = intern(Kind.TRUE, 0);
+        False = intern(Kind.FALSE, 0);
+    }
+
+    /**
+     * Returns the variable with the given name.
+     * Names of constants (see {@link FixTrueFalse#TrueNames} and {@link FixTrueFalse#FalseNames})
+     * are not converted to constants. Use {@link #fromNode} for this purpose.
+     */
+    public InternedFormula variable(final String name) {
+        return variable(getVariableId(name));
+    }
+
+    /**
+     * Returns the variable with the given id.
+     * @param id an id previously returned by {@link #getVariableId}
+     */
+    public InternedFormula variable(final int id) {
+        if (id <= 0 || id > getNumberOfVariables()) {
+            throw new IllegalArgumentException("Unknown variable id " + id);
+        }
+        return intern(Kind.VARIABLE, id);
+    }
+
+    /**
+     * Returns the variable with the given name if {@code positive} is {@code true} and its
+     * negation otherwise.
+     */
+    public InternedFormula literal(final String name, final boolean positive) {
+        final InternedFormula variable = variable(name);
+        return positive ? variable : not(variable);
+    }
+
+    /**
+     * Returns the id of the variable with the given name and creates one if there is none.
+     */
+    public int getVariableId(final String name) {
+        final Integer id = variableIds.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (variableIds) {
+            return variableIds.computeIfAbsent(name, n -> {
+                // Variable 0 is reserved so that variable ids can be used as DIMACS literals.
+                final int newId = numberOfVariables + 1;
+                String[] names = variableNames;
+                if (newId >= names.length) {
+                    names = Arrays.copyOf(names, 2 * names.length);
+                }
+                names[newId] = n;
+                variableNames = names;
+                numberOfVariables = newId;
+                return newId;
+            });
+        }
+    }
+
+    /**
+     * Returns the name of the variable with the given id.
+     */
+    public String getVariableName(final int id) {
+        return variableNames[id];
+    }
+
+    /**
+     * Returns the number of distinct variables known to this factory.
+     * Valid variable ids range from {@code 1} to this number (inclusive).
+     */
+    public int getNumberOfVariables() {
+        synchronized (variableIds) {
+            return numberOfVariables;
+        }
+    }
+
+    /**
+     * Returns the number of distinct formulas created by this factory.
+     */
+    public int size() {
+        return formulas.size();
+    }
+
+    /**
+     * Returns the negation of {@code formula}.
+     */
+    public InternedFormula not(final InternedFormula formula) {
+        return switch (formula.getKind()) {
+            case TRUE -> False;
+            case FALSE -> True;
+            case NOT -> formula.getChild(0);
+            default -> intern(Kind.NOT, 0, formula);
+        };
+    }
+
+    /**
+     * Returns the conjunction of all given formulas.
+     * The conjunction of no formulas is {@link #True}.
+     */
+    public InternedFormula and(final InternedFormula... operands) {
+        return junction(Kind.AND, operands);
+    }
+
+    /**
+     * Same as {@link #and(InternedFormula...)}.
+     */
+    public InternedFormula and(final Collection<InternedFormula> operands) {
+        return and(operands.toArray(InternedFormula[]::new));
+    }
+
+    /**
+     * Returns the disjunction of all given formulas.
+     * The disjunction of no formulas is {@link #False}.
+     */
+    public InternedFormula or(final InternedFormula... operands) {
+        return junction(Kind.OR, operands);
+    }
+
+    /**
+     * Same as {@link #or(InternedFormula...)}.
+     */
+    public InternedFormula or(final Collection<InternedFormula> operands) {
+        return or(operands.toArray(InternedFormula[]::new));
+    }
+
+    /**
+     * Returns the implication {@code left => right}.
+     */
+    public InternedFormula implies(final InternedFormula left, final InternedFormula right) {
+        if (left.isFalse() || right.isTrue() || left == right) {
+            return True;
+        }
+        if (left.isTrue()) {
+            return right;
+        }
+        if (right.isFalse()) {
+            return not(left);
+        }
+        return intern(Kind.IMPLIES, 0, left, right);
+    }
+
+    /**
+     * Returns the equivalence {@code left <=> right}.
+     */
+    public InternedFormula equivalent(final InternedFormula left, final InternedFormula right) {
+        if (left == right) {
+            return True;
+        }
+        if (left.isTrue()) {
+            return right;
+        }
+        if (right.isTrue()) {
+            return left;
+        }
+        if (left.isFalse()) {
+            return not(right);
+        }
+        if (right.isFalse()) {
+            return not(left);
+        }
+        // Equivalence is commutative.
+        return left.getId() <= right.getId()
+                ? intern(Kind.EQUALS, 0, left, right)
+                : intern(Kind.EQUALS, 0, right, left);
+    }
+
+    /**
+     * Converts a prop4j formula to an interned formula.
+     * Variables named like constants (see {@link FixTrueFalse}) are converted to the respective
+     * constants, so the result is the interned version of
+     * {@link FixTrueFalse#EliminateTrueAndFalse}.
+     * Shared subformulas of {@code formula} are converted only once.
+     *
+     * @throws IllegalArgumentException if {@code formula} contains operators other than
+     * {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals} and {@link Literal}
+     */
+    public InternedFormula fromNode(final Node formula) {
+        return fromNode(formula, new IdentityHashMap<>());
+    }
+
+    private InternedFormula fromNode(final Node formula, final Map<Node, InternedFormula> converted) {
+        final InternedFormula cached = converted.get(formula);
+        if (cached != null) {
+            return cached;
+        }
+
+        final InternedFormula result;
+        if (formula instanceof Literal l) {
+            final InternedFormula value;
+            if (FixTrueFalse.isTrueLiteral(l)) {
+                value = True;
+            } else if (FixTrueFalse.isFalseLiteral(l)) {
+                value = False;
+            } else {
+                value = variable(l.var.toString());
+            }
+            result = l.positive ? value : not(value);
+        } else if (formula instanceof Not) {
+            result = not(fromNode(formula.getChildren()[0], converted));
+        } else if (formula instanceof And) {
+            result = and(childrenFromNode(formula, converted));
+        } else if (formula instanceof Or) {
+            result = or(childrenFromNode(formula, converted));
+        } else if (formula instanceof Implies) {
+            final InternedFormula[] children = childrenFromNode(formula, converted);
+            result = implies(children[0], children[1]);
+        } else if (formula instanceof Equals) {
+            final InternedFormula[] children = childrenFromNode(formula, converted);
+            result = equivalent(children[0], children[1]);
+        } else {
+            throw new IllegalArgumentException("Unsupported operator " + formula.getClass().getSimpleName() + " in " + formula);
+        }
+
+        converted.put(formula, result);
+        return result;
+    }
+
+    private InternedFormula[] childrenFromNode(final Node formula, final Map<Node, InternedFormula> converted) {
+        final Node[] children = formula.getChildren();
+        final InternedFormula[] result = new InternedFormula[children.length];
+        for (int i = 0; i < children.length; ++i) {
+            result[i] = fromNode(children[i], converted);
+        }
+        return result;
+    }
+
+    private InternedFormula junction(final Kind kind, final InternedFormula[] operands) {
+        final InternedFormula neutral = kind == Kind.AND ? True : False;
+        final InternedFormula absorbing = kind == Kind.AND ? False : True;
+
+        // Flatten nested junctions of the same kind and drop neutral elements.
+        final List<InternedFormula> flat = new ArrayList<>(operands.length);
+        for (final InternedFormula operand : operands) {
+            checkOwnership(operand);
+            if (operand == absorbing) {
+                return absorbing;
+            } else if (operand.getKind() == kind) {
+                flat.addAll(Arrays.asList(operand.children()));
+            } else if (operand != neutral) {
+                flat.add(operand);
+            }
+        }
+
+        // Sort by id, remove duplicates and detect complementary operands.
+        flat.sort(Comparator.comparingInt(InternedFormula::getId));
+        int size = 0;
+        for (final InternedFormula operand : flat) {
+            if (size == 0 || flat.get(size - 1) != operand) {
+                flat.set(size++, operand);
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            final InternedFormula operand = flat.get(i);
+            if (operand.getKind() == Kind.NOT && contains(flat, size, operand.getChild(0))) {
+                return absorbing;
+            }
+        }
+
+        if (size == 0) {
+            return neutral;
+        }
+        if (size == 1) {
+            return flat.get(0);
+        }
+        return intern(kind, 0, flat.subList(0, size).toArray(InternedFormula[]::new));
+    }
+
+    /**
+     * Binary search for {@code formula} in the first {@code size} elements of {@code sorted}
+     * which has to be sorted by id.
+     */
+    private static boolean contains(final List<InternedFormula> sorted, final int size, final InternedFormula formula) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int id = sorted.get(mid).getId();
+            if (id < formula.getId()) {
+                low = mid + 1;
+            } else if (id > formula.getId()) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InternedFormula intern(final Kind kind, final int variable, final InternedFormula... children) {
+        for (final InternedFormula child : children) {
+            checkOwnership(child);
+        }
+
+        final InternedFormula candidate = new InternedFormula(this, kind, variable, children);
+        final InternedFormula existing = formulas.get(candidate);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Ids are only consumed by formulas which are actually inserted, so they are dense and
+        // ascending in the order of insertion.
+        return formulas.computeIfAbsent(candidate, c -> {
+            final int id = nextId.getAndIncrement();
+            if (id < 0) {
+                throw new IllegalStateException("The ids of this factory are exhausted");
+            }
+            c.setId(id);
+            return c;
+        });
+    }
+
+    private void checkOwnership(final InternedFormula formula) {
+        if (formula.getFactory() != this) {
+            throw new IllegalArgumentException("Formula " + formula + " was created by another factory");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * An immutable propositional formula that is hash-consed by a {@link FormulaFactory}.
+ *
+ * <p>Each structurally equal formula is represented by exactly one instance per factory.
+ * Hence, formulas of the same factory can be compared with {@code ==} and subformulas are shared
+ * among all formulas, forming a directed acyclic graph. Hash codes are computed once on creation.
+ * Variables are identified by positive integers which can be mapped back to their names using
+ * {@link FormulaFactory#getVariableName}.
+ *
+ * <p>Formulas are created only by the smart constructors of {@link FormulaFactory}, which fold the
+ * constants true and false. Thus, a formula is either {@link Kind#TRUE}, {@link Kind#FALSE} or does
+ * not contain any constant, just like formulas produced by
+ * {@link FixTrueFalse#EliminateTrueAndFalse}.
+ *
+ * @see FormulaFactory
+ */
+public final class InternedFormula {
+    /**
+     * The operator at the root of an {@link InternedFormula}.
+     */
+    public enum Kind {
+        TRUE,
+        FALSE,
+        VARIABLE,
+        NOT,
+        AND,
+        OR,
+        IMPLIES,
+        EQUALS
+    }
+
+    private static final InternedFormula[] NO_CHILDREN = new InternedFormula[0];
+
+    /** Id marking formulas which were not interned yet. */
+    static final int NO_ID = -1;
+
+    private final FormulaFactory factory;
+    /** Assigned once by {@link FormulaFactory} when this formula is interned. */
+    private int id = NO_ID;
+    private final Kind kind;
+    private final int variable;
+    private final InternedFormula[] children;
+    private final int hashCode;
+    private final int numberOfLiterals;
+
+    /**
+     * Creates an uninterned formula without an {@link #getId() id}.
+     * Only {@link FormulaFactory} is allowed to call this constructor.
+     */
+    InternedFormula(final FormulaFactory factory, final Kind kind, final int variable, final InternedFormula[] children) {
+        this.factory = factory;
+        this.kind = kind;
+        this.variable = variable;
+        this.children = children.length == 0 ? NO_CHILDREN : children;
+
+        int hash = 31 * kind.ordinal() + variable;
+        long literals = kind == Kind.VARIABLE ? 1 : 0;
+        for (final InternedFormula child : this.children) {
+            hash = 31 * hash + child.hashCode;
+            literals += child.numberOfLiterals;
+        }
+        this.hashCode = hash;
+        this.numberOfLiterals = (int) Math.min(Integer.MAX_VALUE, literals);
+    }
+
+    /**
+     * Returns the factory which created this formula.
+     */
+    public FormulaFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns a number identifying this formula within its factory.
+     * Formulas are created in ascending order of their ids, so each child has a smaller id than
+     * its parent. The factory sorts the operands of {@link Kind#AND} and {@link Kind#OR} by id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the id of this formula when it is interned.
+     * Only {@link FormulaFactory} is allowed to call this method.
+     */
+    void setId(final int id) {
+        this.id = id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the id of the variable of this formula.
+     * Only valid if this formula is of kind {@link Kind#VARIABLE}.
+     */
+    public int getVariable() {
+        return variable;
+    }
+
+    /**
+     * Returns the name of the variable of this formula.
+     * Only valid if this formula is of kind {@link Kind#VARIABLE}.
+     */
+    public String getVariableName() {
+        return factory.getVariableName(variable);
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public InternedFormula getChild(final int index) {
+        return children[index];
+    }
+
+    public boolean isTrue() {
+        return kind == Kind.TRUE;
+    }
+
+    public boolean isFalse() {
+        return kind == Kind.FALSE;
+    }
+
+    /**
+     * Returns {@code true} iff this formula is a variable or a negated variable.
+     */
+    public boolean isLiteral() {
+        return kind == Kind.VARIABLE || (kind == Kind.NOT && children[0].kind == Kind.VARIABLE);
+    }
+
+    /**
+     * Returns the number of occurrences of variables in this formula when viewed as a tree.
+     * This is equivalent to {@link org.variantsync.diffdetective.util.fide.FormulaUtils#numberOfLiterals}
+     * of the {@link #toNode() converted} formula but takes constant time.
+     * Saturates at {@link Integer#MAX_VALUE}.
+     */
+    public int numberOfLiterals() {
+        return numberOfLiterals;
+    }
+
+    /**
+     * Returns the ids of all variables contained in this formula.
+     */
+    public BitSet getVariables() {
+        final BitSet variables = new BitSet();
+        collectVariables(variables, new IdentityHashMap<>());
+        return variables;
+    }
+
+    private void collectVariables(final BitSet variables, final Map<InternedFormula, Boolean> visited) {
+        if (kind == Kind.VARIABLE) {
+            variables.set(variable);
+        } else if (children.length > 0 && visited.put(this, Boolean.TRUE) == null) {
+            for (final InternedFormula child : children) {
+                child.collectVariables(variables, visited);
+            }
+        }
+    }
+
+    /**
+     * Converts this formula to a new prop4j formula.
+     * Except for the constants, the returned formula does not share any nodes with other formulas,
+     * so it may be modified.
+     * Negated variables are converted to negative {@link Literal}s and the constants are
+     * converted to {@link FixTrueFalse#True} and {@link FixTrueFalse#False}.
+     */
+    public Node toNode() {
+        return switch (kind) {
+            case TRUE -> FixTrueFalse.True;
+            case FALSE -> FixTrueFalse.False;
+            case VARIABLE -> new Literal(getVariableName(), true);
+            case NOT -> children[0].kind == Kind.VARIABLE
+                    ? new Literal(children[0].getVariableName(), false)
+                    : new Not(children[0].toNode());
+            case AND -> new And(childrenToNodes());
+            case OR -> new Or(childrenToNodes());
+            case IMPLIES -> new Implies(children[0].toNode(), children[1].toNode());
+            case EQUALS -> new Equals(children[0].toNode(), children[1].toNode());
+        };
+    }
+
+    private Node[] childrenToNodes() {
+        final Node[] nodes = new Node[children.length];
+        for (int i = 0; i < children.length; ++i) {
+            nodes[i] = children[i].toNode();
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the children of this formula. Only {@link FormulaFactory} may access this array
+     * directly as it must not be modified.
+     */
+    InternedFormula[] children() {
+        return children;
+    }
+
+    /**
+     * Compares the operator, the variable and the identities of the children.
+     * Because all children are interned, this is equivalent to structural equality and, for
+     * interned formulas of the same factory, equivalent to {@code ==}.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InternedFormula other)
+                || hashCode != other.hashCode
+                || kind != other.kind
+                || variable != other.variable
+                || factory != other.factory
+                || children.length != other.children.length) {
+            return false;
+        }
+        for (int i = 0; i < children.length; ++i) {
+            if (children[i] != other.children[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case TRUE -> "true";
+            case FALSE -> "false";
+            case VARIABLE -> getVariableName();
+            case NOT -> "-" + children[0];
+            default -> {
+                final String operator = switch (kind) {
+                    case AND -> " & ";
+                    case OR -> " | ";
+                    case IMPLIES -> " => ";
+                    default -> " <=> ";
+                };
+                final StringBuilder s = new StringBuilder("(");
+                for (int i = 0; i < children.length; ++i) {
+                    if (i > 0) {
+                        s.append(operator);
+                    }
+                    s.append(children[i]);
+                }
+                yield s.append(')').toString();
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Depth-first search for a consistent term of the DNF of a formula.
+ * Equivalent to {@link SAT#checkSATviaDNF} but constructs the DNF lazily, stops at the first
+ * satisfiable term and gives up after a fixed number of steps or on operators other than
+ * {@link Not}, {@link And}, {@link Or}, {@link Implies} and {@link Equals}.
+ */
+final class LazyDNF {
+    /** A persistent stack of subformulas which remain to be satisfied. */
+    private record Goal(Node formula, boolean positive, Goal next) {}
+
+    private final Map<Object, Boolean> assignment = new HashMap<>();
+    private int budget;
+
+    private LazyDNF(final int budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Checks whether {@code formula} is satisfiable within {@code budget} steps.
+     * The formula must not contain the constants true or false.
+     * @return the satisfiability of {@code formula} or {@code null} if the budget was exhausted
+     * or {@code formula} contains an unsupported operator
+     */
+    static Boolean isSatisfiable(final Node formula, final int budget) {
+        try {
+            return new LazyDNF(budget).search(new Goal(formula, true, null));
+        } catch (GiveUp e) {
+            return null;
+        }
+    }
+
+    private boolean search(final Goal goals) {
+        if (goals == null) {
+            return true;
+        }
+        if (--budget < 0) {
+            throw GiveUp.INSTANCE;
+        }
+
+        final Node f = goals.formula();
+        final boolean positive = goals.positive();
+        final Goal rest = goals.next();
+
+        if (f instanceof Literal l) {
+            final boolean value = l.positive == positive;
+            final Boolean assigned = assignment.get(l.var);
+            if (assigned != null) {
+                return assigned == value && search(rest);
+            }
+            assignment.put(l.var, value);
+            final boolean result = search(rest);
+            assignment.remove(l.var);
+            return result;
+        } else if (f instanceof Not) {
+            return search(new Goal(f.getChildren()[0], !positive, rest));
+        }
+
+        final Node[] c = f.getChildren();
+        if ((f instanceof And && positive) || (f instanceof Or && !positive)) {
+            Goal all = rest;
+            for (int i = c.length - 1; i >= 0; --i) {
+                all = new Goal(c[i], positive, all);
+            }
+            return search(all);
+        } else if (f instanceof And || f instanceof Or) {
+            for (final Node child : c) {
+                if (search(new Goal(child, positive, rest))) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (f instanceof Implies) {
+            if (positive) {
+                return search(new Goal(c[0], false, rest)) || search(new Goal(c[1], true, rest));
+            }
+            return search(new Goal(c[0], true, new Goal(c[1], false, rest)));
+        } else if (f instanceof Equals) {
+            return search(new Goal(c[0], true, new Goal(c[1], positive, rest)))
+                    || search(new Goal(c[0], false, new Goal(c[1], !positive, rest)));
+        }
+
+        // Unsupported operator (e.g., a cardinality constraint). Let the caller escalate.
+        throw GiveUp.INSTANCE;
+    }
+
+    /** Thrown to unwind the search when the budget is exhausted or an operator is unsupported. */
+    private static final class GiveUp extends RuntimeException {
+        private static final GiveUp INSTANCE = new GiveUp();
+
+        private GiveUp() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.AtLeast;
+import org.prop4j.AtMost;
+import org.prop4j.Choose;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.specs.SearchListener;
+import org.sat4j.specs.TimeoutException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Polarity-aware Tseytin conversion (Plaisted-Greenbaum encoding) which feeds clauses directly
+ * into a Sat4J {@link ISolver}.
+ *
+ * <p>In contrast to {@link Tseytin}, this encoder does not create any intermediate prop4j
+ * formulas. Variables are mapped to integers once and each clause is added as a {@link VecInt}.
+ * A subformula which occurs only positively (negatively) is only defined by an implication from
+ * (to) its helper variable instead of an equivalence, which roughly halves the number of clauses.
+ * The result is equisatisfiable to the input formula.
+ *
+ * <p>Cardinality operators are encoded by their expansion into propositional operators (see
+ * {@link FormulaUtils#eliminateCardinalities}).
+ *
+ * <p>Conjunctions at the root of the formula are asserted directly and disjunctions and
+ * implications of literals become plain clauses, so formulas in CNF are encoded without any helper
+ * variables.
+ *
+ * @see Tseytin
+ */
+public final class PlaistedGreenbaum {
+    /** The formula is only required to be implied by its helper variable. */
+    private static final int POSITIVE = 1;
+    /** The formula is only required to imply its helper variable. */
+    private static final int NEGATIVE = 2;
+    private static final int BOTH = POSITIVE | NEGATIVE;
+
+    private final ISolver solver;
+    private final Map<Object, Integer> variables = new HashMap<>();
+    /** Helper literals of already encoded subformulas, identified by identity. */
+    private final Map<Node, Integer> literals = new IdentityHashMap<>();
+    /** The polarities for which the subformulas in {@link #literals} are already defined. */
+    private final Map<Node, Integer> polarities = new IdentityHashMap<>();
+
+    /**
+     * Creates an encoder which adds clauses to the given solver.
+     * All variables of the solver are assumed to be managed by this encoder.
+     */
+    public PlaistedGreenbaum(final ISolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable by encoding it into a new Sat4J solver.
+     * @param formula Formula to check for being satisfiable.
+     * @return True iff the given formula is a satisfiable.
+     */
+    public static boolean isSatisfiable(final FixTrueFalse.Formula formula) {
+        return isSatisfiable(formula, null);
+    }
+
+    /**
+     * Same as {@link #isSatisfiable(FixTrueFalse.Formula)} but reports the search to
+     * {@code listener}, which may abort it by throwing an unchecked exception.
+     * @param listener the listener of the solver or {@code null} for none
+     */
+    static boolean isSatisfiable(final FixTrueFalse.Formula formula, final SearchListener<ISolverService> listener) {
+        if (formula.isTrueConstant()) {
+            return true;
+        } else if (formula.isFalseConstant()) {
+            return false;
+        }
+
+        final ISolver solver = SolverFactory.newDefault();
+        // A time based timeout would start a timer thread for each query.
+        solver.setTimeoutOnConflicts(Integer.MAX_VALUE);
+        if (listener != null) {
+            solver.setSearchListener(listener);
+        }
+        try {
+            new PlaistedGreenbaum(solver).assertFormula(formula.get());
+            return solver.isSatisfiable();
+        } catch (ContradictionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("SAT solver timed out on " + formula.get(), e);
+        }
+    }
+
+    /**
+     * Returns the solver variable of the variable with the given name and creates one if
+     * necessary.
+     */
+    public int getVariable(final Object name) {
+        return variables.computeIfAbsent(name, n -> solver.nextFreeVarId(true));
+    }
+
+    /**
+     * Adds clauses to the solver which are satisfiable iff {@code formula} is satisfiable (in
+     * conjunction with all previously asserted formulas).
+     * The formula must not contain the constants true or false (see {@link FixTrueFalse}).
+     *
+     * @throws ContradictionException if the solver detected a trivial contradiction
+     * @throws IllegalArgumentException if {@code formula} contains operators other than
+     * {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals}, {@link Literal} and
+     * the cardinality operators {@link AtMost}, {@link AtLeast} and {@link Choose}
+     */
+    public void assertFormula(final Node formula) throws ContradictionException {
+        if (formula instanceof And) {
+            for (final Node child : formula.getChildren()) {
+                assertFormula(child);
+            }
+        } else if (formula instanceof Or) {
+            final Node[] children = formula.getChildren();
+            final int[] clause = new int[children.length];
+            for (int i = 0; i < children.length; ++i) {
+                clause[i] = encode(children[i], POSITIVE);
+            }
+            solver.addClause(new VecInt(clause));
+        } else if (formula instanceof Implies) {
+            // a => b is asserted as (-a | b)
+            final Node[] children = formula.getChildren();
+            addClause(-encode(children[0], NEGATIVE), encode(children[1], POSITIVE));
+        } else {
+            solver.addClause(new VecInt(new int[]{encode(formula, POSITIVE)}));
+        }
+    }
+
+    /**
+     * Returns a solver literal which is equivalent to {@code formula} in all models of the solver.
+     * In contrast to {@link #assertFormula}, {@code formula} is not required to hold.
+     * The formula must not contain the constants true or false (see {@link FixTrueFalse}).
+     *
+     * @throws ContradictionException if the solver detected a trivial contradiction
+     * @throws IllegalArgumentException if {@code formula} contains unsupported operators
+     */
+    public int getLiteral(final Node formula) throws ContradictionException {
+        return encode(formula, BOTH);
+    }
+
+    /**
+     * Returns a literal {@code l} such that {@code l => formula} holds if {@code polarity}
+     * contains {@link #POSITIVE} and {@code formula => l} holds if {@code polarity} contains
+     * {@link #NEGATIVE}.
+     */
+    private int encode(final Node formula, final int polarity) throws ContradictionException {
+        if (formula instanceof Literal l) {
+            final int variable = getVariable(l.var);
+            return l.positive ? variable : -variable;
+        }
+        if (formula instanceof Not) {
+            return -encode(formula.getChildren()[0], flip(polarity));
+        }
+
+        Integer literal = literals.get(formula);
+        final int defined;
+        if (literal == null) {
+            literal = solver.nextFreeVarId(true);
+            literals.put(formula, literal);
+            defined = 0;
+        } else {
+            defined = polarities.get(formula);
+        }
+
+        final int missing = polarity & ~defined;
+        if (missing != 0) {
+            polarities.put(formula, defined | missing);
+            define(formula, literal, missing);
+        }
+        return literal;
+    }
+
+    /**
+     * Adds the clauses defining {@code t} as the helper variable of {@code formula} for the given
+     * polarities.
+     */
+    private void define(final Node formula, final int t, final int polarity) throws ContradictionException {
+        final Node[] children = formula.getChildren();
+        final boolean positive = (polarity & POSITIVE) != 0;
+        final boolean negative = (polarity & NEGATIVE) != 0;
+
+        if (formula instanceof And) {
+            final int[] big = new int[children.length + 1];
+            big[0] = t;
+            for (int i = 0; i < children.length; ++i) {
+                final int c = encode(children[i], polarity);
+                if (positive) {
+                    addClause(-t, c);
+                }
+                big[i + 1] = -c;
+            }
+            if (negative) {
+                solver.addClause(new VecInt(big));
+            }
+        } else if (formula instanceof Or) {
+            final int[] big = new int[children.length + 1];
+            big[0] = -t;
+            for (int i = 0; i < children.length; ++i) {
+                final int c = encode(children[i], polarity);
+                if (negative) {
+                    addClause(t, -c);
+                }
+                big[i + 1] = c;
+            }
+            if (positive) {
+                solver.addClause(new VecInt(big));
+            }
+        } else if (formula instanceof Implies) {
+            // a => b is defined as (-a | b)
+            final int a = encode(children[0], flip(polarity));
+            final int b = encode(children[1], polarity);
+            if (positive) {
+                addClause(-t, -a, b);
+            }
+            if (negative) {
+                addClause(t, a);
+                addClause(t, -b);
+            }
+        } else if (formula instanceof Equals) {
+            final int a = encode(children[0], BOTH);
+            final int b = encode(children[1], BOTH);
+            if (positive) {
+                addClause(-t, -a, b);
+                addClause(-t, a, -b);
+            }
+            if (negative) {
+                addClause(t, a, b);
+                addClause(t, -a, -b);
+            }
+        } else if (formula instanceof AtMost || formula instanceof AtLeast || formula instanceof Choose) {
+            // Cardinality constraints are defined by their expansion into propositional operators.
+            final int c = encode(FormulaUtils.eliminateCardinalities(formula), polarity);
+            if (positive) {
+                addClause(-t, c);
+            }
+            if (negative) {
+                addClause(t, -c);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported operator " + formula.getClass().getSimpleName() + " in " + formula);
+        }
+    }
+
+    private void addClause(final int... clause) throws ContradictionException {
+        solver.addClause(new VecInt(clause));
+    }
+
+    private static int flip(final int polarity) {
+        return ((polarity & POSITIVE) << 1) | ((polarity & NEGATIVE) >> 1);
+    }
+}
@@ -3,6 +3,9 @@ package org.variantsync.diffdetective.analysis.logic;
 import org.prop4j.*;
 import org.prop4j.explain.solvers.SatSolver;
 import org.prop4j.explain.solvers.SatSolverFactory;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.specs.SearchListener;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.util.fide.FormulaUtils;
 
@@ -16,8 +19,62 @@ import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
  * @author Paul Bittner
  */
 public final class SAT {
+    /**
+     * Formulas with less literals than this are first checked for satisfiability by
+     * {@link #checkSATviaLazyDNF}. Determined by the
+     * {@link org.variantsync.diffdetective.experiments.performance.SATBenchmark}.
+     */
+    public static final int DNF_THRESHOLD = 64;
+    /**
+     * The maximal number of steps of {@link #checkSATviaLazyDNF} before escalating to a SAT solver.
+     */
+    public static final int DNF_BUDGET = 4096;
+
+    private static volatile SATPortfolio portfolio = null;
+    private static volatile boolean useBDDs = false;
+    private static final ThreadLocal<BDD> bdds = ThreadLocal.withInitial(() -> new BDD(BDD.DEFAULT_NODE_LIMIT));
+
     private SAT() {}
 
+    /**
+     * Makes all queries of this class use the {@link #getBDD() BDD of the current thread} first.
+     * If the BDD exceeds its node limit, it is cleared and the query falls back to the other
+     * strategies.
+     * BDDs pay off when many queries are asked over the same few features, e.g., when classifying
+     * the edits of a repository.
+     */
+    public static void setUseBDDs(final boolean useBDDs) {
+        SAT.useBDDs = useBDDs;
+    }
+
+    public static boolean isUsingBDDs() {
+        return useBDDs;
+    }
+
+    /**
+     * Returns the BDD used by the current thread if {@link #setUseBDDs BDDs are enabled}.
+     * Use {@link BDD#seedVariableOrder} to improve its variable order.
+     */
+    public static BDD getBDD() {
+        return bdds.get();
+    }
+
+    /**
+     * Makes {@link #isSatisfiable(FixTrueFalse.Formula)} choose its strategy using the given
+     * portfolio instead of {@link #DNF_THRESHOLD}.
+     * @param portfolio the portfolio to use or {@code null} to use the fixed threshold
+     */
+    public static void setPortfolio(final SATPortfolio portfolio) {
+        SAT.portfolio = portfolio;
+    }
+
+    /**
+     * Returns the portfolio set by {@link #setPortfolio} or {@code null} if there is none.
+     */
+    public static SATPortfolio getPortfolio() {
+        return portfolio;
+    }
+
     public static boolean checkSATviaDNF(final FixTrueFalse.Formula formula) {
         if (formula.isTrueConstant()) {
             return true;
@@ -48,12 +105,85 @@ public final class SAT {
         return false;
     }
 
+    /**
+     * Searches for a satisfiable term of the DNF of the given formula without constructing the
+     * DNF. In contrast to {@link #checkSATviaDNF}, the search stops at the first satisfiable term
+     * and gives up after {@code budget} steps or on cardinality operators.
+     * @param formula Formula to check for being satisfiable.
+     * @param budget The maximal number of steps.
+     * @return The satisfiability of the given formula or {@code null} if the search gave up.
+     */
+    public static Boolean checkSATviaLazyDNF(final FixTrueFalse.Formula formula, final int budget) {
+        if (formula.isTrueConstant()) {
+            return true;
+        } else if (formula.isFalseConstant()) {
+            return false;
+        }
+
+        return LazyDNF.isSatisfiable(formula.get(), budget);
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable using the {@link #getBDD() BDD of the
+     * current thread}.
+     * If the node limit of the BDD is exceeded, the BDD is cleared.
+     * @param formula Formula to check for being satisfiable.
+     * @return The satisfiability of the given formula or {@code null} if the node limit was exceeded
+     * or the formula contains operators not supported by {@link BDD#fromNode}.
+     */
+    public static Boolean checkSATviaBDD(final FixTrueFalse.Formula formula) {
+        if (formula.isTrueConstant()) {
+            return true;
+        } else if (formula.isFalseConstant()) {
+            return false;
+        }
+
+        final BDD bdd = getBDD();
+        try {
+            return bdd.fromNode(formula.get()) != BDD.FALSE;
+        } catch (BDD.NodeLimitExceededException e) {
+            bdd.clear();
+            return null;
+        } catch (IllegalArgumentException e) {
+            // Unsupported operator (e.g., a cardinality constraint). Let the caller escalate.
+            return null;
+        }
+    }
+
+    /**
+     * Decides {@code left => right} (or {@code left <=> right} if {@code equivalence} is set) using
+     * the BDD of the current thread.
+     * @return the result or {@code null} if the node limit was exceeded or an operator is unsupported
+     */
+    private static Boolean checkViaBDD(final Node left, final Node right, final boolean equivalence) {
+        final BDD bdd = getBDD();
+        try {
+            final int l = bdd.fromNode(left);
+            final int r = bdd.fromNode(right);
+            return equivalence ? l == r : bdd.and(l, bdd.not(r)) == BDD.FALSE;
+        } catch (BDD.NodeLimitExceededException e) {
+            bdd.clear();
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Invokes a SAT solver on the given formula and returns its result.
      * @param formula Formula to check for being satisfiable.
      * @return True iff the given formula is a satisfiable.
      */
     public static boolean checkSATviaSat4J(final FixTrueFalse.Formula formula) {
+        return checkSATviaSat4J(formula, null);
+    }
+
+    /**
+     * Same as {@link #checkSATviaSat4J(FixTrueFalse.Formula)} but reports the search to
+     * {@code listener}, which may abort it by throwing an unchecked exception.
+     * @param listener the listener of the solver or {@code null} for none
+     */
+    static boolean checkSATviaSat4J(final FixTrueFalse.Formula formula, final SearchListener<ISolverService> listener) {
         if (formula.isTrueConstant()) {
             return true;
         } else if (formula.isFalseConstant()) {
@@ -61,42 +191,69 @@ public final class SAT {
         }
 
         final SatSolver solver = SatSolverFactory.getDefault().getSatSolver();
+        if (listener != null) {
+            ((ISolver) solver.getOracle()).setSearchListener(listener);
+        }
         solver.addFormula(formula.get());
         return solver.isSatisfiable();
     }
 
     /**
      * Checks whether the given formula is satisfiable.
-     * This method uses the Tseytin transformation for formulas with more than 40 literals as a heuristic to optimize
-     * SAT solving times for larger formulas.
+     * Formulas with less than {@link #DNF_THRESHOLD} literals are checked via their
+     * {@link #checkSATviaLazyDNF DNF} within a budget of {@link #DNF_BUDGET} steps. All other
+     * formulas, or if the budget was exhausted, are encoded into a SAT solver using
+     * {@link PlaistedGreenbaum}.
+     * If a {@link #setPortfolio portfolio} is set, it chooses the strategy instead.
+     * If {@link #setUseBDDs BDDs are enabled}, they are tried first.
+     * Results are cached in {@link SATCache#Default}.
      * @param formula Formula to check for being satisfiable.
      * @return True iff the given formula is a satisfiable.
      */
-    public static boolean isSatisfiable(FixTrueFalse.Formula formula) {
+    public static boolean isSatisfiable(final FixTrueFalse.Formula formula) {
+        return isSatisfiable(formula, SATCache.Query.SATISFIABLE);
+    }
+
+    private static boolean isSatisfiable(final FixTrueFalse.Formula formula, final SATCache.Query query) {
         if (formula.isTrueConstant()) {
             return true;
         } else if (formula.isFalseConstant()) {
             return false;
         }
 
-        final int numLiterals = FormulaUtils.numberOfLiterals(formula.get());
+        if (useBDDs) {
+            final Boolean result = checkSATviaBDD(formula);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return SATCache.Default.isSatisfiable(query, formula.get(), () -> solve(formula));
+    }
 
-        if (numLiterals < 15) {
-            return checkSATviaDNF(formula);
+    private static boolean solve(final FixTrueFalse.Formula formula) {
+        final SATPortfolio portfolio = SAT.portfolio;
+        if (portfolio != null) {
+            return portfolio.isSatisfiable(formula);
         }
 
-        if (numLiterals > 40) {
-            formula = formula.mapUnsafe(Tseytin::toEquivalentCNF);
+        if (FormulaUtils.numberOfLiterals(formula.get()) < DNF_THRESHOLD) {
+            final Boolean result = checkSATviaLazyDNF(formula, DNF_BUDGET);
+            if (result != null) {
+                return result;
+            }
         }
 
-        return checkSATviaSat4J(formula);
+        return PlaistedGreenbaum.isSatisfiable(formula);
     }
 
     /**
      * Checks whether the given formula is satisfiable.
-     * This method uses the Tseytin transformation for formulas with more than 40 literals as a heuristic to optimize
-     * SAT solving times for larger formulas.
-     * @param formula Formula to check for being satisfiable.
+     * Formulas with less than {@link #DNF_THRESHOLD} literals are checked via their
+     * {@link #checkSATviaLazyDNF DNF} within a budget of {@link #DNF_BUDGET} steps. All other
+     * formulas, or if the budget was exhausted, are encoded into a SAT solver using
+     * {@link PlaistedGreenbaum}.
+     * @param formula Formula to check for being satisfiable. It is not modified.
      * @return True iff the given formula is a satisfiable.
      */
     public static boolean isSatisfiable(final Node formula) {
@@ -124,7 +281,13 @@ public final class SAT {
         /// = TAUT(!left || right)
         /// = !SAT(!(!left || right))
         /// = !SAT(left && !right))
-        return !isSatisfiable(and(left, negate(right)));
+        if (useBDDs) {
+            final Boolean result = checkViaBDD(left, right, false);
+            if (result != null) {
+                return result;
+            }
+        }
+        return !isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(and(left, negate(right))), SATCache.Query.IMPLIES);
     }
 
     /**
@@ -135,6 +298,72 @@ public final class SAT {
      * @return True iff <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
      */
     public static boolean equivalent(final Node left, final Node right) {
-        return isTautology(FormulaUtils.equivalent(left, right));
+        if (useBDDs) {
+            final Boolean result = checkViaBDD(left, right, true);
+            if (result != null) {
+                return result;
+            }
+        }
+        return !isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(negate(FormulaUtils.equivalent(left, right))), SATCache.Query.EQUIVALENT);
+    }
+
+    /**
+     * Checks whether the given interned formula is satisfiable.
+     * Constants are decided without conversion.
+     * @param formula Formula to check for being satisfiable.
+     * @return True iff the given formula is a satisfiable.
+     * @see #isSatisfiable(FixTrueFalse.Formula)
+     */
+    public static boolean isSatisfiable(final InternedFormula formula) {
+        if (formula.isTrue() || formula.isLiteral()) {
+            return true;
+        } else if (formula.isFalse()) {
+            return false;
+        }
+
+        return isSatisfiable(formula, SATCache.Query.SATISFIABLE);
+    }
+
+    private static boolean isSatisfiable(final InternedFormula formula, final SATCache.Query query) {
+        if (formula.isTrue() || formula.isLiteral()) {
+            return true;
+        } else if (formula.isFalse()) {
+            return false;
+        }
+
+        return isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(formula), query);
+    }
+
+    /**
+     * Checks whether the given interned formula is a tautology.
+     * @param formula Formula to check for being a tautology.
+     * @return True iff the given formula is a tautology.
+     */
+    public static boolean isTautology(final InternedFormula formula) {
+        return !isSatisfiable(formula.getFactory().not(formula));
+    }
+
+    /**
+     * Checks whether <code>left</code> =&gt; <code>right</code> is a tautology.
+     * Identical formulas are decided without invoking a solver.
+     * @param left Left-hand side propositional formula of implication check.
+     * @param right Right-hand side propositional formula of implication check.
+     * @return True iff <code>left</code> =&gt; <code>right</code> is a tautology.
+     */
+    public static boolean implies(final InternedFormula left, final InternedFormula right) {
+        final FormulaFactory f = left.getFactory();
+        return !isSatisfiable(f.and(left, f.not(right)), SATCache.Query.IMPLIES);
+    }
+
+    /**
+     * Checks whether <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
+     * Identical formulas are decided without invoking a solver.
+     * @param left Left-hand side propositional formula of equivalency check.
+     * @param right Right-hand side propositional formula of equivalency check.
+     * @return True iff <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
+     */
+    public static boolean equivalent(final InternedFormula left, final InternedFormula right) {
+        final FormulaFactory f = left.getFactory();
+        return left == right || !isSatisfiable(f.not(f.equivalent(left, right)), SATCache.Query.EQUIVALENT);
     }
 }
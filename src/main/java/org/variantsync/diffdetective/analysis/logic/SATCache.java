@@ -0,0 +1,287 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+import org.variantsync.functjonal.category.InplaceSemigroup;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded, thread-safe cache for the results of {@link SAT} queries.
+ *
+ * <p>Results are stored by the {@link FormulaUtils#canonicalForm canonical form} of the formula
+ * given to the solver. Hence, formulas which only differ in the order of their operands share a
+ * cache entry. Because the canonical form is unambiguous, cache hits never change the result of a
+ * query.
+ *
+ * <p>The cache holds at most {@link #getCapacity() capacity} entries. It consists of two
+ * generations: New entries are added to the young generation. When the young generation is full,
+ * it replaces the old generation whose entries are evicted. Entries found in the old generation
+ * are promoted to the young generation, so frequently used formulas survive evictions.
+ *
+ * <p>Hits and misses are counted separately for each kind of {@link Query} and can be exported as
+ * {@link Statistics}.
+ */
+public class SATCache {
+    /**
+     * The cache used by {@link SAT}.
+     */
+    public static final SATCache Default = new SATCache(1 << 16);
+
+    /**
+     * The kinds of queries answered by {@link SAT}.
+     * All queries are reduced to a satisfiability check but are counted separately.
+     */
+    public enum Query {
+        SATISFIABLE,
+        IMPLIES,
+        EQUIVALENT
+    }
+
+    private final int capacity;
+    private volatile boolean enabled = true;
+    private volatile Map<String, Boolean> young = new ConcurrentHashMap<>();
+    private volatile Map<String, Boolean> old = new ConcurrentHashMap<>();
+
+    private final LongAdder[] hits = newCounters();
+    private final LongAdder[] misses = newCounters();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache holding at most {@code capacity} entries.
+     */
+    public SATCache(final int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity of a SATCache must be at least 2 but was " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    private static LongAdder[] newCounters() {
+        final LongAdder[] counters = new LongAdder[Query.values().length];
+        for (int i = 0; i < counters.length; ++i) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the result of {@code solver} for {@code formula}.
+     * The solver is invoked only if the result is not cached yet or if {@code formula} has no
+     * {@link FormulaUtils#canonicalForm canonical form}.
+     *
+     * @param query the kind of query for the statistics
+     * @param formula the formula to check
+     * @param solver a pure function deciding the satisfiability of {@code formula}
+     */
+    public boolean isSatisfiable(final Query query, final Node formula, final BooleanSupplier solver) {
+        if (!enabled) {
+            return solver.getAsBoolean();
+        }
+
+        final String key = FormulaUtils.canonicalForm(formula);
+        if (key == null) {
+            misses[query.ordinal()].increment();
+            return solver.getAsBoolean();
+        }
+
+        Boolean result = young.get(key);
+        if (result == null) {
+            result = old.get(key);
+            if (result != null) {
+                put(key, result);
+            }
+        }
+
+        if (result != null) {
+            hits[query.ordinal()].increment();
+            return result;
+        }
+
+        misses[query.ordinal()].increment();
+        final boolean satisfiable = solver.getAsBoolean();
+        put(key, satisfiable);
+        return satisfiable;
+    }
+
+    private void put(final String key, final Boolean result) {
+        young.put(key, result);
+        if (young.size() >= capacity / 2) {
+            synchronized (this) {
+                if (young.size() >= capacity / 2) {
+                    evictions.add(old.size());
+                    old = young;
+                    young = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the maximal number of entries of this cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the current number of entries of this cache.
+     */
+    public int size() {
+        return young.size() + old.size();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables this cache.
+     * While disabled, all queries are passed to the solver and are not counted.
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Removes all entries from this cache.
+     * The statistics are not reset.
+     */
+    public synchronized void clear() {
+        young = new ConcurrentHashMap<>();
+        old = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets all counters of the statistics to zero.
+     */
+    public void resetStatistics() {
+        for (final Query query : Query.values()) {
+            hits[query.ordinal()].reset();
+            misses[query.ordinal()].reset();
+        }
+        evictions.reset();
+    }
+
+    /**
+     * Returns a snapshot of the hits and misses counted since the creation of this cache or the
+     * last call to {@link #resetStatistics()}.
+     */
+    public Statistics getStatistics() {
+        final Statistics statistics = new Statistics();
+        for (final Query query : Query.values()) {
+            statistics.hits[query.ordinal()] = hits[query.ordinal()].sum();
+            statistics.misses[query.ordinal()] = misses[query.ordinal()].sum();
+        }
+        statistics.evictions = evictions.sum();
+        return statistics;
+    }
+
+    /**
+     * Metadata about the effectiveness of a {@link SATCache}.
+     */
+    public static class Statistics implements Metadata<Statistics> {
+        public static final ResultKey<Statistics> KEY = new ResultKey<>("SATCacheStatistics");
+
+        /**
+         * Inplace Semigroup summing up all counters.
+         */
+        public static final InplaceSemigroup<Statistics> ISEMIGROUP = (a, b) -> {
+            for (int i = 0; i < a.hits.length; ++i) {
+                a.hits[i] += b.hits[i];
+                a.misses[i] += b.misses[i];
+            }
+            a.evictions += b.evictions;
+        };
+
+        private static final String PREFIX = "SAT cache ";
+
+        private final long[] hits = new long[Query.values().length];
+        private final long[] misses = new long[Query.values().length];
+        private long evictions = 0;
+
+        public long getHits(final Query query) {
+            return hits[query.ordinal()];
+        }
+
+        public long getMisses(final Query query) {
+            return misses[query.ordinal()];
+        }
+
+        /**
+         * Returns the number of entries removed to bound the size of the cache.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Returns the ratio of hits to all queries of the given kind or {@code 0} if there was no
+         * such query.
+         */
+        public double getHitRate(final Query query) {
+            final long queries = getHits(query) + getMisses(query);
+            return queries == 0 ? 0 : (double) getHits(query) / queries;
+        }
+
+        /**
+         * Returns the ratio of hits to all queries or {@code 0} if there was no query.
+         */
+        public double getHitRate() {
+            long hitSum = 0;
+            long querySum = 0;
+            for (final Query query : Query.values()) {
+                hitSum += getHits(query);
+                querySum += getHits(query) + getMisses(query);
+            }
+            return querySum == 0 ? 0 : (double) hitSum / querySum;
+        }
+
+        private static String name(final Query query) {
+            return query.name().toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> snapshot() {
+            final LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+            for (final Query query : Query.values()) {
+                snap.put(PREFIX + name(query) + " hits", getHits(query));
+                snap.put(PREFIX + name(query) + " misses", getMisses(query));
+                snap.put(PREFIX + name(query) + " hit rate", getHitRate(query));
+            }
+            snap.put(PREFIX + "evictions", evictions);
+            snap.put(PREFIX + "hit rate", getHitRate());
+            return snap;
+        }
+
+        @Override
+        public void setFromSnapshot(final LinkedHashMap<String, String> snap) {
+            for (final Query query : Query.values()) {
+                final String hitsValue = snap.get(PREFIX + name(query) + " hits");
+                if (hitsValue != null) {
+                    hits[query.ordinal()] = Long.parseLong(hitsValue);
+                }
+                final String missesValue = snap.get(PREFIX + name(query) + " misses");
+                if (missesValue != null) {
+                    misses[query.ordinal()] = Long.parseLong(missesValue);
+                }
+            }
+            final String evictionsValue = snap.get(PREFIX + "evictions");
+            if (evictionsValue != null) {
+                evictions = Long.parseLong(evictionsValue);
+            }
+        }
+
+        @Override
+        public InplaceSemigroup<Statistics> semigroup() {
+            return ISEMIGROUP;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.specs.SearchListener;
+import org.sat4j.tools.SearchListenerAdapter;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+import org.variantsync.functjonal.category.InplaceSemigroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A satisfiability checker which chooses among several {@link Strategy strategies} based on their
+ * observed costs instead of fixed thresholds.
+ *
+ * <p>Formulas are grouped into buckets by the binary logarithm of their
+ * {@link FormulaUtils#numberOfLiterals number of literals}. For each bucket, the portfolio
+ * maintains an exponential moving average of the runtime of each strategy and picks the strategy
+ * with the lowest expected cost. Until each strategy was sampled {@link #MIN_SAMPLES} times in a
+ * bucket, the least sampled strategy is used. Afterwards, every {@link #EXPLORATION_INTERVAL}
+ * queries, a strategy which is at most {@link #EXPLORATION_FACTOR} times slower than the best one
+ * is tried to keep the estimates up to date.
+ *
+ * <p>{@link Strategy#DNF} runs with a budget of {@link SAT#DNF_BUDGET} steps. If it exhausts its
+ * budget or encounters an unsupported operator, the query escalates to the cheapest solver based strategy, and the wasted time is
+ * attributed to {@link Strategy#DNF}.
+ *
+ * <p>If a thread pool is given, formulas with at least {@code raceThreshold} literals are solved
+ * by racing all solver based strategies on that pool. The first result is used and the solvers of
+ * the losing strategies are aborted at their next conflict, which frees the pool for other races.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @see SAT#setPortfolio
+ */
+public class SATPortfolio {
+    /**
+     * The satisfiability checks available to a portfolio.
+     */
+    public enum Strategy {
+        /**
+         * Searches the terms of the DNF of a formula lazily without constructing it.
+         * Aborts after {@link SAT#DNF_BUDGET} steps.
+         */
+        DNF,
+        /** Encodes the formula with {@link PlaistedGreenbaum} into a new Sat4J solver. */
+        PLAISTED_GREENBAUM,
+        /** Converts the formula with {@link Tseytin#toEquivalentCNF} and uses {@link SAT#checkSATviaSat4J}. */
+        TSEYTIN;
+
+        private static final Strategy[] SOLVERS = {PLAISTED_GREENBAUM, TSEYTIN};
+    }
+
+    /** Number of measurements of a strategy in a bucket before its average is trusted. */
+    public static final int MIN_SAMPLES = 8;
+    /** Every this many queries of a bucket, a competitive strategy is measured again. */
+    public static final int EXPLORATION_INTERVAL = 64;
+    /** Strategies slower than the best one by this factor are not explored anymore. */
+    public static final double EXPLORATION_FACTOR = 4;
+    /** Weight of a new measurement in the moving average of the runtime. */
+    private static final double SMOOTHING = 1.0 / 8;
+    /** Buckets are indexed by {@code log2(number of literals)}. */
+    private static final int BUCKETS = 32;
+
+    private final ExecutorService racePool;
+    private final int raceThreshold;
+
+    private final LongAdder[][] invocations = newCounters();
+    private final LongAdder[][] nanos = newCounters();
+    /** Moving averages of the runtime in nanoseconds indexed by {@link #index}, stored as double bits. */
+    private final AtomicLongArray averageNanos = new AtomicLongArray(Strategy.values().length * BUCKETS);
+    private final LongAdder[] dnfEscalations = new LongAdder[BUCKETS];
+    private final LongAdder races = new LongAdder();
+    private final AtomicLong[] queries = new AtomicLong[BUCKETS];
+
+    /**
+     * Creates a portfolio which never races strategies.
+     */
+    public SATPortfolio() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a portfolio which races strategies on a new pool of {@code raceThreads} daemon threads
+     * for formulas with at least {@code raceThreshold} literals.
+     */
+    public SATPortfolio(final int raceThreads, final int raceThreshold) {
+        this(Executors.newFixedThreadPool(raceThreads, r -> {
+            final Thread t = new Thread(r, "SATPortfolio race");
+            t.setDaemon(true);
+            return t;
+        }), raceThreshold);
+    }
+
+    /**
+     * Creates a portfolio which races strategies on {@code racePool} for formulas with at least
+     * {@code raceThreshold} literals.
+     * @param racePool the pool to race on or {@code null} to never race
+     */
+    public SATPortfolio(final ExecutorService racePool, final int raceThreshold) {
+        this.racePool = racePool;
+        this.raceThreshold = raceThreshold;
+        for (int i = 0; i < BUCKETS; ++i) {
+            queries[i] = new AtomicLong();
+            dnfEscalations[i] = new LongAdder();
+        }
+    }
+
+    private static LongAdder[][] newCounters() {
+        final LongAdder[][] counters = new LongAdder[Strategy.values().length][BUCKETS];
+        for (final LongAdder[] perStrategy : counters) {
+            for (int i = 0; i < BUCKETS; ++i) {
+                perStrategy[i] = new LongAdder();
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable.
+     * @param formula Formula to check for being satisfiable.
+     * @return True iff the given formula is a satisfiable.
+     */
+    public boolean isSatisfiable(final FixTrueFalse.Formula formula) {
+        if (formula.isTrueConstant()) {
+            return true;
+        } else if (formula.isFalseConstant()) {
+            return false;
+        }
+
+        final int literals = FormulaUtils.numberOfLiterals(formula.get());
+        final int bucket = 31 - Integer.numberOfLeadingZeros(Math.max(1, literals));
+        if (racePool != null && literals >= raceThreshold) {
+            return race(formula, bucket);
+        }
+
+        final long query = queries[bucket].getAndIncrement();
+        Strategy strategy = leastSampled(bucket, Double.POSITIVE_INFINITY);
+        if (getInvocations(strategy, bucket) >= MIN_SAMPLES) {
+            strategy = query % EXPLORATION_INTERVAL == 0
+                    ? leastSampled(bucket, EXPLORATION_FACTOR * expectedCost(bucket, cheapest(bucket)))
+                    : cheapest(bucket);
+        }
+
+        if (strategy == Strategy.DNF) {
+            final long start = System.nanoTime();
+            final Boolean result = SAT.checkSATviaLazyDNF(formula, SAT.DNF_BUDGET);
+            record(Strategy.DNF, bucket, start);
+            if (result != null) {
+                return result;
+            }
+
+            dnfEscalations[bucket].increment();
+            strategy = expectedCost(bucket, Strategy.PLAISTED_GREENBAUM) <= expectedCost(bucket, Strategy.TSEYTIN)
+                    ? Strategy.PLAISTED_GREENBAUM
+                    : Strategy.TSEYTIN;
+        }
+
+        final long start = System.nanoTime();
+        final boolean result = solve(strategy, formula, null);
+        record(strategy, bucket, start);
+        return result;
+    }
+
+    private boolean race(final FixTrueFalse.Formula formula, final int bucket) {
+        races.increment();
+        // Sat4J ignores interrupts, so the losers are stopped via their search listeners instead.
+        final Cancellation cancellation = new Cancellation();
+        final List<Callable<Boolean>> contenders = new ArrayList<>();
+        for (final Strategy strategy : Strategy.SOLVERS) {
+            contenders.add(() -> {
+                cancellation.check();
+                final long start = System.nanoTime();
+                final boolean result = solve(strategy, formula, cancellation);
+                record(strategy, bucket, start);
+                return result;
+            });
+        }
+
+        try {
+            return racePool.invokeAny(contenders);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return solve(Strategy.PLAISTED_GREENBAUM, formula, null);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("All strategies failed on " + formula.get(), e.getCause());
+        } finally {
+            cancellation.cancel();
+        }
+    }
+
+    /**
+     * @param listener the listener of the Sat4J solver or {@code null} for none
+     */
+    private static boolean solve(
+            final Strategy strategy,
+            final FixTrueFalse.Formula formula,
+            final SearchListener<ISolverService> listener
+    ) {
+        return switch (strategy) {
+            case DNF -> SAT.checkSATviaDNF(formula);
+            case PLAISTED_GREENBAUM -> PlaistedGreenbaum.isSatisfiable(formula, listener);
+            // Tseytin simplifies its input inplace, which must not affect a concurrent race.
+            case TSEYTIN -> SAT.checkSATviaSat4J(formula.mapUnsafe(f -> Tseytin.toEquivalentCNF(f.clone())), listener);
+        };
+    }
+
+    /**
+     * Aborts the searches of all solvers of a race once it is decided.
+     * Checked at the start of each search and at each conflict.
+     */
+    private static final class Cancellation extends SearchListenerAdapter<ISolverService> {
+        private volatile boolean cancelled = false;
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        void check() {
+            if (cancelled) {
+                throw new CancellationException("The race was already decided");
+            }
+        }
+
+        @Override
+        public void start() {
+            check();
+        }
+
+        @Override
+        public void conflictFound(final IConstr confl, final int dlevel, final int trailLevel) {
+            check();
+        }
+    }
+
+    private void record(final Strategy strategy, final int bucket, final long start) {
+        final long time = System.nanoTime() - start;
+        nanos[strategy.ordinal()][bucket].add(time);
+        invocations[strategy.ordinal()][bucket].increment();
+
+        final int i = index(strategy, bucket);
+        long oldBits;
+        long newBits;
+        do {
+            oldBits = averageNanos.get(i);
+            final double old = Double.longBitsToDouble(oldBits);
+            newBits = Double.doubleToRawLongBits(oldBits == 0 ? time : old + SMOOTHING * (time - old));
+        } while (!averageNanos.compareAndSet(i, oldBits, newBits));
+    }
+
+    private static int index(final Strategy strategy, final int bucket) {
+        return strategy.ordinal() * BUCKETS + bucket;
+    }
+
+    private long getInvocations(final Strategy strategy, final int bucket) {
+        return invocations[strategy.ordinal()][bucket].sum();
+    }
+
+    /**
+     * Returns the least sampled strategy among all strategies whose expected cost does not exceed
+     * {@code maxCost}.
+     */
+    private Strategy leastSampled(final int bucket, final double maxCost) {
+        Strategy result = null;
+        for (final Strategy strategy : Strategy.values()) {
+            if (expectedCost(bucket, strategy) <= maxCost
+                    && (result == null || getInvocations(strategy, bucket) < getInvocations(result, bucket))) {
+                result = strategy;
+            }
+        }
+        return result;
+    }
+
+    private Strategy cheapest(final int bucket) {
+        Strategy result = Strategy.DNF;
+        for (final Strategy strategy : Strategy.values()) {
+            if (expectedCost(bucket, strategy) < expectedCost(bucket, result)) {
+                result = strategy;
+            }
+        }
+        return result;
+    }
+
+    private double averageCost(final int bucket, final Strategy strategy) {
+        return Double.longBitsToDouble(averageNanos.get(index(strategy, bucket)));
+    }
+
+    /**
+     * The expected runtime in nanoseconds of a query in the given bucket when starting with the
+     * given strategy. Includes the cost of escalations for {@link Strategy#DNF}.
+     */
+    private double expectedCost(final int bucket, final Strategy strategy) {
+        if (strategy != Strategy.DNF) {
+            return averageCost(bucket, strategy);
+        }
+
+        final long n = getInvocations(Strategy.DNF, bucket);
+        if (n == 0) {
+            return 0;
+        }
+        final double escalationRate = dnfEscalations[bucket].sum() / (double) n;
+        return averageCost(bucket, Strategy.DNF)
+                + escalationRate * Math.min(
+                        averageCost(bucket, Strategy.PLAISTED_GREENBAUM),
+                        averageCost(bucket, Strategy.TSEYTIN));
+    }
+
+    private long totalInvocations(final Strategy strategy) {
+        long sum = 0;
+        for (final LongAdder counter : invocations[strategy.ordinal()]) {
+            sum += counter.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the strategy which would currently be chosen for formulas with the given number
+     * of literals if no exploration takes place.
+     */
+    public Strategy getPreferredStrategy(final int numberOfLiterals) {
+        return cheapest(31 - Integer.numberOfLeadingZeros(Math.max(1, numberOfLiterals)));
+    }
+
+    /**
+     * Returns the timings measured so far.
+     */
+    public Statistics getStatistics() {
+        final Statistics statistics = new Statistics();
+        for (final Strategy strategy : Strategy.values()) {
+            long time = 0;
+            for (final LongAdder counter : nanos[strategy.ordinal()]) {
+                time += counter.sum();
+            }
+            statistics.invocations.put(strategy, totalInvocations(strategy));
+            statistics.nanos.put(strategy, time);
+        }
+        for (final LongAdder counter : dnfEscalations) {
+            statistics.dnfEscalations += counter.sum();
+        }
+        statistics.races = races.sum();
+        return statistics;
+    }
+
+    /**
+     * Metadata about the strategies chosen by a {@link SATPortfolio}.
+     */
+    public static class Statistics implements Metadata<Statistics> {
+        public static final ResultKey<Statistics> KEY = new ResultKey<>("SATPortfolioStatistics");
+
+        /**
+         * Inplace Semigroup summing up all counters.
+         */
+        public static final InplaceSemigroup<Statistics> ISEMIGROUP = (a, b) -> {
+            for (final Strategy strategy : Strategy.values()) {
+                a.invocations.merge(strategy, b.invocations.get(strategy), Long::sum);
+                a.nanos.merge(strategy, b.nanos.get(strategy), Long::sum);
+            }
+            a.dnfEscalations += b.dnfEscalations;
+            a.races += b.races;
+        };
+
+        private static final String PREFIX = "SAT portfolio ";
+
+        private final Map<Strategy, Long> invocations = new HashMap<>();
+        private final Map<Strategy, Long> nanos = new HashMap<>();
+        private long dnfEscalations = 0;
+        private long races = 0;
+
+        public Statistics() {
+            for (final Strategy strategy : Strategy.values()) {
+                invocations.put(strategy, 0L);
+                nanos.put(strategy, 0L);
+            }
+        }
+
+        public long getInvocations(final Strategy strategy) {
+            return invocations.get(strategy);
+        }
+
+        /**
+         * Returns the accumulated runtime of the given strategy in nanoseconds.
+         */
+        public long getNanos(final Strategy strategy) {
+            return nanos.get(strategy);
+        }
+
+        /**
+         * Returns how often {@link Strategy#DNF} gave up and escalated.
+         */
+        public long getDNFEscalations() {
+            return dnfEscalations;
+        }
+
+        public long getRaces() {
+            return races;
+        }
+
+        private static String name(final Strategy strategy) {
+            return strategy.name().toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> snapshot() {
+            final LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+            for (final Strategy strategy : Strategy.values()) {
+                snap.put(PREFIX + name(strategy) + " invocations", getInvocations(strategy));
+                snap.put(PREFIX + name(strategy) + " nanoseconds", getNanos(strategy));
+            }
+            snap.put(PREFIX + "dnf escalations", dnfEscalations);
+            snap.put(PREFIX + "races", races);
+            return snap;
+        }
+
+        @Override
+        public void setFromSnapshot(final LinkedHashMap<String, String> snap) {
+            for (final Strategy strategy : Strategy.values()) {
+                final String invocationsValue = snap.get(PREFIX + name(strategy) + " invocations");
+                if (invocationsValue != null) {
+                    invocations.put(strategy, Long.parseLong(invocationsValue));
+                }
+                final String nanosValue = snap.get(PREFIX + name(strategy) + " nanoseconds");
+                if (nanosValue != null) {
+                    nanos.put(strategy, Long.parseLong(nanosValue));
+                }
+            }
+            final String escalationsValue = snap.get(PREFIX + "dnf escalations");
+            if (escalationsValue != null) {
+                dnfEscalations = Long.parseLong(escalationsValue);
+            }
+            final String racesValue = snap.get(PREFIX + "races");
+            if (racesValue != null) {
+                races = Long.parseLong(racesValue);
+            }
+        }
+
+        @Override
+        public InplaceSemigroup<Statistics> semigroup() {
+            return ISEMIGROUP;
+        }
+    }
+}
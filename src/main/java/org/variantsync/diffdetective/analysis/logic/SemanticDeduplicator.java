@@ -0,0 +1,74 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.Node;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally collects formulas which are pairwise not equivalent.
+ *
+ * <p>To avoid comparing all pairs of formulas, the formulas are grouped by their
+ * {@link SemanticFingerprint}. Only formulas with equal fingerprints can be equivalent, so
+ * {@link SAT#equivalent} is only invoked within a group. Formulas without a fingerprint are
+ * compared to all formulas.
+ */
+public class SemanticDeduplicator {
+    private final SemanticFingerprint fingerprints;
+    private final Map<BitSet, List<Node>> groups = new HashMap<>();
+    private final List<Node> withoutFingerprint = new ArrayList<>();
+    private int size = 0;
+
+    public SemanticDeduplicator() {
+        this(SemanticFingerprint.Default);
+    }
+
+    public SemanticDeduplicator(final SemanticFingerprint fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Adds {@code formula} unless an equivalent formula was added before.
+     * @return {@code true} iff {@code formula} was added
+     */
+    public boolean add(final Node formula) {
+        final BitSet fingerprint = fingerprints.of(formula);
+        if (fingerprint == null) {
+            for (final List<Node> group : groups.values()) {
+                if (containsEquivalent(group, formula)) {
+                    return false;
+                }
+            }
+            if (containsEquivalent(withoutFingerprint, formula)) {
+                return false;
+            }
+            withoutFingerprint.add(formula);
+        } else {
+            final List<Node> group = groups.computeIfAbsent(fingerprint, f -> new ArrayList<>(1));
+            if (containsEquivalent(group, formula) || containsEquivalent(withoutFingerprint, formula)) {
+                return false;
+            }
+            group.add(formula);
+        }
+
+        ++size;
+        return true;
+    }
+
+    /** Returns the number of added formulas. */
+    public int size() {
+        return size;
+    }
+
+    private static boolean containsEquivalent(final List<Node> formulas, final Node formula) {
+        for (final Node representative : formulas) {
+            if (SAT.equivalent(representative, formula)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.BitSet;
+
+/**
+ * Cheap semantic hash of formulas: the truth values of a formula under a fixed set of
+ * pseudo-random assignments.
+ * Equivalent formulas always have equal fingerprints, so formulas with different fingerprints are
+ * never equivalent. Formulas with equal fingerprints are likely but not necessarily equivalent and
+ * have to be compared with {@link SAT#equivalent} to be sure.
+ *
+ * <p>The value of a variable in each assignment is derived from the hash code of its name, so no
+ * state is kept between formulas and this class is thread-safe.
+ * The formula is evaluated on 64 assignments at once by using the bits of a {@code long}.
+ */
+public final class SemanticFingerprint {
+    /** Uses 128 assignments. */
+    public static final SemanticFingerprint Default = new SemanticFingerprint(2, 0x5DEECE66DL);
+
+    private final int words;
+    private final long seed;
+
+    /**
+     * Creates fingerprints of {@code 64 * words} assignments.
+     * Different seeds yield different assignments.
+     */
+    public SemanticFingerprint(final int words, final long seed) {
+        if (words < 1) {
+            throw new IllegalArgumentException("At least one word of assignments is required but got " + words);
+        }
+        this.words = words;
+        this.seed = seed;
+    }
+
+    public int getNumberOfAssignments() {
+        return words * Long.SIZE;
+    }
+
+    /**
+     * Computes the fingerprint of {@code formula}.
+     * Bit {@code i} of the result is set iff {@code formula} is satisfied by assignment {@code i}.
+     *
+     * @return the fingerprint of {@code formula} or {@code null} if {@code formula} contains
+     * operators other than {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals}
+     * and {@link Literal}
+     */
+    public BitSet of(final Node formula) {
+        final long[] bits = new long[words];
+        try {
+            for (int word = 0; word < words; ++word) {
+                bits[word] = evaluate(formula, word);
+            }
+        } catch (UnsupportedOperatorException e) {
+            return null;
+        }
+        return BitSet.valueOf(bits);
+    }
+
+    private long evaluate(final Node formula, final int word) {
+        if (formula instanceof Literal l) {
+            final long value;
+            if (FixTrueFalse.isTrueLiteral(l)) {
+                value = -1L;
+            } else if (FixTrueFalse.isFalseLiteral(l)) {
+                value = 0L;
+            } else {
+                value = assignment(l.var, word);
+            }
+            return l.positive ? value : ~value;
+        }
+
+        final Node[] children = formula.getChildren();
+        if (formula instanceof Not) {
+            return ~evaluate(children[0], word);
+        } else if (formula instanceof And) {
+            long result = -1L;
+            for (int i = 0; i < children.length && result != 0; ++i) {
+                result &= evaluate(children[i], word);
+            }
+            return result;
+        } else if (formula instanceof Or) {
+            long result = 0L;
+            for (int i = 0; i < children.length && result != -1L; ++i) {
+                result |= evaluate(children[i], word);
+            }
+            return result;
+        } else if (formula instanceof Implies) {
+            return ~evaluate(children[0], word) | evaluate(children[1], word);
+        } else if (formula instanceof Equals) {
+            return ~(evaluate(children[0], word) ^ evaluate(children[1], word));
+        }
+
+        throw UnsupportedOperatorException.INSTANCE;
+    }
+
+    /** The values of {@code variable} in the assignments {@code 64 * word} to {@code 64 * word + 63}. */
+    private long assignment(final Object variable, final int word) {
+        // SplitMix64 finalizer
+        long z = seed + variable.hashCode() * 0x9E3779B97F4A7C15L + word * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Thrown to unwind the evaluation of formulas with unsupported operators. */
+    private static final class UnsupportedOperatorException extends RuntimeException {
+        private static final UnsupportedOperatorException INSTANCE = new UnsupportedOperatorException();
+
+        private UnsupportedOperatorException() {
+            super(null, null, false, false);
+        }
+    }
+}
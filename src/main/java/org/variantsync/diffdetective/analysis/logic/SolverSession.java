@@ -0,0 +1,342 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.Node;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An incremental SAT solver for answering many queries about a fixed set of related formulas, for
+ * example, all presence conditions of a {@link org.variantsync.diffdetective.variation.diff.VariationDiff}.
+ *
+ * <p>A session owns a single Sat4J solver. Each formula, and each of its subformulas, is encoded
+ * only once by introducing a selector variable which is equivalent to the formula (Tseytin
+ * encoding). These definitions are always satisfiable, so they can stay in the solver forever.
+ * Queries are answered by assuming the values of selector variables, so clauses learned by the
+ * solver are reused by all subsequent queries.
+ *
+ * <p>Formulas are interned by a {@link FormulaFactory} owned by this session, so syntactically
+ * equal subformulas of different queries share their selector variables.
+ *
+ * <p>A session may be created with the constraints of a feature model, which are loaded into the
+ * solver once. Then, all queries are answered with respect to these constraints.
+ *
+ * <p>The results of all queries are remembered by the session. Queries of unconstrained sessions
+ * with less than {@link #CACHE_THRESHOLD} literals are additionally looked up in
+ * {@link SATCache#Default} before the solver is used, so small queries repeated across sessions
+ * (e.g., the same presence conditions in many diffs) don't need a solver at all.
+ *
+ * <p>A session is not thread-safe. It should be discarded as soon as its formulas are not needed
+ * anymore because the solver and the factory grow with every new formula.
+ */
+public class SolverSession {
+    /**
+     * Queries of unconstrained sessions with less literals than this threshold are looked up in
+     * {@link SATCache#Default}. Converting larger formulas to their canonical form costs more than
+     * solving them incrementally.
+     */
+    public static final int CACHE_THRESHOLD = 16;
+
+    private final FormulaFactory factory = new FormulaFactory();
+    /** May be {@code null} if queries are unconstrained. */
+    private final FeatureModelConstraints constraints;
+    /** Whether the constraints are unsatisfiable, which makes every query unsatisfiable. */
+    private boolean contradiction = false;
+    /** Created on the first query which cannot be answered without a solver. */
+    private ISolver solver;
+    /**
+     * The solver literal which is equivalent to an interned formula.
+     * Formulas of kind {@link InternedFormula.Kind#TRUE} and {@link InternedFormula.Kind#FALSE}
+     * are never encoded.
+     */
+    private final Map<InternedFormula, Integer> literals = new HashMap<>();
+    /**
+     * Results of all queries of this session indexed by the {@link InternedFormula#getId() ids} of
+     * both formulas of the query.
+     */
+    private final Map<Long, Boolean> results = new HashMap<>();
+    private int numberOfQueries = 0;
+
+    /**
+     * Creates a session for unconstrained queries.
+     */
+    public SolverSession() {
+        this(null);
+    }
+
+    /**
+     * Creates a session in which all queries are answered with respect to the given constraints.
+     * @param constraints the constraints of a feature model or {@code null} for unconstrained
+     * queries
+     */
+    public SolverSession(final FeatureModelConstraints constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Returns the factory used to intern all formulas of this session.
+     */
+    public FormulaFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns the number of solver invocations of this session.
+     * Queries which could be answered without the solver (e.g., by a cache) are not counted.
+     */
+    public int getNumberOfQueries() {
+        return numberOfQueries;
+    }
+
+    /**
+     * Returns the number of variables of the solver, including selector variables.
+     */
+    public int getNumberOfVariables() {
+        return solver == null ? 0 : solver.nVars();
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable.
+     * @see SAT#isSatisfiable(Node)
+     */
+    public boolean isSatisfiable(final Node formula) {
+        return isSatisfiable(factory.fromNode(formula));
+    }
+
+    /**
+     * Checks whether <code>left</code> =&gt; <code>right</code> is a tautology.
+     * @see SAT#implies(Node, Node)
+     */
+    public boolean implies(final Node left, final Node right) {
+        return implies(factory.fromNode(left), factory.fromNode(right));
+    }
+
+    /**
+     * Checks whether <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
+     * @see SAT#equivalent(Node, Node)
+     */
+    public boolean equivalent(final Node left, final Node right) {
+        return equivalent(factory.fromNode(left), factory.fromNode(right));
+    }
+
+    /**
+     * Checks whether the given formula is satisfiable.
+     * @param formula a formula created by {@link #getFactory()}
+     */
+    public boolean isSatisfiable(final InternedFormula formula) {
+        return isSatisfiable(SATCache.Query.SATISFIABLE, formula, factory.True);
+    }
+
+    /**
+     * Checks whether <code>left</code> =&gt; <code>right</code> is a tautology.
+     * @param left a formula created by {@link #getFactory()}
+     * @param right a formula created by {@link #getFactory()}
+     */
+    public boolean implies(final InternedFormula left, final InternedFormula right) {
+        return left == right || !isSatisfiable(SATCache.Query.IMPLIES, left, factory.not(right));
+    }
+
+    /**
+     * Checks whether <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
+     * @param left a formula created by {@link #getFactory()}
+     * @param right a formula created by {@link #getFactory()}
+     */
+    public boolean equivalent(final InternedFormula left, final InternedFormula right) {
+        return implies(left, right) && implies(right, left);
+    }
+
+    /**
+     * Checks whether the conjunction of both formulas is satisfiable by assuming that both of
+     * their selector variables are true.
+     * In contrast to checking {@code factory.and(a, b)}, no selector variable for the conjunction
+     * is created, so this is the cheapest way to check many formulas against a fixed formula.
+     * @param a a formula created by {@link #getFactory()}
+     * @param b a formula created by {@link #getFactory()}
+     */
+    public boolean isSatisfiable(final InternedFormula a, final InternedFormula b) {
+        return isSatisfiable(SATCache.Query.SATISFIABLE, a, b);
+    }
+
+    /**
+     * Checks whether the conjunction of all given formulas is satisfiable by assuming that all of
+     * their selector variables are true.
+     * As for {@link #isSatisfiable(InternedFormula, InternedFormula)}, no selector variable for the
+     * conjunction is created. Hence, formulas which are conjunctions of many shared formulas (e.g.,
+     * presence conditions as the conjunction of the feature mappings of all ancestors) are checked
+     * without encoding any new clauses for the shared formulas.
+     * @param formulas formulas created by {@link #getFactory()}
+     */
+    public boolean isSatisfiable(final List<InternedFormula> formulas) {
+        if (formulas.size() <= 2) {
+            return isSatisfiable(
+                    formulas.isEmpty() ? factory.True : formulas.get(0),
+                    formulas.size() < 2 ? factory.True : formulas.get(1));
+        }
+
+        for (final InternedFormula formula : formulas) {
+            if (formula.isFalse()) {
+                return false;
+            }
+        }
+        return solve(formulas.toArray(InternedFormula[]::new));
+    }
+
+    private boolean isSatisfiable(final SATCache.Query query, final InternedFormula a, final InternedFormula b) {
+        if (a.isFalse() || b.isFalse()) {
+            return false;
+        }
+        if (a.isTrue() && b.isTrue() && constraints == null) {
+            return true;
+        }
+
+        final long key = ((long) a.getId() << 32) | b.getId();
+        final Boolean known = results.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        final boolean result;
+        if (constraints == null && a.numberOfLiterals() + b.numberOfLiterals() < CACHE_THRESHOLD) {
+            // The cache is only valid for unconstrained queries.
+            final Node conjunction = b.isTrue() ? a.toNode() : a.isTrue() ? b.toNode() : FormulaUtils.and(a.toNode(), b.toNode());
+            result = SATCache.Default.isSatisfiable(query, conjunction, () -> solve(a, b));
+        } else {
+            result = solve(a, b);
+        }
+
+        results.put(key, result);
+        return result;
+    }
+
+    /**
+     * Checks whether the conjunction of all formulas is satisfiable using the solver of this
+     * session.
+     */
+    private boolean solve(final InternedFormula... formulas) {
+        if (solver == null) {
+            solver = SolverFactory.newDefault();
+            // A time based timeout would start a timer thread for each query.
+            solver.setTimeoutOnConflicts(Integer.MAX_VALUE);
+            if (constraints != null) {
+                try {
+                    constraints.loadInto(solver);
+                } catch (ContradictionException e) {
+                    contradiction = true;
+                }
+            }
+        }
+        if (contradiction) {
+            return false;
+        }
+
+        final VecInt assumptions = new VecInt(formulas.length);
+        for (final InternedFormula formula : formulas) {
+            if (!formula.isTrue()) {
+                assumptions.push(encode(formula));
+            }
+        }
+        ++numberOfQueries;
+        try {
+            return solver.isSatisfiable(assumptions);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("SAT solver timed out on " + Arrays.toString(formulas), e);
+        }
+    }
+
+    /**
+     * Returns the solver literal which is equivalent to {@code formula}.
+     * Adds the defining clauses of {@code formula} and all of its subformulas if necessary.
+     */
+    private int encode(final InternedFormula formula) {
+        if (formula.getFactory() != factory) {
+            throw new IllegalArgumentException("Formula " + formula + " was not created by the factory of this session");
+        }
+
+        final Integer known = literals.get(formula);
+        if (known != null) {
+            return known;
+        }
+
+        final int literal = switch (formula.getKind()) {
+            case TRUE, FALSE -> throw new IllegalArgumentException("Constants cannot be encoded");
+            case VARIABLE -> encodeVariable(formula);
+            case NOT -> -encode(formula.getChild(0));
+            case AND -> encodeJunction(formula, true);
+            case OR -> encodeJunction(formula, false);
+            case IMPLIES -> {
+                // a => b is defined as (-a | b)
+                final int selector = solver.nextFreeVarId(true);
+                final int a = encode(formula.getChild(0));
+                final int b = encode(formula.getChild(1));
+                addClause(-selector, -a, b);
+                addClause(selector, a);
+                addClause(selector, -b);
+                yield selector;
+            }
+            case EQUALS -> {
+                final int selector = solver.nextFreeVarId(true);
+                final int a = encode(formula.getChild(0));
+                final int b = encode(formula.getChild(1));
+                addClause(-selector, -a, b);
+                addClause(-selector, a, -b);
+                addClause(selector, a, b);
+                addClause(selector, -a, -b);
+                yield selector;
+            }
+        };
+
+        literals.put(formula, literal);
+        return literal;
+    }
+
+    /**
+     * Returns the solver variable of the constraints for {@code formula} or a fresh variable if
+     * the variable does not occur in the constraints.
+     */
+    private int encodeVariable(final InternedFormula formula) {
+        if (constraints != null) {
+            final int variable = constraints.getVariable(formula.getVariableName());
+            if (variable != 0) {
+                return variable;
+            }
+        }
+        return solver.nextFreeVarId(true);
+    }
+
+    /**
+     * Encodes a conjunction ({@code isAnd}) or disjunction ({@code !isAnd}).
+     * The disjunction is encoded as the negated conjunction of the negated operands.
+     */
+    private int encodeJunction(final InternedFormula formula, final boolean isAnd) {
+        final int sign = isAnd ? 1 : -1;
+        final int selector = solver.nextFreeVarId(true);
+        final int[] all = new int[formula.getChildCount() + 1];
+        all[0] = selector;
+        for (int i = 0; i < formula.getChildCount(); ++i) {
+            final int operand = sign * encode(formula.getChild(i));
+            // selector => operand
+            addClause(-selector, operand);
+            all[i + 1] = -operand;
+        }
+        // (operand_1 & ... & operand_n) => selector
+        addClause(all);
+        return sign * selector;
+    }
+
+    private void addClause(final int... clause) {
+        try {
+            solver.addClause(new VecInt(clause));
+        } catch (ContradictionException e) {
+            // Definitions of fresh selector variables are always satisfiable.
+            throw new IllegalStateException("Unexpected contradiction while encoding a formula", e);
+        }
+    }
+}
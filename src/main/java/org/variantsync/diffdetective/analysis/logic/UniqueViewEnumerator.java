@@ -0,0 +1,283 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Node;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates the satisfiable conjunctions of subsets of a list of formulas, modulo
+ * equivalence. This is the core of {@link UniqueViewsAlgorithm} where the formulas are the negated
+ * presence conditions of a diff.
+ *
+ * <p>Instead of checking all subsets, an incremental SAT solver enumerates the <em>types</em> of
+ * assignments: the set of formulas satisfied by an assignment, projected onto one solver literal
+ * per formula. A subset is satisfiable iff it is contained in some type. After each type, a
+ * blocking clause requires the next type to contain a formula outside of the current type. Thus,
+ * no unsatisfiable subset is ever considered and the enumeration ends once every assignment is
+ * covered by a found type.
+ *
+ * <p>The number of views may still be exponential in the number of formulas. Hence, the
+ * enumeration can be limited by a number of views and a time limit, after which it stops early
+ * (see {@link #isBudgetExhausted()}).
+ */
+public class UniqueViewEnumerator implements Iterator<Node> {
+    /** The maximum number of formulas as subsets are represented by the bits of a {@code long}. */
+    public static final int MAX_FORMULAS = Long.SIZE;
+
+    private final List<Node> formulas;
+    private final boolean simplify;
+    private final long maxViews;
+    private final long deadline;
+
+    private final ISolver solver;
+    /** Solver literals equivalent to {@link #formulas}. */
+    private final int[] literals;
+    /** Subset of formulas which are constant true. */
+    private long tautologies = 0;
+    /** Subset of formulas which are satisfiable at all. */
+    private long candidates = 0;
+    private final List<Long> types = new ArrayList<>();
+    private final SemanticDeduplicator views = new SemanticDeduplicator();
+
+    private boolean solverExhausted = false;
+    private boolean budgetExhausted = false;
+    /** The current type and the last subset of it which was considered. */
+    private long type = 0;
+    private long subset = 0;
+    private boolean typeExhausted = true;
+    private Node next = null;
+    private int solverCalls = 0;
+
+    /**
+     * Enumerates all views without a budget.
+     * @see #UniqueViewEnumerator(List, boolean, long, Duration)
+     */
+    public UniqueViewEnumerator(final List<Node> formulas, final boolean simplify) {
+        this(formulas, simplify, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Prepares the enumeration of all satisfiable conjunctions of subsets of {@code formulas}.
+     *
+     * @param formulas at most {@link #MAX_FORMULAS} formulas. They are not copied and must not be
+     * modified during the enumeration. The enumerated views don't share subformulas with them.
+     * @param simplify whether to simplify the conjunctions when converting them to CNF
+     * @param maxViews the maximum number of views to enumerate
+     * @param timeLimit the time after which the enumeration stops or {@code null} for no time limit
+     */
+    public UniqueViewEnumerator(final List<Node> formulas, final boolean simplify, final long maxViews, final Duration timeLimit) {
+        if (formulas.size() > MAX_FORMULAS) {
+            throw new IllegalArgumentException("Can enumerate views of at most " + MAX_FORMULAS + " formulas but got " + formulas.size());
+        }
+        this.formulas = List.copyOf(formulas);
+        this.simplify = simplify;
+        this.maxViews = maxViews;
+        this.deadline = timeLimit == null ? Long.MAX_VALUE : System.nanoTime() + timeLimit.toNanos();
+
+        solver = SolverFactory.newDefault();
+        // A time based timeout would start a timer thread for each query.
+        solver.setTimeoutOnConflicts(Integer.MAX_VALUE);
+        literals = new int[this.formulas.size()];
+
+        final PlaistedGreenbaum encoder = new PlaistedGreenbaum(solver);
+        try {
+            for (int i = 0; i < literals.length; ++i) {
+                final FixTrueFalse.Formula formula = FixTrueFalse.EliminateTrueAndFalse(this.formulas.get(i));
+                if (formula.isTrueConstant()) {
+                    tautologies |= 1L << i;
+                    candidates |= 1L << i;
+                } else if (!formula.isFalseConstant()) {
+                    literals[i] = encoder.getLiteral(formula.get());
+                    candidates |= 1L << i;
+                }
+            }
+        } catch (ContradictionException e) {
+            // Encoding a formula does not restrict the solver, so this cannot happen.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} iff the enumeration stopped because the number of views or the time
+     * limit was reached. In this case, some views may be missing.
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /** Returns the number of enumerated views. */
+    public int getNumberOfViews() {
+        return views.size();
+    }
+
+    /** Returns the number of types found by the solver so far. */
+    public int getNumberOfTypes() {
+        return types.size();
+    }
+
+    public int getNumberOfSolverCalls() {
+        return solverCalls;
+    }
+
+    /** Returns the remaining views as a lazy sequential stream. */
+    public Stream<Node> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = computeNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Node next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Node result = next;
+        next = null;
+        return result;
+    }
+
+    private Node computeNext() {
+        while (!budgetExhausted) {
+            if (views.size() >= maxViews || System.nanoTime() > deadline) {
+                budgetExhausted = true;
+                break;
+            }
+
+            if (typeExhausted) {
+                if (!nextType()) {
+                    break;
+                }
+                typeExhausted = false;
+                subset = 0;
+            } else {
+                // next subset of type in ascending order
+                subset = (subset - type) & type;
+                if (subset == 0) {
+                    typeExhausted = true;
+                    continue;
+                }
+            }
+
+            if (isCoveredByPreviousType(subset)) {
+                continue;
+            }
+
+            final List<Node> conjunction = new ArrayList<>(Long.bitCount(subset));
+            for (long s = subset; s != 0; s &= s - 1) {
+                conjunction.add(formulas.get(Long.numberOfTrailingZeros(s)));
+            }
+            final Node view = new And(conjunction).toCNF(simplify);
+            if (views.add(view)) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /** Whether {@code subset} was already enumerated as a subset of a type before the current one. */
+    private boolean isCoveredByPreviousType(final long subset) {
+        for (int i = 0; i < types.size() - 1; ++i) {
+            if ((subset & ~types.get(i)) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the formulas satisfied by the current model of the solver. */
+    private long typeOfModel() {
+        long type = tautologies;
+        for (int i = 0; i < literals.length; ++i) {
+            final int literal = literals[i];
+            if (literal != 0 && solver.model(Math.abs(literal)) == (literal > 0)) {
+                type |= 1L << i;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Asks the solver for an assignment which satisfies a formula outside of all previous types
+     * and stores its type in {@link #type}.
+     * @return {@code false} iff there is no such assignment
+     */
+    private boolean nextType() {
+        if (solverExhausted) {
+            return false;
+        }
+
+        try {
+            ++solverCalls;
+            if (!solver.isSatisfiable()) {
+                solverExhausted = true;
+                return false;
+            }
+        } catch (TimeoutException e) {
+            budgetExhausted = true;
+            return false;
+        }
+
+        type = typeOfModel();
+
+        // Extend the type to a maximal one, so fewer types are needed to cover all assignments.
+        // Each model satisfies all formulas of the previous type, so the type grows monotonically.
+        for (int i = 0; i < literals.length; ++i) {
+            if ((type & (1L << i)) == 0 && literals[i] != 0) {
+                final VecInt assumptions = new VecInt();
+                for (long s = (type & ~tautologies) | (1L << i); s != 0; s &= s - 1) {
+                    assumptions.push(literals[Long.numberOfTrailingZeros(s)]);
+                }
+                try {
+                    ++solverCalls;
+                    if (solver.isSatisfiable(assumptions)) {
+                        type = typeOfModel();
+                    }
+                } catch (TimeoutException e) {
+                    // keep the current type
+                }
+            }
+        }
+
+        types.add(type);
+
+        // Block all assignments whose type is a subset of the current type.
+        final long outside = candidates & ~type;
+        if (outside == 0) {
+            solverExhausted = true;
+            return true;
+        }
+        final VecInt blockingClause = new VecInt(Long.bitCount(outside));
+        for (long s = outside; s != 0; s &= s - 1) {
+            blockingClause.push(literals[Long.numberOfTrailingZeros(s)]);
+        }
+        try {
+            solver.addClause(blockingClause);
+        } catch (ContradictionException e) {
+            solverExhausted = true;
+        }
+        return true;
+    }
+}
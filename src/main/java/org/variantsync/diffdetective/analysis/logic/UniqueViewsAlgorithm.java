@@ -1,22 +1,20 @@
 package org.variantsync.diffdetective.analysis.logic;
 
-import org.prop4j.And;
 import org.prop4j.Node;
 import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.util.fide.FormulaUtils;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.removeSemanticDuplicates;
 
 public class UniqueViewsAlgorithm {
-    private static final int POWERSET_BLOWUP_THRESHOLD = 8;
-    static {
-        assert POWERSET_BLOWUP_THRESHOLD < Integer.SIZE;
-    }
+    /** The maximum number of views computed by {@link #getUniquePartialConfigs(VariationDiff, boolean)}. */
+    public static final long DEFAULT_MAX_VIEWS = 1 << 16;
 
     /**
      * Build a set of partial configurations such that
@@ -24,11 +22,52 @@ public class UniqueViewsAlgorithm {
      * - every view is uniqe
      * - every possible view is included
      * This works by deselecting any subset of presence conditions of the artifacts in the given diff.
+     * The number of views may be exponential in the size of the diff. Hence, the computation is
+     * aborted after {@link #DEFAULT_MAX_VIEWS} views. There is no time limit, so the result is
+     * reproducible.
      * @param d
      * @param simplify Whether to simplify formulas in between the algorithm.
-     * @return
+     * @return The partial configurations or {@code null} if the diff has more than
+     * {@link UniqueViewEnumerator#MAX_FORMULAS} different presence conditions or the computation
+     * was aborted.
+     * @see #getUniquePartialConfigs(VariationDiff, boolean, long, Duration)
      */
     public static List<Node> getUniquePartialConfigs(VariationDiff<?> d, boolean simplify) {
+        return getUniquePartialConfigs(d, simplify, DEFAULT_MAX_VIEWS, null);
+    }
+
+    /**
+     * Variant of {@link #getUniquePartialConfigs(VariationDiff, boolean)} with a custom budget.
+     * @param maxViews the number of views after which the computation is aborted
+     * @param timeLimit the duration after which the computation is aborted or {@code null} for no
+     * time limit
+     * @return The partial configurations or {@code null} if the diff has more than
+     * {@link UniqueViewEnumerator#MAX_FORMULAS} different presence conditions or the budget was
+     * exhausted (see {@link UniqueViewEnumerator#isBudgetExhausted()}). Use
+     * {@link #enumerateUniquePartialConfigs} to obtain the views computed within the budget.
+     */
+    public static List<Node> getUniquePartialConfigs(VariationDiff<?> d, boolean simplify, long maxViews, Duration timeLimit) {
+        final UniqueViewEnumerator views = enumerateUniquePartialConfigs(d, simplify, maxViews, timeLimit);
+        if (views == null) {
+            return null;
+        }
+
+        final List<Node> partialConfigs = new ArrayList<>();
+        views.forEachRemaining(partialConfigs::add);
+        if (views.isBudgetExhausted()) {
+            return null;
+        }
+        return partialConfigs;
+    }
+
+    /**
+     * Lazy variant of {@link #getUniquePartialConfigs} which stops after {@code maxViews} partial
+     * configurations or when {@code timeLimit} is exceeded.
+     * @param timeLimit the maximum duration of the enumeration or {@code null} for no time limit
+     * @return An enumerator of the partial configurations or {@code null} if the diff has more than
+     * {@link UniqueViewEnumerator#MAX_FORMULAS} different presence conditions.
+     */
+    public static UniqueViewEnumerator enumerateUniquePartialConfigs(VariationDiff<?> d, boolean simplify, long maxViews, Duration timeLimit) {
         final Set<Node> deselectedPCs = new LinkedHashSet<>();
 
         // Collect all PCs negated
@@ -37,7 +76,7 @@ public class UniqueViewsAlgorithm {
                 a.getDiffType().forAllTimesOfExistence(t -> {
                     Node deselectedPC = a.getPresenceCondition(t);
 
-                    deselectedPC = FixTrueFalse.EliminateTrueAndFalseInplace(deselectedPC).get(); // must
+                    deselectedPC = FixTrueFalse.EliminateTrueAndFalse(deselectedPC).get(); // must (without modifying the shared presence condition)
                     deselectedPC = negate(deselectedPC); // must
                     deselectedPC = deselectedPC.toRegularCNF(simplify); // optimization
                     FormulaUtils.sortRegularCNF(deselectedPC); // optimization
@@ -51,8 +90,8 @@ public class UniqueViewsAlgorithm {
         final List<Node> deselectedPCsList = new ArrayList<>(deselectedPCs);
         removeSemanticDuplicates(deselectedPCsList);
 
-        // Algorithm is restricted in number of different PCs it can handle.
-        if (deselectedPCsList.size() > POWERSET_BLOWUP_THRESHOLD) {
+        // Subsets of PCs are represented as bit vectors.
+        if (deselectedPCsList.size() > UniqueViewEnumerator.MAX_FORMULAS) {
             return null;
         }
 
@@ -62,36 +101,6 @@ public class UniqueViewsAlgorithm {
                 .thenComparing(FormulaUtils::numberOfLiteralsInRegularCNF)
         );
 
-        // powerset
-        final int powsetSize = 1 << deselectedPCsList.size();
-
-        final List<Node> partialConfigs = new ArrayList<>(powsetSize); // :-1: by Sebastian
-        for (int pcsToDeselectBitVector = 0; pcsToDeselectBitVector < powsetSize; ++pcsToDeselectBitVector) {
-            int pcsRemainingToDeselect = Integer.bitCount(pcsToDeselectBitVector);
-            final List<Node> subset = new ArrayList<>(pcsRemainingToDeselect);
-
-            // As long as there are more pcs to deselect, deselect the one at the current bit.
-            for (int i = 0; pcsRemainingToDeselect > 0; ++i) {
-                if (((1L << i) & pcsToDeselectBitVector) > 0) {
-                    subset.add(deselectedPCsList.get(i));
-                    --pcsRemainingToDeselect;
-                }
-            }
-
-            final Node viewFormula = new And(subset).toCNF(simplify);
-            if (SAT.isSatisfiable(viewFormula)) {
-                partialConfigs.add(viewFormula);
-            } else {
-                // OPTIMIZATION
-                // skip some of the unsatisfiable next cases that just add further clauses to our already
-                // conflicting clause set
-                pcsToDeselectBitVector += 1 << Integer.lowestOneBit(pcsToDeselectBitVector);
-            }
-        }
-
-        // remove semantic duplicates
-        removeSemanticDuplicates(partialConfigs);
-
-        return partialConfigs;//*/
+        return new UniqueViewEnumerator(deselectedPCsList, simplify, maxViews, timeLimit);
     }
 }
@@ -0,0 +1,288 @@
+package org.variantsync.diffdetective.analysis.strategies;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.datasets.Repository;
+import org.variantsync.diffdetective.diff.git.CommitDiff;
+import org.variantsync.diffdetective.util.FileUtils;
+import org.variantsync.diffdetective.util.IO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Collects the linegraph representations generated by an analysis in buffers which are written to
+ * the output file by a dedicated writer thread.
+ * Once a buffer holds at least a certain amount of bytes, it is handed to the writer thread and the
+ * analysis continues with another buffer from a fixed pool of recycled buffers.
+ * Thus, the analysis only waits for the writer thread if all buffers are waiting to be written,
+ * i.e., if the disk can't keep up with the analysis.
+ * <p>
+ * Optionally, the output file is compressed while writing it (see {@link Compression}).
+ * <p>
+ * If the output file can't be written, the writer thread keeps recycling the remaining buffers
+ * without writing them, so the analysis is never blocked, and the first failure is rethrown by
+ * {@link #end()}.
+ *
+ * @see AnalyzeAndExportIncrementally
+ */
+public class AnalyzeAndExportAsynchronously extends AnalysisStrategy {
+    /**
+     * Default value for the amount of bytes after which a buffer is handed to the writer thread.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    /**
+     * Default value for the number of buffers which may be in use at once.
+     */
+    public static final int DEFAULT_NUMBER_OF_BUFFERS = 4;
+
+    /**
+     * Compression applied to the output file by the writer thread.
+     */
+    public enum Compression {
+        /** The output file is written as is. */
+        NONE(""),
+        /** The output file is compressed in the gzip format (see {@link GZIPOutputStream}). */
+        GZIP(".gz"),
+        /** The output file is compressed in the zlib format (see {@link DeflaterOutputStream}). */
+        DEFLATE(".deflate");
+
+        private final String fileExtension;
+
+        Compression(final String fileExtension) {
+            this.fileExtension = fileExtension;
+        }
+
+        /**
+         * Returns the file extension appended to the output file of an analysis using this compression.
+         */
+        public String getFileExtension() {
+            return fileExtension;
+        }
+
+        /**
+         * Returns a stream compressing all data written to it into {@code destination}.
+         * Closing the returned stream also closes {@code destination}.
+         */
+        public OutputStream wrap(final OutputStream destination) throws IOException {
+            return switch (this) {
+                case NONE -> destination;
+                case GZIP -> new GZIPOutputStream(destination);
+                case DEFLATE -> new DeflaterOutputStream(destination);
+            };
+        }
+    }
+
+    /**
+     * Marks the end of the output in the queue of filled buffers.
+     */
+    private static final ByteArrayOutputStream END = new ByteArrayOutputStream(0);
+
+    private final int bufferSize;
+    private final Compression compression;
+    private final BlockingQueue<ByteArrayOutputStream> freeBuffers;
+    private final BlockingQueue<ByteArrayOutputStream> filledBuffers;
+
+    private ByteArrayOutputStream currentBuffer;
+    private OutputStream destination;
+    private Thread writer;
+    /**
+     * The first failure while writing the output file or {@code null}.
+     * Only accessed by the writer thread while it is running.
+     */
+    private Throwable failure;
+
+    /**
+     * Creates a new strategy that writes its output asynchronously.
+     * @param bufferSize Amount of bytes after which a buffer is handed to the writer thread.
+     * @param numberOfBuffers Number of buffers which may be in use at once. If all buffers are
+     * waiting to be written, the analysis waits for the writer thread.
+     * @param compression The compression applied to the output file.
+     */
+    public AnalyzeAndExportAsynchronously(int bufferSize, int numberOfBuffers, Compression compression) {
+        if (bufferSize <= 0 || numberOfBuffers <= 0) {
+            throw new IllegalArgumentException("Expected a positive buffer size and number of buffers but got " + bufferSize + " and " + numberOfBuffers + "!");
+        }
+
+        this.bufferSize = bufferSize;
+        this.compression = compression;
+        this.freeBuffers = new ArrayBlockingQueue<>(numberOfBuffers);
+        // One additional slot for END, so handing over a buffer never blocks.
+        this.filledBuffers = new ArrayBlockingQueue<>(numberOfBuffers + 1);
+
+        for (int i = 0; i < numberOfBuffers; ++i) {
+            freeBuffers.add(new ByteArrayOutputStream(bufferSize));
+        }
+    }
+
+    /**
+     * Creates a new strategy with the default buffer size and number of buffers.
+     * @param compression The compression applied to the output file.
+     * @see AnalyzeAndExportAsynchronously#AnalyzeAndExportAsynchronously(int, int, Compression)
+     */
+    public AnalyzeAndExportAsynchronously(Compression compression) {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_NUMBER_OF_BUFFERS, compression);
+    }
+
+    /**
+     * Creates a new strategy with the default buffer size and number of buffers which writes
+     * uncompressed output.
+     * @see AnalyzeAndExportAsynchronously#AnalyzeAndExportAsynchronously(int, int, Compression)
+     */
+    public AnalyzeAndExportAsynchronously() {
+        this(Compression.NONE);
+    }
+
+    /**
+     * Returns the file written by this strategy when it is {@link #start started} with
+     * {@code outputPath}.
+     */
+    public Path getOutputFile(Path outputPath) {
+        return FileUtils.addExtension(outputPath, compression.getFileExtension());
+    }
+
+    @Override
+    public void start(Repository repo, Path outputPath) {
+        super.start(repo, outputPath);
+
+        failure = null;
+        try {
+            destination = compression.wrap(IO.newBufferedOutputStream(getOutputFile(outputPath)));
+        } catch (IOException e) {
+            fail(e);
+            destination = OutputStream.nullOutputStream();
+        }
+
+        currentBuffer = takeFreeBuffer();
+        writer = new Thread(this::write, "line graph writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public OutputStream onCommit(CommitDiff commit) {
+        if (currentBuffer.size() >= bufferSize) {
+            handOver(currentBuffer);
+            currentBuffer = takeFreeBuffer();
+        }
+
+        // currentBuffer is reused for multiple commits. CloseShieldOutputStream ensures that it
+        // isn't closed after processing this commit.
+        return CloseShieldOutputStream.wrap(currentBuffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Waits until the writer thread wrote all output.
+     * @throws UncheckedIOException if the output file couldn't be written completely
+     */
+    @Override
+    public void end() {
+        handOver(currentBuffer);
+        handOver(END);
+        currentBuffer = null;
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            writer = null;
+        }
+
+        // Joining the writer thread ensures that its failure is visible.
+        final Throwable f = failure;
+        failure = null;
+        if (f instanceof IOException e) {
+            throw new UncheckedIOException("Could not write " + getOutputFile(outputPath), e);
+        } else if (f instanceof RuntimeException e) {
+            throw e;
+        } else if (f instanceof Error e) {
+            throw e;
+        } else if (f != null) {
+            throw new RuntimeException(f);
+        }
+    }
+
+    /**
+     * Main loop of the writer thread.
+     * Writes all filled buffers in the order they were handed over and returns them to the pool of
+     * free buffers. After any failure, the remaining buffers are discarded such that the analysis
+     * is never blocked by a failed writer.
+     */
+    private void write() {
+        try {
+            ByteArrayOutputStream buffer;
+            while ((buffer = filledBuffers.take()) != END) {
+                try {
+                    if (failure == null) {
+                        buffer.writeTo(destination);
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    recycle(buffer);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                destination.close();
+            } catch (Throwable t) {
+                // Compressing streams write their trailer when closed.
+                fail(t);
+            }
+            destination = null;
+        }
+    }
+
+    /**
+     * Records {@code t} to be rethrown by {@link #end()}. Only the first failure is rethrown, later
+     * ones are suppressed by it.
+     */
+    private void fail(final Throwable t) {
+        Logger.error(t);
+        if (failure == null) {
+            failure = t;
+        } else if (failure != t) {
+            failure.addSuppressed(t);
+        }
+    }
+
+    private ByteArrayOutputStream takeFreeBuffer() {
+        try {
+            return freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void handOver(final ByteArrayOutputStream buffer) {
+        if (buffer != END && buffer.size() == 0) {
+            freeBuffers.add(buffer);
+            return;
+        }
+
+        filledBuffers.add(buffer);
+    }
+
+    private void recycle(final ByteArrayOutputStream buffer) {
+        if (buffer.size() > 4 * bufferSize) {
+            // Don't retain the memory of buffers that grew because of single huge commits.
+            freeBuffers.add(new ByteArrayOutputStream(bufferSize));
+        } else {
+            buffer.reset();
+            freeBuffers.add(buffer);
+        }
+    }
+}
@@ -11,11 +11,20 @@ import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOpti
  * @param variationDiffParseOptions Options for parsing a patch to a {@link
  *                                  org.variantsync.diffdetective.variation.diff.VariationDiff}. For
  *                                  more information, see {@link VariationDiffParseOptions}.
+ * @param recycleNodes              Whether the nodes of parsed patches should be allocated in a
+ *                                  {@link org.variantsync.diffdetective.variation.diff.DiffNodeArena}
+ *                                  and reused for later patches. If enabled, the
+ *                                  {@link org.variantsync.diffdetective.variation.diff.VariationDiff}
+ *                                  of a patch is only valid until the patch is
+ *                                  {@link org.variantsync.diffdetective.diff.git.PatchDiff#releaseVariationDiff() released}
+ *                                  which the {@link org.variantsync.diffdetective.analysis.Analysis}
+ *                                  does after the {@code endPatch} hooks.
  * @author Paul Bittner
  */
 public record PatchDiffParseOptions(
         DiffStoragePolicy diffStoragePolicy,
-        VariationDiffParseOptions variationDiffParseOptions
+        VariationDiffParseOptions variationDiffParseOptions,
+        boolean recycleNodes
 ) {
     public enum DiffStoragePolicy {
         REMEMBER_DIFF,
@@ -24,13 +33,24 @@ public record PatchDiffParseOptions(
         DO_NOT_REMEMBER,
     }
 
+    /**
+     * Creates PatchDiffParseOptions which do not {@link #recycleNodes() recycle nodes}.
+     */
+    public PatchDiffParseOptions(
+            DiffStoragePolicy diffStoragePolicy,
+            VariationDiffParseOptions variationDiffParseOptions
+    ) {
+        this(diffStoragePolicy, variationDiffParseOptions, false);
+    }
+
     /**
      * Creates PatchDiffParseOptions with the given annotation parser.
      */
     public PatchDiffParseOptions withAnnotationParser(AnnotationParser annotationParser) {
         return new PatchDiffParseOptions(
                 this.diffStoragePolicy(),
-                this.variationDiffParseOptions().withAnnotationParser(annotationParser)
+                this.variationDiffParseOptions().withAnnotationParser(annotationParser),
+                this.recycleNodes()
         );
     }
 
@@ -40,7 +60,20 @@ public record PatchDiffParseOptions(
     public PatchDiffParseOptions withDiffStoragePolicy(DiffStoragePolicy diffStoragePolicy) {
         return new PatchDiffParseOptions(
                 diffStoragePolicy,
-                this.variationDiffParseOptions()
+                this.variationDiffParseOptions(),
+                this.recycleNodes()
+        );
+    }
+
+    /**
+     * Creates PatchDiffParseOptions with the given node recycling setting.
+     * @see #recycleNodes()
+     */
+    public PatchDiffParseOptions withRecycleNodes(boolean recycleNodes) {
+        return new PatchDiffParseOptions(
+                this.diffStoragePolicy(),
+                this.variationDiffParseOptions(),
+                recycleNodes
         );
     }
 
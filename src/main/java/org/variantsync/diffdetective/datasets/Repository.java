@@ -4,6 +4,7 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.FeatureModelConstraints;
 import org.variantsync.diffdetective.diff.git.DiffFilter;
 import org.variantsync.diffdetective.load.GitLoader;
 import org.variantsync.diffdetective.util.IO;
@@ -58,6 +59,11 @@ public class Repository {
      */
     private PatchDiffParseOptions parseOptions;
 
+    /**
+     * The constraints of the feature model of this repository, if any.
+     */
+    private FeatureModelConstraints featureModel;
+
     private final Lazy<Git> git = Lazy.of(this::load);
 
     /**
@@ -233,6 +239,25 @@ public class Repository {
         return diffFilter;
     }
 
+    /**
+     * Set the feature model of this repository.
+     * Analyses which support feature models answer their satisfiability queries with respect to
+     * these constraints. The constraints are compiled only once and shared by all analyses.
+     * @param featureModel The compiled constraints of the feature model or {@code null} for none.
+     * @return this
+     */
+    public Repository setFeatureModel(final FeatureModelConstraints featureModel) {
+        this.featureModel = featureModel;
+        return this;
+    }
+
+    /**
+     * The constraints of the feature model of this repository, if any.
+     */
+    public Optional<FeatureModelConstraints> getFeatureModel() {
+        return Optional.ofNullable(featureModel);
+    }
+
 
     /**
      * Options that should be used when parsing the evolution history.
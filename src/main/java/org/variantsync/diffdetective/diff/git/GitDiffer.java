@@ -19,6 +19,7 @@ import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.diffdetective.util.StringUtils;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNodeArena;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
 
@@ -220,6 +221,7 @@ public class GitDiffer {
                 }
 
 
+                DiffNodeArena.Region region = null;
                 try {
                     String fullDiff = switch (diffEntry.getChangeType()) {
                         case ADD, DELETE -> {
@@ -252,9 +254,13 @@ public class GitDiffer {
                         fullDiff += StringUtils.LINEBREAK;
                     }
 
+                    if (repository.getParseOptions().recycleNodes()) {
+                        region = DiffNodeArena.forCurrentThread().newRegion();
+                    }
                     final VariationDiff<DiffLinesLabel> variationDiff = VariationDiffParser.createVariationDiff(
                             fullDiff,
-                            repository.getParseOptions().variationDiffParseOptions()
+                            repository.getParseOptions().variationDiffParseOptions(),
+                            region
                     );
 
                     // not storing the full diff reduces memory usage by around 40-50%
@@ -269,12 +275,17 @@ public class GitDiffer {
                             commitDiff,
                             diffEntry,
                             diffToRemember,
-                            variationDiff
+                            variationDiff,
+                            region
                     ));
                 } catch (IOException e) {
                     Logger.debug(e, "Could not obtain full diff of file " + filename + " before commit " + parentCommit + "!");
                     errors.add(DiffError.COULD_NOT_OBTAIN_FULLDIFF);
                 } catch (DiffParseException e) {
+                    if (region != null) {
+                        region.release();
+                    }
+
                     StringBuilder logMessage = new StringBuilder();
                     logMessage
                             .append("parse exception for commit ")
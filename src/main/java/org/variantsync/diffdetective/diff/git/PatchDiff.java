@@ -3,6 +3,7 @@ package org.variantsync.diffdetective.diff.git;
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNodeArena;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
@@ -15,7 +16,12 @@ import org.variantsync.diffdetective.variation.diff.VariationDiff;
  */
 public class PatchDiff implements GitPatch {
     private final String fullDiff;
-    private final VariationDiff<DiffLinesLabel> variationDiff;
+    private VariationDiff<DiffLinesLabel> variationDiff;
+
+    /**
+     * The region owning the nodes of {@link #variationDiff} or {@code null} if they are heap allocated.
+     */
+    private DiffNodeArena.Region region;
 
     /**
      * The commit the patch belongs to.
@@ -45,12 +51,27 @@ public class PatchDiff implements GitPatch {
      */
     public PatchDiff(CommitDiff commitDiff, DiffEntry diffEntry, String fullDiff,
                      VariationDiff<DiffLinesLabel> variationDiff) {
+        this(commitDiff, diffEntry, fullDiff, variationDiff, null);
+    }
+
+    /**
+     * Creates a new PatchDiff whose {@link VariationDiff} was allocated in the given region.
+     * @param commitDiff The changes of a commit this patch belongs to.
+     * @param diffEntry The diff entry from jgit from which this PatchDiff was produced.
+     * @param fullDiff The diff of this patch as text. Might be empty.
+     * @param variationDiff The {@link VariationDiff} that describes this patch.
+     * @param region The region owning the nodes of {@code variationDiff} or {@code null}.
+     * @see #releaseVariationDiff()
+     */
+    public PatchDiff(CommitDiff commitDiff, DiffEntry diffEntry, String fullDiff,
+                     VariationDiff<DiffLinesLabel> variationDiff, DiffNodeArena.Region region) {
         this.commitDiff = commitDiff;
         this.changeType = diffEntry.getChangeType();
         this.oldPath = diffEntry.getOldPath();
         this.newPath = diffEntry.getNewPath();
         this.fullDiff = fullDiff;
         this.variationDiff = variationDiff;
+        this.region = region;
         if (this.variationDiff != null) {
             this.variationDiff.setSource(this);
         }
@@ -106,6 +127,20 @@ public class PatchDiff implements GitPatch {
         return variationDiff;
     }
 
+    /**
+     * Discards the VariationDiff of this patch.
+     * If the VariationDiff was allocated in a {@link DiffNodeArena.Region}, its nodes are handed back
+     * for reuse, so neither the VariationDiff nor any of its nodes may be used afterwards.
+     * Afterwards, this patch is not {@link #isValid() valid} anymore.
+     */
+    public void releaseVariationDiff() {
+        variationDiff = null;
+        if (region != null) {
+            region.release();
+            region = null;
+        }
+    }
+
     /**
      * Returns whether this PatchDiff is a valid patch.
      * A patch is valid if it has a VariationDiff.
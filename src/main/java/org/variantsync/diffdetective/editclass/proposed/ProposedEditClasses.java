@@ -1,12 +1,15 @@
 package org.variantsync.diffdetective.editclass.proposed;
 
 import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.InternedFormula;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
 import org.variantsync.diffdetective.editclass.EditClass;
 import org.variantsync.diffdetective.editclass.EditClassCatalogue;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.compact.CompactVariationDiff;
 
 import java.util.*;
 
@@ -68,6 +71,21 @@ public class ProposedEditClasses implements EditClassCatalogue {
 
     @Override
     public EditClass match(DiffNode<?> node)
+    {
+        return match(node, null);
+    }
+
+    /**
+     * Same as {@link #match(DiffNode)} but answers all implication checks using the given solver
+     * session.
+     * Reusing a session for all nodes of a {@link org.variantsync.diffdetective.variation.diff.VariationDiff}
+     * avoids to encode shared parts of presence conditions and to set up a new solver for each
+     * check.
+     * @param node The node of which to find its edit class.
+     * @param session The solver session to use or {@code null} to use {@link SAT}.
+     * @return Returns the edit class that matches the given node.
+     */
+    public EditClass match(DiffNode<?> node, SolverSession session)
     {
         // This is an inlined version of all edit classes to optimize runtime when detecting the class of a certain node.
 
@@ -97,42 +115,86 @@ public class ProposedEditClasses implements EditClassCatalogue {
                 return Untouched;
             }
 
-            final Node pcb = node.getPresenceCondition(BEFORE);
-            final Node pca = node.getPresenceCondition(AFTER);
+            return matchNonEditedArtifact(node.getPresenceCondition(BEFORE), node.getPresenceCondition(AFTER), session);
+        }
+    }
 
-            final boolean beforeVariantsSubsetOfAfterVariants;
-            final boolean afterVariantsSubsetOfBeforeVariants;
+    /**
+     * Same as {@link #match(DiffNode)} but for the node with index {@code node} in the given
+     * compact diff.
+     * @param diff The diff containing the node to classify.
+     * @param node The index of an artifact node in {@code diff}.
+     * @return Returns the edit class that matches the given node.
+     */
+    public EditClass match(CompactVariationDiff<?> diff, int node)
+    {
+        if (!diff.isArtifact(node)) {
+            throw new IllegalArgumentException("Expected an artifact node but got " + diff.getNodeType(node) + "!");
+        }
 
-            /// We can avoid any SAT calls in case both formulas are syntactically equal.
-            if (pcb.equals(pca)) {
-                beforeVariantsSubsetOfAfterVariants = true;
-                afterVariantsSubsetOfBeforeVariants = true;
+        final DiffType diffType = diff.getDiffType(node);
+        if (diffType == DiffType.ADD) {
+            if (diff.getDiffType(diff.getParent(node, AFTER)) == DiffType.ADD) {
+                return AddWithMapping;
             } else {
-                beforeVariantsSubsetOfAfterVariants = SAT.implies(pcb, pca);
-                afterVariantsSubsetOfBeforeVariants = SAT.implies(pca, pcb);
-            }
-
-//            System.out.println("Found NON node " + node.getLabel());
-//            System.out.println("TAUT(" + pcb + " => " + pca + ") = " + beforeVariantsSubsetOfAfterVariants);
-//            System.out.println("TAUT(" + pca + " => " + pcb + ") = " + afterVariantsSubsetOfBeforeVariants);
-
-            // If the set of variants stayed the same.
-            if (beforeVariantsSubsetOfAfterVariants && afterVariantsSubsetOfBeforeVariants) {
-                return Refactoring;
+                return AddToPC;
             }
-            // If the set of variants grew.
-            if (beforeVariantsSubsetOfAfterVariants) { // && !afterVariantsSubsetOfBeforeVariants
-                return Generalization;
+        } else if (diffType == DiffType.REM) {
+            if (diff.getDiffType(diff.getParent(node, BEFORE)) == DiffType.REM) {
+                return RemWithMapping;
+            } else {
+                return RemFromPC;
             }
-            // If the set of variants shrank.
-            if (afterVariantsSubsetOfBeforeVariants) { // && !beforeVariantsSubsetOfAfterVariants
-                return Specialization;
+        } else {
+            if (diff.beforePathEqualsAfterPath(node)) {
+                return Untouched;
             }
 
-            // If the set of variants changed but there is no subset relation.
-            // !beforeVariantsSubsetOfAfterVariants && !afterVariantsSubsetOfBeforeVariants
-            return Reconfiguration;
+            return matchNonEditedArtifact(diff.getPresenceCondition(node, BEFORE), diff.getPresenceCondition(node, AFTER), null);
+        }
+    }
+
+    /**
+     * Classifies a non-edited artifact whose before and after paths differ by comparing the sets
+     * of variants described by its presence conditions.
+     * @param pcb The presence condition of the artifact before the edit.
+     * @param pca The presence condition of the artifact after the edit.
+     * @param session The solver session to use or {@code null} to use {@link SAT}.
+     */
+    private static EditClass matchNonEditedArtifact(final Node pcb, final Node pca, final SolverSession session) {
+        final boolean beforeVariantsSubsetOfAfterVariants;
+        final boolean afterVariantsSubsetOfBeforeVariants;
+
+        /// We can avoid any SAT calls in case both formulas are syntactically equal.
+        if (pcb.equals(pca)) {
+            beforeVariantsSubsetOfAfterVariants = true;
+            afterVariantsSubsetOfBeforeVariants = true;
+        } else if (session != null) {
+            final InternedFormula before = session.getFactory().fromNode(pcb);
+            final InternedFormula after = session.getFactory().fromNode(pca);
+            beforeVariantsSubsetOfAfterVariants = session.implies(before, after);
+            afterVariantsSubsetOfBeforeVariants = session.implies(after, before);
+        } else {
+            beforeVariantsSubsetOfAfterVariants = SAT.implies(pcb, pca);
+            afterVariantsSubsetOfBeforeVariants = SAT.implies(pca, pcb);
+        }
+
+        // If the set of variants stayed the same.
+        if (beforeVariantsSubsetOfAfterVariants && afterVariantsSubsetOfBeforeVariants) {
+            return Refactoring;
+        }
+        // If the set of variants grew.
+        if (beforeVariantsSubsetOfAfterVariants) { // && !afterVariantsSubsetOfBeforeVariants
+            return Generalization;
         }
+        // If the set of variants shrank.
+        if (afterVariantsSubsetOfBeforeVariants) { // && !beforeVariantsSubsetOfAfterVariants
+            return Specialization;
+        }
+
+        // If the set of variants changed but there is no subset relation.
+        // !beforeVariantsSubsetOfAfterVariants && !afterVariantsSubsetOfBeforeVariants
+        return Reconfiguration;
     }
 
     /**
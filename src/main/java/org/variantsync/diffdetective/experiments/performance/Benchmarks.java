@@ -0,0 +1,93 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.FileUtils;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers shared by the micro benchmarks in this package.
+ *
+ * <p>The benchmarks are meant to be run as plain Java programs on a directory of patches, by
+ * default the Linux patches from the test resources. Pass another directory (e.g., an export of
+ * real Linux kernel patches) as first program argument to benchmark on a larger data set.
+ */
+public final class Benchmarks {
+    /** Directory containing the patches to benchmark on if no directory is given as argument. */
+    public static final Path DEFAULT_PATCH_DIRECTORY = Path.of("src", "test", "resources", "linux");
+    /** Number of times each measurement is repeated before measuring to warm up the JIT. */
+    public static final int WARMUP_ITERATIONS = 5;
+
+    private Benchmarks() {}
+
+    /**
+     * Returns the patch directory given as first argument or {@link #DEFAULT_PATCH_DIRECTORY}.
+     */
+    public static Path patchDirectory(final String[] args) {
+        return args.length > 0 ? Path.of(args[0]) : DEFAULT_PATCH_DIRECTORY;
+    }
+
+    /**
+     * Parses all {@code .diff} files in the given directory (recursively).
+     * Patches that cannot be parsed are skipped and logged.
+     */
+    public static List<VariationDiff<DiffLinesLabel>> loadDiffs(final Path directory) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> diffs = new ArrayList<>();
+        for (final Path file : FileUtils.listAllFilesRecursively(directory)) {
+            if (!FileUtils.hasExtension(file, ".diff")) {
+                continue;
+            }
+
+            try {
+                diffs.add(VariationDiff.fromFile(file, VariationDiffParseOptions.Default));
+            } catch (DiffParseException e) {
+                Logger.warn("Skipping {} because it could not be parsed: {}", file, e.getMessage());
+            }
+        }
+        Logger.info("Loaded {} patches from {}", diffs.size(), directory);
+        return diffs;
+    }
+
+    /**
+     * Returns the number of bytes currently used on the heap after requesting a garbage collection.
+     * This is only an estimate as the JVM may ignore the request.
+     */
+    public static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs {@code task} {@link #WARMUP_ITERATIONS} times without measuring, then
+     * {@code iterations} times and logs the average duration.
+     *
+     * @param name the name of the measurement for logging
+     * @param iterations the number of measured runs
+     * @param task the code to measure
+     * @return the average runtime of a single run in nanoseconds
+     */
+    public static double measure(final String name, final int iterations, final Runnable task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            task.run();
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            task.run();
+        }
+        final double average = (System.nanoTime() - start) / (double) iterations;
+
+        Logger.info("{}: {} ms per run (average of {} runs)", name, average / 1e6, iterations);
+        return average;
+    }
+}
@@ -0,0 +1,87 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.compact.CompactVariationDiff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares memory consumption and traversal speed of {@link VariationDiff} and
+ * {@link CompactVariationDiff}.
+ *
+ * <p>Usage: {@code CompactVariationDiffBenchmark [patch directory] [copies]}
+ * where {@code copies} determines how often all patches are loaded to obtain measurable heap sizes.
+ *
+ * @see Benchmarks
+ */
+public class CompactVariationDiffBenchmark {
+    private static final int ITERATIONS = 100;
+
+    public static void main(String[] args) throws IOException {
+        final int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        final List<VariationDiff<DiffLinesLabel>> diffs = new ArrayList<>();
+        final long baseline = Benchmarks.usedMemory();
+        for (int i = 0; i < copies; ++i) {
+            diffs.addAll(Benchmarks.loadDiffs(Benchmarks.patchDirectory(args)));
+        }
+        final long diffMemory = Benchmarks.usedMemory() - baseline;
+
+        final List<CompactVariationDiff<DiffLinesLabel>> compactDiffs = new ArrayList<>(diffs.size());
+        for (final VariationDiff<DiffLinesLabel> diff : diffs) {
+            compactDiffs.add(CompactVariationDiff.fromVariationDiff(diff));
+        }
+        final long bothMemory = Benchmarks.usedMemory() - baseline;
+        // Labels are shared, so the compact representation additionally needs bothMemory - diffMemory.
+        final long compactStructureMemory = bothMemory - diffMemory;
+
+        final long nodes = diffs.stream().mapToLong(VariationDiff::computeSize).sum();
+        Logger.info("{} diffs with {} nodes in total", diffs.size(), nodes);
+        Logger.info("VariationDiff: {} bytes ({} per node)", diffMemory, diffMemory / (double) nodes);
+        Logger.info("CompactVariationDiff without labels: {} bytes ({} per node)",
+                compactStructureMemory, compactStructureMemory / (double) nodes);
+
+        final AtomicLong sink = new AtomicLong();
+        Benchmarks.measure("VariationDiff.forAll", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> sink.addAndGet(n.getFromLine().inDiff()))));
+        Benchmarks.measure("CompactVariationDiff.forAll", ITERATIONS, () ->
+                compactDiffs.forEach(d -> d.forAll(n -> sink.addAndGet(d.getLinesInDiff(n).fromInclusive()))));
+
+        Benchmarks.measure("VariationDiff.traverse", ITERATIONS, () ->
+                diffs.forEach(d -> d.traverse((traversal, n) -> {
+                    sink.incrementAndGet();
+                    traversal.visitChildrenOf(n);
+                })));
+        Benchmarks.measure("CompactVariationDiff.traverse", ITERATIONS, () ->
+                compactDiffs.forEach(d -> d.traverse((traversal, n) -> {
+                    sink.incrementAndGet();
+                    traversal.visitChildrenOf(n);
+                })));
+
+        Benchmarks.measure("VariationDiff edit classes", ITERATIONS / 10, () ->
+                diffs.forEach(d -> d.forAll(n -> {
+                    if (n.isArtifact()) {
+                        sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                    }
+                })));
+        Benchmarks.measure("CompactVariationDiff edit classes", ITERATIONS / 10, () ->
+                compactDiffs.forEach(d -> d.forAll(n -> {
+                    if (d.isArtifact(n)) {
+                        sink.addAndGet(ProposedEditClasses.Instance.match(d, n).hashCode());
+                    }
+                })));
+
+        Benchmarks.measure("CompactVariationDiff.fromVariationDiff", ITERATIONS / 10, () ->
+                diffs.forEach(d -> sink.addAndGet(CompactVariationDiff.fromVariationDiff(d).size())));
+        Benchmarks.measure("CompactVariationDiff.toVariationDiff", ITERATIONS / 10, () ->
+                compactDiffs.forEach(d -> sink.addAndGet(d.toVariationDiff().getRoot().getID())));
+
+        Logger.info("(ignore) {}", sink.get());
+    }
+}
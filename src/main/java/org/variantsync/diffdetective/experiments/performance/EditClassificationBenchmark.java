@@ -0,0 +1,85 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.SATCache;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
+import org.variantsync.diffdetective.editclass.EditClass;
+import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of the edit classification performed by
+ * {@link org.variantsync.diffdetective.analysis.EditClassOccurenceAnalysis}.
+ *
+ * <p>The classification with a new solver for each implication check (the behaviour before
+ * {@link SolverSession} was introduced) is compared to the classification with one incremental
+ * {@link SolverSession} per {@link VariationDiff}, with and without the {@link SATCache}.
+ * The cache is disabled for the first two measurements because it would hide the cost of setting
+ * up solvers after the first run.
+ * The classification results of both approaches are checked to be equal.
+ *
+ * <p>Usage: {@code EditClassificationBenchmark [patch directory]}
+ *
+ * @see Benchmarks
+ */
+public class EditClassificationBenchmark {
+    private static final int ITERATIONS = 100;
+
+    public static void main(String[] args) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> diffs = Benchmarks.loadDiffs(Benchmarks.patchDirectory(args));
+        final AtomicLong sink = new AtomicLong();
+
+        final AtomicLong nodes = new AtomicLong();
+        diffs.forEach(d -> d.forAll(n -> {
+            if (n.isArtifact()) {
+                nodes.incrementAndGet();
+                final EditClass expected = ProposedEditClasses.Instance.match(n);
+                final EditClass actual = ProposedEditClasses.Instance.match(n, new SolverSession());
+                if (expected != actual) {
+                    throw new IllegalStateException("Solver session classified " + n + " as " + actual + " instead of " + expected);
+                }
+            }
+        }));
+
+        SATCache.Default.setEnabled(false);
+        final double uncached = Benchmarks.measure("edit classification (solver per query)", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> {
+                    if (n.isArtifact()) {
+                        sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                    }
+                })));
+        final double session = Benchmarks.measure("edit classification (solver session per diff)", ITERATIONS, () -> classifyWithSessions(diffs, sink));
+        SATCache.Default.setEnabled(true);
+
+        final double cached = Benchmarks.measure("edit classification (solver per query, cached)", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> {
+                    if (n.isArtifact()) {
+                        sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                    }
+                })));
+        final double cachedSession = Benchmarks.measure("edit classification (solver session per diff, cached)", ITERATIONS, () -> classifyWithSessions(diffs, sink));
+
+        Logger.info("throughput: {} vs {} (session) artifacts per ms, cached: {} vs {} (session) artifacts per ms",
+                nodes.get() / (uncached / 1e6),
+                nodes.get() / (session / 1e6),
+                nodes.get() / (cached / 1e6),
+                nodes.get() / (cachedSession / 1e6));
+        Logger.info("(ignore) {}", sink.get());
+    }
+
+    private static void classifyWithSessions(final List<VariationDiff<DiffLinesLabel>> diffs, final AtomicLong sink) {
+        diffs.forEach(d -> {
+            final SolverSession s = new SolverSession();
+            d.forAll(n -> {
+                if (n.isArtifact()) {
+                    sink.addAndGet(ProposedEditClasses.Instance.match(n, s).hashCode());
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.prop4j.Node;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Measures {@link FixTrueFalse#EliminateTrueAndFalse} on the presence conditions of all nodes of
+ * the given patches.
+ *
+ * <p>The copying implementation (cloning the formula and simplifying the clone in-place, the
+ * behaviour before sharing was introduced) is compared to the current implementation, which
+ * shares all subformulas without constants with its input. Both results are checked to be
+ * equivalent.
+ * Besides the runtime, the number of bytes allocated per presence condition is logged.
+ *
+ * <p>Usage: {@code FixTrueFalseBenchmark [patch directory]}
+ *
+ * @see Benchmarks
+ */
+public class FixTrueFalseBenchmark {
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> diffs = Benchmarks.loadDiffs(Benchmarks.patchDirectory(args));
+        final AtomicLong sink = new AtomicLong();
+
+        final List<Node> presenceConditions = new ArrayList<>();
+        diffs.forEach(d -> d.forAll(n -> n.getDiffType().forAllTimesOfExistence(t ->
+                presenceConditions.add(n.getPresenceCondition(t)))));
+        Logger.info("Harvested {} presence conditions", presenceConditions.size());
+
+        final Function<Node, Node> copying = pc -> FixTrueFalse.EliminateTrueAndFalseInplace(pc.clone()).get();
+        final Function<Node, Node> sharing = pc -> FixTrueFalse.EliminateTrueAndFalse(pc).get();
+        for (final Node pc : presenceConditions) {
+            // The sharing elimination keeps negations of literals without constants as they are.
+            if (!SAT.equivalent(copying.apply(pc), sharing.apply(pc))) {
+                throw new IllegalStateException("Sharing elimination differs from copying elimination on " + pc);
+            }
+        }
+
+        measure("copying elimination", presenceConditions, copying, sink);
+        measure("sharing elimination", presenceConditions, sharing, sink);
+
+        Logger.info("(ignore) {}", sink.get());
+    }
+
+    private static void measure(
+            final String name,
+            final List<Node> presenceConditions,
+            final Function<Node, Node> eliminate,
+            final AtomicLong sink
+    ) {
+        final double time = Benchmarks.measure(name, ITERATIONS, () -> {
+            for (final Node pc : presenceConditions) {
+                sink.addAndGet(System.identityHashCode(eliminate.apply(pc)));
+            }
+        });
+
+        final long allocatedBefore = allocatedBytes();
+        for (final Node pc : presenceConditions) {
+            sink.addAndGet(System.identityHashCode(eliminate.apply(pc)));
+        }
+        final long allocated = allocatedBytes() - allocatedBefore;
+
+        Logger.info("{}: {} us and {} bytes per presence condition",
+                name,
+                time / presenceConditions.size() / 1e3,
+                allocated / presenceConditions.size());
+    }
+
+    /** Returns the number of bytes allocated by the current thread or 0 if unsupported by the JVM. */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,124 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.FileUtils;
+import org.variantsync.diffdetective.variation.diff.DiffNodeArena;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares allocation rate and garbage collection activity of parsing patches with and without
+ * a {@link DiffNodeArena}.
+ *
+ * <p>Usage: {@code NodeArenaBenchmark [patch directory] [rounds]}
+ * where {@code rounds} determines how often all patches are parsed per measurement.
+ *
+ * @see Benchmarks
+ */
+public class NodeArenaBenchmark {
+    private static final VariationDiffParseOptions PARSE_OPTIONS = VariationDiffParseOptions.Default;
+
+    public static void main(String[] args) throws IOException {
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        final List<String> patches = new ArrayList<>();
+        for (final Path file : FileUtils.listAllFilesRecursively(Benchmarks.patchDirectory(args))) {
+            if (!FileUtils.hasExtension(file, ".diff")) {
+                continue;
+            }
+
+            final String patch = Files.readString(file);
+            try {
+                VariationDiffParser.createVariationDiff(patch, PARSE_OPTIONS);
+                patches.add(patch);
+            } catch (DiffParseException e) {
+                Logger.warn("Skipping {} because it could not be parsed: {}", file, e.getMessage());
+            }
+        }
+        Logger.info("Parsing {} patches {} times per run", patches.size(), rounds);
+
+        run("heap allocated nodes", rounds, patches, patch ->
+                VariationDiffParser.createVariationDiff(patch, PARSE_OPTIONS));
+        run("arena allocated nodes", rounds, patches, patch -> {
+            final DiffNodeArena.Region region = DiffNodeArena.forCurrentThread().newRegion();
+            VariationDiffParser.createVariationDiff(patch, PARSE_OPTIONS, region);
+            region.release();
+        });
+
+        final DiffNodeArena arena = DiffNodeArena.forCurrentThread();
+        Logger.info("Arena allocated {} nodes and reused nodes {} times",
+                arena.getAllocatedNodes(), arena.getReusedNodes());
+    }
+
+    private static void run(
+            final String name,
+            final int rounds,
+            final List<String> patches,
+            final FailableConsumer<String, DiffParseException> parse
+    ) {
+        final Runnable task = () -> {
+            for (int i = 0; i < rounds; ++i) {
+                for (final String patch : patches) {
+                    try {
+                        parse.accept(patch);
+                    } catch (DiffParseException e) {
+                        throw new AssertionError("Patches were parsed successfully before", e);
+                    }
+                }
+            }
+        };
+
+        // Warm up before measuring allocations so the JIT compiled code is measured.
+        for (int i = 0; i < Benchmarks.WARMUP_ITERATIONS; ++i) {
+            task.run();
+        }
+
+        final long bytesBefore = allocatedBytes();
+        final long[] gcBefore = gcCountAndTime();
+        final long start = System.nanoTime();
+        task.run();
+        final long duration = System.nanoTime() - start;
+        final long bytes = allocatedBytes() - bytesBefore;
+        final long[] gcAfter = gcCountAndTime();
+
+        final double parsedPatches = rounds * (double) patches.size();
+        Logger.info("{}: {} ms per patch, {} bytes allocated per patch, {} collections taking {} ms",
+                name, duration / 1e6 / parsedPatches, bytes / parsedPatches,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far
+     * or {@code -1} if the JVM does not support this measurement.
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the total number of garbage collections and the accumulated collection time in
+     * milliseconds of all garbage collectors.
+     */
+    private static long[] gcCountAndTime() {
+        long count = 0;
+        long time = 0;
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+}
@@ -0,0 +1,69 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the effect of the presence conditions memoized by
+ * {@link org.variantsync.diffdetective.variation.diff.Projection} on edit classification.
+ *
+ * <p>The uncached measurement invalidates all memos before each query (via
+ * {@link DiffNode#notifyModification()}), which is equivalent to recomputing each presence
+ * condition from scratch as before memoization was introduced. The cold measurement invalidates
+ * all memos once per run, so each presence condition is computed once. The warm measurement
+ * reuses the memos of previous runs.
+ *
+ * <p>Usage: {@code PresenceConditionBenchmark [patch directory]}
+ *
+ * @see Benchmarks
+ */
+public class PresenceConditionBenchmark {
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> diffs = Benchmarks.loadDiffs(Benchmarks.patchDirectory(args));
+        final AtomicLong sink = new AtomicLong();
+
+        Benchmarks.measure("presence conditions (uncached)", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> n.getDiffType().forAllTimesOfExistence(t -> {
+                    n.notifyModification();
+                    sink.addAndGet(n.getPresenceCondition(t).hashCode());
+                }))));
+        Benchmarks.measure("presence conditions (cold)", ITERATIONS, () -> {
+            diffs.forEach(d -> d.getRoot().notifyModification());
+            diffs.forEach(d -> d.forAll(n -> n.getDiffType().forAllTimesOfExistence(t ->
+                    sink.addAndGet(n.getPresenceCondition(t).hashCode()))));
+        });
+
+        Benchmarks.measure("edit classification (uncached)", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> {
+                    if (n.isArtifact()) {
+                        n.notifyModification();
+                        sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                    }
+                })));
+        Benchmarks.measure("edit classification (cold)", ITERATIONS, () -> {
+            diffs.forEach(d -> d.getRoot().notifyModification());
+            diffs.forEach(d -> d.forAll(n -> {
+                if (n.isArtifact()) {
+                    sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                }
+            }));
+        });
+        Benchmarks.measure("edit classification (warm)", ITERATIONS, () ->
+                diffs.forEach(d -> d.forAll(n -> {
+                    if (n.isArtifact()) {
+                        sink.addAndGet(ProposedEditClasses.Instance.match(n).hashCode());
+                    }
+                })));
+
+        Logger.info("(ignore) {}", sink.get());
+    }
+}
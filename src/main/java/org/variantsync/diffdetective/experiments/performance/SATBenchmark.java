@@ -0,0 +1,119 @@
+package org.variantsync.diffdetective.experiments.performance;
+
+import org.prop4j.And;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.BDD;
+import org.variantsync.diffdetective.analysis.logic.PlaistedGreenbaum;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SATCache;
+import org.variantsync.diffdetective.analysis.logic.SATPortfolio;
+import org.variantsync.diffdetective.analysis.logic.Tseytin;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Compares the satisfiability checks offered by {@link SAT} on random formulas of increasing size
+ * to choose the thresholds of {@link SAT#isSatisfiable(FixTrueFalse.Formula)}.
+ * Additionally measures the fixed threshold against an adaptive {@link SATPortfolio} and a
+ * {@link BDD} that is shared by all formulas.
+ *
+ * <p>The formulas resemble presence conditions: nested conjunctions and disjunctions of
+ * (negated) literals over a small set of features. The {@link SATCache} is disabled.
+ *
+ * <p>Usage: {@code SATBenchmark}
+ *
+ * @see Benchmarks
+ */
+public class SATBenchmark {
+    private static final int ITERATIONS = 10;
+    private static final int FORMULAS_PER_SIZE = 50;
+    private static final int[] SIZES = {2, 5, 10, 15, 20, 30, 40, 60, 80, 120, 200};
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        final AtomicLong sink = new AtomicLong();
+        final SATPortfolio portfolio = new SATPortfolio();
+        SATCache.Default.setEnabled(false);
+
+        for (final int size : SIZES) {
+            final List<FixTrueFalse.Formula> formulas = new ArrayList<>();
+            for (int i = 0; i < FORMULAS_PER_SIZE; ++i) {
+                final Node formula = randomFormula(random, size, Math.max(2, size / 3));
+                formulas.add(FixTrueFalse.EliminateTrueAndFalse(formula));
+            }
+            Logger.info("{} literals (on average {})", size,
+                    formulas.stream().mapToInt(f -> FormulaUtils.numberOfLiterals(f.get())).average().orElse(0));
+
+            // Exponential blowup makes DNF infeasible for large formulas.
+            if (size <= 40) {
+                measure("  DNF", formulas, SAT::checkSATviaDNF, sink);
+                // Without Tseytin, prop4j converts the formula to CNF which is infeasible as well.
+                measure("  prop4j Sat4J", formulas, SAT::checkSATviaSat4J, sink);
+            }
+            measure("  Tseytin + prop4j Sat4J", formulas, f -> SAT.checkSATviaSat4J(f.mapUnsafe(n -> Tseytin.toEquivalentCNF(n.clone()))), sink);
+            measure("  Plaisted-Greenbaum", formulas, PlaistedGreenbaum::isSatisfiable, sink);
+            // Without a budget, the lazy DNF may explode on large unsatisfiable formulas.
+            if (size <= 60) {
+                measure("  lazy DNF", formulas, f -> SAT.checkSATviaLazyDNF(f, Integer.MAX_VALUE), sink);
+            }
+            // Random formulas over many features share little structure, so the BDD fills up
+            // its node table before falling back.
+            if (size <= 120) {
+                measure("  BDD", formulas, f -> {
+                    final Boolean result = SAT.checkSATviaBDD(f);
+                    return result == null ? PlaistedGreenbaum.isSatisfiable(f) : result;
+                }, sink);
+            }
+            measure("  fixed threshold", formulas, SAT::isSatisfiable, sink);
+            measure("  adaptive portfolio", formulas, portfolio::isSatisfiable, sink);
+            Logger.info("  portfolio prefers {}", portfolio.getPreferredStrategy(size));
+        }
+
+        Logger.info(Metadata.show(portfolio.getStatistics().snapshot()));
+
+        Logger.info("(ignore) {}", sink.get());
+    }
+
+    private static void measure(
+            final String name,
+            final List<FixTrueFalse.Formula> formulas,
+            final Predicate<FixTrueFalse.Formula> solver,
+            final AtomicLong sink
+    ) {
+        final double time = Benchmarks.measure(name, ITERATIONS, () -> {
+            for (final FixTrueFalse.Formula formula : formulas) {
+                if (solver.test(formula)) {
+                    sink.incrementAndGet();
+                }
+            }
+        });
+        Logger.info("{}: {} us per formula", name, time / formulas.size() / 1e3);
+    }
+
+    /**
+     * Creates a random formula with exactly {@code literals} literals over {@code features}
+     * features. The formula does not contain constants.
+     */
+    public static Node randomFormula(final Random random, final int literals, final int features) {
+        if (literals == 1) {
+            final Node literal = new Literal("F" + random.nextInt(features), random.nextBoolean());
+            return random.nextInt(8) == 0 ? new Not(literal) : literal;
+        }
+
+        final int left = 1 + random.nextInt(literals - 1);
+        final Node a = randomFormula(random, left, features);
+        final Node b = randomFormula(random, literals - left, features);
+        return random.nextBoolean() ? new And(a, b) : new Or(a, b);
+    }
+}
@@ -8,6 +8,7 @@ import org.variantsync.diffdetective.datasets.PatchDiffParseOptions;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.variation.diff.filter.VariationDiffFilter;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
 
 import java.io.IOException;
@@ -40,6 +41,13 @@ public class Main {
                     false
             );
 
+    /**
+     * Whether each view generated by {@link DiffView#structural} should be compared to the view
+     * generated by {@link DiffView#naive}.
+     * This is meant for debugging only because it fails the analysis on the first mismatch.
+     */
+    public static boolean VALIDATE_STRUCTURAL_VIEWS = false;
+
     /**
      * Creates the analysis to perform on the given repository to run our feasibility study.
      * @param repo The repository to run the feasibility study on.
@@ -53,7 +61,7 @@ public class Main {
                         new FilterAnalysis( // filters unwanted trees
                                 VariationDiffFilter.notEmpty()
                         ),
-                        new ViewAnalysis(),
+                        new ViewAnalysis(VALIDATE_STRUCTURAL_VIEWS),
                         new StatisticsAnalysis()
                 )),
                 repo,
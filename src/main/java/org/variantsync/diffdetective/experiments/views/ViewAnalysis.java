@@ -1,6 +1,7 @@
 package org.variantsync.diffdetective.experiments.views;
 
 import org.prop4j.Node;
+import org.tinylog.Logger;
 import org.variantsync.diffdetective.analysis.Analysis;
 import org.variantsync.diffdetective.analysis.logic.SAT;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
@@ -12,6 +13,7 @@ import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.diff.Projection;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.view.BatchDiffView;
 import org.variantsync.diffdetective.variation.diff.view.DiffView;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
@@ -47,6 +49,37 @@ public class ViewAnalysis implements Analysis.Hooks {
      * Used to generate random relevance predicates.
      */
     private Random random;
+    /**
+     * Whether each view generated by {@link DiffView#structural} is validated against the
+     * corresponding view generated by {@link DiffView#naive}.
+     */
+    private final boolean validateStructuralViews;
+    /**
+     * The number of validated views for which both algorithms produced exactly the same variation diff.
+     */
+    private int identicalStructuralViews;
+    /**
+     * The number of validated views.
+     */
+    private int validatedStructuralViews;
+
+    /**
+     * Creates a new view analysis which does not validate the views it generates.
+     */
+    public ViewAnalysis() {
+        this(false);
+    }
+
+    /**
+     * Creates a new view analysis.
+     * @param validateStructuralViews Whether each view generated by {@link DiffView#structural} should be
+     *                                checked to be a view on the same variation trees as the view generated
+     *                                by {@link DiffView#naive}. Views with a different alignment are counted
+     *                                and reported at the end of each batch.
+     */
+    public ViewAnalysis(final boolean validateStructuralViews) {
+        this.validateStructuralViews = validateStructuralViews;
+    }
 
     @Override
     public void initializeResults(Analysis analysis) {
@@ -62,34 +95,58 @@ public class ViewAnalysis implements Analysis.Hooks {
      * Benchmark for view generation on the given variation diff with the given relevance.
      * This method generates a view once with each algorithm:
      * - once with the {@link DiffView#naive(VariationDiff, Relevance) naive algorithm} view_naive (Equation 8 from our paper),
-     * - and once with the {@link DiffView#optimized(VariationDiff, Relevance) optimized algorithm} view_smart (Equation 10 in our paper).
-     * This method measures both algorithms runtimes and stores the runtimes and metadata in terms of a
+     * - once with the {@link DiffView#optimized(VariationDiff, Relevance) optimized algorithm} view_smart (Equation 10 in our paper),
+     * - and once with the {@link DiffView#structural(VariationDiff, Relevance) structural algorithm}, which computes the same
+     *   result as view_naive without text-based differencing.
+     * This method measures all algorithms runtimes and stores the runtimes and metadata in terms of a
      * {@link ViewEvaluation} in this objects {@link #csv} field.
      * @param analysis The current instance of the analysis that is run.
      *                 Used to access metadata of the current commit that is processed.
      * @param d The variation diff to benchmark view generation on.
      * @param rho A relevance predicate that determines which nodes should be contained in the view.
+     * @param inV The view nodes of rho as computed by {@link DiffView#computeWhenNodesAreRelevant(VariationDiff, Relevance)}
+     *            or {@link BatchDiffView#inView(int)}.
+     * @param preprocessingTime The time in milliseconds it took to compute inV.
      */
-    private void runRelevanceExperiment(Analysis analysis, final VariationDiff<DiffLinesLabel> d, final Relevance rho) {
-        final long preprocessingTime, naiveTime, optimizedTime;
+    private void runRelevanceExperiment(
+            Analysis analysis,
+            final VariationDiff<DiffLinesLabel> d,
+            final Relevance rho,
+            final BiPredicate<Time, Projection<DiffLinesLabel>> inV,
+            final long preprocessingTime
+    ) {
+        final long naiveTime, optimizedTime, structuralTime;
 
         //Show.diff(d, "D").showAndAwait();
 
         final Clock c = new Clock();
 
-        final BiPredicate<Time, Projection<DiffLinesLabel>> inV = DiffView.computeWhenNodesAreRelevant(d, rho);
-
-        preprocessingTime = c.getPassedMilliseconds();
-
         // measure naive view generation
+        final VariationDiff<DiffLinesLabel> naiveView;
         try {
-            c.start();
-            DiffView.naive(d, rho, inV);
+            naiveView = DiffView.naive(d, rho, inV);
             naiveTime = c.getPassedMilliseconds();
         } catch (IOException | DiffParseException e) {
             throw new RuntimeException(e);
         }
 
+        // measure structural view generation
+        c.start();
+        final VariationDiff<DiffLinesLabel> structuralView;
+        try {
+            structuralView = DiffView.structural(d, rho, inV);
+            structuralTime = c.getPassedMilliseconds();
+        } catch (DiffParseException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (validateStructuralViews) {
+            ++validatedStructuralViews;
+            if (DiffView.validateStructural(naiveView, structuralView)) {
+                ++identicalStructuralViews;
+            }
+        }
+
         // measure optimized view generation
         c.start();
         final VariationDiff<DiffLinesLabel> view = DiffView.optimized(d, rho, inV);
@@ -102,6 +159,7 @@ public class ViewAnalysis implements Analysis.Hooks {
                 rho,
                 preprocessingTime + naiveTime,
                 preprocessingTime + optimizedTime,
+                preprocessingTime + structuralTime,
                 ViewEvaluation.DiffStatistics.of(d),
                 ViewEvaluation.DiffStatistics.of(view)
         );
@@ -117,8 +175,9 @@ public class ViewAnalysis implements Analysis.Hooks {
     /**
      * Runs the feasibility study on the current variation diff.
      * Creates random relevance predicates as explained in Section 6 of our paper.
-     * Then runs {@link #runRelevanceExperiment(Analysis, VariationDiff, Relevance)} for each relevance on the
-     * current variation diff.
+     * Then computes the view nodes of all relevances in a single {@link BatchDiffView} and runs
+     * {@link #runRelevanceExperiment(Analysis, VariationDiff, Relevance, BiPredicate, long)} for each relevance on the
+     * current variation diff. The time for computing the view nodes is split evenly among the relevances.
      * @param analysis The current instance of the analysis that is run.
      *                 Used to access metadata of the current commit that is processed.
      * @return {@link Analysis.Hooks#analyzeVariationDiff(Analysis)}
@@ -127,10 +186,17 @@ public class ViewAnalysis implements Analysis.Hooks {
     @Override
     public boolean analyzeVariationDiff(Analysis analysis) throws Exception {
         final VariationDiff<DiffLinesLabel> d = analysis.getCurrentVariationDiff();
-        final Collection<Relevance> queries = generateRandomRelevances(d);
+        final List<Relevance> queries = generateRandomRelevances(d);
+        if (queries.isEmpty()) {
+            return Analysis.Hooks.super.analyzeVariationDiff(analysis);
+        }
 
-        for (final Relevance r : queries) {
-            runRelevanceExperiment(analysis, d, r);
+        final Clock c = new Clock();
+        final BatchDiffView<DiffLinesLabel> batch = BatchDiffView.compute(d, queries);
+        final long preprocessingTime = c.getPassedMilliseconds() / queries.size();
+
+        for (int i = 0; i < queries.size(); ++i) {
+            runRelevanceExperiment(analysis, d, queries.get(i), batch.inView(i), preprocessingTime);
         }
 
         return Analysis.Hooks.super.analyzeVariationDiff(analysis);
@@ -246,7 +312,7 @@ public class ViewAnalysis implements Analysis.Hooks {
          */
         final List<Configure> all = new ArrayList<>();
         for (final Node deselectedPC : deselectedPCs) {
-            final FixTrueFalse.Formula p = FixTrueFalse.EliminateTrueAndFalseInplace(deselectedPC);
+            final FixTrueFalse.Formula p = FixTrueFalse.EliminateTrueAndFalse(deselectedPC);
             if (SAT.isSatisfiable(p)) {
                 all.add(new Configure(p));
             }
@@ -283,7 +349,7 @@ public class ViewAnalysis implements Analysis.Hooks {
         FixTrueFalse.Formula winner = null;
         while (winner == null && !deselectedPCs.isEmpty()) {
             final Node candidate = deselectedPCs.get(random.nextInt(deselectedPCs.size()));
-            final FixTrueFalse.Formula fixedCandidate = FixTrueFalse.EliminateTrueAndFalseInplace(candidate);
+            final FixTrueFalse.Formula fixedCandidate = FixTrueFalse.EliminateTrueAndFalse(candidate);
             if (SAT.isSatisfiable(fixedCandidate)) {
                 winner = fixedCandidate;
             } else {
@@ -346,11 +412,20 @@ public class ViewAnalysis implements Analysis.Hooks {
 
     /**
      * Writes the results of this analysis to disk as CSV file.
+     * If structural views are validated, also logs how many of them were identical to the naive views.
      * @param analysis The current state of the analysis.
      * @throws IOException When the file cannot be created or written.
      */
     @Override
     public void endBatch(Analysis analysis) throws IOException {
+        if (validateStructuralViews) {
+            Logger.info(
+                    "{} of {} structural views were identical to the naive views, all others differed in their alignment only",
+                    identicalStructuralViews,
+                    validatedStructuralViews
+            );
+        }
+
         IO.write(
                 FileUtils.addExtension(analysis.getOutputFile(), VIEW_CSV_EXTENSION),
                 csv.toString()
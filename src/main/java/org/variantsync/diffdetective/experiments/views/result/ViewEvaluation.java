@@ -16,6 +16,7 @@ import static org.variantsync.functjonal.Functjonal.intercalate;
  * @param relevance The relevance predicate from which the views were generated.
  * @param msNaive Milliseconds it took to generate the view with the {@link DiffView#naive(VariationDiff, Relevance) naive algorithm}
  * @param msOptimized Milliseconds it took to generate the view with the {@link DiffView#optimized(VariationDiff, Relevance) optimized algorithm}
+ * @param msStructural Milliseconds it took to generate the view with the {@link DiffView#structural(VariationDiff, Relevance) structural algorithm}
  * @param diffStatistics Various statistics on the variation diff of the analysed patch.
  * @param viewStatistics The same statistics as for the original variation diff but for the produced view.
  */
@@ -26,6 +27,7 @@ public record ViewEvaluation(
         Relevance relevance,
         long msNaive,
         long msOptimized,
+        long msStructural,
         DiffStatistics diffStatistics,
         DiffStatistics viewStatistics
 ) implements CSV {
@@ -72,6 +74,7 @@ public record ViewEvaluation(
 //                "vargs",
                 "msnaive",
                 "msoptimized",
+                "msstructural",
                 "diffNodeCount",
                 "diffAnnotationNodeCount",
                 "viewNodeCount",
@@ -89,6 +92,7 @@ public record ViewEvaluation(
 //                getQueryArguments(),
                 msNaive,
                 msOptimized,
+                msStructural,
                 diffStatistics.nodeCount,
                 diffStatistics.annotationNodeCount,
                 viewStatistics.nodeCount,
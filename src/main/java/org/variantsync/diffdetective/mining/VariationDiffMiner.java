@@ -4,7 +4,7 @@ import org.apache.commons.io.FileUtils;
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.analysis.*;
 import org.variantsync.diffdetective.analysis.strategies.AnalysisStrategy;
-import org.variantsync.diffdetective.analysis.strategies.AnalyzeAllThenExport;
+import org.variantsync.diffdetective.analysis.strategies.AnalyzeAndExportAsynchronously;
 import org.variantsync.diffdetective.datasets.*;
 import org.variantsync.diffdetective.datasets.predefined.StanciulescuMarlin;
 import org.variantsync.diffdetective.examplesearch.ExampleCriterions;
@@ -77,7 +77,7 @@ public class VariationDiffMiner {
     }
 
     public static AnalysisStrategy MiningStrategy() {
-        return new AnalyzeAllThenExport();
+        return new AnalyzeAndExportAsynchronously();
 //                new CompositeVariationDiffMiningStrategy(
 //                        new MineAndExportIncrementally(1000),
 //                        new MiningMonitor(10)
@@ -24,6 +24,15 @@ public class DebugMiningDiffNodeFormat implements MiningNodeFormat {
         }
     }
 
+    @Override
+    public void appendLabel(final DiffNode<? extends DiffLinesLabel> node, final StringBuilder label) {
+        if (node.isArtifact()) {
+            label.append(ProposedEditClasses.Instance.match(node).getName());
+        } else {
+            label.append(node.diffType).append('_').append(node.getNodeType());
+        }
+    }
+
     @Override
     public Pair<DiffType, NodeType> fromEncodedTypes(String tag) {
         // If the label starts with ADD, REM, or NON
@@ -62,6 +62,14 @@ public final class DirectedEdgeLabelFormat extends EdgeLabelFormat<DiffLinesLabe
         );
     }
 
+    @Override
+    public <L extends DiffLinesLabel> void appendLabel(StyledEdge<L> edge, StringBuilder label) {
+        label.append(LABEL_SEPARATOR);
+        nodeFormatter.appendLabel(edge.from(), label);
+        label.append(LABEL_SEPARATOR);
+        nodeFormatter.appendLabel(edge.to(), label);
+    }
+
     @Override
     public String getIdentifier() {
         return this.getClass().getName() + " with " + nodeFormatter.getIdentifier();
@@ -46,6 +46,15 @@ public class ReleaseMiningDiffNodeFormat implements MiningNodeFormat {
         }
     }
 
+    @Override
+    public void appendLabel(DiffNode<? extends DiffLinesLabel> node, StringBuilder label) {
+        if (node.isArtifact()) {
+            label.append(ARTIFACT_PREFIX).append(toId(ProposedEditClasses.Instance.match(node)));
+        } else {
+            label.append(ANNOTATION_PREFIX).append(node.diffType.ordinal()).append(node.getNodeType().ordinal());
+        }
+    }
+
     @Override
     public Pair<DiffType, NodeType> fromEncodedTypes(String tag) {
         if (tag.startsWith(ARTIFACT_PREFIX)) {
@@ -17,8 +17,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Performs a postprocessing on mined frequent subgraphs in edits to find edit classes.
@@ -61,14 +63,18 @@ public class MiningPostprocessing {
             throw new IllegalArgumentException("Expected path to an empty output directory as second argument but got a path that is not a directory or not empty, namely \"" + outputPath + "\"!");
         }
 
-        postprocessAndInterpretResults(
-                parseFrequentSubgraphsIn(inputPath),
-                Postprocessor.Default(),
-                System.out::println,
-                DefaultRenderer,
-                DefaultRenderOptions,
-                outputPath
-        );
+        try (var frequentSubgraphs = streamFrequentSubgraphsIn(inputPath)) {
+            postprocessAndInterpretResults(
+                    frequentSubgraphs,
+                    Postprocessor.Default(),
+                    System.out::println,
+                    DefaultRenderer,
+                    DefaultRenderOptions,
+                    outputPath
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
 
 //        for (Map.Entry<NodeType, Integer> entry : LineGraphImport.countRootTypes.entrySet()) {
 //            System.out.println(entry);
@@ -83,26 +89,32 @@ public class MiningPostprocessing {
      * @throws IOException If the directory could not be accessed ({@link Files#list}).
      */
     public static List<VariationDiff<DiffLinesLabel>> parseFrequentSubgraphsIn(final Path path) throws IOException {
+        try (var frequentSubgraphs = streamFrequentSubgraphsIn(path)) {
+            return frequentSubgraphs.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily parses all linegraph files in the given directory or file as patterns (i.e., as DiffGraphs).
+     * non-recursive
+     * The files of a directory are parsed in parallel (see {@link LineGraphImport#streamFiles}).
+     * The returned stream has to be closed. I/O errors while consuming the stream are thrown as
+     * {@link UncheckedIOException}.
+     * @param path A path to a linegraph file or a directory containing linegraph files.
+     * @return A stream of all diffgraphs parsed from linegraph files in the given directory.
+     * @throws IOException If the directory could not be accessed ({@link Files#list}).
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> streamFrequentSubgraphsIn(final Path path) throws IOException {
         if (Files.isDirectory(path)) {
-            try {
-                return Files.list(path)
-                        .filter(FileUtils::isLineGraph)
-                        .flatMap(file -> {
-                            try {
-                                return LineGraphImport.fromFile(file, IMPORT_OPTIONS).stream();
-                            } catch (IOException e) {
-                                // Checked exceptions can't be propagated because {@code flatMap}
-                                // needs a {@code Function} which does not throw any checked
-                                // exceptions.
-                                throw new UncheckedIOException(e);
-                            }
-                        })
-                        .collect(Collectors.toList());
-            } catch (UncheckedIOException e) {
-                throw e.getCause();
+            final List<Path> files;
+            try (var directory = Files.list(path)) {
+                files = directory.filter(FileUtils::isLineGraph).toList();
             }
+            return LineGraphImport.streamFiles(files, IMPORT_OPTIONS);
         } else {
-            return LineGraphImport.fromFile(path, IMPORT_OPTIONS);
+            return LineGraphImport.streamFile(path, IMPORT_OPTIONS);
         }
     }
 
@@ -114,10 +126,30 @@ public class MiningPostprocessing {
             RenderOptions<? super DiffLinesLabel> renderOptions,
             final Path outputDir)
     {
-        final Postprocessor.Result<DiffLinesLabel> result = postprocessor.postprocess(frequentSubgraphs);
+        postprocessAndInterpretResults(frequentSubgraphs.stream(), postprocessor, printer, renderer, renderOptions, outputDir);
+    }
+
+    /**
+     * Postprocesses the given frequent subgraphs and exports or renders the resulting semantic
+     * pattern candidates.
+     * The subgraphs are postprocessed while they are consumed from the given stream, so only the
+     * candidates are kept in memory.
+     */
+    public static void postprocessAndInterpretResults(
+            final Stream<VariationDiff<DiffLinesLabel>> frequentSubgraphs,
+            final Postprocessor<DiffLinesLabel> postprocessor,
+            final Consumer<String> printer,
+            final VariationDiffRenderer renderer,
+            RenderOptions<? super DiffLinesLabel> renderOptions,
+            final Path outputDir)
+    {
+        final LongAdder numberOfFrequentSubgraphs = new LongAdder();
+        final Postprocessor.Result<DiffLinesLabel> result = postprocessor.postprocess(
+                frequentSubgraphs.peek(subgraph -> numberOfFrequentSubgraphs.increment())
+        );
         final List<VariationDiff<DiffLinesLabel>> semanticPatterns = result.processedTrees();
 
-        printer.accept("Of " + frequentSubgraphs.size() + " mined subgraphs "
+        printer.accept("Of " + numberOfFrequentSubgraphs.sum() + " mined subgraphs "
                 + semanticPatterns.size() + " are candidates for semantic patterns.");
         printer.accept("Subgraphs were discarded for the following reasons:");
         for (Map.Entry<String, Integer> nameAndCount : result.filterCounts().entrySet()) {
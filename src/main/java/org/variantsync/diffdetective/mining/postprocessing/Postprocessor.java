@@ -11,6 +11,7 @@ import org.variantsync.diffdetective.variation.diff.transform.VariationDiffTrans
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Generic Postprocessor for mined patterns.
@@ -64,7 +65,20 @@ public class Postprocessor<L extends Label> {
      * @return The processed variation diffs as well as some metadata.
      */
     public Result<L> postprocess(final List<VariationDiff<L>> frequentSubgraphs) {
-        final List<VariationDiff<L>> processedTrees = frequentSubgraphs.stream()
+        return postprocess(frequentSubgraphs.stream());
+    }
+
+    /**
+     * Performs the postprocessing described by this Postprocessor object on the stream of subgraphs.
+     * To that end, all filters and transformers will be applied to each subgraph as soon as it is
+     * produced by the stream. Only the processed trees are collected. The filter counts are
+     * computed incrementally, so subgraphs that are filtered can be discarded immediately.
+     * The stream may be parallel.
+     * @param frequentSubgraphs A stream of subgraphs to which to apply the postprocessing.
+     * @return The processed variation diffs as well as some metadata.
+     */
+    public Result<L> postprocess(final Stream<VariationDiff<L>> frequentSubgraphs) {
+        final List<VariationDiff<L>> processedTrees = frequentSubgraphs
                 .filter(filters)
                 .peek(tree -> VariationDiffTransformer.apply(transformers, tree))
                 .toList();
@@ -61,6 +61,11 @@ public class FileUtils {
         return hasExtension(p, ".lg");
     }
 
+    /** Check if the path {@code p} has a binary line graph extension. */
+    public static boolean isBinaryLineGraph(final Path p) {
+        return hasExtension(p, ".lgb");
+    }
+
     /**
      * Adds {@code extension} to the filename of {@code p}.
      * Note that the common dot delimiter has to be included in {@code extension}.
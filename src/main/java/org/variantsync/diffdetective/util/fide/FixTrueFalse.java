@@ -1,11 +1,14 @@
 package org.variantsync.diffdetective.util.fide;
 
 import org.prop4j.*;
+import org.variantsync.diffdetective.analysis.logic.InternedFormula;
 import org.variantsync.diffdetective.util.Assert;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -31,6 +34,11 @@ public class FixTrueFalse {
             this.formula = f;
         }
 
+        /**
+         * Returns the witnessed formula.
+         * It may be (or share subformulas with) the formula this witness was created from (see
+         * {@link FixTrueFalse#EliminateTrueAndFalse(Node)}), so it must not be modified.
+         */
         public Node get() {
             return formula;
         }
@@ -133,7 +141,7 @@ public class FixTrueFalse {
      * @see #TrueNames
      */
     public static boolean isTrueLiteral(final String l) {
-        return TrueNames.stream().anyMatch(t -> t.equalsIgnoreCase(l));
+        return containsIgnoreCase(TrueNames, l);
     }
 
     /**
@@ -151,7 +159,22 @@ public class FixTrueFalse {
      * @see #TrueNames
      */
     public static boolean isFalseLiteral(final String l) {
-        return FalseNames.stream().anyMatch(f -> f.equalsIgnoreCase(l));
+        return containsIgnoreCase(FalseNames, l);
+    }
+
+    private static boolean containsIgnoreCase(final List<String> names, final String name) {
+        for (int i = 0; i < names.size(); ++i) {
+            if (names.get(i).equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns {@code true} iff the given literal represents true or false. */
+    private static boolean isConstantLiteral(final Literal l) {
+        final String name = l.var.toString();
+        return isTrueLiteral(name) || isFalseLiteral(name);
     }
 
     /**
@@ -188,12 +211,199 @@ public class FixTrueFalse {
      * in-place version of this method (which is likely more performant) see
      * {@link #EliminateTrueAndFalseInplace}.
      *
+     * <p>The input is not copied. If {@code formula} contains no constants, it is returned as is.
+     * Otherwise, only the subformulas containing constants are rebuilt and all other subformulas
+     * are shared with {@code formula}. Subformulas occurring multiple times (by identity) are
+     * simplified once. Hence, neither {@code formula} nor the result should be modified afterwards.
+     *
      * @param formula the formula to simplify. It remains unchanged.
      * @return either {@link True}, {@link False}, negations of the previous
      *         (i.e., in terms of {@link Not} or {@link Literal}), or a formula without True or False
      */
     public static Formula EliminateTrueAndFalse(final Node formula) {
-        return EliminateTrueAndFalseInplace(formula.clone());
+        if (!containsConstant(formula)) {
+            return new Formula(formula);
+        }
+        return new Formula(new Eliminator().eliminate(formula));
+    }
+
+    /**
+     * Returns {@code true} iff {@code formula} contains a literal representing true or false or an
+     * operator without operands (e.g., an empty {@link And} which is equivalent to true).
+     */
+    private static boolean containsConstant(final Node formula) {
+        if (formula instanceof Literal l) {
+            return isConstantLiteral(l);
+        }
+
+        final Node[] children = formula.getChildren();
+        if (children.length == 0) {
+            return true;
+        }
+        for (int i = 0; i < children.length; ++i) {
+            if (containsConstant(children[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pure variant of {@link #EliminateTrueAndFalseInplaceRecurse}.
+     * Returns the input itself for every subformula without constants.
+     */
+    private static final class Eliminator {
+        /**
+         * Rebuilt subformulas by their original. Created on first use as most formulas contain no
+         * shared subformulas. Subformulas which did not change are not memoized because
+         * traversing them again does not allocate.
+         */
+        private Map<Node, Node> memo = null;
+        private int depth = 0;
+
+        Node eliminate(final Node formula) {
+            if (formula instanceof Literal l) {
+                if (isTrueLiteral(l)) {
+                    return l.positive ? True : False;
+                }
+                if (isFalseLiteral(l)) {
+                    return l.positive ? False : True;
+                }
+                return l;
+            }
+
+            if (memo != null) {
+                final Node memoized = memo.get(formula);
+                if (memoized != null) {
+                    return memoized;
+                }
+            }
+
+            ++depth;
+            final Node result = eliminateOperator(formula, this);
+            --depth;
+            // The root is visited only once.
+            if (result != formula && depth > 0) {
+                if (memo == null) {
+                    memo = new IdentityHashMap<>();
+                }
+                memo.put(formula, result);
+            }
+            return result;
+        }
+    }
+
+    private static Node eliminateOperator(final Node formula, final Eliminator eliminator) {
+        final Node[] children = formula.getChildren();
+
+        if (formula instanceof And || formula instanceof Or) {
+            final boolean isAnd = formula instanceof And;
+            // The children which are neither neutral nor absorbing. Only allocated on the first change.
+            Node[] remaining = null;
+            int size = 0;
+            for (int i = 0; i < children.length; ++i) {
+                final Node child = eliminator.eliminate(children[i]);
+                if (isAnd ? isFalse(child) : isTrue(child)) {
+                    return isAnd ? False : True;
+                }
+
+                final boolean neutral = isAnd ? isTrue(child) : isFalse(child);
+                if (remaining == null && (neutral || child != children[i])) {
+                    remaining = new Node[children.length];
+                    System.arraycopy(children, 0, remaining, 0, i);
+                    size = i;
+                }
+                if (remaining != null && !neutral) {
+                    remaining[size++] = child;
+                }
+            }
+
+            if (remaining == null && children.length > 1) {
+                return formula;
+            }
+            if (remaining == null) {
+                remaining = children;
+                size = children.length;
+            }
+            if (size == 0) {
+                return isAnd ? True : False;
+            }
+            if (size == 1) {
+                return remaining[0];
+            }
+            final Node[] newChildren = Arrays.copyOf(remaining, size);
+            return isAnd ? new And(newChildren) : new Or(newChildren);
+        } else if (formula instanceof Not) {
+            final Node child = eliminator.eliminate(children[0]);
+            return child == children[0] ? formula : negate(child);
+        } else if (formula instanceof Implies || formula instanceof Equals) {
+            final Node l = eliminator.eliminate(children[0]);
+            final Node r = eliminator.eliminate(children[1]);
+
+            if (formula instanceof Implies) {
+                if (isFalse(l)) return True;
+                if (isFalse(r)) return negate(l);
+                if (isTrue(l)) return r;
+                if (isTrue(r)) return True;
+            } else {
+                if (isFalse(l)) return negate(r);
+                if (isFalse(r)) return negate(l);
+                if (isTrue(l)) return r;
+                if (isTrue(r)) return l;
+            }
+
+            if (l == children[0] && r == children[1]) {
+                return formula;
+            }
+            return formula instanceof Implies ? new Implies(l, r) : new Equals(l, r);
+        }
+
+        // Other operators are not simplified but their children are.
+        Node[] newChildren = null;
+        for (int i = 0; i < children.length; ++i) {
+            final Node child = eliminator.eliminate(children[i]);
+            if (child != children[i] && newChildren == null) {
+                newChildren = children.clone();
+            }
+            if (newChildren != null) {
+                newChildren[i] = child;
+            }
+        }
+        if (newChildren == null) {
+            return formula;
+        }
+        return withChildren(formula, newChildren);
+    }
+
+    /**
+     * Returns a shallow copy of the operator {@code formula} with the given children.
+     * In contrast to {@link Node#clone()}, the children are not copied recursively.
+     */
+    private static Node withChildren(final Node formula, final Node[] children) {
+        if (formula instanceof AtMost a) {
+            return new AtMost(a.max, children);
+        } else if (formula instanceof AtLeast a) {
+            return new AtLeast(a.min, children);
+        } else if (formula instanceof Choose c) {
+            return new Choose(c.n, children);
+        }
+
+        // Unknown operators can only be copied deeply.
+        final Node copy = formula.clone();
+        copy.setChildren(children);
+        return copy;
+    }
+
+    /**
+     * Converts the given interned formula to a prop4j formula without true and false constants.
+     * Interned formulas are already free of constants by construction, so no simplification is
+     * necessary.
+     *
+     * @param formula the formula to convert
+     * @return either {@link True}, {@link False} or a formula without True or False
+     */
+    public static Formula EliminateTrueAndFalse(final InternedFormula formula) {
+        return new Formula(formula.toNode());
     }
 
     /**
@@ -1,6 +1,9 @@
 package org.variantsync.diffdetective.util.fide;
 
 import org.prop4j.And;
+import org.prop4j.AtLeast;
+import org.prop4j.AtMost;
+import org.prop4j.Choose;
 import org.prop4j.Equals;
 import org.prop4j.Implies;
 import org.prop4j.Literal;
@@ -8,6 +11,7 @@ import org.prop4j.Node;
 import org.prop4j.Not;
 import org.prop4j.Or;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SemanticDeduplicator;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.functjonal.Cast;
 
@@ -60,6 +64,45 @@ public class FormulaUtils {
         return new Equals(a, b);
     }
 
+    /**
+     * Symbols for {@link Node#eliminateNotSupportedSymbols} which eliminate all cardinality
+     * operators.
+     */
+    private static final String[] WITHOUT_CARDINALITIES = {"-", "&", "|", "=>", "<=>", ",", "?", "?", "?"};
+
+    /**
+     * Returns an equivalent formula in which all cardinality operators ({@link AtMost},
+     * {@link AtLeast} and {@link Choose}, e.g., of alternative groups in feature models) are
+     * expanded into conjunctions and disjunctions.
+     * If {@code formula} contains no cardinality operators, it is returned as is. Otherwise, it is
+     * copied, so {@code formula} is never modified.
+     */
+    public static Node eliminateCardinalities(final Node formula) {
+        if (!containsCardinalities(formula)) {
+            return formula;
+        }
+        return formula.clone().eliminateNotSupportedSymbols(WITHOUT_CARDINALITIES);
+    }
+
+    /**
+     * Returns {@code true} iff {@code formula} contains an {@link AtMost}, {@link AtLeast} or
+     * {@link Choose} operator.
+     */
+    public static boolean containsCardinalities(final Node formula) {
+        if (formula instanceof AtMost || formula instanceof AtLeast || formula instanceof Choose) {
+            return true;
+        }
+        final Node[] children = formula.getChildren();
+        if (children != null) {
+            for (final Node child : children) {
+                if (containsCardinalities(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /** Recursively counts the number of instances of {@link Literal} in {@code formula}. */
     public static int numberOfLiterals(final Node formula) {
         if (formula instanceof Literal) {
@@ -73,6 +116,110 @@ public class FormulaUtils {
         return sum;
     }
 
+    /**
+     * Returns a string which is equal for two formulas if they are equal modulo
+     * associativity, commutativity and idempotency of {@link And}, {@link Or} and {@link Equals}.
+     * Similar to {@link #sortRegularCNF}, the operands of these operators are sorted, but the
+     * formula does not have to be in CNF and remains unchanged.
+     * Literals representing constants (see {@link FixTrueFalse}) are normalized as well.
+     * The encoding is unambiguous, so formulas with equal canonical forms are equivalent.
+     *
+     * @return the canonical form of {@code formula} or {@code null} if {@code formula} contains
+     * operators other than {@link And}, {@link Or}, {@link Not}, {@link Implies}, {@link Equals}
+     * and {@link Literal}
+     */
+    public static String canonicalForm(final Node formula) {
+        final StringBuilder canonicalForm = new StringBuilder();
+        return appendCanonicalForm(formula, canonicalForm) ? canonicalForm.toString() : null;
+    }
+
+    private static boolean appendCanonicalForm(final Node formula, final StringBuilder out) {
+        if (formula instanceof Literal l) {
+            if (!l.positive) {
+                out.append('-');
+            }
+            if (FixTrueFalse.isTrueLiteral(l)) {
+                out.append('T');
+            } else if (FixTrueFalse.isFalseLiteral(l)) {
+                out.append('F');
+            } else {
+                // Prefix the name by its length to avoid ambiguities with names containing operators.
+                final String name = l.var.toString();
+                out.append(name.length()).append(':').append(name);
+            }
+            return true;
+        }
+
+        final char operator;
+        if (formula instanceof Not) {
+            operator = '!';
+        } else if (formula instanceof And) {
+            operator = '&';
+        } else if (formula instanceof Or) {
+            operator = '|';
+        } else if (formula instanceof Implies) {
+            operator = '>';
+        } else if (formula instanceof Equals) {
+            operator = '=';
+        } else {
+            return false;
+        }
+
+        final List<String> operands = new ArrayList<>();
+        if (!collectCanonicalOperands(formula, operands)) {
+            return false;
+        }
+        if (operator == '&' || operator == '|' || operator == '=') {
+            Collections.sort(operands);
+        }
+        if (operator == '&' || operator == '|') {
+            // idempotency
+            int size = 0;
+            for (final String operand : operands) {
+                if (size == 0 || !operands.get(size - 1).equals(operand)) {
+                    operands.set(size++, operand);
+                }
+            }
+            operands.subList(size, operands.size()).clear();
+
+            if (size == 1) {
+                out.append(operands.get(0));
+                return true;
+            }
+        }
+
+        out.append(operator).append('(');
+        for (int i = 0; i < operands.size(); ++i) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(operands.get(i));
+        }
+        out.append(')');
+        return true;
+    }
+
+    /**
+     * Adds the canonical forms of all operands of {@code formula} to {@code operands}.
+     * Nested operators of the same associative type are flattened.
+     */
+    private static boolean collectCanonicalOperands(final Node formula, final List<String> operands) {
+        final boolean associative = formula instanceof And || formula instanceof Or;
+        for (final Node child : formula.getChildren()) {
+            if (associative && child.getClass() == formula.getClass()) {
+                if (!collectCanonicalOperands(child, operands)) {
+                    return false;
+                }
+            } else {
+                final StringBuilder operand = new StringBuilder();
+                if (!appendCanonicalForm(child, operand)) {
+                    return false;
+                }
+                operands.add(operand.toString());
+            }
+        }
+        return true;
+    }
 
     public static void sortRegularCNF(final Node rcnf) {
         Assert.assertTrue(rcnf instanceof And);
@@ -101,24 +248,14 @@ public class FormulaUtils {
                 .sum();
     }
 
+    /**
+     * Removes all formulas from {@code formulas} which are equivalent to a preceding formula.
+     * The order of the remaining formulas is kept.
+     *
+     * @see SemanticDeduplicator
+     */
     public static void removeSemanticDuplicates(final List<Node> formulas) {
-        int len = formulas.size();
-        for (int i = 0; i < len; ++i) {
-            final Node ci = formulas.get(i);
-
-            for (int j = i + 1; j < len; ++j) {
-                final Node cj = formulas.get(j);
-                if (SAT.equivalent(cj, ci)) {
-                    // remove ci
-                    // We do this by swapping it with the last element of the list, then reducing the list length by 1
-                    // and then continue inspection of the newly swapped in element (thus --i).
-                    Collections.swap(formulas, i, len - 1);
-                    --i;
-                    --len;
-                    break;
-                }
-            }
-        }
-        formulas.subList(len, formulas.size()).clear();
+        final SemanticDeduplicator deduplicator = new SemanticDeduplicator();
+        formulas.removeIf(formula -> !deduplicator.add(formula));
     }
 }
@@ -78,6 +78,16 @@ public class DiffNode<L extends Label> implements HasNodeType {
      */
     private Projection<L>[] projections = Cast.unchecked(Array.newInstance(Projection.class, 2));
 
+    /**
+     * Number of modifications of the tree rooted at this node.
+     * Only meaningful for nodes without parents. Each modification of the structure, the line
+     * numbers, the formulas or the {@link #getID() ids} of a node increments the version of the
+     * root(s) of that node.
+     * Used to detect outdated {@link VariationDiffIndex indices} and presence conditions cached by
+     * {@link Projection}s.
+     */
+    private volatile long version = 0;
+
     /**
      * Creates a DiffNode with the given parameters.
      * @param diffType The type of change made to this node.
@@ -100,6 +110,80 @@ public class DiffNode<L extends Label> implements HasNodeType {
         this.featureMapping = featureMapping;
     }
 
+    /**
+     * Resets this node to the state of a newly constructed node with the given parameters.
+     * The node type is kept. All edges to parents and children are discarded without updating the
+     * respective neighbours, so this must only be used on nodes whose whole graph is discarded.
+     * Only {@link DiffNodeArena} is allowed to call this method.
+     *
+     * @see DiffNode#DiffNode(DiffType, NodeType, DiffLineNumber, DiffLineNumber, Node, L)
+     */
+    void reinitialize(DiffType diffType,
+                      DiffLineNumber fromLines, DiffLineNumber toLines,
+                      Node featureMapping, L label) {
+        children[BEFORE.ordinal()].clear();
+        children[AFTER.ordinal()].clear();
+        parents[BEFORE.ordinal()] = null;
+        parents[AFTER.ordinal()] = null;
+
+        this.diffType = diffType;
+        this.label.setInnerLabel(label);
+        this.from = fromLines;
+        this.to = toLines;
+        this.featureMapping = featureMapping;
+        notifyModification();
+    }
+
+    /**
+     * Returns the number of modifications of the tree rooted at this node.
+     * If this number did not change between two calls and this node has no parents, no node of
+     * this tree was modified in between (except for direct writes to {@link #diffType}).
+     *
+     * @see VariationDiffIndex
+     * @see Projection
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Invalidates all {@link VariationDiffIndex indices} and cached presence conditions of the
+     * tree containing this node.
+     * This is called by all methods modifying a {@code DiffNode} and has to be called manually
+     * after writing {@link #diffType} directly.
+     */
+    public void notifyModification() {
+        // In a consistent tree, both roots are the same. Nodes which are currently moved between
+        // trees may have a different root before and after the edit.
+        final DiffNode<L> beforeRoot = getTreeRoot(BEFORE);
+        final DiffNode<L> afterRoot = getTreeRoot(AFTER);
+        ++beforeRoot.version;
+        if (afterRoot != beforeRoot) {
+            ++afterRoot.version;
+        }
+    }
+
+    /**
+     * Returns the node without parents that is reached by following the parents of this node.
+     * Parents at time {@code preferred} are followed if they exist.
+     */
+    DiffNode<L> getTreeRoot(final Time preferred) {
+        final int first = preferred.ordinal();
+        final int second = preferred.other().ordinal();
+
+        DiffNode<L> node = this;
+        while (true) {
+            DiffNode<L> parent = node.parents[first];
+            if (parent == null) {
+                parent = node.parents[second];
+            }
+            if (parent == null) {
+                return node;
+            }
+            node = parent;
+        }
+    }
+
     /**
      * Creates a new root node.
      * The root is a neutral annotation (i.e., its feature mapping is "true").
@@ -266,6 +350,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         children[time.ordinal()].add(index, child);
         child.parents[time.ordinal()] = this;
+        notifyModification();
     }
 
     /**
@@ -279,6 +364,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         children[time.ordinal()].add(child);
         child.parents[time.ordinal()] = this;
+        notifyModification();
     }
 
     /**
@@ -303,6 +389,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         child.parents[time.ordinal()] = null;
         children[time.ordinal()].remove(child);
+        notifyModification();
     }
 
     /**
@@ -333,6 +420,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         final List<DiffNode<L>> orphans = children[time.ordinal()];
         children[time.ordinal()] = new ArrayList<>();
+        notifyModification();
         return orphans;
     }
 
@@ -362,6 +450,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
     public void setFromLine(DiffLineNumber from) {
         this.from = from.as(diffType);
+        notifyModification();
     }
 
     /**
@@ -374,6 +463,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
     public void setToLine(DiffLineNumber to) {
         this.to = to.as(diffType);
+        notifyModification();
     }
 
     /**
@@ -399,6 +489,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
     public void setLinesAtTime(LineRange lineRange, Time time) {
         from = from.withLineNumberAtTime(lineRange.fromInclusive(), time);
         to = to.withLineNumberAtTime(lineRange.toExclusive(), time);
+        notifyModification();
     }
 
     /**
@@ -424,6 +515,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
         );
 
         this.featureMapping = featureMapping;
+        notifyModification();
     }
 
     /**
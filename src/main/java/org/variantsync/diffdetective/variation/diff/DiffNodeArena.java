@@ -0,0 +1,188 @@
+package org.variantsync.diffdetective.variation.diff;
+
+import org.prop4j.Node;
+import org.variantsync.diffdetective.diff.text.DiffLineNumber;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.NodeType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A per-thread pool of {@link DiffNode}s and {@link DiffLinesLabel}s which are reused across
+ * parsed patches.
+ *
+ * <p>Parsing a patch allocates many short-lived objects which become garbage as soon as the
+ * analysis of the patch is finished. Instead of leaving them to the garbage collector, a
+ * {@link org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser parser} can
+ * allocate all nodes and labels of one {@link VariationDiff} in a {@link Region} of the
+ * {@link #forCurrentThread() arena of the current thread}.
+ *
+ * <p>Ownership rule: A {@link Region} owns all nodes and labels allocated through it, regardless
+ * whether they are still part of the {@link VariationDiff} they were allocated for. When the region
+ * is {@link Region#release() released}, all of these objects are reset and may be handed out again
+ * by any later region of the same thread. Hence, no reference to the {@link VariationDiff} (or any
+ * of its nodes, labels or {@link Projection projections}) may be used after the release. The
+ * {@link org.variantsync.diffdetective.analysis.Analysis analysis} releases the region of each
+ * patch after all {@link org.variantsync.diffdetective.analysis.Analysis.Hooks#endPatch} hooks
+ * ran. Regions which are never released are simply garbage collected.
+ *
+ * @see org.variantsync.diffdetective.datasets.PatchDiffParseOptions#recycleNodes()
+ */
+public final class DiffNodeArena {
+    /**
+     * The maximum number of nodes (and labels) kept for reuse.
+     * Exceeding objects are left to the garbage collector to bound the memory retained by idle
+     * threads.
+     */
+    public static final int MAX_POOL_SIZE = 1 << 16;
+
+    private static final ThreadLocal<DiffNodeArena> INSTANCES = ThreadLocal.withInitial(DiffNodeArena::new);
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+
+    /** Free nodes indexed by {@code NodeType.ordinal()}. */
+    private final List<ArrayDeque<DiffNode<DiffLinesLabel>>> freeNodes = new ArrayList<>(NODE_TYPES.length);
+    private final ArrayDeque<DiffLinesLabel> freeLabels = new ArrayDeque<>();
+    private final Thread owner;
+    private int pooledNodes = 0;
+
+    private long allocatedNodes = 0;
+    private long reusedNodes = 0;
+
+    private DiffNodeArena() {
+        for (int i = 0; i < NODE_TYPES.length; ++i) {
+            freeNodes.add(new ArrayDeque<>());
+        }
+        owner = Thread.currentThread();
+    }
+
+    /**
+     * Returns the arena of the calling thread.
+     */
+    public static DiffNodeArena forCurrentThread() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Creates a new, empty region that allocates from this arena.
+     */
+    public Region newRegion() {
+        return new Region();
+    }
+
+    /**
+     * Returns the number of nodes which had to be allocated because the pool was empty.
+     */
+    public long getAllocatedNodes() {
+        return allocatedNodes;
+    }
+
+    /**
+     * Returns the number of nodes which were reused instead of allocated.
+     */
+    public long getReusedNodes() {
+        return reusedNodes;
+    }
+
+    /**
+     * The objects allocated for a single {@link VariationDiff}.
+     * See {@link DiffNodeArena} for the ownership rule.
+     */
+    public final class Region {
+        private final List<DiffNode<DiffLinesLabel>> nodes = new ArrayList<>();
+        private final List<DiffLinesLabel> labels = new ArrayList<>();
+        private boolean released = false;
+
+        private Region() {}
+
+        /**
+         * Same as {@link DiffNode#DiffNode(DiffType, NodeType, DiffLineNumber, DiffLineNumber, Node, org.variantsync.diffdetective.variation.Label)}
+         * but reuses a released node if possible.
+         */
+        public DiffNode<DiffLinesLabel> newNode(
+                DiffType diffType, NodeType nodeType,
+                DiffLineNumber fromLines, DiffLineNumber toLines,
+                Node featureMapping, DiffLinesLabel label) {
+            assertNotReleased();
+
+            final DiffNode<DiffLinesLabel> node;
+            final DiffNode<DiffLinesLabel> free = freeNodes.get(nodeType.ordinal()).poll();
+            if (free == null) {
+                ++allocatedNodes;
+                node = new DiffNode<>(diffType, nodeType, fromLines, toLines, featureMapping, label);
+            } else {
+                ++reusedNodes;
+                --pooledNodes;
+                free.reinitialize(diffType, fromLines, toLines, featureMapping, label);
+                node = free;
+            }
+
+            nodes.add(node);
+            return node;
+        }
+
+        /**
+         * Returns an empty label with a mutable list of lines.
+         */
+        public DiffLinesLabel newLabel() {
+            assertNotReleased();
+
+            DiffLinesLabel label = freeLabels.poll();
+            if (label == null) {
+                label = new DiffLinesLabel();
+            }
+
+            labels.add(label);
+            return label;
+        }
+
+        /**
+         * Hands all nodes and labels allocated through this region back to the arena.
+         * Calling this method more than once has no effect. If this method is called on a
+         * thread other than the one owning the arena, the objects are left to the garbage
+         * collector.
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            if (Thread.currentThread() == owner) {
+                for (final DiffNode<DiffLinesLabel> node : nodes) {
+                    if (pooledNodes >= MAX_POOL_SIZE) {
+                        break;
+                    }
+                    node.reinitialize(null, DiffLineNumber.Invalid(), DiffLineNumber.Invalid(), null, null);
+                    freeNodes.get(node.getNodeType().ordinal()).push(node);
+                    ++pooledNodes;
+                }
+
+                for (final DiffLinesLabel label : labels) {
+                    if (freeLabels.size() >= MAX_POOL_SIZE) {
+                        break;
+                    }
+                    label.getDiffLines().clear();
+                    freeLabels.push(label);
+                }
+            }
+
+            nodes.clear();
+            labels.clear();
+        }
+
+        /**
+         * Returns {@code true} iff {@link #release()} was called on this region.
+         */
+        public boolean isReleased() {
+            return released;
+        }
+
+        private void assertNotReleased() {
+            if (released) {
+                throw new IllegalStateException("Cannot allocate in a released region");
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.variantsync.diffdetective.variation.diff;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.prop4j.Node;
@@ -24,6 +26,24 @@ public class Projection<L extends Label> extends VariationNode<Projection<L>, L>
     private DiffNode<L> backingNode;
     private Time time;
 
+    /**
+     * Memoized formulas of this projection together with the root of the tree and its
+     * {@link DiffNode#getVersion() version} at the time of computation.
+     * Each memo is immutable so that concurrent reads of an unmodified tree stay safe.
+     */
+    private record Memo(DiffNode<?> root, long version, List<Node> clauses, Node formula) {
+        Memo(DiffNode<?> root, long version, List<Node> clauses) {
+            this(root, version, Collections.unmodifiableList(clauses), conjunction(clauses));
+        }
+
+        boolean isUpToDate(final DiffNode<?> currentRoot) {
+            return root == currentRoot && version == currentRoot.getVersion();
+        }
+    }
+
+    private Memo featureMapping;
+    private Memo presenceCondition;
+
     /**
      * Creates a new projection of a {@link DiffNode}.
      * Only {@link DiffNode} is allowed to call this method to guarantee the identity of this class
@@ -121,4 +141,64 @@ public class Projection<L extends Label> extends VariationNode<Projection<L>, L>
     public int getID() {
         return getBackingNode().getID();
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The result is memoized until any node of the tree containing this projection is
+     * modified (see {@link DiffNode#notifyModification()}). The clauses of the parent's memo are
+     * reused, so computing the presence conditions of all nodes top-down walks each path to the
+     * root only once. The returned formula is shared, so it must not be modified. Use
+     * {@link Node#clone()} or non-mutating transformations like
+     * {@link org.variantsync.diffdetective.util.fide.FixTrueFalse#EliminateTrueAndFalse(Node)} instead.
+     */
+    @Override
+    public Node getFeatureMapping() {
+        return featureMappingMemo().formula();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The result is memoized until any node of the tree containing this projection is modified
+     * (see {@link #getFeatureMapping()}). The returned formula is shared, so it must not be modified.
+     */
+    @Override
+    public Node getPresenceCondition() {
+        return presenceConditionMemo().formula();
+    }
+
+    @Override
+    protected List<Node> getFeatureMappingClauses() {
+        return featureMappingMemo().clauses();
+    }
+
+    @Override
+    protected List<Node> getPresenceConditionClauses() {
+        return new ArrayList<>(presenceConditionMemo().clauses());
+    }
+
+    private Memo featureMappingMemo() {
+        final DiffNode<L> root = getBackingNode().getTreeRoot(time);
+        Memo memo = featureMapping;
+        if (memo == null || !memo.isUpToDate(root)) {
+            // Read the version first so that concurrent modifications invalidate the new memo.
+            final long version = root.getVersion();
+            memo = new Memo(root, version, super.getFeatureMappingClauses());
+            featureMapping = memo;
+        }
+        return memo;
+    }
+
+    private Memo presenceConditionMemo() {
+        final DiffNode<L> root = getBackingNode().getTreeRoot(time);
+        Memo memo = presenceCondition;
+        if (memo == null || !memo.isUpToDate(root)) {
+            // Read the version first so that concurrent modifications invalidate the new memo.
+            final long version = root.getVersion();
+            memo = new Memo(root, version, super.getPresenceConditionClauses());
+            presenceCondition = memo;
+        }
+        return memo;
+    }
 };
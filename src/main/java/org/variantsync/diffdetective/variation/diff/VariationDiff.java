@@ -3,6 +3,8 @@ package org.variantsync.diffdetective.variation.diff;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.CompiledFormula;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.diff.git.CommitDiff;
 import org.variantsync.diffdetective.diff.git.GitDiffer;
@@ -33,7 +35,9 @@ import java.lang.reflect.Array;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -57,6 +61,9 @@ import static org.variantsync.functjonal.Functjonal.when;
  */
 public class VariationDiff<L extends Label> {
     private final DiffNode<L> root;
+    private VariationDiffIndex<L> index;
+    /** {@link DiffNode#getVersion() Version} of the root at the last lookup without index. */
+    private long versionOfLastLookup = -1;
     private VariationDiffSource source;
 
     /**
@@ -300,10 +307,19 @@ public class VariationDiff<L extends Label> {
 
     /**
      * Obtain the DiffNode with the given id in this VariationDiff.
+     * Repeated lookups without modifications of this VariationDiff in between use the
+     * {@link #getIndex() index} of this VariationDiff and take constant time. Otherwise, this
+     * VariationDiff is traversed until the node is found, so interleaving lookups and
+     * modifications doesn't rebuild the index for each lookup.
      * @param id The id of the node to search.
      * @return The node with the given id if existing, null otherwise.
      */
     public DiffNode<L> getNodeWithID(int id) {
+        if ((index != null && index.isUpToDate()) || root.getVersion() == versionOfLastLookup) {
+            return getIndex().getNodeWithID(id);
+        }
+        versionOfLastLookup = root.getVersion();
+
         final DiffNode<L>[] d = Cast.unchecked(Array.newInstance(DiffNode.class, 1));
 
         traverse((traversal, subtree) -> {
@@ -321,6 +337,18 @@ public class VariationDiff<L extends Label> {
         return d[0];
     }
 
+    /**
+     * Returns an index of the nodes in this VariationDiff.
+     * The index is built lazily on the first call and rebuilt if any node of this VariationDiff
+     * was modified in between (see {@link VariationDiffIndex#isUpToDate()}).
+     */
+    public VariationDiffIndex<L> getIndex() {
+        if (index == null || !index.isUpToDate()) {
+            index = new VariationDiffIndex<>(this);
+        }
+        return index;
+    }
+
     /**
      * Returns all nodes that satisfy the given predicate.
      * Traverses the VariationDiff once.
@@ -359,6 +387,61 @@ public class VariationDiff<L extends Label> {
         return allnodes;
     }
 
+    /**
+     * Evaluates the presence conditions of all nodes existing at the given time on all
+     * configurations of {@code configurations} at once (see {@link CompiledFormula}).
+     * Instead of evaluating each {@link DiffNode#getPresenceCondition presence condition} on its own,
+     * only the feature mapping of each annotation is evaluated and combined with the result of its
+     * parent.
+     *
+     * @param time the time of the presence conditions
+     * @param configurations the configurations to evaluate the presence conditions on
+     * @return a map from each node existing at {@code time}, in preorder, to the indices of the
+     * configurations in which it is present. Artifacts share the bit set of their parent, so the
+     * bit sets must not be modified.
+     */
+    public Map<DiffNode<L>, BitSet> evaluatePresenceConditions(final Time time, final ConfigurationMatrix configurations) {
+        final Map<DiffNode<L>, BitSet> presenceConditions = new LinkedHashMap<>();
+        final BitSet all = new BitSet(configurations.size());
+        all.set(0, configurations.size());
+        evaluatePresenceConditions(root, all, time, configurations, presenceConditions);
+        return presenceConditions;
+    }
+
+    private static <L extends Label> void evaluatePresenceConditions(
+            final DiffNode<L> node,
+            final BitSet parentPresenceCondition,
+            final Time time,
+            final ConfigurationMatrix configurations,
+            final Map<DiffNode<L>, BitSet> presenceConditions
+    ) {
+        final BitSet presenceCondition;
+        if (node.isArtifact()) {
+            presenceCondition = parentPresenceCondition;
+        } else {
+            presenceCondition = CompiledFormula.compile(node.getFeatureMapping(time)).evaluate(configurations);
+
+            if (node.isElse() || node.isElif()) {
+                // The feature mapping already covers the whole chain, so continue with the parent of the chain.
+                DiffNode<L> correspondingIf = node.getParent(time);
+                while (!correspondingIf.isIf()) {
+                    correspondingIf = correspondingIf.getParent(time);
+                }
+                final DiffNode<L> outerNesting = correspondingIf.getParent(time);
+                if (outerNesting != null) {
+                    presenceCondition.and(presenceConditions.get(outerNesting));
+                }
+            } else {
+                presenceCondition.and(parentPresenceCondition);
+            }
+        }
+
+        presenceConditions.put(node, presenceCondition);
+        for (final DiffNode<L> child : node.getChildOrder(time)) {
+            evaluatePresenceConditions(child, presenceCondition, time, configurations, presenceConditions);
+        }
+    }
+
     /**
      * Returns the number of nodes in this tree that satisfy the given condition.
      * @param nodesToCount A condition that returns true for each node that should be counted.
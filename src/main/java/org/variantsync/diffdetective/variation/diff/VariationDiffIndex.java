@@ -0,0 +1,198 @@
+package org.variantsync.diffdetective.variation.diff;
+
+import org.variantsync.diffdetective.util.LineRange;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.tree.view.relevance.RelevanceIndex;
+import org.variantsync.functjonal.Cast;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Lookup tables for the nodes of a {@link VariationDiff}.
+ * An index provides constant time lookup of nodes by {@link DiffNode#getID() id} and by
+ * {@link NodeType node type} and logarithmic time lookup of nodes by their
+ * {@link DiffNode#getLinesInDiff() line numbers in the diff}.
+ *
+ * <p>An index is a snapshot of the {@link VariationDiff} at the time of its creation.
+ * Use {@link VariationDiff#getIndex()} to obtain an index which is rebuilt automatically when any
+ * node of the indexed VariationDiff was modified (see {@link DiffNode#notifyModification()}) since
+ * its creation. Modifications of other VariationDiffs don't affect the index.
+ *
+ * @param <L> The type of label stored in the indexed tree.
+ */
+public class VariationDiffIndex<L extends Label> {
+    private final Map<Integer, DiffNode<L>> nodesById;
+    private final Map<NodeType, List<DiffNode<L>>> nodesByType;
+
+    /**
+     * Nodes with a non-empty {@link DiffNode#getLinesInDiff() line range} sorted by the start of
+     * their line range.
+     * These nodes form an implicit, balanced binary search tree: The root of the range
+     * {@code [low, high)} is the node at index {@code (low + high) >>> 1}.
+     */
+    private final List<DiffNode<L>> nodesByLine;
+    private final int[] fromLines;
+    /**
+     * Augmentation of the implicit search tree in {@link #nodesByLine}:
+     * The maximal exclusive end line of all nodes in the subtree rooted at each index.
+     */
+    private final int[] maxToLines;
+
+    private final DiffNode<L> root;
+    /** Lazily created indices of the projections, indexed by {@link Time#ordinal()}. */
+    private final RelevanceIndex<Projection<L>>[] relevanceIndices;
+
+    private final long version;
+
+    /**
+     * Creates an index of all nodes of the given VariationDiff.
+     * Traverses the VariationDiff once.
+     */
+    public VariationDiffIndex(final VariationDiff<L> variationDiff) {
+        this.root = variationDiff.getRoot();
+        this.version = root.getVersion();
+        this.relevanceIndices = Cast.unchecked(Array.newInstance(RelevanceIndex.class, Time.values().length));
+        this.nodesById = new HashMap<>();
+        this.nodesByType = new EnumMap<>(NodeType.class);
+        this.nodesByLine = new ArrayList<>();
+        variationDiff.forAll(node -> {
+            nodesById.putIfAbsent(node.getID(), node);
+            nodesByType.computeIfAbsent(node.getNodeType(), t -> new ArrayList<>()).add(node);
+
+            final LineRange lines = node.getLinesInDiff();
+            if (lines.fromInclusive() < lines.toExclusive()) {
+                nodesByLine.add(node);
+            }
+        });
+
+        nodesByLine.sort(Comparator.comparingInt(node -> node.getLinesInDiff().fromInclusive()));
+        this.fromLines = new int[nodesByLine.size()];
+        this.maxToLines = new int[nodesByLine.size()];
+        for (int i = 0; i < fromLines.length; ++i) {
+            fromLines[i] = nodesByLine.get(i).getLinesInDiff().fromInclusive();
+        }
+        computeMaxToLines(0, nodesByLine.size());
+    }
+
+    private int computeMaxToLines(final int low, final int high) {
+        if (low >= high) {
+            return Integer.MIN_VALUE;
+        }
+
+        final int mid = (low + high) >>> 1;
+        maxToLines[mid] = Math.max(
+                nodesByLine.get(mid).getLinesInDiff().toExclusive(),
+                Math.max(computeMaxToLines(low, mid), computeMaxToLines(mid + 1, high)));
+        return maxToLines[mid];
+    }
+
+    /**
+     * Returns {@code true} iff no node of the indexed VariationDiff was modified since the
+     * creation of this index.
+     * Modifications by other threads are only detected if they happen before this call.
+     */
+    public boolean isUpToDate() {
+        return root.getParent(Time.BEFORE) == null && root.getParent(Time.AFTER) == null && version == root.getVersion();
+    }
+
+    /**
+     * Returns the node with the given {@link DiffNode#getID() id} or {@code null} if there is no
+     * such node.
+     * If multiple nodes have the same id, the first one in traversal order is returned.
+     */
+    public DiffNode<L> getNodeWithID(final int id) {
+        return nodesById.get(id);
+    }
+
+    /**
+     * Returns an index of the projection of the indexed VariationDiff at time {@code time}, which
+     * speeds up the evaluation of relevance predicates on that projection.
+     * The index is created on the first call.
+     */
+    public RelevanceIndex<Projection<L>> getRelevanceIndex(final Time time) {
+        if (relevanceIndices[time.ordinal()] == null) {
+            relevanceIndices[time.ordinal()] = RelevanceIndex.of(root.projection(time));
+        }
+        return relevanceIndices[time.ordinal()];
+    }
+
+    /**
+     * Returns all nodes of the given type in traversal order.
+     * The returned list is unmodifiable.
+     */
+    public List<DiffNode<L>> getNodesOfType(final NodeType nodeType) {
+        final List<DiffNode<L>> nodes = nodesByType.get(nodeType);
+        return nodes == null ? List.of() : Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Returns all nodes whose {@link DiffNode#getLinesInDiff() line range} contains the given line
+     * number sorted by the start of their line range.
+     */
+    public List<DiffNode<L>> getNodesAtLine(final int lineInDiff) {
+        return getNodesOverlapping(LineRange.SingleLine(lineInDiff));
+    }
+
+    /**
+     * Returns all nodes whose {@link DiffNode#getLinesInDiff() line range} overlaps with the given
+     * range sorted by the start of their line range.
+     * Nodes with empty line ranges (e.g., the root) are never returned.
+     */
+    public List<DiffNode<L>> getNodesOverlapping(final LineRange linesInDiff) {
+        final List<DiffNode<L>> result = new ArrayList<>();
+        forAllNodesOverlapping(linesInDiff, result::add);
+        return result;
+    }
+
+    /**
+     * Invokes {@code consumer} on all nodes whose {@link DiffNode#getLinesInDiff() line range}
+     * overlaps with the given range in the order of the start of their line range.
+     * Runs in {@code O(log n + k)} where {@code n} is the number of nodes and {@code k} is the
+     * number of reported nodes.
+     */
+    public void forAllNodesOverlapping(final LineRange linesInDiff, final Consumer<DiffNode<L>> consumer) {
+        if (linesInDiff.fromInclusive() < linesInDiff.toExclusive()) {
+            forAllNodesOverlapping(0, nodesByLine.size(), linesInDiff, consumer);
+        }
+    }
+
+    private void forAllNodesOverlapping(
+            final int low,
+            final int high,
+            final LineRange query,
+            final Consumer<DiffNode<L>> consumer
+    ) {
+        if (low >= high) {
+            return;
+        }
+
+        final int mid = (low + high) >>> 1;
+        // No node in this subtree ends after the query starts.
+        if (maxToLines[mid] <= query.fromInclusive()) {
+            return;
+        }
+
+        forAllNodesOverlapping(low, mid, query, consumer);
+
+        // All nodes from mid on start after the query ends.
+        if (fromLines[mid] >= query.toExclusive()) {
+            return;
+        }
+
+        final DiffNode<L> node = nodesByLine.get(mid);
+        if (node.getLinesInDiff().toExclusive() > query.fromInclusive()) {
+            consumer.accept(node);
+        }
+
+        forAllNodesOverlapping(mid + 1, high, query, consumer);
+    }
+}
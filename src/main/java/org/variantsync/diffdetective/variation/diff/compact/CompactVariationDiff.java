@@ -0,0 +1,562 @@
+package org.variantsync.diffdetective.variation.diff.compact;
+
+import org.prop4j.And;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.diff.text.DiffLineNumber;
+import org.variantsync.diffdetective.util.Assert;
+import org.variantsync.diffdetective.util.LineRange;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.source.VariationDiffSource;
+import org.variantsync.diffdetective.variation.tree.VariationTree;
+import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
+import org.variantsync.diffdetective.variation.tree.source.VariationTreeSource;
+import org.variantsync.functjonal.Cast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.variation.diff.Time.AFTER;
+import static org.variantsync.diffdetective.variation.diff.Time.BEFORE;
+
+/**
+ * A read-mostly, struct-of-arrays representation of a {@link VariationDiff}.
+ *
+ * <p>Instead of one {@link DiffNode} object per node (with its child lists, parent array,
+ * projection cache, line number records and label wrapper), all nodes are stored in primitive
+ * arrays and are identified by their index. The root always has index {@code 0} and the remaining
+ * nodes are numbered in the order of {@link VariationDiff#computeAllNodes()}. The children of each
+ * node are stored separately for each {@link Time} in compressed sparse row (CSR) format:
+ * The children of node {@code i} at time {@code t} are
+ * {@code children[t][childOffsets[t][i]]} until (exclusive) {@code children[t][childOffsets[t][i + 1]]}.
+ *
+ * <p>The structure of a {@code CompactVariationDiff} is immutable. Only the formulas and labels may
+ * be mutated because they are shared with the {@link VariationDiff} this diff was created from.
+ * Use {@link #toVariationDiff()} to obtain a mutable representation.
+ *
+ * @param <L> The type of label stored in this diff.
+ * @see #fromVariationDiff(VariationDiff)
+ */
+public class CompactVariationDiff<L extends Label> {
+    /** Index used to represent the absence of a node (e.g., the parent of the root). */
+    public static final int NO_NODE = -1;
+
+    private static final int LINE_NUMBER_BITS = 21;
+    private static final long LINE_NUMBER_MASK = (1L << LINE_NUMBER_BITS) - 1;
+    /**
+     * The largest line number that can be stored.
+     * Line numbers are stored with an offset of one so that {@link DiffLineNumber#InvalidLineNumber}
+     * becomes zero.
+     */
+    public static final int MAX_LINE_NUMBER = (int) LINE_NUMBER_MASK - 1;
+
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+    private static final DiffType[] DIFF_TYPES = DiffType.values();
+
+    private final byte[] nodeTypes;
+    private final byte[] diffTypes;
+    private final long[] fromLines;
+    private final long[] toLines;
+    private final Node[] formulas;
+    private final L[] labels;
+    /** Parent indices indexed by {@code Time.ordinal()} and then by node. */
+    private final int[][] parents;
+    /** CSR row offsets indexed by {@code Time.ordinal()} and then by node. */
+    private final int[][] childOffsets;
+    /** CSR child indices indexed by {@code Time.ordinal()}. */
+    private final int[][] children;
+    private final VariationDiffSource source;
+
+    private CompactVariationDiff(
+            byte[] nodeTypes,
+            byte[] diffTypes,
+            long[] fromLines,
+            long[] toLines,
+            Node[] formulas,
+            L[] labels,
+            int[][] parents,
+            int[][] childOffsets,
+            int[][] children,
+            VariationDiffSource source
+    ) {
+        this.nodeTypes = nodeTypes;
+        this.diffTypes = diffTypes;
+        this.fromLines = fromLines;
+        this.toLines = toLines;
+        this.formulas = formulas;
+        this.labels = labels;
+        this.parents = parents;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.source = source;
+    }
+
+    /**
+     * Converts the given {@link VariationDiff} to its compact representation.
+     * Labels and formulas are shared with {@code diff} and not copied.
+     *
+     * @param diff the diff to convert, remains unchanged
+     * @return a compact representation of {@code diff}
+     * @throws IllegalArgumentException if a line number exceeds {@link #MAX_LINE_NUMBER}
+     */
+    public static <L extends Label> CompactVariationDiff<L> fromVariationDiff(final VariationDiff<L> diff) {
+        final List<DiffNode<L>> nodes = diff.computeAllNodes();
+        final int size = nodes.size();
+        Assert.assertTrue(nodes.get(0) == diff.getRoot());
+
+        final Map<DiffNode<L>, Integer> indices = new HashMap<>(2 * size);
+        for (int i = 0; i < size; ++i) {
+            indices.put(nodes.get(i), i);
+        }
+
+        final byte[] nodeTypes = new byte[size];
+        final byte[] diffTypes = new byte[size];
+        final long[] fromLines = new long[size];
+        final long[] toLines = new long[size];
+        final Node[] formulas = new Node[size];
+        final L[] labels = Cast.unchecked(new Label[size]);
+        final int[][] parents = new int[2][size];
+        final int[][] childOffsets = new int[2][size + 1];
+        final int[][] children = new int[2][];
+
+        for (final Time time : Time.values()) {
+            final int t = time.ordinal();
+
+            int edges = 0;
+            for (final DiffNode<L> node : nodes) {
+                edges += node.getChildOrder(time).size();
+            }
+            children[t] = new int[edges];
+
+            int edge = 0;
+            for (int i = 0; i < size; ++i) {
+                final DiffNode<L> node = nodes.get(i);
+                final DiffNode<L> parent = node.getParent(time);
+                parents[t][i] = parent == null ? NO_NODE : indices.get(parent);
+
+                childOffsets[t][i] = edge;
+                for (final DiffNode<L> child : node.getChildOrder(time)) {
+                    children[t][edge++] = indices.get(child);
+                }
+            }
+            childOffsets[t][size] = edge;
+        }
+
+        for (int i = 0; i < size; ++i) {
+            final DiffNode<L> node = nodes.get(i);
+            nodeTypes[i] = (byte) node.getNodeType().ordinal();
+            diffTypes[i] = (byte) node.getDiffType().ordinal();
+            fromLines[i] = pack(node.getFromLine());
+            toLines[i] = pack(node.getToLine());
+            formulas[i] = node.getFormula();
+            labels[i] = node.getLabel();
+        }
+
+        return new CompactVariationDiff<>(
+                nodeTypes, diffTypes, fromLines, toLines, formulas, labels,
+                parents, childOffsets, children, diff.getSource());
+    }
+
+    /**
+     * Converts this compact diff back to a {@link VariationDiff}.
+     * The order of children is preserved. Labels and formulas are shared and not copied.
+     */
+    public VariationDiff<L> toVariationDiff() {
+        final int size = size();
+        final List<DiffNode<L>> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            nodes.add(new DiffNode<>(
+                    getDiffType(i),
+                    getNodeType(i),
+                    getFromLine(i),
+                    getToLine(i),
+                    formulas[i],
+                    labels[i]
+            ));
+        }
+
+        for (final Time time : Time.values()) {
+            final int t = time.ordinal();
+            for (int i = 0; i < size; ++i) {
+                final DiffNode<L> node = nodes.get(i);
+                for (int edge = childOffsets[t][i]; edge < childOffsets[t][i + 1]; ++edge) {
+                    node.addChild(nodes.get(children[t][edge]), time);
+                }
+            }
+        }
+
+        return new VariationDiff<>(nodes.get(0), source);
+    }
+
+    /**
+     * Packs a {@link DiffLineNumber} into a single {@code long}.
+     * Each component is stored with an offset of one in {@link #LINE_NUMBER_BITS} bits.
+     */
+    static long pack(final DiffLineNumber lineNumber) {
+        return (packComponent(lineNumber.inDiff()) << (2 * LINE_NUMBER_BITS))
+                | (packComponent(lineNumber.beforeEdit()) << LINE_NUMBER_BITS)
+                | packComponent(lineNumber.afterEdit());
+    }
+
+    private static long packComponent(final int lineNumber) {
+        if (lineNumber < DiffLineNumber.InvalidLineNumber || lineNumber > MAX_LINE_NUMBER) {
+            throw new IllegalArgumentException("Line number " + lineNumber + " cannot be stored in a CompactVariationDiff");
+        }
+        return lineNumber + 1L;
+    }
+
+    /**
+     * Inverse of {@link #pack(DiffLineNumber)}.
+     */
+    static DiffLineNumber unpack(final long packed) {
+        return new DiffLineNumber(
+                unpackInDiff(packed),
+                unpackAtTime(packed, BEFORE),
+                unpackAtTime(packed, AFTER)
+        );
+    }
+
+    private static int unpackInDiff(final long packed) {
+        return (int) ((packed >>> (2 * LINE_NUMBER_BITS)) & LINE_NUMBER_MASK) - 1;
+    }
+
+    private static int unpackAtTime(final long packed, final Time time) {
+        final int shift = time == BEFORE ? LINE_NUMBER_BITS : 0;
+        return (int) ((packed >>> shift) & LINE_NUMBER_MASK) - 1;
+    }
+
+    /** Returns the number of nodes in this diff. */
+    public int size() {
+        return nodeTypes.length;
+    }
+
+    /** Returns the index of the root node, which is always {@code 0}. */
+    public int getRoot() {
+        return 0;
+    }
+
+    /** Returns the source of the {@link VariationDiff} this diff was created from. */
+    public VariationDiffSource getSource() {
+        return source;
+    }
+
+    public NodeType getNodeType(int node) {
+        return NODE_TYPES[nodeTypes[node]];
+    }
+
+    public DiffType getDiffType(int node) {
+        return DIFF_TYPES[diffTypes[node]];
+    }
+
+    public boolean isArtifact(int node) {
+        return getNodeType(node) == NodeType.ARTIFACT;
+    }
+
+    public boolean isIf(int node) {
+        return getNodeType(node) == NodeType.IF;
+    }
+
+    public boolean isElif(int node) {
+        return getNodeType(node) == NodeType.ELIF;
+    }
+
+    public boolean isElse(int node) {
+        return getNodeType(node) == NodeType.ELSE;
+    }
+
+    /**
+     * @see DiffNode#getFromLine()
+     */
+    public DiffLineNumber getFromLine(int node) {
+        return unpack(fromLines[node]);
+    }
+
+    /**
+     * @see DiffNode#getToLine()
+     */
+    public DiffLineNumber getToLine(int node) {
+        return unpack(toLines[node]);
+    }
+
+    /**
+     * @see DiffNode#getLinesInDiff()
+     */
+    public LineRange getLinesInDiff(int node) {
+        return LineRange.FromInclToExcl(unpackInDiff(fromLines[node]), unpackInDiff(toLines[node]));
+    }
+
+    /**
+     * @see DiffNode#getLinesAtTime(Time)
+     */
+    public LineRange getLinesAtTime(int node, Time time) {
+        return LineRange.FromInclToExcl(unpackAtTime(fromLines[node], time), unpackAtTime(toLines[node], time));
+    }
+
+    /**
+     * Returns the direct feature mapping of the given node.
+     * @see DiffNode#getFormula()
+     */
+    public Node getFormula(int node) {
+        return formulas[node];
+    }
+
+    public L getLabel(int node) {
+        return labels[node];
+    }
+
+    /**
+     * Returns the parent of {@code node} at {@code time} or {@link #NO_NODE} if there is none.
+     */
+    public int getParent(int node, Time time) {
+        return parents[time.ordinal()][node];
+    }
+
+    /** Returns the number of children of {@code node} at {@code time}. */
+    public int getChildCount(int node, Time time) {
+        final int[] offsets = childOffsets[time.ordinal()];
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /** Returns the {@code index}-th child of {@code node} at {@code time}. */
+    public int getChild(int node, int index, Time time) {
+        Assert.assertTrue(0 <= index && index < getChildCount(node, time));
+        return children[time.ordinal()][childOffsets[time.ordinal()][node] + index];
+    }
+
+    /**
+     * Returns a copy of the children of {@code node} at {@code time} in their order.
+     */
+    public int[] getChildOrder(int node, Time time) {
+        final int t = time.ordinal();
+        return Arrays.copyOfRange(children[t], childOffsets[t][node], childOffsets[t][node + 1]);
+    }
+
+    /**
+     * Invokes {@code action} on all direct children of {@code node} without duplicates.
+     * Children which are both before and after children are only visited once.
+     * @see DiffNode#getAllChildren()
+     */
+    public void forAllChildren(int node, IntConsumer action) {
+        final int before = BEFORE.ordinal();
+        for (int edge = childOffsets[before][node]; edge < childOffsets[before][node + 1]; ++edge) {
+            action.accept(children[before][edge]);
+        }
+
+        final int after = AFTER.ordinal();
+        for (int edge = childOffsets[after][node]; edge < childOffsets[after][node + 1]; ++edge) {
+            final int child = children[after][edge];
+            if (parents[before][child] != node) {
+                action.accept(child);
+            }
+        }
+    }
+
+    public boolean isRoot(int node) {
+        return parents[BEFORE.ordinal()][node] == NO_NODE && parents[AFTER.ordinal()][node] == NO_NODE;
+    }
+
+    public boolean isLeaf(int node) {
+        return getChildCount(node, BEFORE) == 0 && getChildCount(node, AFTER) == 0;
+    }
+
+    /**
+     * Invokes the given callback once for each node in this diff.
+     * In contrast to {@link VariationDiff#forAll}, this is a linear scan over all indices and
+     * requires no bookkeeping of visited nodes.
+     * @param procedure callback receiving node indices
+     * @return this
+     */
+    public CompactVariationDiff<L> forAll(final IntConsumer procedure) {
+        for (int i = 0; i < size(); ++i) {
+            procedure.accept(i);
+        }
+        return this;
+    }
+
+    /**
+     * Traverse this diff with the given visitor.
+     * @see VariationDiff#traverse
+     * @return this
+     */
+    public CompactVariationDiff<L> traverse(final CompactVariationDiffVisitor<L> visitor) {
+        CompactVariationDiffTraversal.with(visitor).visit(this);
+        return this;
+    }
+
+    /**
+     * Returns the number of nodes satisfying the given condition.
+     */
+    public int count(final IntPredicate nodesToCount) {
+        int count = 0;
+        for (int i = 0; i < size(); ++i) {
+            if (nodesToCount.test(i)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true iff the paths from {@code node} to the root following the before and after
+     * parents are the very same.
+     * @see DiffNode#beforePathEqualsAfterPath()
+     */
+    public boolean beforePathEqualsAfterPath(int node) {
+        final int[] before = parents[BEFORE.ordinal()];
+        final int[] after = parents[AFTER.ordinal()];
+        while (before[node] == after[node]) {
+            if (before[node] == NO_NODE) {
+                return true;
+            }
+            node = before[node];
+        }
+        return false;
+    }
+
+    /**
+     * Returns the length of the path from the root to {@code node} at {@code time}.
+     * @see DiffNode#getDepth(Time)
+     */
+    public int getDepth(int node, Time time) {
+        final int[] p = parents[time.ordinal()];
+        int depth = 0;
+        while (p[node] != NO_NODE) {
+            node = p[node];
+            ++depth;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the full feature mapping of {@code node} at {@code time}.
+     * @see DiffNode#getFeatureMapping(Time)
+     */
+    public Node getFeatureMapping(int node, Time time) {
+        return conjunction(getFeatureMappingClauses(node, time));
+    }
+
+    /**
+     * Returns the presence condition of {@code node} at {@code time}.
+     * @see DiffNode#getPresenceCondition(Time)
+     */
+    public Node getPresenceCondition(int node, Time time) {
+        return conjunction(getPresenceConditionClauses(node, time));
+    }
+
+    private static Node conjunction(final List<Node> clauses) {
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return new And(clauses);
+    }
+
+    /**
+     * Index based version of the corresponding method in
+     * {@link org.variantsync.diffdetective.variation.tree.VariationNode}.
+     */
+    private List<Node> getFeatureMappingClauses(int node, Time time) {
+        Assert.assertTrue(getDiffType(node).existsAtTime(time));
+        final int[] p = parents[time.ordinal()];
+
+        if (isElse(node) || isElif(node)) {
+            final List<Node> and = new ArrayList<>();
+
+            if (isElif(node)) {
+                and.add(getFormula(node));
+            }
+
+            // Negate all previous cases
+            int ancestor = p[node];
+            while (!isIf(ancestor)) {
+                if (isElif(ancestor)) {
+                    and.add(negate(getFormula(ancestor)));
+                } else {
+                    throw new RuntimeException("Expected If or Elif above Else or Elif but got " + getNodeType(ancestor));
+                }
+                ancestor = p[ancestor];
+            }
+            and.add(negate(getFormula(ancestor)));
+
+            return and;
+        } else if (isArtifact(node)) {
+            return getFeatureMappingClauses(p[node], time);
+        }
+
+        return List.of(getFormula(node));
+    }
+
+    private List<Node> getPresenceConditionClauses(int node, Time time) {
+        final int[] p = parents[time.ordinal()];
+
+        if (isElse(node) || isElif(node)) {
+            final List<Node> clauses = new ArrayList<>(getFeatureMappingClauses(node, time));
+
+            // Find corresponding if
+            int correspondingIf = p[node];
+            while (!isIf(correspondingIf)) {
+                correspondingIf = p[correspondingIf];
+            }
+
+            // If this elif-else-chain was again nested in another annotation, add its pc.
+            final int outerNesting = p[correspondingIf];
+            if (outerNesting != NO_NODE) {
+                clauses.addAll(getPresenceConditionClauses(outerNesting, time));
+            }
+
+            return clauses;
+        } else if (isArtifact(node)) {
+            return getPresenceConditionClauses(p[node], time);
+        }
+
+        // this is mapping or root
+        final List<Node> clauses;
+        if (p[node] == NO_NODE) {
+            clauses = new ArrayList<>(1);
+        } else {
+            clauses = getPresenceConditionClauses(p[node], time);
+        }
+        clauses.add(getFormula(node));
+        return clauses;
+    }
+
+    /**
+     * Creates the projection of this diff at the given time as a new {@link VariationTree}.
+     * @see VariationDiff#project(Time)
+     */
+    public VariationTree<L> project(final Time time) {
+        final VariationTreeNode<L> root = projectNode(getRoot(), time);
+        return new VariationTree<>(root, VariationTreeSource.Unknown);
+    }
+
+    private VariationTreeNode<L> projectNode(int node, Time time) {
+        // Copy mutable attributes to allow modifications of the new node.
+        final VariationTreeNode<L> projected = new VariationTreeNode<>(
+                getNodeType(node),
+                getFormula(node) == null ? null : getFormula(node).clone(),
+                getLinesAtTime(node, time),
+                getLabel(node)
+        );
+
+        final int t = time.ordinal();
+        for (int edge = childOffsets[t][node]; edge < childOffsets[t][node + 1]; ++edge) {
+            projected.addChild(projectNode(children[t][edge], time));
+        }
+
+        return projected;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactVariationDiff of " + source;
+    }
+}
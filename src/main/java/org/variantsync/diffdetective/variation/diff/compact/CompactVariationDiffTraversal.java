@@ -0,0 +1,89 @@
+package org.variantsync.diffdetective.variation.diff.compact;
+
+import org.variantsync.diffdetective.variation.Label;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Traversal of {@link CompactVariationDiff}s with the same guarantees as
+ * {@link org.variantsync.diffdetective.variation.diff.traverse.VariationDiffTraversal}:
+ * Each node is visited at most once and the {@link CompactVariationDiffVisitor visitor} decides
+ * how to proceed.
+ * Visited nodes are remembered in a {@link BitSet} indexed by node instead of a hash set.
+ */
+public class CompactVariationDiffTraversal<L extends Label> {
+    private final BitSet visited;
+    private final CompactVariationDiffVisitor<L> visitor;
+    private CompactVariationDiff<L> diff;
+
+    private CompactVariationDiffTraversal(final CompactVariationDiffVisitor<L> visitor) {
+        this.visitor = visitor;
+        this.visited = new BitSet();
+    }
+
+    /**
+     * Creates a traversal with the given visitor.
+     * @param visitor Visitor that is invoked on each node and always decides how to proceed the traversal.
+     * @return The new traversal.
+     */
+    public static <L extends Label> CompactVariationDiffTraversal<L> with(final CompactVariationDiffVisitor<L> visitor) {
+        return new CompactVariationDiffTraversal<>(visitor);
+    }
+
+    /**
+     * Creates a new traversal that will invoke the given callback once for each node in a visited diff.
+     * @param procedure Callback that is invoked exactly once on each node index.
+     * @return The new traversal that will visit each node exactly once.
+     */
+    public static <L extends Label> CompactVariationDiffTraversal<L> forAll(final IntConsumer procedure) {
+        return with((traversal, subtree) -> {
+            procedure.accept(subtree);
+            traversal.visitChildrenOf(subtree);
+        });
+    }
+
+    /**
+     * Start the traversal of the given diff at its root.
+     * @param diff The diff to traverse.
+     */
+    public void visit(final CompactVariationDiff<L> diff) {
+        this.diff = diff;
+        visited.clear();
+        visit(diff.getRoot());
+    }
+
+    /**
+     * Continue the traversal at the given node.
+     * Has no effect if the node was already visited.
+     * @param subtree The index of the node at which to continue the traversal.
+     */
+    public void visit(final int subtree) {
+        if (markAsVisited(subtree)) {
+            visitor.visit(this, subtree);
+        }
+    }
+
+    /**
+     * Continues the traversal by visiting all children of the given node sequentially.
+     * @param subtree The index of the node whose children to visit.
+     */
+    public void visitChildrenOf(final int subtree) {
+        diff.forAllChildren(subtree, this::visit);
+    }
+
+    /**
+     * Returns the diff that is currently traversed.
+     */
+    public CompactVariationDiff<L> getDiff() {
+        return diff;
+    }
+
+    private boolean markAsVisited(final int node) {
+        if (visited.get(node)) {
+            return false;
+        }
+        visited.set(node);
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package org.variantsync.diffdetective.variation.diff.compact;
+
+import org.variantsync.diffdetective.variation.Label;
+
+/**
+ * Visitor for {@link CompactVariationDiffTraversal}s.
+ * This is the index based counterpart of
+ * {@link org.variantsync.diffdetective.variation.diff.traverse.VariationDiffVisitor}.
+ */
+@FunctionalInterface
+public interface CompactVariationDiffVisitor<L extends Label> {
+    /**
+     * Invoked by a traversal when a node is visited.
+     * The traversal might be continued by invoking respective methods on the given traversal object again.
+     * However, any node that was already visited, will not be visited again.
+     * @param traversal The current traversal. May be instructed on how to continue traversal.
+     * @param subtree The index of the node that is currently visited.
+     * @see CompactVariationDiffTraversal
+     */
+    void visit(final CompactVariationDiffTraversal<L> traversal, final int subtree);
+}
@@ -14,7 +14,7 @@ import java.util.stream.Stream;
  * More generally, ExplainedFilter is a predicate that composes other predicates
  * with and semantics. ExplainedFilter keeps track how often each sub-predicate
  * evaluated to false.
- * ExplainedFilter is intended to be used as a filter in streams.
+ * ExplainedFilter is intended to be used as a filter in streams, including parallel streams.
  * @param <T> Domain of the predicate (i.e., type of the values to filter).
  * @author Paul Bittner
  */
@@ -67,7 +67,7 @@ public class ExplainedFilter<T> implements Predicate<T> {
         /**
          * Resets this explanations filter hit count to 0.
          */
-        private void reset() {
+        private synchronized void reset() {
             this.filterCount = 0;
         }
 
@@ -75,14 +75,14 @@ public class ExplainedFilter<T> implements Predicate<T> {
          * Increments this explanations filter count.
          * This means, a filter filtered an element for this explanation's reason.
          */
-        public void hit() {
+        public synchronized void hit() {
             ++filterCount;
         }
 
         /**
          * Returns how often a filter returned true for this explanation's reason.
          */
-        public int getFilterCount() {
+        public synchronized int getFilterCount() {
             return filterCount;
         }
 
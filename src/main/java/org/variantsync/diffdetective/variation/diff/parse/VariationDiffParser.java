@@ -17,9 +17,11 @@ import org.variantsync.diffdetective.error.UnparseableFormulaException;
 import org.variantsync.diffdetective.feature.Annotation;
 import org.variantsync.diffdetective.feature.AnnotationType;
 import org.variantsync.diffdetective.util.Assert;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.NodeType;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.DiffNodeArena;
 import org.variantsync.diffdetective.variation.diff.DiffType;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
@@ -27,6 +29,8 @@ import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Stack;
 
 /**
@@ -106,6 +110,11 @@ public class VariationDiffParser {
      */
     private DiffNode<DiffLinesLabel> lastArtifact = null;
 
+    /**
+     * The region in which all nodes and labels are allocated or {@code null} if they should be
+     * allocated on the heap as usual.
+     */
+    private final DiffNodeArena.Region region;
 
     /**
      * The same as {@link VariationDiffParser#createVariationDiff(BufferedReader, VariationDiffParseOptions)}
@@ -116,14 +125,51 @@ public class VariationDiffParser {
     public static VariationDiff<DiffLinesLabel> createVariationDiff(
             final String fullDiff,
             final VariationDiffParseOptions parseOptions
+    ) throws DiffParseException {
+        return createVariationDiff(fullDiff, parseOptions, null);
+    }
+
+    /**
+     * The same as {@link VariationDiffParser#createVariationDiff(BufferedReader, VariationDiffParseOptions, DiffNodeArena.Region)}
+     * but with the diff given as a single string with line breaks instead of a {@link BufferedReader}.
+     *
+     * @throws DiffParseException if {@code fullDiff} couldn't be parsed
+     */
+    public static VariationDiff<DiffLinesLabel> createVariationDiff(
+            final String fullDiff,
+            final VariationDiffParseOptions parseOptions,
+            final DiffNodeArena.Region region
     ) throws DiffParseException {
         try {
-            return createVariationDiff(new BufferedReader(new StringReader(fullDiff)), parseOptions);
+            return createVariationDiff(new BufferedReader(new StringReader(fullDiff)), parseOptions, region);
         } catch (IOException e) {
             throw new AssertionError("No actual IO should be performed because only a StringReader is used");
         }
     }
 
+    /**
+     * The same as {@link VariationDiffParser#createVariationDiff(String, VariationDiffParseOptions)}
+     * but with the diff given as already split lines.
+     * This avoids printing and splitting the diff if it is constructed in memory anyway.
+     *
+     * @param lines the lines of the diff, none of which may have a {@code null} diff type
+     * @throws DiffParseException if {@code lines} couldn't be parsed
+     */
+    public static VariationDiff<DiffLinesLabel> createVariationDiff(
+            final List<DiffLine> lines,
+            final VariationDiffParseOptions parseOptions
+    ) throws DiffParseException {
+        final Iterator<DiffLine> it = lines.iterator();
+        try {
+            return new VariationDiffParser(
+                    parseOptions,
+                    null
+            ).parse(() -> it.hasNext() ? it.next() : null);
+        } catch (IOException e) {
+            throw new AssertionError("No actual IO should be performed because the lines are already in memory");
+        }
+    }
+
     /**
      * Default parsing method for {@link VariationDiff}s from diffs.
      * This implementation has options to collapse multiple code lines into one node and to
@@ -139,9 +185,27 @@ public class VariationDiffParser {
     public static VariationDiff<DiffLinesLabel> createVariationDiff(
             BufferedReader fullDiff,
             final VariationDiffParseOptions options
+    ) throws IOException, DiffParseException {
+        return createVariationDiff(fullDiff, options, null);
+    }
+
+    /**
+     * The same as {@link #createVariationDiff(BufferedReader, VariationDiffParseOptions)} but
+     * allocates all nodes and labels in the given {@code region}.
+     * The returned {@link VariationDiff} must not be used after {@code region} was
+     * {@link DiffNodeArena.Region#release released}.
+     *
+     * @param region the region to allocate in or {@code null} to allocate on the heap
+     * @see DiffNodeArena
+     */
+    public static VariationDiff<DiffLinesLabel> createVariationDiff(
+            BufferedReader fullDiff,
+            final VariationDiffParseOptions options,
+            final DiffNodeArena.Region region
     ) throws IOException, DiffParseException {
         return new VariationDiffParser(
-                options
+                options,
+                region
         ).parse(() -> {
             String line = fullDiff.readLine();
             if (line == null) {
@@ -167,7 +231,8 @@ public class VariationDiffParser {
             VariationDiffParseOptions options
     ) throws IOException, DiffParseException {
         return new VariationDiffParser(
-                options
+                options,
+                null
         ).parse(() -> {
             String line = file.readLine();
             if (line == null) {
@@ -192,9 +257,11 @@ public class VariationDiffParser {
      * @see #createVariationDiff(BufferedReader, VariationDiffParseOptions)
      */
     private VariationDiffParser(
-            VariationDiffParseOptions options
+            VariationDiffParseOptions options,
+            DiffNodeArena.Region region
     ) {
         this.options = options;
+        this.region = region;
     }
 
     /**
@@ -210,7 +277,15 @@ public class VariationDiffParser {
     private VariationDiff<DiffLinesLabel> parse(
             FailableSupplier<DiffLine, IOException> lines
     ) throws IOException, DiffParseException {
-        DiffNode<DiffLinesLabel> root = DiffNode.createRoot(new DiffLinesLabel());
+        DiffNode<DiffLinesLabel> root = region == null
+                ? DiffNode.createRoot(new DiffLinesLabel())
+                : region.newNode(
+                        DiffType.NON,
+                        NodeType.IF,
+                        DiffLineNumber.Invalid(),
+                        DiffLineNumber.Invalid(),
+                        FixTrueFalse.True,
+                        region.newLabel());
         beforeStack.push(root);
         afterStack.push(root);
 
@@ -340,14 +415,21 @@ public class VariationDiffParser {
         } else {
             NodeType nodeType = NodeType.fromAnnotationType(annotation.type());
 
-            DiffNode<DiffLinesLabel> newNode = new DiffNode<DiffLinesLabel>(
-                    diffType,
-                    nodeType,
-                    fromLine,
-                    toLine,
-                    annotation.formula(),
-                    new DiffLinesLabel(line.getLines())
-            );
+            DiffNode<DiffLinesLabel> newNode;
+            if (region == null) {
+                newNode = new DiffNode<DiffLinesLabel>(
+                        diffType,
+                        nodeType,
+                        fromLine,
+                        toLine,
+                        annotation.formula(),
+                        new DiffLinesLabel(line.getLines())
+                );
+            } else {
+                DiffLinesLabel label = region.newLabel();
+                label.addDiffLines(line.getLines());
+                newNode = region.newNode(diffType, nodeType, fromLine, toLine, annotation.formula(), label);
+            }
 
             addNode(newNode);
             lastArtifact = newNode.isArtifact() ? newNode : null;
@@ -0,0 +1,79 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.VariationDiffLabelFormat;
+import org.variantsync.diffdetective.variation.diff.source.VariationDiffSource;
+
+/**
+ * Exporter that converts a single VariationDiff to a tree in a {@link LineGraphEncoding#BINARY binary line graph}.
+ * The nodes and edges are labeled exactly as by {@link LineGraphExporter}.
+ */
+public class BinaryLineGraphExporter<L extends Label> implements Exporter<L> {
+    private final VariationDiffLabelFormat treeFormat;
+    private final Format<? super L> format;
+    private final VariationDiffSerializeDebugData debugData;
+
+    public BinaryLineGraphExporter(VariationDiffLabelFormat treeFormat, Format<? super L> format) {
+        this.treeFormat = treeFormat;
+        this.format = format;
+        this.debugData = new VariationDiffSerializeDebugData();
+    }
+
+    public BinaryLineGraphExporter(LineGraphExportOptions<? super L> options) {
+        this(options.treeFormat(), new Format<L>(options.nodeFormat(), options.edgeFormat()));
+    }
+
+    /**
+     * Export {@code variationDiff} as a tree of a binary line graph into {@code destination}.
+     * The header of the tree describes the {@link VariationDiff#getSource() source} of {@code variationDiff}.
+     *
+     * @param variationDiff to be exported
+     * @param destination where the result should be written
+     */
+    @Override
+    public <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, OutputStream destination) throws IOException {
+        exportVariationDiff(variationDiff.getSource(), variationDiff, new BinaryLineGraphWriter(destination));
+    }
+
+    /**
+     * Export {@code variationDiff} as a tree of a binary line graph into {@code destination}.
+     *
+     * @param source the source of the variation diff described by the header of the tree
+     * @param variationDiff to be exported
+     * @param destination where the result should be written
+     */
+    public <La extends L> void exportVariationDiff(VariationDiffSource source, VariationDiff<La> variationDiff, BinaryLineGraphWriter destination) throws IOException {
+        destination.beginTree(treeFormat.toLineGraphLine(source));
+
+        format.forEachNode(variationDiff, (node) -> {
+            switch (node.diffType) {
+                case ADD -> ++debugData.numExportedAddNodes;
+                case REM -> ++debugData.numExportedRemNodes;
+                case NON -> ++debugData.numExportedNonNodes;
+            }
+
+            destination.node(node.getID(), format.getNodeFormat().toLabel(node));
+        });
+
+        format.forEachEdge(variationDiff, edge -> {
+            destination.edge(
+                    edge.from().getID(),
+                    edge.to().getID(),
+                    edge.style().lineGraphType() + format.getEdgeFormat().labelOf(edge)
+            );
+        });
+
+        destination.endTree();
+    }
+
+    /**
+     * Returns debug metadata that was recorded during export.
+     */
+    public VariationDiffSerializeDebugData getDebugData() {
+        return debugData;
+    }
+}
@@ -0,0 +1,288 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import org.variantsync.diffdetective.util.Assert;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for line graphs in the {@link LineGraphEncoding#BINARY binary encoding}
+ * as written by {@link BinaryLineGraphWriter}.
+ *
+ * <p>Trees are read one after another with {@link #next}. Only the current tree is kept in memory.
+ * Its header, nodes and edges can be queried until the next tree is read.
+ * Trees which are not of interest can be {@link #skip skipped} without decoding them.
+ * The {@link #getPosition position} of a tree can be used to read it again later by
+ * seeking to this position in the underlying file.
+ */
+public class BinaryLineGraphReader implements Closeable {
+    private final InputStream source;
+    private long position = 0;
+
+    private byte[] frame = new byte[256];
+    private int frameLength;
+    private int offset;
+    private String header = null;
+    private String[] strings = new String[16];
+    private int numberOfStrings = 0;
+    private int[] nodes = new int[32];
+    private int numberOfNodes = 0;
+    private int[] edges = new int[48];
+    private int numberOfEdges = 0;
+
+    /**
+     * Creates a reader for the binary line graph in the given source.
+     * It can be assumed, that {@code source} is sufficiently buffered.
+     */
+    public BinaryLineGraphReader(final InputStream source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads the next tree.
+     * @return {@code false} if there are no more trees.
+     * @throws IOException if the source throws or does not contain a binary line graph.
+     */
+    public boolean next() throws IOException {
+        final int length = readFrameLength();
+        if (length < 0) {
+            return false;
+        }
+
+        if (frame.length < length) {
+            frame = new byte[Math.max(length, 2 * frame.length)];
+        }
+        readFully(length);
+        frameLength = length;
+        offset = 0;
+
+        header = readString();
+
+        numberOfStrings = readCount();
+        if (strings.length < numberOfStrings) {
+            strings = new String[Math.max(numberOfStrings, 2 * strings.length)];
+        }
+        for (int i = 0; i < numberOfStrings; ++i) {
+            strings[i] = readString();
+        }
+
+        numberOfNodes = readCount();
+        if (nodes.length < 2 * numberOfNodes) {
+            nodes = new int[Math.max(2 * numberOfNodes, 2 * nodes.length)];
+        }
+        for (int i = 0; i < 2 * numberOfNodes; ++i) {
+            nodes[i] = readVarint();
+        }
+
+        numberOfEdges = readCount();
+        if (edges.length < 3 * numberOfEdges) {
+            edges = new int[Math.max(3 * numberOfEdges, 2 * edges.length)];
+        }
+        for (int i = 0; i < 3 * numberOfEdges; ++i) {
+            edges[i] = readVarint();
+        }
+
+        if (offset != frameLength) {
+            throw new IOException("Corrupt binary line graph: Frame at position " + (position - length) + " has unexpected content.");
+        }
+
+        return true;
+    }
+
+    /**
+     * Skips the next tree without decoding it.
+     * Afterwards, there is no current tree.
+     * @return {@code false} if there are no more trees.
+     * @throws IOException if the source throws or does not contain a binary line graph.
+     */
+    public boolean skip() throws IOException {
+        header = null;
+        final int length = readFrameLength();
+        if (length < 0) {
+            return false;
+        }
+
+        try {
+            source.skipNBytes(length);
+        } catch (EOFException e) {
+            throw new IOException("Corrupt binary line graph: Unexpected end of input.", e);
+        }
+        position += length;
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes read so far, i.e., the position of the next tree.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the line describing the current tree (starting with {@link LineGraphConstants#LG_TREE_HEADER}).
+     */
+    public String getHeader() {
+        assertCurrentTree();
+        return header;
+    }
+
+    /**
+     * Returns the number of nodes of the current tree.
+     */
+    public int getNumberOfNodes() {
+        assertCurrentTree();
+        return numberOfNodes;
+    }
+
+    /**
+     * Returns the id of the {@code i}-th node of the current tree.
+     */
+    public int getNodeId(final int i) {
+        return nodes[2 * nodeIndex(i)];
+    }
+
+    /**
+     * Returns the label of the {@code i}-th node of the current tree.
+     */
+    public String getNodeLabel(final int i) {
+        return string(nodes[2 * nodeIndex(i) + 1]);
+    }
+
+    /**
+     * Returns the number of edges of the current tree.
+     */
+    public int getNumberOfEdges() {
+        assertCurrentTree();
+        return numberOfEdges;
+    }
+
+    /**
+     * Returns the id of the node the {@code i}-th edge of the current tree starts at.
+     */
+    public int getEdgeFromId(final int i) {
+        return getNodeId(edges[3 * edgeIndex(i)]);
+    }
+
+    /**
+     * Returns the id of the node the {@code i}-th edge of the current tree ends at.
+     */
+    public int getEdgeToId(final int i) {
+        return getNodeId(edges[3 * edgeIndex(i) + 1]);
+    }
+
+    /**
+     * Returns the label of the {@code i}-th edge of the current tree, starting with the edge type.
+     */
+    public String getEdgeLabel(final int i) {
+        return string(edges[3 * edgeIndex(i) + 2]);
+    }
+
+    private void assertCurrentTree() {
+        Assert.assertTrue(header != null, "There is no current tree.");
+    }
+
+    private int nodeIndex(final int i) {
+        assertCurrentTree();
+        if (i < 0 || i >= numberOfNodes) {
+            throw new IndexOutOfBoundsException("There is no node " + i + " in the tree \"" + header + "\".");
+        }
+        return i;
+    }
+
+    private int edgeIndex(final int i) {
+        assertCurrentTree();
+        if (i < 0 || i >= numberOfEdges) {
+            throw new IndexOutOfBoundsException("There is no edge " + i + " in the tree \"" + header + "\".");
+        }
+        return i;
+    }
+
+    private String string(final int i) {
+        if (i < 0 || i >= numberOfStrings) {
+            throw new IndexOutOfBoundsException("Corrupt binary line graph: There is no label " + i + " in the tree \"" + header + "\".");
+        }
+        return strings[i];
+    }
+
+    /**
+     * Reads the marker and length of the next frame.
+     * @return the length of the body of the next frame or {@code -1} if there are no more frames.
+     */
+    private int readFrameLength() throws IOException {
+        final int marker = source.read();
+        if (marker < 0) {
+            return -1;
+        }
+        ++position;
+
+        if (marker != BinaryLineGraphWriter.FRAME_MARKER) {
+            throw new IOException("Corrupt binary line graph: Expected a frame at position " + (position - 1) + " but got the byte " + marker + ".");
+        }
+
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = source.read();
+            if (b < 0) {
+                throw new IOException("Corrupt binary line graph: Unexpected end of input.");
+            }
+            ++position;
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary line graph: Frame length at position " + position + " is too long.");
+    }
+
+    private void readFully(final int length) throws IOException {
+        if (source.readNBytes(frame, 0, length) != length) {
+            throw new IOException("Corrupt binary line graph: Unexpected end of input.");
+        }
+        position += length;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32 && offset < frameLength; shift += 7) {
+            final byte b = frame[offset++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary line graph: Invalid varint in the tree \"" + header + "\".");
+    }
+
+    /**
+     * Reads the number of subsequent elements. Each element occupies at least one byte.
+     */
+    private int readCount() throws IOException {
+        final int count = readVarint();
+        if (count < 0 || count > frameLength - offset) {
+            throw new IOException("Corrupt binary line graph: Invalid number of elements " + count + " in the tree \"" + header + "\".");
+        }
+        return count;
+    }
+
+    private String readString() throws IOException {
+        final int length = readVarint();
+        if (length < 0 || length > frameLength - offset) {
+            throw new IOException("Corrupt binary line graph: Invalid string length " + length + ".");
+        }
+        final String s = new String(frame, offset, length, StandardCharsets.UTF_8);
+        offset += length;
+        return s;
+    }
+
+    /**
+     * Closes the source.
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
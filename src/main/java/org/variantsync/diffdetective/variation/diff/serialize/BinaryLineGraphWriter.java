@@ -0,0 +1,195 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import org.variantsync.diffdetective.util.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming writer for line graphs in the {@link LineGraphEncoding#BINARY binary encoding}.
+ * The binary encoding stores the same lines as a text line graph, i.e., a header, nodes with an id
+ * and a label, and edges between two nodes with a label, but in a more compact form.
+ *
+ * <p>A binary line graph is a sequence of frames, one per tree:
+ * <pre>
+ * frame  := {@link #FRAME_MARKER} varint(length of body) body
+ * body   := string(header)
+ *           varint(#strings) string*
+ *           varint(#nodes) (varint(node id) varint(index of node label))*
+ *           varint(#edges) (varint(index of from node) varint(index of to node) varint(index of edge label))*
+ * string := varint(length of UTF-8 encoding) UTF-8 encoding
+ * </pre>
+ * Varints are unsigned LEB128 encodings of 32 bit integers.
+ * The header is the text line describing the tree (starting with {@link LineGraphConstants#LG_TREE_HEADER}).
+ * Each label is stored once in the string table of its frame and referenced by its index.
+ * Edges reference their nodes by the index of the node in the frame instead of by its id.
+ * Edge labels include the edge type, i.e., they are everything after the node ids in a text line graph.
+ *
+ * <p>Each frame is self-contained, so frames can be skipped without decoding them (see
+ * {@link BinaryLineGraphReader#skip}) and binary line graphs can be concatenated.
+ *
+ * <p>Trees are written with {@link #beginTree}, {@link #node}, {@link #edge} and {@link #endTree}.
+ * Only the current tree is buffered in memory.
+ */
+public class BinaryLineGraphWriter implements Closeable, Flushable {
+    /**
+     * First byte of each frame. It also identifies the version of the binary encoding.
+     */
+    public static final int FRAME_MARKER = 0xB1;
+
+    private final OutputStream destination;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private String header = null;
+    private final Map<String, Integer> stringTable = new HashMap<>();
+    private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+    private final Map<Integer, Integer> nodeIndices = new HashMap<>();
+    private int[] nodes = new int[32];
+    private int numberOfNodes = 0;
+    private int[] edges = new int[48];
+    private int numberOfEdges = 0;
+
+    /**
+     * Creates a writer that writes binary line graphs to the given destination.
+     * It can be assumed, that {@code destination} is sufficiently buffered.
+     */
+    public BinaryLineGraphWriter(final OutputStream destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * Starts a new tree. All subsequent nodes and edges belong to this tree until {@link #endTree} is invoked.
+     * @param header The line describing the tree, starting with {@link LineGraphConstants#LG_TREE_HEADER}.
+     */
+    public void beginTree(final String header) {
+        Assert.assertTrue(this.header == null, "The previous tree was not ended.");
+        this.header = header;
+    }
+
+    /**
+     * Adds a node with the given id and label to the current tree.
+     * @throws IllegalArgumentException if the current tree already contains a node with the given id.
+     */
+    public void node(final int id, final String label) {
+        Assert.assertTrue(header != null, "No tree was begun.");
+        if (nodeIndices.putIfAbsent(id, numberOfNodes) != null) {
+            throw new IllegalArgumentException("The node " + id + " exists twice. Faulty line graph.");
+        }
+
+        if (2 * numberOfNodes + 2 > nodes.length) {
+            nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+        }
+        nodes[2 * numberOfNodes] = id;
+        nodes[2 * numberOfNodes + 1] = indexOf(label);
+        ++numberOfNodes;
+    }
+
+    /**
+     * Adds an edge between the nodes with the given ids to the current tree.
+     * Both nodes have to be added before.
+     * @param label The label of the edge, starting with the edge type (e.g., {@link LineGraphConstants#BEFORE_AND_AFTER_PARENT}).
+     * @throws IllegalArgumentException if one of the nodes does not exist in the current tree.
+     */
+    public void edge(final int fromId, final int toId, final String label) {
+        Assert.assertTrue(header != null, "No tree was begun.");
+        if (3 * numberOfEdges + 3 > edges.length) {
+            edges = Arrays.copyOf(edges, 2 * edges.length);
+        }
+        edges[3 * numberOfEdges] = nodeIndexOf(fromId);
+        edges[3 * numberOfEdges + 1] = nodeIndexOf(toId);
+        edges[3 * numberOfEdges + 2] = indexOf(label);
+        ++numberOfEdges;
+    }
+
+    /**
+     * Writes the current tree as a single frame to the destination.
+     */
+    public void endTree() throws IOException {
+        Assert.assertTrue(header != null, "No tree was begun.");
+
+        body.reset();
+        writeString(body, header);
+        writeVarint(body, stringTable.size());
+        strings.writeTo(body);
+        writeVarint(body, numberOfNodes);
+        for (int i = 0; i < 2 * numberOfNodes; ++i) {
+            writeVarint(body, nodes[i]);
+        }
+        writeVarint(body, numberOfEdges);
+        for (int i = 0; i < 3 * numberOfEdges; ++i) {
+            writeVarint(body, edges[i]);
+        }
+
+        destination.write(FRAME_MARKER);
+        writeVarint(destination, body.size());
+        body.writeTo(destination);
+
+        header = null;
+        stringTable.clear();
+        strings.reset();
+        nodeIndices.clear();
+        numberOfNodes = 0;
+        numberOfEdges = 0;
+    }
+
+    private int nodeIndexOf(final int id) {
+        final Integer index = nodeIndices.get(id);
+        if (index == null) {
+            throw new IllegalArgumentException(id + " does not exist. Faulty line graph.");
+        }
+        return index;
+    }
+
+    private int indexOf(final String label) {
+        Integer index = stringTable.get(label);
+        if (index == null) {
+            index = stringTable.size();
+            stringTable.put(label, index);
+            writeString(strings, label);
+        }
+        return index;
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeVarint(final OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        destination.flush();
+    }
+
+    /**
+     * Closes the destination. The current tree has to be ended before.
+     */
+    @Override
+    public void close() throws IOException {
+        Assert.assertTrue(header == null, "The last tree was not ended.");
+        destination.close();
+    }
+}
@@ -0,0 +1,254 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import org.variantsync.diffdetective.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable buffer that encodes the lines of text line graphs directly into bytes.
+ * The produced bytes are identical to printing the lines with a {@link java.io.PrintStream}, i.e.,
+ * text is encoded with the {@link Charset#defaultCharset() default charset}, unmappable characters
+ * are replaced and node and edge lines are terminated by {@link System#lineSeparator()}.
+ *
+ * <p>Each thread reuses a single buffer (see {@link #open}) so exporting many variation diffs does
+ * not allocate new buffers, strings or print streams for each line.
+ * The buffered bytes are written to the destination whenever the buffer gets large and on {@link #flush}.
+ */
+final class LineGraphBuffer {
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+    private static final int MAX_RETAINED_CAPACITY = 4 * FLUSH_THRESHOLD;
+    private static final ThreadLocal<LineGraphBuffer> BUFFERS = ThreadLocal.withInitial(LineGraphBuffer::new);
+
+    private final Charset charset = Charset.defaultCharset();
+    private final boolean isUTF8 = StandardCharsets.UTF_8.equals(charset);
+    private final byte[] lineSeparator = System.lineSeparator().getBytes(charset);
+    private final byte[] linebreak = StringUtils.LINEBREAK.getBytes(charset);
+
+    private byte[] bytes = new byte[FLUSH_THRESHOLD];
+    private int size = 0;
+    private final StringBuilder label = new StringBuilder();
+    private OutputStream destination = null;
+
+    private LineGraphBuffer() {}
+
+    /**
+     * Returns an empty buffer writing to {@code destination}.
+     * The buffer has to be {@link #release released} after use.
+     */
+    static LineGraphBuffer open(final OutputStream destination) {
+        LineGraphBuffer buffer = BUFFERS.get();
+        if (buffer.destination != null) {
+            // The buffer of this thread is already in use by an enclosing export.
+            buffer = new LineGraphBuffer();
+        }
+
+        buffer.destination = destination;
+        buffer.size = 0;
+        return buffer;
+    }
+
+    /**
+     * Returns an empty string builder which can be used to build a label without allocating a new one.
+     * The returned builder is reused by subsequent invocations.
+     */
+    StringBuilder label() {
+        label.setLength(0);
+        return label;
+    }
+
+    /**
+     * Appends a tree header line terminated by {@link StringUtils#LINEBREAK}.
+     */
+    void header(final String header) {
+        append(header);
+        append(linebreak);
+        flushIfFull();
+    }
+
+    /**
+     * Appends the blank lines terminating a tree.
+     */
+    void footer() {
+        append(linebreak);
+        append(linebreak);
+        flushIfFull();
+    }
+
+    /**
+     * Appends a node line, i.e., {@code v id label}.
+     */
+    void node(final int id, final CharSequence label) {
+        append((byte) 'v');
+        append((byte) ' ');
+        append(id);
+        append((byte) ' ');
+        append(label);
+        append(lineSeparator);
+        flushIfFull();
+    }
+
+    /**
+     * Appends an edge line, i.e., {@code e fromId toId typelabel}.
+     */
+    void edge(final int fromId, final int toId, final String type, final CharSequence label) {
+        append((byte) 'e');
+        append((byte) ' ');
+        append(fromId);
+        append((byte) ' ');
+        append(toId);
+        append((byte) ' ');
+        append(type);
+        append(label);
+        append(lineSeparator);
+        flushIfFull();
+    }
+
+    /**
+     * Writes all buffered bytes to the destination.
+     * The destination itself is not flushed.
+     */
+    void flush() throws IOException {
+        destination.write(bytes, 0, size);
+        size = 0;
+    }
+
+    /**
+     * Discards all buffered bytes and detaches this buffer from its destination such that it can be reused.
+     */
+    void release() {
+        destination = null;
+        size = 0;
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[FLUSH_THRESHOLD];
+        }
+        if (label.capacity() > MAX_RETAINED_CAPACITY) {
+            label.setLength(0);
+            label.trimToSize();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes when the buffer is large.
+     * This method is used from within callbacks which can't throw checked exceptions,
+     * so I/O errors are thrown as {@link UncheckedIOException}.
+     */
+    private void flushIfFull() {
+        if (size >= FLUSH_THRESHOLD) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void ensureCapacity(final int additionalBytes) {
+        if (size + additionalBytes > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + additionalBytes, 2 * bytes.length));
+        }
+    }
+
+    private void append(final byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    private void append(final byte[] b) {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+    }
+
+    /**
+     * Appends the decimal representation of {@code i} as {@link Integer#toString(int)} does.
+     */
+    private void append(int i) {
+        if (i == Integer.MIN_VALUE) {
+            append(Integer.toString(i));
+            return;
+        }
+
+        ensureCapacity(11);
+        if (i < 0) {
+            bytes[size++] = '-';
+            i = -i;
+        }
+
+        int digits = 1;
+        for (int rest = i / 10; rest != 0; rest /= 10) {
+            ++digits;
+        }
+
+        size += digits;
+        for (int pos = size - 1; pos >= size - digits; --pos) {
+            bytes[pos] = (byte) ('0' + i % 10);
+            i /= 10;
+        }
+    }
+
+    private void append(final CharSequence s) {
+        final int length = s.length();
+        ensureCapacity(length);
+
+        for (int i = 0; i < length; ++i) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                // Default charsets are ASCII compatible.
+                bytes[size++] = (byte) c;
+            } else if (isUTF8) {
+                i = appendUTF8(s, i);
+                ensureCapacity(length - i);
+            } else {
+                appendEncoded(s, i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends the non-ASCII character at index {@code i} of {@code s} in UTF-8.
+     * Unpaired surrogates are replaced by {@code ?} as by {@link String#getBytes(Charset)}.
+     * @return the index of the last character that was appended
+     */
+    private int appendUTF8(final CharSequence s, int i) {
+        ensureCapacity(4);
+
+        final char c = s.charAt(i);
+        if (c < 0x800) {
+            bytes[size++] = (byte) (0xC0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+            bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+            bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            bytes[size++] = '?';
+        } else {
+            bytes[size++] = (byte) (0xE0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+
+        return i;
+    }
+
+    /**
+     * Appends the characters of {@code s} starting at index {@code begin} in the default charset.
+     */
+    private void appendEncoded(final CharSequence s, final int begin) {
+        final ByteBuffer encoded = charset.encode(CharBuffer.wrap(s, begin, s.length()));
+        ensureCapacity(encoded.remaining());
+        final int length = encoded.remaining();
+        encoded.get(bytes, size, length);
+        size += length;
+    }
+}
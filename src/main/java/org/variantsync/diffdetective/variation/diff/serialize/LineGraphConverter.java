@@ -0,0 +1,185 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.util.FileUtils;
+import org.variantsync.diffdetective.util.IO;
+import org.variantsync.diffdetective.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts line graphs between the {@link LineGraphEncoding#TEXT text} and the
+ * {@link LineGraphEncoding#BINARY binary encoding}.
+ * The conversion works on the lines of line graphs, so it does not depend on any node or edge format.
+ * Converting a line graph written by {@link LineGraphExport} to binary and back yields the original text.
+ *
+ * @see BinaryLineGraphWriter
+ */
+public final class LineGraphConverter {
+    private LineGraphConverter() {}
+
+    /**
+     * Converts the line graph file given as first argument into the other encoding.
+     * The result is written to the file given as second argument. If there is no second argument,
+     * the result is written next to the input file with the file extension of the other encoding.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            throw new IllegalArgumentException("Expected path to a line graph file (.lg or .lgb) as first argument and optionally the path to the converted file as second argument but got " + args.length + " arguments!");
+        }
+
+        final Path input = Path.of(args[0]);
+        final Path output;
+        if (args.length == 2) {
+            output = Path.of(args[1]);
+        } else {
+            final String fileName = input.getFileName().toString();
+            final String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+            output = input.resolveSibling(baseName + (FileUtils.isBinaryLineGraph(input) ? ".lg" : ".lgb"));
+        }
+
+        convert(input, output);
+        Logger.info("Converted {} to {}", input, output);
+    }
+
+    /**
+     * Converts the given line graph file into the other encoding.
+     * The encoding of {@code input} is determined by its file extension.
+     *
+     * @param input a text ({@code .lg}) or binary ({@code .lgb}) line graph file
+     * @param output the file to write the converted line graph to
+     * @throws IllegalArgumentException if {@code input} has no line graph file extension
+     */
+    public static void convert(final Path input, final Path output) throws IOException {
+        IO.createParentDirectories(output);
+
+        if (FileUtils.isLineGraph(input)) {
+            try (
+                    BufferedReader text = Files.newBufferedReader(input);
+                    BinaryLineGraphWriter binary = new BinaryLineGraphWriter(IO.newBufferedOutputStream(output))
+            ) {
+                textToBinary(text, binary);
+            }
+        } else if (FileUtils.isBinaryLineGraph(input)) {
+            try (
+                    BinaryLineGraphReader binary = new BinaryLineGraphReader(new BufferedInputStream(Files.newInputStream(input)));
+                    BufferedWriter text = Files.newBufferedWriter(output)
+            ) {
+                binaryToText(binary, text);
+            }
+        } else {
+            throw new IllegalArgumentException("Expected a line graph file (.lg or .lgb) but got \"" + input + "\"!");
+        }
+    }
+
+    /**
+     * Writes all trees of the given text line graph to the given binary line graph.
+     * Neither {@code text} nor {@code binary} is closed.
+     *
+     * @throws IllegalArgumentException if {@code text} is not a valid line graph.
+     */
+    public static void textToBinary(final BufferedReader text, final BinaryLineGraphWriter binary) throws IOException {
+        boolean inTree = false;
+
+        String ln;
+        while ((ln = text.readLine()) != null) {
+            if (ln.startsWith(LineGraphConstants.LG_TREE_HEADER)) {
+                if (inTree) {
+                    binary.endTree();
+                }
+                binary.beginTree(ln);
+                inTree = true;
+            } else if (ln.startsWith(LineGraphConstants.LG_NODE) || ln.startsWith(LineGraphConstants.LG_EDGE)) {
+                if (!inTree) {
+                    throw new IllegalArgumentException("Line graph syntax error. Expected \"" + LineGraphConstants.LG_TREE_HEADER + "\" before \"" + ln + "\".");
+                }
+
+                // v id label
+                // e fromId toId label
+                final int firstId = ln.indexOf(' ') + 1;
+                final int firstIdEnd = indexOfSpace(ln, firstId);
+                if (ln.startsWith(LineGraphConstants.LG_NODE)) {
+                    binary.node(parseId(ln, firstId, firstIdEnd), ln.substring(firstIdEnd + 1));
+                } else {
+                    final int secondIdEnd = indexOfSpace(ln, firstIdEnd + 1);
+                    binary.edge(
+                            parseId(ln, firstId, firstIdEnd),
+                            parseId(ln, firstIdEnd + 1, secondIdEnd),
+                            ln.substring(secondIdEnd + 1)
+                    );
+                }
+            } else if (!ln.isBlank()) {
+                throw new IllegalArgumentException(String.format(
+                        "Line graph syntax error. Expects: \"%s\" (VariationDiff), \"%s\" (DiffNode), \"%s\" (edge) or a blank space (delimiter). Faulty input: \"%s\".",
+                        LineGraphConstants.LG_TREE_HEADER,
+                        LineGraphConstants.LG_NODE,
+                        LineGraphConstants.LG_EDGE,
+                        ln));
+            }
+        }
+
+        if (inTree) {
+            binary.endTree();
+        }
+    }
+
+    /**
+     * Writes all trees of the given binary line graph to the given text line graph.
+     * The text is laid out as by {@link LineGraphExport}.
+     * Neither {@code binary} nor {@code text} is closed.
+     */
+    public static void binaryToText(final BinaryLineGraphReader binary, final Writer text) throws IOException {
+        // LineGraphExporter writes nodes and edges with println.
+        final String lineSeparator = System.lineSeparator();
+
+        while (binary.next()) {
+            text.write(binary.getHeader());
+            text.write(StringUtils.LINEBREAK);
+
+            for (int i = 0; i < binary.getNumberOfNodes(); ++i) {
+                text.write(LineGraphConstants.LG_NODE);
+                text.write(' ');
+                text.write(Integer.toString(binary.getNodeId(i)));
+                text.write(' ');
+                text.write(binary.getNodeLabel(i));
+                text.write(lineSeparator);
+            }
+
+            for (int i = 0; i < binary.getNumberOfEdges(); ++i) {
+                text.write(LineGraphConstants.LG_EDGE);
+                text.write(' ');
+                text.write(Integer.toString(binary.getEdgeFromId(i)));
+                text.write(' ');
+                text.write(Integer.toString(binary.getEdgeToId(i)));
+                text.write(' ');
+                text.write(binary.getEdgeLabel(i));
+                text.write(lineSeparator);
+            }
+
+            text.write(StringUtils.LINEBREAK);
+            text.write(StringUtils.LINEBREAK);
+        }
+    }
+
+    private static int indexOfSpace(final String line, final int from) {
+        final int i = line.indexOf(' ', from);
+        if (i < 0) {
+            throw new IllegalArgumentException("Line graph syntax error. Missing label in \"" + line + "\".");
+        }
+        return i;
+    }
+
+    private static int parseId(final String line, final int begin, final int end) {
+        try {
+            return Integer.parseInt(line, begin, end, 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Given node id is not an integer: ‘" + line.substring(begin, end) + "’ in \"" + line + "\".", e);
+        }
+    }
+}
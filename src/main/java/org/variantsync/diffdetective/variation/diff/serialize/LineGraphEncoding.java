@@ -0,0 +1,18 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+/**
+ * Refers to how line graphs are encoded in files.
+ * Both encodings store the same lines and can be converted into each other with {@link LineGraphConverter}.
+ */
+public enum LineGraphEncoding {
+    /**
+     * Default value. Human readable line graph text with one line per tree header, node and edge
+     * (usually stored in {@code .lg} files).
+     */
+    TEXT,
+    /**
+     * Compact binary line graphs as written by {@link BinaryLineGraphWriter}
+     * (usually stored in {@code .lgb} files).
+     */
+    BINARY
+}
@@ -10,7 +10,6 @@ import org.variantsync.diffdetective.analysis.MetadataKeys;
 import org.variantsync.diffdetective.diff.git.CommitDiff;
 import org.variantsync.diffdetective.diff.git.PatchDiff;
 import org.variantsync.diffdetective.metadata.Metadata;
-import org.variantsync.diffdetective.util.StringUtils;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.Time;
@@ -70,7 +69,8 @@ public final class LineGraphExport {
     }
 
     /**
-     * Exports the given VariationDiff to a linegraph String. No file will be written.
+     * Exports the nodes and edges of the given VariationDiff to a linegraph String. No file will be written.
+     * No header is written, so the {@link LineGraphEncoding#TEXT text encoding} is used regardless of {@link LineGraphExportOptions#encoding()}.
      * @param variationDiff The variation diff to export to linegraph format.
      * @param options Configuration options for the export, such as the format used for node and edge labels.
      * @return A pair holding some debug information and the produced linegraph as a string.
@@ -91,9 +91,7 @@ public final class LineGraphExport {
         final var result = new Statistic();
 
         for (final VariationDiff<? extends L> t : trees) {
-            destination.write(lineGraphHeader(t.getSource(), options).getBytes());
-            result.debugData.append(toLineGraphFormat(t, options, destination));
-            destination.write(lineGraphFooter().getBytes());
+            result.debugData.append(toLineGraphFormat(t.getSource(), t, options, destination));
             ++result.exportedTrees;
         }
 
@@ -140,9 +138,7 @@ public final class LineGraphExport {
             //Logger.info("  Exporting VariationDiff #{}", treeCounter);
 
             //Logger.info("  Exporting VariationDiff #{}", treeCounter);
-            destination.write(lineGraphHeader(patch, options).getBytes());
-            result.debugData.append(toLineGraphFormat(patch.getVariationDiff(), options, destination));
-            destination.write(lineGraphFooter().getBytes());
+            result.debugData.append(toLineGraphFormat(patch, patch.getVariationDiff(), options, destination));
 
             ++result.exportedTrees;
         } else {
@@ -153,17 +149,31 @@ public final class LineGraphExport {
     }
 
     /**
-     * Produces the final linegraph file content.
-     * Creates a linegraph header from the given VariationDiffSource using the {@link LineGraphExportOptions#treeFormat()} in the given options.
-     * Then appends the already created file content for nodes and edges.
-     * @param source The {@link VariationDiffSource} that describes where the VariationDiff whose content is written to the file originated from.
-     * @param options {@link LineGraphExportOptions} used to determine the treeFormat for the header.
+     * Writes the given VariationDiff as a tree with a header describing the given source in the
+     * {@link LineGraphExportOptions#encoding() encoding} of the given options.
+     * @param source The {@link VariationDiffSource} that describes where the VariationDiff originated from.
+     * @param variationDiff The variation diff to export to linegraph format.
+     * @param options Configuration options for the export, such as the format used for node and edge labels.
+     * @param destination where the resulting line graph is written
+     * @return Debug information about the exported nodes.
      */
-    private static String lineGraphHeader(final VariationDiffSource source, final LineGraphExportOptions<?> options) {
-        return options.treeFormat().toLineGraphLine(source) + StringUtils.LINEBREAK;
-    }
+    private static <L extends Label> VariationDiffSerializeDebugData toLineGraphFormat(final VariationDiffSource source, final VariationDiff<? extends L> variationDiff, final LineGraphExportOptions<? super L> options, OutputStream destination) throws IOException {
+        if (options.encoding() == LineGraphEncoding.BINARY) {
+            final var exporter = new BinaryLineGraphExporter<L>(options);
+            exporter.exportVariationDiff(source, variationDiff, new BinaryLineGraphWriter(destination));
+            return exporter.getDebugData();
+        }
 
-    private static String lineGraphFooter() {
-        return StringUtils.LINEBREAK + StringUtils.LINEBREAK;
+        final var exporter = new LineGraphExporter<L>(options);
+        final LineGraphBuffer output = LineGraphBuffer.open(destination);
+        try {
+            output.header(options.treeFormat().toLineGraphLine(source));
+            exporter.exportVariationDiff(variationDiff, output);
+            output.footer();
+            output.flush();
+        } finally {
+            output.release();
+        }
+        return exporter.getDebugData();
     }
 }
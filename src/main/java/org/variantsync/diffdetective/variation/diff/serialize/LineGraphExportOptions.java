@@ -21,6 +21,7 @@ import java.util.function.BiConsumer;
  * @param nodeFormat {@link DiffNodeLabelFormat}
  * @param edgeFormat {@link EdgeLabelFormat}
  * @param onError Callback that is invoked when an error occurs.
+ * @param encoding {@link LineGraphEncoding}
  * @author Paul Bittner
  */
 public record LineGraphExportOptions<L extends Label>(
@@ -28,7 +29,15 @@ public record LineGraphExportOptions<L extends Label>(
         VariationDiffLabelFormat treeFormat,
         DiffNodeLabelFormat<? super L> nodeFormat,
         EdgeLabelFormat<? super L> edgeFormat,
-        BiConsumer<PatchDiff, Exception> onError) {
+        BiConsumer<PatchDiff, Exception> onError,
+        LineGraphEncoding encoding) {
+
+    /**
+     * Creates export options that write {@link LineGraphEncoding#TEXT text} line graphs.
+     */
+    public LineGraphExportOptions(GraphFormat graphFormat, VariationDiffLabelFormat treeFormat, DiffNodeLabelFormat<? super L> nodeFormat, EdgeLabelFormat<? super L> edgeFormat, BiConsumer<PatchDiff, Exception> onError) {
+        this(graphFormat, treeFormat, nodeFormat, edgeFormat, onError, LineGraphEncoding.TEXT);
+    }
 
     /**
      * Creates a export options with a neutral filter (that accepts all trees), no transformers, and that logs errors.
@@ -39,8 +48,7 @@ public record LineGraphExportOptions<L extends Label>(
 
     /**
      * Create export options from the given import options.
-     * Invokes {@link LineGraphExportOptions#LineGraphExportOptions(GraphFormat, VariationDiffLabelFormat, DiffNodeLabelFormat, EdgeLabelFormat)}
-     * with all formats from the given import options.
+     * Uses all formats and the encoding from the given import options and logs errors.
      * @param importOptions The import options to convert to export options.
      */
     public LineGraphExportOptions(final LineGraphImportOptions<? super L> importOptions) {
@@ -48,10 +56,19 @@ public record LineGraphExportOptions<L extends Label>(
                 importOptions.graphFormat(),
                 importOptions.treeFormat(),
                 importOptions.nodeFormat(),
-                importOptions.edgeFormat()
+                importOptions.edgeFormat(),
+                LogError(),
+                importOptions.encoding()
         );
     }
 
+    /**
+     * Returns a copy of these options that writes line graphs in the given encoding.
+     */
+    public LineGraphExportOptions<L> withEncoding(final LineGraphEncoding encoding) {
+        return new LineGraphExportOptions<>(graphFormat, treeFormat, nodeFormat, edgeFormat, onError, encoding);
+    }
+
     /**
      * Default value for {@link #onError} that logs errors.
      */
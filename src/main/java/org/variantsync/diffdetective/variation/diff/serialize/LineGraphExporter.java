@@ -1,11 +1,13 @@
 package org.variantsync.diffdetective.variation.diff.serialize;
 
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.UncheckedIOException;
 
 import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
-import org.variantsync.functjonal.Functjonal;
+import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.EdgeLabelFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.DiffNodeLabelFormat;
 
 /**
  * Exporter that converts a single VariationDiff's nodes and edges to linegraph.
@@ -30,24 +32,50 @@ public class LineGraphExporter<L extends Label> implements Exporter<L> {
      * @param destination where the result should be written
      */
     @Override
-    public <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, OutputStream destination) {
-        var output = new PrintStream(destination);
-        format.forEachNode(variationDiff, (node) -> {
-            switch (node.diffType) {
-                case ADD -> ++debugData.numExportedAddNodes;
-                case REM -> ++debugData.numExportedRemNodes;
-                case NON -> ++debugData.numExportedNonNodes;
-            }
-
-            output.println(LineGraphConstants.LG_NODE + " " + node.getID() + " " + format.getNodeFormat().toLabel(node));
-        });
-
-        format.forEachEdge(variationDiff, edge -> {
-            output.print(Functjonal.unwords(LineGraphConstants.LG_EDGE, edge.from().getID(), edge.to().getID(), ""));
-            output.print(edge.style().lineGraphType());
-            output.print(format.getEdgeFormat().labelOf(edge));
-            output.println();
-        });
+    public <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, OutputStream destination) throws IOException {
+        final LineGraphBuffer output = LineGraphBuffer.open(destination);
+        try {
+            exportVariationDiff(variationDiff, output);
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Appends the lines of the nodes and edges of {@code variationDiff} to {@code output}.
+     * Labels are built in a single reused {@link StringBuilder} (see {@link DiffNodeLabelFormat#appendLabel}
+     * and {@link EdgeLabelFormat#appendLabel}) and encoded directly into the buffer of {@code output}.
+     *
+     * @param variationDiff to be exported
+     * @param output where the result should be written
+     * @throws IOException if {@code output} could not be written to its destination
+     */
+    <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, LineGraphBuffer output) throws IOException {
+        final DiffNodeLabelFormat<? super L> nodeFormat = format.getNodeFormat();
+        final EdgeLabelFormat<? super L> edgeFormat = format.getEdgeFormat();
+
+        try {
+            format.forEachNode(variationDiff, (node) -> {
+                switch (node.diffType) {
+                    case ADD -> ++debugData.numExportedAddNodes;
+                    case REM -> ++debugData.numExportedRemNodes;
+                    case NON -> ++debugData.numExportedNonNodes;
+                }
+
+                final StringBuilder label = output.label();
+                nodeFormat.appendLabel(node, label);
+                output.node(node.getID(), label);
+            });
+
+            format.forEachEdge(variationDiff, edge -> {
+                final StringBuilder label = output.label();
+                edgeFormat.appendLabel(edge, label);
+                output.edge(edge.from().getID(), edge.to().getID(), edge.style().lineGraphType(), label);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -11,13 +11,24 @@ import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.NodeType;
 import org.variantsync.functjonal.Pair;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -32,16 +43,92 @@ public class LineGraphImport {
      * @param path Path to a linegraph file in which only VariationDiffs are stored.
      * @param options Options for the import, such as hints for the used formats for node and edge labels.
      * @return All {@link VariationDiff VariationDiffs} contained in the linegraph file.
-     * @throws IOException when {@link LineGraphImport#fromLineGraph(BufferedReader, Path, LineGraphImportOptions)} throws.
+     * @throws IOException when {@link LineGraphImport#fromLineGraph(BufferedReader, Path, LineGraphImportOptions)}
+     *                     or {@link LineGraphImport#fromBinaryLineGraph(InputStream, Path, LineGraphImportOptions)} throws.
      */
     public static List<VariationDiff<DiffLinesLabel>> fromFile(final Path path, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
         Assert.assertTrue(Files.isRegularFile(path));
+        if (options.encoding() == LineGraphEncoding.BINARY) {
+            Assert.assertTrue(FileUtils.isBinaryLineGraph(path));
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+                return fromBinaryLineGraph(input, path, options);
+            }
+        }
+
         Assert.assertTrue(FileUtils.isLineGraph(path));
         try (BufferedReader input = Files.newBufferedReader(path)) {
             return fromLineGraph(input, path, options);
         }
     }
 
+    /**
+     * Lazily imports the VariationDiffs from the given linegraph file.
+     * VariationDiffs are parsed one at a time when the stream is consumed, so only a single
+     * VariationDiff has to be in memory at once.
+     * The returned stream has to be closed to close the file.
+     * I/O errors while consuming the stream are thrown as {@link UncheckedIOException}.
+     *
+     * @param path Path to a linegraph file in which only VariationDiffs are stored.
+     * @param options Options for the import, such as hints for the used formats for node and edge labels.
+     * @return A stream of all {@link VariationDiff VariationDiffs} contained in the linegraph file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> streamFile(final Path path, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
+        Assert.assertTrue(Files.isRegularFile(path));
+
+        final Closeable input;
+        final Iterator<VariationDiff<DiffLinesLabel>> variationDiffs;
+        if (options.encoding() == LineGraphEncoding.BINARY) {
+            Assert.assertTrue(FileUtils.isBinaryLineGraph(path));
+            final InputStream binaryInput = new BufferedInputStream(Files.newInputStream(path));
+            input = binaryInput;
+            variationDiffs = iterateBinaryLineGraph(binaryInput, path, options);
+        } else {
+            Assert.assertTrue(FileUtils.isLineGraph(path));
+            final BufferedReader textInput = Files.newBufferedReader(path);
+            input = textInput;
+            variationDiffs = iterateLineGraph(textInput, path, options);
+        }
+
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(variationDiffs, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Lazily imports the VariationDiffs from all given linegraph files.
+     * The files are imported in parallel, each file by a single thread with
+     * {@link LineGraphImport#streamFile(Path, LineGraphImportOptions)}.
+     * Hence, memory is bounded by one VariationDiff per thread, unless the consumer of the stream
+     * collects the VariationDiffs.
+     * Each file is closed as soon as all of its VariationDiffs were consumed.
+     * I/O errors are thrown as {@link UncheckedIOException}.
+     *
+     * @param files Paths to linegraph files in which only VariationDiffs are stored.
+     * @param options Options for the import, such as hints for the used formats for node and edge labels.
+     * @return A parallel stream of all {@link VariationDiff VariationDiffs} contained in the linegraph files.
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> streamFiles(final Collection<Path> files, final LineGraphImportOptions<DiffLinesLabel> options) {
+        return files
+                .parallelStream()
+                .flatMap(file -> {
+                    try {
+                        return streamFile(file, options);
+                    } catch (IOException e) {
+                        // Checked exceptions can't be propagated because {@code flatMap}
+                        // needs a {@code Function} which does not throw any checked
+                        // exceptions.
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
     /**
      * Import all VariationDiffs from the given linegraph file.
      *
@@ -51,66 +138,196 @@ public class LineGraphImport {
      * @return All {@link VariationDiff VariationDiffs} contained in the linegraph text.
      */
     public static List<VariationDiff<DiffLinesLabel>> fromLineGraph(final BufferedReader lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
+        return collect(iterateLineGraph(lineGraph, originalFile, options));
+    }
+
+    /**
+     * Import all VariationDiffs from the given binary linegraph file.
+     * Trees are decoded one after another with a {@link BinaryLineGraphReader}.
+     *
+     * @param lineGraph Stream that reads the binary linegraph file.
+     * @param originalFile Path to the file from which the lineGraph stream is reading.
+     * @param options Options for the import, such as hints for the used formats for node and edge labels.
+     * @return All {@link VariationDiff VariationDiffs} contained in the binary linegraph.
+     */
+    public static List<VariationDiff<DiffLinesLabel>> fromBinaryLineGraph(final InputStream lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
+        return collect(iterateBinaryLineGraph(lineGraph, originalFile, options));
+    }
+
+    private static List<VariationDiff<DiffLinesLabel>> collect(final Iterator<VariationDiff<DiffLinesLabel>> variationDiffs) throws IOException {
         // All VariationDiffs read from the line graph
-        List<VariationDiff<DiffLinesLabel>> variationDiffList = new ArrayList<>();
+        final List<VariationDiff<DiffLinesLabel>> variationDiffList = new ArrayList<>();
+        try {
+            variationDiffs.forEachRemaining(variationDiffList::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return variationDiffList;
+    }
+
+    /**
+     * Lazily imports the VariationDiffs from the given linegraph file.
+     * Each VariationDiff is parsed when it is requested from the returned iterator.
+     * The iterator throws {@link UncheckedIOException} if {@code lineGraph} throws.
+     *
+     * @param lineGraph Reader that reads the linegraph file. It is not closed by the iterator.
+     * @param originalFile Path to the file from which the lineGraph reader is reading.
+     * @param options Options for the import, such as hints for the used formats for node and edge labels.
+     * @return An iterator over all {@link VariationDiff VariationDiffs} contained in the linegraph text.
+     */
+    public static Iterator<VariationDiff<DiffLinesLabel>> iterateLineGraph(final BufferedReader lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) {
+        return new VariationDiffIterator() {
+            // All DiffNodes of one VariationDiff for determining the root node
+            private final List<DiffNode<DiffLinesLabel>> diffNodeList = new ArrayList<>();
+
+            // A hash map of DiffNodes
+            // <id of DiffNode, DiffNode>
+            private final HashMap<Integer, DiffNode<DiffLinesLabel>> diffNodes = new HashMap<>();
+
+            // The previously read VariationDiff
+            private String previousVariationDiffLine = "";
+
+            @Override
+            protected VariationDiff<DiffLinesLabel> readNext() throws IOException {
+                // Read the line graph until the next VariationDiff is complete
+                String ln;
+                while ((ln = lineGraph.readLine()) != null) {
+                    if (ln.startsWith(LineGraphConstants.LG_TREE_HEADER)) {
+                        // the line represents a VariationDiff
+
+                        VariationDiff<DiffLinesLabel> curVariationDiff = null;
+                        if (!diffNodeList.isEmpty()) {
+                            curVariationDiff = parseVariationDiff(previousVariationDiffLine, originalFile, diffNodeList, options); // parse to VariationDiff
 
-        // All DiffNodes of one VariationDiff for determining the root node
-        List<DiffNode<DiffLinesLabel>> diffNodeList = new ArrayList<>();
+                            // Remove all DiffNodes from list
+                            diffNodeList.clear();
+                            diffNodes.clear();
+                        }
+                        previousVariationDiffLine = ln;
 
-        // A hash map of DiffNodes
-        // <id of DiffNode, DiffNode>
-        HashMap<Integer, DiffNode<DiffLinesLabel>> diffNodes = new HashMap<>();
+                        if (curVariationDiff != null) {
+                            return curVariationDiff;
+                        }
+                    } else if (ln.startsWith(LineGraphConstants.LG_NODE)) {
+                        // the line represents a DiffNode
 
-        // The previously read VariationDiff
-        String previousVariationDiffLine = "";
+                        // parse node from input line
+                        final Pair<Integer, DiffNode<DiffLinesLabel>> idAndNode = options.nodeFormat().fromLineGraphLine(ln);
 
-        // Read the entire line graph
-        String ln;
-        while ((ln = lineGraph.readLine()) != null) {
-            if (ln.startsWith(LineGraphConstants.LG_TREE_HEADER)) {
-                // the line represents a VariationDiff
+                        // add DiffNode to lists of current VariationDiff
+                        diffNodeList.add(idAndNode.second());
+                        diffNodes.put(idAndNode.first(), idAndNode.second());
+
+                    } else if (ln.startsWith(LineGraphConstants.LG_EDGE)) {
+                        // the line represent a connection with two DiffNodes
+                        options.edgeFormat().connect(ln, diffNodes);
+                    } else if (!ln.isBlank()) {
+                        // ignore blank lines and throw an exception otherwise
+                        String errorMessage = String.format(
+                                "Line graph syntax error. Expects: \"%s\" (VariationDiff), \"%s\" (DiffNode), \"%s\" (edge) or a blank space (delimiter). Faulty input: \"%s\".",
+                                LineGraphConstants.LG_TREE_HEADER,
+                                LineGraphConstants.LG_NODE,
+                                LineGraphConstants.LG_EDGE,
+                                ln);
+                        throw new IllegalArgumentException(errorMessage);
+                    }
+                }
 
                 if (!diffNodeList.isEmpty()) {
                     VariationDiff<DiffLinesLabel> curVariationDiff = parseVariationDiff(previousVariationDiffLine, originalFile, diffNodeList, options); // parse to VariationDiff
-                    variationDiffList.add(curVariationDiff); // add newly computed VariationDiff to the list of all VariationDiffs
+                    diffNodeList.clear();
+                    diffNodes.clear();
+                    return curVariationDiff;
+                }
+
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Lazily imports the VariationDiffs from the given binary linegraph file.
+     * Each VariationDiff is decoded when it is requested from the returned iterator.
+     * The iterator throws {@link UncheckedIOException} if {@code lineGraph} throws.
+     *
+     * @param lineGraph Stream that reads the binary linegraph file. It is not closed by the iterator.
+     * @param originalFile Path to the file from which the lineGraph stream is reading.
+     * @param options Options for the import, such as hints for the used formats for node and edge labels.
+     * @return An iterator over all {@link VariationDiff VariationDiffs} contained in the binary linegraph.
+     */
+    public static Iterator<VariationDiff<DiffLinesLabel>> iterateBinaryLineGraph(final InputStream lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) {
+        final BinaryLineGraphReader reader = new BinaryLineGraphReader(lineGraph);
+
+        return new VariationDiffIterator() {
+            private final List<DiffNode<DiffLinesLabel>> diffNodeList = new ArrayList<>();
+            private final HashMap<Integer, DiffNode<DiffLinesLabel>> diffNodes = new HashMap<>();
 
-                    // Remove all DiffNodes from list
+            @Override
+            protected VariationDiff<DiffLinesLabel> readNext() throws IOException {
+                while (reader.next()) {
+                    // Trees without nodes are skipped as in text line graphs.
+                    if (reader.getNumberOfNodes() == 0) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < reader.getNumberOfNodes(); ++i) {
+                        final int id = reader.getNodeId(i);
+                        final DiffNode<DiffLinesLabel> node = options.nodeFormat().fromLabelAndId(reader.getNodeLabel(i), id);
+                        diffNodeList.add(node);
+                        diffNodes.put(id, node);
+                    }
+
+                    for (int i = 0; i < reader.getNumberOfEdges(); ++i) {
+                        options.edgeFormat().connect(reader.getEdgeFromId(i), reader.getEdgeToId(i), reader.getEdgeLabel(i), diffNodes);
+                    }
+
+                    final VariationDiff<DiffLinesLabel> curVariationDiff = parseVariationDiff(reader.getHeader(), originalFile, diffNodeList, options);
                     diffNodeList.clear();
                     diffNodes.clear();
+                    return curVariationDiff;
                 }
-                previousVariationDiffLine = ln;
-            } else if (ln.startsWith(LineGraphConstants.LG_NODE)) {
-                // the line represents a DiffNode
-
-                // parse node from input line
-                final Pair<Integer, DiffNode<DiffLinesLabel>> idAndNode = options.nodeFormat().fromLineGraphLine(ln);
-
-                // add DiffNode to lists of current VariationDiff
-                diffNodeList.add(idAndNode.second());
-                diffNodes.put(idAndNode.first(), idAndNode.second());
-
-            } else if (ln.startsWith(LineGraphConstants.LG_EDGE)) {
-                // the line represent a connection with two DiffNodes
-                options.edgeFormat().connect(ln, diffNodes);
-            } else if (!ln.isBlank()) {
-                // ignore blank lines and throw an exception otherwise
-                String errorMessage = String.format(
-                        "Line graph syntax error. Expects: \"%s\" (VariationDiff), \"%s\" (DiffNode), \"%s\" (edge) or a blank space (delimiter). Faulty input: \"%s\".",
-                        LineGraphConstants.LG_TREE_HEADER,
-                        LineGraphConstants.LG_NODE,
-                        LineGraphConstants.LG_EDGE,
-                        ln);
-                throw new IllegalArgumentException(errorMessage);
+
+                return null;
             }
-        }
+        };
+    }
 
-        if (!diffNodeList.isEmpty()) {
-            VariationDiff<DiffLinesLabel> curVariationDiff = parseVariationDiff(previousVariationDiffLine, originalFile, diffNodeList, options); // parse to VariationDiff
-            variationDiffList.add(curVariationDiff); // add newly computed VariationDiff to the list of all VariationDiffs
+    /**
+     * Iterator that reads each VariationDiff when it is requested.
+     */
+    private static abstract class VariationDiffIterator implements Iterator<VariationDiff<DiffLinesLabel>> {
+        private VariationDiff<DiffLinesLabel> next = null;
+        private boolean finished = false;
+
+        /**
+         * Reads the next VariationDiff.
+         * @return the next VariationDiff or {@code null} if there are no more VariationDiffs.
+         */
+        protected abstract VariationDiff<DiffLinesLabel> readNext() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                finished = next == null;
+            }
+            return next != null;
         }
 
-        // return all computed VariationDiffs.
-        return variationDiffList;
+        @Override
+        public VariationDiff<DiffLinesLabel> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final VariationDiff<DiffLinesLabel> result = next;
+            next = null;
+            return result;
+        }
     }
 
     /**
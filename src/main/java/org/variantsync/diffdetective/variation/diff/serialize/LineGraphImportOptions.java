@@ -13,9 +13,26 @@ import org.variantsync.diffdetective.variation.diff.serialize.treeformat.Variati
  * @param treeFormat {@link VariationDiffLabelFormat}
  * @param nodeFormat {@link DiffNodeLabelFormat}
  * @param edgeFormat {@link EdgeLabelFormat}
+ * @param encoding {@link LineGraphEncoding}
  */
 public record LineGraphImportOptions<L extends Label>(
         GraphFormat graphFormat,
         VariationDiffLabelFormat treeFormat,
         DiffNodeLabelFormat<? super L> nodeFormat,
-        EdgeLabelFormat<? super L> edgeFormat) { }
+        EdgeLabelFormat<? super L> edgeFormat,
+        LineGraphEncoding encoding) {
+
+    /**
+     * Creates import options that read {@link LineGraphEncoding#TEXT text} line graphs.
+     */
+    public LineGraphImportOptions(GraphFormat graphFormat, VariationDiffLabelFormat treeFormat, DiffNodeLabelFormat<? super L> nodeFormat, EdgeLabelFormat<? super L> edgeFormat) {
+        this(graphFormat, treeFormat, nodeFormat, edgeFormat, LineGraphEncoding.TEXT);
+    }
+
+    /**
+     * Returns a copy of these options that reads line graphs in the given encoding.
+     */
+    public LineGraphImportOptions<L> withEncoding(final LineGraphEncoding encoding) {
+        return new LineGraphImportOptions<>(graphFormat, treeFormat, nodeFormat, edgeFormat, encoding);
+    }
+}
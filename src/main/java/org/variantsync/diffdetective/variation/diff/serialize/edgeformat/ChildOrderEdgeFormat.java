@@ -22,13 +22,20 @@ import org.variantsync.diffdetective.variation.diff.serialize.StyledEdge;
 public class ChildOrderEdgeFormat<L extends Label> extends EdgeLabelFormat<L> {
     @Override
     public <La extends L> String labelOf(StyledEdge<La> edge) {
-        int[] index = new int[2];
-        Time.forAll(time -> {
-            int i = edge.from().indexOfChild(edge.to(), time);
-            int j = edge.to().indexOfChild(edge.from(), time);
-            index[time.ordinal()] = i < 0 ? j : i;
-        });
+        return String.format(";%d,%d", childIndex(edge, BEFORE), childIndex(edge, AFTER));
+    }
+
+    @Override
+    public <La extends L> void appendLabel(StyledEdge<La> edge, StringBuilder label) {
+        label
+                .append(';')
+                .append(childIndex(edge, BEFORE))
+                .append(',')
+                .append(childIndex(edge, AFTER));
+    }
 
-        return String.format(";%d,%d", index[BEFORE.ordinal()], index[AFTER.ordinal()]);
+    private static <La extends Label> int childIndex(StyledEdge<La> edge, Time time) {
+        int i = edge.from().indexOfChild(edge.to(), time);
+        return i < 0 ? edge.to().indexOfChild(edge.from(), time) : i;
     }
 }
@@ -28,4 +28,8 @@ public class DefaultEdgeLabelFormat<L extends Label> extends EdgeLabelFormat<L>
     public <La extends L> String labelOf(StyledEdge<La> edge) {
         return "";
     }
+
+    @Override
+    public <La extends L> void appendLabel(StyledEdge<La> edge, StringBuilder label) {
+    }
 }
@@ -124,15 +124,33 @@ public abstract class EdgeLabelFormat<L extends Label> implements LinegraphForma
         if (!lineGraphLine.startsWith(LineGraphConstants.LG_EDGE)) throw new IllegalArgumentException("Failed to parse DiffNode: Expected \"v ...\" but got \"" + lineGraphLine + "\"!"); // check if encoded DiffNode
 
         String[] edge = lineGraphLine.split(" ");
-        String name = edge[3];
+        connect(Integer.parseInt(edge[1]), Integer.parseInt(edge[2]), edge[3], nodes);
+    }
+
+    /**
+     * Connects the two nodes referenced by an already parsed edge accordingly.
+     * This is equivalent to {@link #connect(String, Map)} on the line graph line
+     * {@code e fromId toId edgeLabel}.
+     * Assumes that both nodes being referenced exist in the given collection.
+     *
+     * @param fromId The id of the first node of the edge as written in a line graph.
+     * @param toId The id of the second node of the edge as written in a line graph.
+     * @param edgeLabel The label of the edge, starting with the type of the edge.
+     * @param nodes All nodes that have been parsed so far, indexed by their id.
+     * @throws IllegalArgumentException when a referenced node does not exist in the given map.
+     */
+    public <La extends L> void connect(final int fromId, final int toId, final String edgeLabel, final Map<Integer, DiffNode<La>> nodes) throws IllegalArgumentException {
+        // Only the first word of the label is considered, as in line graph lines.
+        final int nameEnd = edgeLabel.indexOf(' ');
+        final String name = nameEnd < 0 ? edgeLabel : edgeLabel.substring(0, nameEnd);
 
         // first is the id of the child DiffNode
         // second the id of the parent DiffNode
-        final Pair<String, String> fromAndToIds = edgeDirection.sort(edge[1], edge[2]);
+        final Pair<Integer, Integer> fromAndToIds = edgeDirection.sort(fromId, toId);
 
         // Both child and parent DiffNode should exist since all DiffNodes have been read in before. Otherwise, the line graph input is faulty
-        DiffNode<La> childNode = nodes.get(Integer.parseInt(fromAndToIds.first()));
-        DiffNode<La> parentNode = nodes.get(Integer.parseInt(fromAndToIds.second()));
+        DiffNode<La> childNode = nodes.get(fromAndToIds.first());
+        DiffNode<La> parentNode = nodes.get(fromAndToIds.second());
 
         if (childNode == null) {
             throw new IllegalArgumentException(fromAndToIds.first() + " does not exits. Faulty line graph.");
@@ -153,6 +171,18 @@ public abstract class EdgeLabelFormat<L extends Label> implements LinegraphForma
      */
     public abstract <La extends L> String labelOf(StyledEdge<La> edge);
 
+    /**
+     * Appends the {@link #labelOf label} of a {@link StyledEdge} to the given builder.
+     * Exporters use this method to avoid creating a new string for each label.
+     * Formats should override it if they can append their label without intermediate strings.
+     *
+     * @param edge The {@link StyledEdge} to be labeled
+     * @param label The builder to which the label of {@code edge} is appended
+     */
+    public <La extends L> void appendLabel(StyledEdge<La> edge, StringBuilder label) {
+        label.append(labelOf(edge));
+    }
+
     /**
      * Converts a {@link StyledEdge} into a multi line label suitable for exporting.
      * This should be human readable text. Use a single line for machine parseable metadata
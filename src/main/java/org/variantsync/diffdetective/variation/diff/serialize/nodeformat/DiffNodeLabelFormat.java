@@ -36,6 +36,18 @@ public interface DiffNodeLabelFormat<L extends Label> extends LinegraphFormat {
      */
     String toLabel(DiffNode<? extends L> node);
 
+    /**
+     * Appends the {@link #toLabel label} of a {@link DiffNode} to the given builder.
+     * Exporters use this method to avoid creating a new string for each label.
+     * Formats should override it if they can append their label without intermediate strings.
+     *
+     * @param node The {@link DiffNode} to be labeled
+     * @param label The builder to which the label of {@code node} is appended
+     */
+    default void appendLabel(DiffNode<? extends L> node, StringBuilder label) {
+        label.append(toLabel(node));
+    }
+
     /**
      * Converts a {@link DiffNode} into a multi line label suitable for exporting.
      * This should be human readable text. Use a single line for machine parseable metadata
@@ -11,4 +11,9 @@ public class LineNumberFormat<L extends Label> implements DiffNodeLabelFormat<L>
     public String toLabel(final DiffNode<? extends L> node) {
         return String.valueOf(node.getFromLine().inDiff());
     }
+
+    @Override
+    public void appendLabel(final DiffNode<? extends L> node, final StringBuilder label) {
+        label.append(node.getFromLine().inDiff());
+    }
 }
@@ -31,6 +31,15 @@ public class RenameRootNodeFormat<L extends Label> implements DiffNodeLabelForma
         }
     }
 
+    @Override
+    public void appendLabel(final DiffNode<? extends L> node, final StringBuilder label) {
+        if (node.isRoot()) {
+            label.append(rootLabel);
+        } else {
+            inner.appendLabel(node, label);
+        }
+    }
+
     @Override
     public List<String> toMultilineLabel(final DiffNode<? extends L> node) {
         if (node.isRoot()) {
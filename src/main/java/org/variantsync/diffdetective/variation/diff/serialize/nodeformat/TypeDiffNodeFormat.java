@@ -12,4 +12,9 @@ public class TypeDiffNodeFormat<L extends Label> implements DiffNodeLabelFormat<
     public String toLabel(final DiffNode<? extends L> node) {
         return node.diffType + "_" + node.getNodeType();
     }
+
+    @Override
+    public void appendLabel(final DiffNode<? extends L> node, final StringBuilder label) {
+        label.append(node.diffType).append('_').append(node.getNodeType());
+    }
 }
@@ -2,6 +2,7 @@ package org.variantsync.diffdetective.variation.diff.transform;
 
 import org.variantsync.diffdetective.diff.text.DiffLineNumber;
 import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.NodeType;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.DiffType;
@@ -51,7 +52,7 @@ public class NaiveMovedArtifactDetection<L extends Label> implements VariationDi
     }
 
     private static <L extends Label> List<Pair<DiffNode<L>, DiffNode<L>>> findArtifactTwins(final VariationDiff<L> variationDiff) {
-        final List<DiffNode<L>> artifactNodes = variationDiff.computeArtifactNodes();
+        final List<DiffNode<L>> artifactNodes = new ArrayList<>(variationDiff.getIndex().getNodesOfType(NodeType.ARTIFACT));
         final List<Pair<DiffNode<L>, DiffNode<L>>> twins = new ArrayList<>();
 
         while (!artifactNodes.isEmpty()) {
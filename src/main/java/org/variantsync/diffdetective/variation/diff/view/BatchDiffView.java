@@ -0,0 +1,273 @@
+package org.variantsync.diffdetective.variation.diff.view;
+
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.VariationDiffIndex;
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.RelevanceIndex;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Determines the view nodes of many relevance predicates on the same variation diff at once.
+ *
+ * <p>This is equivalent to calling {@link DiffView#computeWhenNodesAreRelevant(VariationDiff, Relevance)}
+ * for each relevance predicate but traverses each projection of the variation diff at most once for
+ * all predicates. The view nodes of each predicate are stored as bitsets indexed by the preorder
+ * ordinal of the nodes in the variation diff instead of as sets of {@link Projection}s.
+ * <ul>
+ *     <li>{@link Trace} and {@link Search} predicates do not need the traversal because they look up
+ *     their matching nodes in the {@link VariationDiffIndex#getRelevanceIndex relevance index} of
+ *     the variation diff,
+ *     <li>{@link Configure} predicates prune the traversal of their subtrees as in
+ *     {@link Configure#computeViewNodes} and
+ *     <li>all other predicates are tested on every node (as in
+ *     {@link Relevance#computeViewNodesCheckAll}) unless they override
+ *     {@link Relevance#computeViewNodes}, in which case their own implementation is used.
+ * </ul>
+ *
+ * <p>Afterwards, the views can be materialized in parallel with {@link #optimized()}.
+ *
+ * @param <L> the type of labels of the variation diff
+ */
+public final class BatchDiffView<L extends Label> {
+    private final VariationDiff<L> d;
+    private final List<Relevance> relevances;
+    private final Map<DiffNode<L>, Integer> ordinals;
+    /** The view nodes of relevance {@code i} at time {@code t} are {@code viewNodes[t.ordinal()][i]}. */
+    private final BitSet[][] viewNodes;
+
+    private final BitSet configures = new BitSet();
+    /** Predicates which are tested on every node. */
+    private final List<Integer> checkAll = new ArrayList<>();
+
+    private BatchDiffView(final VariationDiff<L> d, final List<? extends Relevance> relevances, final Map<DiffNode<L>, Integer> ordinals) {
+        this.d = d;
+        this.relevances = List.copyOf(relevances);
+        this.ordinals = ordinals;
+        this.viewNodes = new BitSet[Time.values().length][this.relevances.size()];
+    }
+
+    /**
+     * Computes the view nodes of all given relevance predicates on {@code d}.
+     * @param d the variation diff to generate views on
+     * @param relevances relevance predicates which determine the nodes of each view
+     */
+    public static <L extends Label> BatchDiffView<L> compute(final VariationDiff<L> d, final List<? extends Relevance> relevances) {
+        return compute(d, relevances, ordinals(d));
+    }
+
+    /**
+     * Same as {@link #compute(VariationDiff, List)} but reuses the given {@link #ordinals} of
+     * {@code d}, which must not be modified afterwards.
+     */
+    static <L extends Label> BatchDiffView<L> compute(
+            final VariationDiff<L> d,
+            final List<? extends Relevance> relevances,
+            final Map<DiffNode<L>, Integer> ordinals
+    ) {
+        final BatchDiffView<L> batch = new BatchDiffView<>(d, relevances, ordinals);
+        batch.compute();
+        return batch;
+    }
+
+    /**
+     * Numbers all nodes of {@code d} in the preorder of {@link VariationDiff#forAll}.
+     * The root has the ordinal {@code 0}.
+     */
+    static <L extends Label> Map<DiffNode<L>, Integer> ordinals(final VariationDiff<L> d) {
+        final Map<DiffNode<L>, Integer> ordinals = new IdentityHashMap<>();
+        d.forAll(node -> ordinals.put(node, ordinals.size()));
+        return ordinals;
+    }
+
+    /** Returns the relevance predicates of this batch in the order given on construction. */
+    public List<Relevance> getRelevances() {
+        return relevances;
+    }
+
+    public int size() {
+        return relevances.size();
+    }
+
+    /**
+     * Returns the view nodes of the {@code i}-th relevance predicate at time {@code t}.
+     * Bit {@code j} is set iff the {@code j}-th node in the preorder of {@link VariationDiff#forAll}
+     * is in the view. The returned bitset must not be modified.
+     */
+    public BitSet getViewNodes(final int i, final Time t) {
+        return viewNodes[t.ordinal()][i];
+    }
+
+    /**
+     * Returns the same predicate as
+     * {@link DiffView#computeWhenNodesAreRelevant(VariationDiff, Relevance)} for the {@code i}-th
+     * relevance predicate.
+     */
+    public BiPredicate<Time, Projection<L>> inView(final int i) {
+        final BitSet before = getViewNodes(i, Time.BEFORE);
+        final BitSet after = getViewNodes(i, Time.AFTER);
+        return (t, p) -> {
+            final Integer ordinal = ordinals.get(p.getBackingNode());
+            return ordinal != null && (t == Time.BEFORE ? before : after).get(ordinal);
+        };
+    }
+
+    /**
+     * Generates the view of the {@code i}-th relevance predicate with
+     * {@link DiffView#optimized(VariationDiff, Relevance, BiPredicate)}.
+     */
+    public VariationDiff<L> optimized(final int i) {
+        return DiffView.optimized(d, relevances.get(i), inView(i));
+    }
+
+    /**
+     * Generates the views of all relevance predicates in parallel with
+     * {@link DiffView#optimized(VariationDiff, Relevance, BiPredicate)}.
+     *
+     * <p>The parallel generation only reads the variation diff: All of its lazily initialized state
+     * (its index, including the relevance indices, and the projections of its nodes) is built
+     * beforehand and neither the relevance predicates nor the memoized formulas of the projections
+     * are evaluated. Hence, multiple threads may generate views of the same variation diff at once
+     * but the variation diff must not be modified meanwhile.
+     * @return the views in the order of {@link #getRelevances()}
+     */
+    public List<VariationDiff<L>> optimized() {
+        initializeLazyState();
+        return IntStream.range(0, size()).parallel().mapToObj(this::optimized).toList();
+    }
+
+    /**
+     * Builds all lazily initialized state of {@link #d} which is read when generating views, so
+     * concurrent view generations don't initialize it concurrently.
+     */
+    private void initializeLazyState() {
+        // Batches of the same variation diff may be used by different threads.
+        synchronized (d) {
+            final VariationDiffIndex<L> index = d.getIndex();
+            for (final Time t : Time.values()) {
+                index.getRelevanceIndex(t);
+            }
+            d.forAll(node -> node.getDiffType().forAllTimesOfExistence(node::projection));
+        }
+    }
+
+    private void compute() {
+        final List<Integer> custom = new ArrayList<>();
+        final List<Integer> indexed = new ArrayList<>();
+        for (int i = 0; i < relevances.size(); ++i) {
+            final Relevance rho = relevances.get(i);
+            if (rho instanceof Trace || rho instanceof Search) {
+                indexed.add(i);
+            } else if (rho instanceof Configure) {
+                configures.set(i);
+            } else if (overridesComputeViewNodes(rho)) {
+                custom.add(i);
+            } else {
+                checkAll.add(i);
+            }
+        }
+
+        for (final Time t : Time.values()) {
+            final BitSet[] marks = viewNodes[t.ordinal()];
+            final Projection<L> root = d.getRoot().projection(t);
+            for (int i = 0; i < marks.length; ++i) {
+                marks[i] = new BitSet(ordinals.size());
+                marks[i].set(ordinal(root));
+            }
+
+            for (final int i : custom) {
+                relevances.get(i).computeViewNodes(root, p -> marks[i].set(ordinal(p)));
+            }
+
+            final RelevanceIndex<Projection<L>> index = d.getIndex().getRelevanceIndex(t);
+            for (final int i : indexed) {
+                relevances.get(i).computeViewNodes(root, index, p -> marks[i].set(ordinal(p)));
+            }
+
+            if (!configures.isEmpty() || !checkAll.isEmpty()) {
+                // One session per configuration and projection which is discarded afterwards.
+                final Configure.Session[] sessions = new Configure.Session[relevances.size()];
+                for (int i = configures.nextSetBit(0); i >= 0; i = configures.nextSetBit(i + 1)) {
+                    sessions[i] = ((Configure) relevances.get(i)).newSession();
+                }
+                traverse(root, configures, marks, sessions);
+            }
+        }
+    }
+
+    /**
+     * Marks the view nodes of all children of {@code v} and recursively of their descendants.
+     * @param alive the {@link Configure} predicates for which {@code v} is in the view
+     * @param sessions the sessions of the {@link Configure} predicates by their index
+     */
+    private void traverse(final Projection<L> v, final BitSet alive, final BitSet[] marks, final Configure.Session[] sessions) {
+        for (final Projection<L> c : v.getChildren()) {
+            final int ordinal = ordinal(c);
+
+            final BitSet aliveInC = new BitSet();
+            for (int i = alive.nextSetBit(0); i >= 0; i = alive.nextSetBit(i + 1)) {
+                // If the child is an artifact it has the same presence condition as its parent.
+                if (c.isArtifact() || sessions[i].test(c)) {
+                    aliveInC.set(i);
+                    marks[i].set(ordinal);
+                }
+            }
+
+            for (final int i : checkAll) {
+                if (relevances.get(i).test(c)) {
+                    markWithAncestors(c, marks[i]);
+                }
+            }
+
+            traverse(c, aliveInC, marks, sessions);
+        }
+    }
+
+    /**
+     * Marks {@code node} and all its ancestors.
+     * Ancestors of marked nodes are always marked, so the marking stops at the first marked node.
+     */
+    private void markWithAncestors(Projection<L> node, final BitSet marks) {
+        while (node != null) {
+            final int ordinal = ordinal(node);
+            if (marks.get(ordinal)) {
+                return;
+            }
+            marks.set(ordinal);
+            node = node.getParent();
+        }
+    }
+
+    private int ordinal(final Projection<L> node) {
+        return ordinals.get(node.getBackingNode());
+    }
+
+    /**
+     * Checks whether {@code rho} computes its view nodes differently than
+     * {@link Relevance#computeViewNodesCheckAll}.
+     */
+    private static boolean overridesComputeViewNodes(final Relevance rho) {
+        try {
+            return rho.getClass()
+                    .getMethod("computeViewNodes", VariationNode.class, Consumer.class)
+                    .getDeclaringClass() != Relevance.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+}
@@ -1,27 +1,41 @@
 package org.variantsync.diffdetective.variation.diff.view;
 
 import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.prop4j.Node;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.experiments.views.Main;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.diffdetective.util.CollectionUtils;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.*;
 import org.variantsync.diffdetective.variation.diff.bad.BadVDiff;
 import org.variantsync.diffdetective.variation.diff.construction.JGitDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
 import org.variantsync.diffdetective.variation.tree.VariationTree;
 import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
 import org.variantsync.diffdetective.variation.tree.view.TreeView;
+import org.variantsync.diffdetective.variation.tree.view.VariantDerivation;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.RelevanceIndex;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
 import org.variantsync.functjonal.Cast;
 
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
 /**
  * This class groups the implementations for functions that generate views on variation diffs,
  * as described in Chapter 5 of our SPLC'23 paper - Views on Edits to Variational Software.
@@ -40,9 +54,16 @@ public class DiffView {
         final Map<Time, Set<Projection<L>>> V = new HashMap<>();
 
         for (final Time t : Time.values()) {
+            final Projection<L> root = d.getRoot().projection(t);
+            // Building the index of d traverses all of d, which only pays off for Trace and Search.
+            // Other relevances get a fresh relevance index, which is only built if it is queried.
+            final RelevanceIndex<Projection<L>> index = rho instanceof Trace || rho instanceof Search
+                    ? d.getIndex().getRelevanceIndex(t)
+                    : RelevanceIndex.of(root);
+
             final Set<Projection<L>> relevantNodes_t = new HashSet<>();
-            relevantNodes_t.add(d.getRoot().projection(t));
-            rho.computeViewNodes(d.getRoot().projection(t), relevantNodes_t::add);
+            relevantNodes_t.add(root);
+            rho.computeViewNodes(root, index, relevantNodes_t::add);
             V.put(t, relevantNodes_t);
         }
 
@@ -136,6 +157,256 @@ public class DiffView {
         return naive(d, rho, DiffView.computeWhenNodesAreRelevant(d, rho));
     }
 
+    /**
+     * One line of the text of a view on a projection of a variation diff.
+     * Two lines are equal iff they stem from the same line of the original variation diff.
+     * @param node The node of the original variation diff this line belongs to
+     *             or {@code null} if this line is an {@code #endif} closing an if-chain whose last
+     *             annotation exists at a single time only.
+     * @param index The index of this line in the label of {@code node}, {@code -1} for the
+     *              {@code #endif} closing {@code node}, or, if {@code node} is {@code null}, the
+     *              line number of the {@code #endif} in the original diff.
+     * @param text The text of this line.
+     */
+    private record ViewLine(DiffNode<?> node, int index, String text) {
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof ViewLine other && node == other.node && index == other.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(node) + index;
+        }
+    }
+
+    /**
+     * This method is not intended to be used directly and exists for optimization purposes only.
+     * Instead, consider using {@link #structural(VariationDiff, Relevance)}.
+     * This method is used to compare different view generation algorithms, independently
+     * of the shared preprocessing in terms of {@link #computeWhenNodesAreRelevant(VariationDiff, Relevance)}.
+     * <p>
+     * This method behaves as {@link #structural(VariationDiff, Relevance)} but takes as additional parameter,
+     * the translation of the given relevance predicate to a relevance on a variation diff.
+     *
+     * @param inView {@link #computeWhenNodesAreRelevant(VariationDiff, Relevance)} for the given variation diff d
+     *                                                                        and relevance predicate rho.
+     * @throws DiffParseException When the constructed diff could not be parsed to a variation diff.
+     */
+    public static <L extends Label> VariationDiff<DiffLinesLabel> structural(final VariationDiff<L> d, final Relevance rho, final BiPredicate<Time, Projection<L>> inView) throws DiffParseException {
+        final List<ViewLine> before = new ArrayList<>();
+        final List<ViewLine> after = new ArrayList<>();
+        collectViewLines(d.getRoot(), Time.BEFORE, inView, before);
+        collectViewLines(d.getRoot(), Time.AFTER, inView, after);
+
+        /*
+         * A line is unchanged iff it stems from a node that is in the view at both times.
+         * We merge both texts along these lines.
+         * In case the unchanged lines are ordered differently in both texts (e.g., when a node was
+         * moved), we treat the lines crossing each other as removed and inserted.
+         */
+        final Map<ViewLine, Integer> indexInAfter = new HashMap<>(2 * after.size());
+        for (int i = 0; i < after.size(); ++i) {
+            indexInAfter.put(after.get(i), i);
+        }
+
+        final List<VariationDiffParser.DiffLine> diff = new ArrayList<>(Math.max(before.size(), after.size()));
+        int nextAfter = 0;
+        for (final ViewLine line : before) {
+            final Integer match = indexInAfter.get(line);
+            if (match == null || match < nextAfter) {
+                diff.add(new VariationDiffParser.DiffLine(DiffType.REM, line.text()));
+                continue;
+            }
+
+            for (; nextAfter < match; ++nextAfter) {
+                diff.add(new VariationDiffParser.DiffLine(DiffType.ADD, after.get(nextAfter).text()));
+            }
+            diff.add(new VariationDiffParser.DiffLine(DiffType.NON, line.text()));
+            ++nextAfter;
+        }
+        for (; nextAfter < after.size(); ++nextAfter) {
+            diff.add(new VariationDiffParser.DiffLine(DiffType.ADD, after.get(nextAfter).text()));
+        }
+
+        final VariationDiff<DiffLinesLabel> view;
+        try {
+            view = VariationDiffParser.createVariationDiff(diff, Main.VARIATION_DIFF_PARSE_OPTIONS);
+        } catch (DiffParseException e) {
+            Logger.error("Could not parse diff obtained with query {} at {}", d.getSource(), rho);
+            throw e;
+        }
+        view.setSource(new ViewSource<>(d, rho));
+
+        return view;
+    }
+
+    /**
+     * Appends the lines of the view on the subtree of {@code node} at time {@code t} to {@code lines}
+     * in the same way as {@link VariationTreeNode#printSourceCode} prints the text of a variation tree.
+     */
+    private static <L extends Label> void collectViewLines(final DiffNode<L> node, final Time t, final BiPredicate<Time, Projection<L>> inView, final List<ViewLine> lines) {
+        final List<String> label = node.getLabel().getLines();
+        for (int i = 0; i < label.size(); ++i) {
+            lines.add(new ViewLine(node, i, label.get(i)));
+        }
+
+        for (final DiffNode<L> child : node.getChildOrder(t)) {
+            if (inView.test(t, child.projection(t))) {
+                collectViewLines(child, t, inView, lines);
+            }
+        }
+
+        // Add #endif after macro
+        if (node.isIf() && !node.isRoot()) {
+            lines.add(endif(node, t));
+        }
+    }
+
+    /**
+     * Creates the {@code #endif} line closing the if-chain starting at {@code ifNode} at time {@code t}.
+     * If the last annotation of this chain exists at time {@code t} only, its end line in the diff is the
+     * line of the {@code #endif}. Hence, the {@code #endif}s of a removed and an inserted if-chain are
+     * unchanged iff they are the same line in the original diff (e.g., when only the condition of an
+     * annotation changed).
+     */
+    private static <L extends Label> ViewLine endif(final DiffNode<L> ifNode, final Time t) {
+        DiffNode<L> last = ifNode;
+        for (boolean chainContinues = true; chainContinues; ) {
+            chainContinues = false;
+            for (final DiffNode<L> child : last.getChildOrder(t)) {
+                if (child.isElif() || child.isElse()) {
+                    last = child;
+                    chainContinues = true;
+                    break;
+                }
+            }
+        }
+
+        if (last.getDiffType() == DiffType.NON) {
+            return new ViewLine(ifNode, -1, "#endif");
+        }
+        return new ViewLine(null, last.getToLine().inDiff(), "#endif");
+    }
+
+    /**
+     * This function generates a view on the given variation diff by constructing the line diff between the views
+     * on both variation trees directly from the given variation diff and parsing it.
+     * In contrast to {@link #naive(VariationDiff, Relevance)}, no text-based differencing is performed.
+     * Instead, a line of the view is unchanged iff it stems from a node of the given variation diff that is
+     * in the view before and after the edit.
+     * Hence, both views have the same {@link VariationDiff#project projections} but their alignment may differ
+     * when the text-based differencing of {@link #naive(VariationDiff, Relevance)} matches equal lines of
+     * different nodes (e.g., the {@code #endif}s of a removed and an inserted annotation).
+     * @param d The variation diff to generate a view on.
+     * @param rho A relevance predicate that determines which nodes should be contained in the view.
+     * @return A variation diff that constitutes a view on the given variation diff.
+     * @throws DiffParseException When the constructed diff could not be parsed to a variation diff.
+     */
+    public static <L extends Label> VariationDiff<DiffLinesLabel> structural(final VariationDiff<L> d, final Relevance rho) throws DiffParseException {
+        return structural(d, rho, computeWhenNodesAreRelevant(d, rho));
+    }
+
+    /**
+     * Checks that the given view generated by {@link #structural(VariationDiff, Relevance)} is a view
+     * on the same variation trees as the given view generated by {@link #naive(VariationDiff, Relevance)}.
+     * This is the case iff both views print to the same source code at both times.
+     * @param naiveView The view created by {@link #naive(VariationDiff, Relevance)}.
+     * @param structuralView The view created by {@link #structural(VariationDiff, Relevance)} with the same
+     *                       variation diff and relevance predicate.
+     * @return Whether both views are exactly the same, including their alignment.
+     * @throws AssertionError if both views are not views on the same variation trees.
+     */
+    public static boolean validateStructural(final VariationDiff<DiffLinesLabel> naiveView, final VariationDiff<DiffLinesLabel> structuralView) {
+        for (final Time t : Time.values()) {
+            final StringBuilder expected = new StringBuilder();
+            naiveView.getRoot().projection(t).printSourceCode(expected);
+            final StringBuilder actual = new StringBuilder();
+            structuralView.getRoot().projection(t).printSourceCode(actual);
+
+            Assert.assertTrue(
+                    expected.toString().equals(actual.toString()),
+                    () -> "The structural view differs from the naive view at time " + t + " for " + naiveView.getSource()
+            );
+        }
+
+        // Labels of different parses are never equal, so we compare their lines instead.
+        final List<DiffNode<DiffLinesLabel>> naiveNodes = new ArrayList<>();
+        naiveView.forAll(naiveNodes::add);
+        final List<DiffNode<DiffLinesLabel>> structuralNodes = new ArrayList<>();
+        structuralView.forAll(structuralNodes::add);
+        if (naiveNodes.size() != structuralNodes.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < naiveNodes.size(); ++i) {
+            final DiffNode<DiffLinesLabel> a = naiveNodes.get(i);
+            final DiffNode<DiffLinesLabel> b = structuralNodes.get(i);
+            if (!(
+                    a.getDiffType() == b.getDiffType() &&
+                    a.getNodeType() == b.getNodeType() &&
+                    a.getFromLine().equals(b.getFromLine()) &&
+                    a.getToLine().equals(b.getToLine()) &&
+                    Objects.equals(a.getFormula(), b.getFormula()) &&
+                    a.getLabel().getLines().equals(b.getLabel().getLines())
+            )) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Generates the views of the given variation diff for many complete configurations at once.
+     * The view of a configuration is {@link #optimized(VariationDiff, Relevance)} with the {@link Configure}
+     * relevance of that configuration.
+     * The nodes of both projections included in each configuration are computed in a single traversal per
+     * projection (see {@link VariantDerivation}). Configurations with the same variants before and after the
+     * edit have the same view, so each unique view is generated only once.
+     * The views are passed to {@code consumer} one after another and are not retained by this method.
+     * @param d The variation diff to generate views on.
+     * @param configurations Complete configurations. Features without a column in the matrix are deselected.
+     * @param consumer Receives each unique view together with all configurations which have this view.
+     *                 The bit set must not be modified.
+     */
+    public static <L extends Label> void variants(final VariationDiff<L> d, final ConfigurationMatrix configurations, final BiConsumer<BitSet, VariationDiff<L>> consumer) {
+        final Map<Time, VariantDerivation<Projection<L>, L>> derivations = new EnumMap<>(Time.class);
+        for (final Time t : Time.values()) {
+            derivations.put(t, VariantDerivation.derive(d.getRoot().projection(t), configurations));
+        }
+
+        // Group configurations by their variants before and after the edit.
+        final Map<Long, BitSet> views = new LinkedHashMap<>();
+        for (int i = 0; i < configurations.size(); ++i) {
+            final long key = ((long) derivations.get(Time.BEFORE).getVariant(i) << Integer.SIZE)
+                    | derivations.get(Time.AFTER).getVariant(i);
+            views.computeIfAbsent(key, k -> new BitSet(configurations.size())).set(i);
+        }
+
+        // Describe each view by the configuration of all features occurring before or after the edit.
+        final Set<String> features = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.getFormula() != null) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+
+        for (final BitSet configurationsOfView : views.values()) {
+            final int configuration = configurationsOfView.nextSetBit(0);
+            final BiPredicate<Time, Projection<L>> inView = (t, p) -> derivations.get(t).getInclusion(p).get(configuration);
+
+            final Node[] literals = features.stream()
+                    .map(f -> configurations.isSelected(configuration, f) ? var(f) : negate(var(f)))
+                    .toArray(Node[]::new);
+            final Relevance rho = literals.length == 0 ? new Configure(FixTrueFalse.True) : new Configure(and(literals));
+
+            consumer.accept(configurationsOfView, optimized(d, rho, inView));
+        }
+    }
+
     /**
      * An alternative algorithm for generating of views on variation diffs based on
      * (1) removing cycles in the variation diff,
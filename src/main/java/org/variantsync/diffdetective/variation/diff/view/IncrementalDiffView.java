@@ -0,0 +1,275 @@
+package org.variantsync.diffdetective.variation.diff.view;
+
+import org.variantsync.diffdetective.util.Assert;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.tree.view.relevance.AnyOf;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.functjonal.Cast;
+
+import java.lang.reflect.Array;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A view on a variation diff which is updated in place when its relevance predicate changes.
+ *
+ * <p>The view is the same as {@link DiffView#optimized(VariationDiff, Relevance)} but this class
+ * remembers which nodes of the original variation diff are in the view (as bitsets indexed by
+ * the preorder ordinals of {@link BatchDiffView}) and which node of the view is the copy of which
+ * original node. When the relevance predicate changes, only the nodes whose relevance changed are
+ * removed from, retyped in, or inserted into the view. All other nodes of the view are kept as
+ * they are.
+ *
+ * <p>The view nodes of a new relevance predicate can be computed in three ways:
+ * <ul>
+ *     <li>{@link #update} evaluates the new predicate on the whole original variation diff,
+ *     <li>{@link #extend} evaluates only the additional predicate on the whole original variation
+ *     diff and keeps all current view nodes and
+ *     <li>{@link #restrict} evaluates the new predicate only on the current view, so its cost is
+ *     proportional to the size of the view instead of the size of the original variation diff.
+ * </ul>
+ *
+ * <p>The original variation diff must not be modified while this view is in use.
+ * The returned view may be inspected but must not be modified by clients.
+ *
+ * @param <L> the type of labels of the variation diff
+ */
+public final class IncrementalDiffView<L extends Label> {
+    private final VariationDiff<L> d;
+    private final Map<DiffNode<L>, Integer> ordinals;
+    /** The original nodes by ordinal. */
+    private final DiffNode<L>[] nodes;
+    /** The copies of the original nodes in the view by ordinal, {@code null} if not in the view. */
+    private final DiffNode<L>[] copies;
+    /** The ordinals of the copies in the view. */
+    private final Map<DiffNode<L>, Integer> copyOrdinals = new IdentityHashMap<>();
+    /** The view nodes at each time, indexed by {@link Time#ordinal()}. */
+    private final BitSet[] viewNodes;
+    private final VariationDiff<L> view;
+    private Relevance relevance;
+
+    /**
+     * Creates the view of the given variation diff as described by the given relevance predicate.
+     * @param d The variation diff to generate a view on.
+     * @param rho A relevance predicate that determines which nodes should be contained in the view.
+     */
+    public IncrementalDiffView(final VariationDiff<L> d, final Relevance rho) {
+        this.d = d;
+        this.ordinals = BatchDiffView.ordinals(d);
+        this.nodes = Cast.unchecked(Array.newInstance(DiffNode.class, ordinals.size()));
+        this.copies = Cast.unchecked(Array.newInstance(DiffNode.class, ordinals.size()));
+        ordinals.forEach((node, ordinal) -> nodes[ordinal] = node);
+
+        // The root is part of every view.
+        final DiffNode<L> root = d.getRoot();
+        final DiffNode<L> rootCopy = copy(root, root.getDiffType());
+        copies[0] = rootCopy;
+        copyOrdinals.put(rootCopy, 0);
+        viewNodes = new BitSet[Time.values().length];
+        for (final Time t : Time.values()) {
+            viewNodes[t.ordinal()] = new BitSet(nodes.length);
+            viewNodes[t.ordinal()].set(0);
+        }
+
+        this.relevance = rho;
+        this.view = new VariationDiff<>(rootCopy, new ViewSource<>(d, rho));
+        apply(computeViewNodes(rho));
+    }
+
+    /** Returns the current view. */
+    public VariationDiff<L> getView() {
+        return view;
+    }
+
+    /** Returns the relevance predicate that describes the current view. */
+    public Relevance getRelevance() {
+        return relevance;
+    }
+
+    /**
+     * Returns the view nodes at time {@code t}.
+     * Bit {@code i} is set iff the {@code i}-th node in the preorder of {@link VariationDiff#forAll}
+     * on the original variation diff is in the view. The returned bitset must not be modified.
+     */
+    public BitSet getViewNodes(final Time t) {
+        return viewNodes[t.ordinal()];
+    }
+
+    /**
+     * Returns the projection of the copy of {@code node} in the view at time {@code t}.
+     * @return the projection or {@code null} if {@code node} is not in the view at time {@code t}
+     */
+    public Projection<L> getCopy(final DiffNode<L> node, final Time t) {
+        final Integer ordinal = ordinals.get(node);
+        if (ordinal == null || !viewNodes[t.ordinal()].get(ordinal)) {
+            return null;
+        }
+        return copies[ordinal].projection(t);
+    }
+
+    /**
+     * Changes the relevance predicate of this view to {@code rho}.
+     * The new predicate is evaluated on the whole original variation diff but only the nodes whose
+     * relevance changed are modified in the view.
+     * @return the number of original nodes whose relevance changed
+     */
+    public int update(final Relevance rho) {
+        relevance = rho;
+        return apply(computeViewNodes(rho));
+    }
+
+    /**
+     * Adds all nodes relevant for {@code rho} to this view.
+     * Afterwards, the view is described by {@link AnyOf} the previous relevance predicate and
+     * {@code rho}, e.g., when tracing one more feature.
+     * @return the number of original nodes whose relevance changed
+     */
+    public int extend(final Relevance rho) {
+        final BitSet[] next = computeViewNodes(rho);
+        for (final Time t : Time.values()) {
+            next[t.ordinal()].or(viewNodes[t.ordinal()]);
+        }
+
+        relevance = new AnyOf(List.of(relevance, rho));
+        return apply(next);
+    }
+
+    /**
+     * Changes the relevance predicate of this view to {@code rho}, assuming that no node is
+     * relevant for {@code rho} which is not relevant for the current relevance predicate, e.g.,
+     * when strengthening the formula of a {@link org.variantsync.diffdetective.variation.tree.view.relevance.Configure}.
+     * In contrast to {@link #update}, {@code rho} is evaluated on the current view only.
+     * @return the number of original nodes whose relevance changed
+     */
+    public int restrict(final Relevance rho) {
+        final BitSet[] next = new BitSet[viewNodes.length];
+        for (final Time t : Time.values()) {
+            final BitSet nodes_t = new BitSet(nodes.length);
+            nodes_t.set(0);
+            // Each node in the view has the same label and ancestors as the original node, so
+            // rho judges both nodes equally.
+            rho.computeViewNodes(view.getRoot().projection(t), p -> nodes_t.set(copyOrdinals.get(p.getBackingNode())));
+            next[t.ordinal()] = nodes_t;
+        }
+
+        relevance = rho;
+        return apply(next);
+    }
+
+    private BitSet[] computeViewNodes(final Relevance rho) {
+        final BatchDiffView<L> batch = BatchDiffView.compute(d, List.of(rho), ordinals);
+        final BitSet[] result = new BitSet[viewNodes.length];
+        for (final Time t : Time.values()) {
+            // The batch is discarded, so its bitsets can be reused.
+            result[t.ordinal()] = batch.getViewNodes(0, t);
+        }
+        return result;
+    }
+
+    /**
+     * Modifies the view such that it contains exactly the given view nodes.
+     * @return the number of original nodes whose relevance changed
+     */
+    private int apply(final BitSet[] next) {
+        final BitSet changed = new BitSet(nodes.length);
+        for (final Time t : Time.values()) {
+            final BitSet difference = (BitSet) viewNodes[t.ordinal()].clone();
+            difference.xor(next[t.ordinal()]);
+            changed.or(difference);
+        }
+        view.setSource(new ViewSource<>(d, relevance));
+
+        // Step 1: Detach all copies which are not relevant anymore at some time.
+        // Their descendants at that time are not relevant either, so they are detached as well.
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            for (final Time t : Time.values()) {
+                if (viewNodes[t.ordinal()].get(i) && !next[t.ordinal()].get(i)) {
+                    final DiffNode<L> copy = copies[i];
+                    copy.getParent(t).removeChild(copy, t);
+                }
+            }
+        }
+
+        // Step 2: Create, retype, or drop copies.
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            final Set<Time> timesOfRelevancy = EnumSet.noneOf(Time.class);
+            for (final Time t : Time.values()) {
+                if (next[t.ordinal()].get(i)) {
+                    timesOfRelevancy.add(t);
+                }
+            }
+
+            final DiffType dt = DiffType.thatExistsOnlyAtAll(timesOfRelevancy).orElse(null);
+            if (dt == null) {
+                copyOrdinals.remove(copies[i]);
+                copies[i] = null;
+            } else if (copies[i] == null) {
+                copies[i] = copy(nodes[i], dt);
+                copyOrdinals.put(copies[i], i);
+            } else if (copies[i].diffType != dt) {
+                copies[i].diffType = dt;
+                copies[i].notifyModification();
+            }
+        }
+
+        // Step 3: Attach all copies which became relevant at some time.
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            for (final Time t : Time.values()) {
+                if (!viewNodes[t.ordinal()].get(i) && next[t.ordinal()].get(i)) {
+                    attach(i, t);
+                }
+            }
+        }
+
+        for (final Time t : Time.values()) {
+            viewNodes[t.ordinal()] = next[t.ordinal()];
+        }
+        return changed.cardinality();
+    }
+
+    /**
+     * Inserts the copy of the {@code i}-th original node into the copy of its parent at time
+     * {@code t}. The copy is placed behind the copies of all siblings which precede the original
+     * node and are already attached, so the children of each copy always retain the order of the
+     * original children.
+     */
+    private void attach(final int i, final Time t) {
+        final DiffNode<L> node = nodes[i];
+        final DiffNode<L> parent = node.getParent(t);
+        final DiffNode<L> parentCopy = copies[ordinals.get(parent)];
+        Assert.assertTrue(parentCopy != null, () -> "Node " + node + " has no parent in view given by " + relevance + " in " + d.getSource());
+
+        int index = 0;
+        for (final DiffNode<L> sibling : parent.getChildOrder(t)) {
+            if (sibling == node) {
+                break;
+            }
+            final DiffNode<L> siblingCopy = copies[ordinals.get(sibling)];
+            if (siblingCopy != null && siblingCopy.getParent(t) == parentCopy) {
+                ++index;
+            }
+        }
+
+        parentCopy.insertChild(copies[i], index, t);
+    }
+
+    private static <L extends Label> DiffNode<L> copy(final DiffNode<L> node, final DiffType dt) {
+        return new DiffNode<>(
+                dt,
+                node.getNodeType(),
+                node.getFromLine(),
+                node.getToLine(),
+                node.getFormula(),
+                node.getLabel()
+        );
+    }
+}
@@ -300,8 +300,9 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
 
     /**
      * Same as {@link getFeatureMapping} but returns a list of formulas representing a conjunction.
+     * The returned list must not be modified.
      */
-    private List<Node> getFeatureMappingClauses() {
+    protected List<Node> getFeatureMappingClauses() {
         final var parent = getParent();
 
         if (isElse() || isElif()) {
@@ -346,21 +347,17 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
      * @return the feature mapping of this node
      */
     public Node getFeatureMapping() {
-        final List<Node> fmClauses = getFeatureMappingClauses();
-        if (fmClauses.size() == 1) {
-            return fmClauses.get(0);
-        }
-        return new And(fmClauses);
+        return conjunction(getFeatureMappingClauses());
     }
 
     /**
      * Returns the presence condition clauses of this node.
      *
-     * @return a list representing a conjunction (i.e., all clauses should be combined with boolean
-     * AND)
+     * @return a new, modifiable list representing a conjunction (i.e., all clauses should be
+     * combined with boolean AND)
      * @see getPresenceCondition
      */
-    private List<Node> getPresenceConditionClauses() {
+    protected List<Node> getPresenceConditionClauses() {
         final var parent = getParent();
 
         if (isElse() || isElif()) {
@@ -401,11 +398,18 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
      * our paper</a>.
      */
     public Node getPresenceCondition() {
-        final List<Node> pcClauses = getPresenceConditionClauses();
-        if (pcClauses.size() == 1) {
-            return pcClauses.get(0);
+        return conjunction(getPresenceConditionClauses());
+    }
+
+    /**
+     * Combines the given clauses as returned by {@link #getFeatureMappingClauses()} and
+     * {@link #getPresenceConditionClauses()} into a single formula.
+     */
+    protected static Node conjunction(final List<Node> clauses) {
+        if (clauses.size() == 1) {
+            return clauses.get(0);
         }
-        return new And(pcClauses);
+        return new And(clauses);
     }
 
     /**
@@ -5,6 +5,7 @@ import org.variantsync.diffdetective.variation.tree.VariationNode;
 import org.variantsync.diffdetective.variation.tree.VariationTree;
 import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.RelevanceIndex;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -54,7 +55,7 @@ public final class TreeView {
      */
     public static <L extends Label> void treeInline(final VariationTree<L> t, final Relevance r) {
         final Set<VariationTreeNode<L>> interestingNodes = new HashSet<>();
-        r.computeViewNodes(t.root(), interestingNodes::add);
+        r.computeViewNodes(t.root(), RelevanceIndex.of(t.root()), interestingNodes::add);
         treeInline(t.root(), interestingNodes::contains);
     }
 
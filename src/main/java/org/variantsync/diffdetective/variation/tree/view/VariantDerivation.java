@@ -0,0 +1,328 @@
+package org.variantsync.diffdetective.variation.tree.view;
+
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.CompiledFormula;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
+import org.variantsync.diffdetective.util.StringUtils;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+/**
+ * Derives the variants of a variation tree for many configurations at once.
+ * The variant of a configuration is the view on the variation tree given by the {@link Configure}
+ * relevance of that configuration, i.e., {@link TreeView#tree} with a {@link Configure} relevance
+ * selecting all features which are selected in the configuration and deselecting all other features.
+ *
+ * <p>Instead of copying and pruning the tree for each configuration, the configurations in which a
+ * node is included are computed for all nodes in a single top-down traversal: a node is included
+ * in a configuration iff its parent is included and its feature mapping is satisfied. Feature
+ * mappings are evaluated on all configurations at once (see {@link CompiledFormula}).
+ * Configurations that include exactly the same nodes have the same variant, so each unique variant
+ * is identified once along with all of its configurations.
+ *
+ * <p>Variants are not stored. Instead, each variant is {@link #printSourceCode printed} or
+ * {@link #toVariationTree copied} on demand, so only a single variant has to be in memory at once
+ * when processing the variants one after another.
+ *
+ * <p>The variation tree must not be modified while a derivation is in use.
+ *
+ * @param <T> the type of the nodes of the variation tree
+ * @param <L> the type of labels of the variation tree
+ */
+public final class VariantDerivation<T extends VariationNode<T, L>, L extends Label> {
+    private final T root;
+    private final ConfigurationMatrix configurations;
+    /** The configurations in which each node is included. Artifacts share the bit set of their parent. */
+    private final Map<T, BitSet> inclusions;
+    /** The index of the variant of each configuration. */
+    private final int[] variantOfConfiguration;
+    /** The configurations of each variant. */
+    private final List<BitSet> configurationsOfVariant;
+
+    private VariantDerivation(
+            final T root,
+            final ConfigurationMatrix configurations,
+            final Map<T, BitSet> inclusions,
+            final int[] variantOfConfiguration,
+            final List<BitSet> configurationsOfVariant
+    ) {
+        this.root = root;
+        this.configurations = configurations;
+        this.inclusions = inclusions;
+        this.variantOfConfiguration = variantOfConfiguration;
+        this.configurationsOfVariant = configurationsOfVariant;
+    }
+
+    /**
+     * Computes the variants of the variation tree below {@code root} for all given configurations.
+     * @param root The root of the variation tree to derive variants from.
+     * @param configurations Complete configurations. Features without a column in the matrix are
+     *                       deselected.
+     */
+    public static <T extends VariationNode<T, L>, L extends Label> VariantDerivation<T, L> derive(final T root, final ConfigurationMatrix configurations) {
+        final Partition partition = new Partition(configurations.size());
+        final Map<T, BitSet> inclusions = new HashMap<>();
+
+        final BitSet all = new BitSet(configurations.size());
+        all.set(0, configurations.size());
+        inclusions.put(root, all);
+        for (final T child : root.getChildren()) {
+            computeInclusions(child, all, configurations, inclusions, partition);
+        }
+
+        return new VariantDerivation<>(root, configurations, inclusions, partition.variantOf, partition.toVariants());
+    }
+
+    private static <T extends VariationNode<T, L>, L extends Label> void computeInclusions(
+            final T node,
+            final BitSet parentInclusion,
+            final ConfigurationMatrix configurations,
+            final Map<T, BitSet> inclusions,
+            final Partition partition
+    ) {
+        final BitSet inclusion;
+        if (node.isArtifact()) {
+            // Artifacts are included whenever their parent is included, see Configure.
+            inclusion = parentInclusion;
+        } else if (parentInclusion.isEmpty()) {
+            inclusion = parentInclusion;
+        } else {
+            /*
+             * If the parent is included, so are all of its ancestors, so the presence condition of
+             * this node reduces to its feature mapping. For elses and elifs, the feature mapping
+             * also covers the preceding annotations of the if-chain.
+             */
+            inclusion = CompiledFormula.compile(node.getFeatureMapping()).evaluate(configurations);
+            inclusion.and(parentInclusion);
+            partition.split(inclusion);
+        }
+
+        inclusions.put(node, inclusion);
+        for (final T child : node.getChildren()) {
+            computeInclusions(child, inclusion, configurations, inclusions, partition);
+        }
+    }
+
+    /**
+     * Partition of configurations into classes of configurations including the same nodes.
+     * Classes are refined with the inclusion of each node in preorder.
+     */
+    private static final class Partition {
+        final int[] variantOf;
+        final int[] sizes;
+        int numberOfVariants;
+        /** Number of configurations in each class that include the current node. */
+        final int[] hits;
+        /** The class into which configurations of a class are moved when splitting on the current node. */
+        final int[] partners;
+        /** The node for which {@link #hits} and {@link #partners} of a class are valid. */
+        final int[] stamps;
+        int stamp = 0;
+
+        Partition(final int size) {
+            variantOf = new int[size];
+            sizes = new int[Math.max(size, 1)];
+            sizes[0] = size;
+            numberOfVariants = size == 0 ? 0 : 1;
+            hits = new int[size];
+            partners = new int[size];
+            stamps = new int[size];
+        }
+
+        /**
+         * Splits each class into the configurations contained in {@code included} and all others.
+         */
+        void split(final BitSet included) {
+            ++stamp;
+            for (int i = included.nextSetBit(0); i >= 0; i = included.nextSetBit(i + 1)) {
+                final int c = variantOf[i];
+                if (stamps[c] != stamp) {
+                    stamps[c] = stamp;
+                    hits[c] = 0;
+                    partners[c] = -1;
+                }
+                ++hits[c];
+            }
+
+            for (int i = included.nextSetBit(0); i >= 0; i = included.nextSetBit(i + 1)) {
+                final int c = variantOf[i];
+                if (partners[c] < 0) {
+                    // Classes which are included completely are not split.
+                    partners[c] = hits[c] < sizes[c] ? numberOfVariants++ : c;
+                }
+                if (partners[c] != c) {
+                    variantOf[i] = partners[c];
+                    --sizes[c];
+                    ++sizes[partners[c]];
+                }
+            }
+        }
+
+        /**
+         * Returns the configurations of each class and renumbers the classes in the order of their
+         * smallest configuration.
+         */
+        List<BitSet> toVariants() {
+            final int[] renumbering = new int[numberOfVariants];
+            Arrays.fill(renumbering, -1);
+            final List<BitSet> variants = new ArrayList<>(numberOfVariants);
+            for (int i = 0; i < variantOf.length; ++i) {
+                int v = renumbering[variantOf[i]];
+                if (v < 0) {
+                    v = variants.size();
+                    renumbering[variantOf[i]] = v;
+                    variants.add(new BitSet(variantOf.length));
+                }
+                variantOf[i] = v;
+                variants.get(v).set(i);
+            }
+            return variants;
+        }
+    }
+
+    /** Returns the root of the variation tree from which variants are derived. */
+    public T getRoot() {
+        return root;
+    }
+
+    /** Returns the configurations for which variants are derived. */
+    public ConfigurationMatrix getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * Returns the number of unique variants.
+     * Variants are numbered in the order of their first configuration.
+     */
+    public int getNumberOfVariants() {
+        return configurationsOfVariant.size();
+    }
+
+    /** Returns the index of the variant of the given configuration. */
+    public int getVariant(final int configuration) {
+        return variantOfConfiguration[configuration];
+    }
+
+    /**
+     * Returns all configurations which have the given variant.
+     * The returned bit set must not be modified.
+     */
+    public BitSet getConfigurationsOf(final int variant) {
+        return configurationsOfVariant.get(variant);
+    }
+
+    /**
+     * Returns all configurations in which the given node is included.
+     * The returned bit set must not be modified.
+     */
+    public BitSet getInclusion(final T node) {
+        return inclusions.get(node);
+    }
+
+    /** Returns whether the given node is contained in the given variant. */
+    public boolean isIncluded(final T node, final int variant) {
+        return getInclusion(node).get(configurationsOfVariant.get(variant).nextSetBit(0));
+    }
+
+    /**
+     * Returns a {@link Configure} relevance which describes the given variant, i.e., whose view on
+     * the variation tree is the variant.
+     * The configuration of the relevance selects or deselects all features of the variation tree
+     * as in the first configuration of the variant.
+     */
+    public Configure getRelevance(final int variant) {
+        final int configuration = configurationsOfVariant.get(variant).nextSetBit(0);
+
+        final Set<String> features = new LinkedHashSet<>();
+        root.forAllPreorder(node -> {
+            final Node formula = node.getFormula();
+            if (formula != null) {
+                features.addAll(formula.getUniqueContainedFeatures());
+            }
+        });
+
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+        if (features.isEmpty()) {
+            return new Configure(FixTrueFalse.True);
+        }
+
+        final Node[] literals = new Node[features.size()];
+        int i = 0;
+        for (final String feature : features) {
+            literals[i++] = configurations.isSelected(configuration, feature) ? var(feature) : negate(var(feature));
+        }
+        return new Configure(and(literals));
+    }
+
+    /**
+     * Prints the source code of the given variant as {@link VariationNode#printSourceCode} does for
+     * variation trees.
+     * @param output The destination of the source code, e.g., a file to stream the variant to.
+     * @throws IOException if {@code output} throws
+     */
+    public void printSourceCode(final int variant, final Appendable output) throws IOException {
+        printSourceCode(root, configurationsOfVariant.get(variant).nextSetBit(0), output);
+    }
+
+    private void printSourceCode(final T node, final int configuration, final Appendable output) throws IOException {
+        for (final String line : node.getLabel().getLines()) {
+            output.append(line);
+            output.append(StringUtils.LINEBREAK);
+        }
+
+        for (final T child : node.getChildren()) {
+            if (inclusions.get(child).get(configuration)) {
+                printSourceCode(child, configuration, output);
+            }
+        }
+
+        // Add #endif after macro
+        if (node.isIf() && !node.isRoot()) {
+            output.append("#endif");
+            output.append(StringUtils.LINEBREAK);
+        }
+    }
+
+    /**
+     * Returns a copy of the given variant in a {@link VariationTreeNode concrete variation tree implementation}.
+     * The copy is equal to {@link TreeView#tree} on the variation tree with {@link #getRelevance}.
+     */
+    public VariationTreeNode<L> toVariationTree(final int variant) {
+        return toVariationTree(root, configurationsOfVariant.get(variant).nextSetBit(0));
+    }
+
+    private VariationTreeNode<L> toVariationTree(final T node, final int configuration) {
+        final VariationTreeNode<L> copy = new VariationTreeNode<>(
+                node.getNodeType(),
+                node.getFormula() == null ? null : node.getFormula().clone(),
+                node.getLineRange(),
+                node.getLabel()
+        );
+
+        for (final T child : node.getChildren()) {
+            if (inclusions.get(child).get(configuration)) {
+                copy.addChild(toVariationTree(child, configuration));
+            }
+        }
+
+        return copy;
+    }
+}
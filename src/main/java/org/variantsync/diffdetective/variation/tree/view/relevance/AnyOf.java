@@ -0,0 +1,51 @@
+package org.variantsync.diffdetective.variation.tree.view.relevance;
+
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Relevance predicate whose view is the union of the views of the given relevance predicates.
+ * A node is relevant if it is relevant for any of the given predicates.
+ */
+public record AnyOf(List<Relevance> relevances) implements Relevance {
+    public AnyOf {
+        relevances = List.copyOf(relevances);
+    }
+
+    @Override
+    public boolean test(VariationNode<?, ?> v) {
+        return relevances.stream().anyMatch(r -> r.test(v));
+    }
+
+    @Override
+    public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, Consumer<TreeNode> markRelevant) {
+        for (final Relevance r : relevances) {
+            r.computeViewNodes(v, markRelevant);
+        }
+    }
+
+    @Override
+    public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, RelevanceIndex<TreeNode> index, Consumer<TreeNode> markRelevant) {
+        for (final Relevance r : relevances) {
+            r.computeViewNodes(v, index, markRelevant);
+        }
+    }
+
+    @Override
+    public String parametersToString() {
+        return relevances.stream().map(Object::toString).collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "anyof";
+    }
+
+    @Override
+    public String toString() {
+        return Relevance.toString(this);
+    }
+}
@@ -2,10 +2,18 @@ package org.variantsync.diffdetective.variation.tree.view.relevance;
 
 import org.prop4j.Node;
 import org.prop4j.NodeWriter;
+import org.variantsync.diffdetective.analysis.logic.FeatureModelConstraints;
+import org.variantsync.diffdetective.analysis.logic.InternedFormula;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
@@ -14,14 +22,117 @@ import java.util.function.Consumer;
  */
 public class Configure implements Relevance {
     private final FixTrueFalse.Formula configuration;
+    /** May be {@code null} if configurations are unconstrained. */
+    private final FeatureModelConstraints constraints;
+
+    /**
+     * Checks the presence conditions of many nodes of the same tree against the configuration
+     * using one incremental solver in which the configuration is encoded once.
+     * The presence condition of a node is checked by assuming the feature mappings of the node and
+     * of its ancestors, so each feature mapping is encoded only once and the presence condition
+     * is never built as a formula.
+     *
+     * <p>A session is not thread-safe and should be discarded after computing a view because the
+     * solver grows with each feature mapping (see {@link SolverSession}).
+     */
+    public final class Session {
+        private final SolverSession solver = new SolverSession(constraints);
+        private final InternedFormula configuration = solver.getFactory().fromNode(Configure.this.configuration.get());
+        /**
+         * The formulas whose conjunction is the presence condition of a node, i.e., the feature
+         * mappings of the node and of its ancestors (as in {@link VariationNode#getPresenceCondition()}).
+         */
+        private final Map<VariationNode<?, ?>, List<InternedFormula>> presenceConditions = new IdentityHashMap<>();
+        private final Map<VariationNode<?, ?>, Boolean> results = new IdentityHashMap<>();
+
+        private Session() {
+        }
+
+        /**
+         * Same as {@link Configure#test} but reuses the results of previously tested nodes, in
+         * particular of the ancestors of {@code v}.
+         */
+        public boolean test(final VariationNode<?, ?> v) {
+            if (Configure.this.configuration.isFalseConstant()) {
+                return false;
+            }
+            // An artifact has the same presence condition as its parent.
+            if (v.isArtifact() && v.getParent() != null) {
+                return test(v.getParent());
+            }
+
+            Boolean result = results.get(v);
+            if (result == null) {
+                // The presence condition of v implies the one of its context. So if the context
+                // was already deselected, no solver query is needed.
+                final VariationNode<?, ?> context = context(v);
+                if (context != null && results.get(context) == Boolean.FALSE) {
+                    result = false;
+                } else {
+                    final List<InternedFormula> assumptions = new ArrayList<>(presenceCondition(v));
+                    assumptions.add(configuration);
+                    result = solver.isSatisfiable(assumptions);
+                }
+                results.put(v, result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the node whose presence condition is extended by the feature mapping of
+         * {@code v} to the presence condition of {@code v} or {@code null} if {@code v} is a root.
+         */
+        private static VariationNode<?, ?> context(final VariationNode<?, ?> v) {
+            // The presence condition of an else or elif branch does not depend on the previous
+            // branches, which are its ancestors, but on the context of the whole chain.
+            VariationNode<?, ?> context = v.getParent();
+            if (v.isElse() || v.isElif()) {
+                while (!context.isIf()) {
+                    context = context.getParent();
+                }
+                context = context.getParent();
+            }
+            return context;
+        }
+
+        private List<InternedFormula> presenceCondition(final VariationNode<?, ?> v) {
+            final List<InternedFormula> known = presenceConditions.get(v);
+            if (known != null) {
+                return known;
+            }
+
+            final VariationNode<?, ?> context = context(v);
+            final List<InternedFormula> presenceCondition = context == null
+                    ? new ArrayList<>(1)
+                    : new ArrayList<>(presenceCondition(context));
+            if (!v.isArtifact()) {
+                presenceCondition.add(solver.getFactory().fromNode(v.getFeatureMapping()));
+            }
+            presenceConditions.put(v, presenceCondition);
+            return presenceCondition;
+        }
+    }
 
     /**
      * Same as {@link Configure#Configure(Node)} but with a formula that is witnessed to
      * not contain true or false constants not at the root.
      * Workaround for FeatureIDE bug <a href="https://github.com/FeatureIDE/FeatureIDE/issues/1333">FeatureIDE Issue 1333</a>.
+     * The configuration is stored as is, so it must not be modified afterwards.
      */
     public Configure(final FixTrueFalse.Formula configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * Same as {@link Configure#Configure(FixTrueFalse.Formula)} but only considers configurations
+     * which satisfy the given feature model constraints.
+     * The precompiled constraints are loaded into the incremental solver of each
+     * {@link Session session}.
+     * @param constraints the constraints of a feature model or {@code null} for none
+     */
+    public Configure(final FixTrueFalse.Formula configuration, final FeatureModelConstraints constraints) {
         this.configuration = configuration;
+        this.constraints = constraints;
     }
 
     /**
@@ -29,30 +140,52 @@ public class Configure implements Relevance {
      * and deselections of variables.
      * Typically, the given formula should be in conjunctive normal form.
      * The given configuration may be partial or complete.
+     * The configuration is not copied. It may be shared with this relevance (see
+     * {@link FixTrueFalse#EliminateTrueAndFalse(Node)}) and must not be modified afterwards.
      * @param configuration A propositional formula that denotes selections and deselections.
      */
     public Configure(final Node configuration) {
         this(FixTrueFalse.EliminateTrueAndFalse(configuration));
     }
 
+    /**
+     * Creates a new session for checking many nodes of the same tree with this relevance.
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * {@inheritDoc}
+     * A single query is answered by the cached {@link SAT#isSatisfiable} or, with constraints, by
+     * the {@link FeatureModelConstraints#isSatisfiable per-thread solver of the constraints}.
+     * Use a single {@link #newSession() session} to test many nodes of the same tree.
+     */
     @Override
     public boolean test(VariationNode<?, ?> v) {
-        return SAT.isSatisfiable(
-                FixTrueFalse.Formula.and(
-                        configuration,
-                        FixTrueFalse.EliminateTrueAndFalse(v.getPresenceCondition())
-                )
+        // The configuration may be a constant, which must not occur within a conjunction.
+        final FixTrueFalse.Formula query = FixTrueFalse.EliminateTrueAndFalse(
+                FormulaUtils.and(configuration.get(), v.getPresenceCondition())
         );
+        if (constraints == null) {
+            return SAT.isSatisfiable(query);
+        }
+        return !query.isFalseConstant() && constraints.isSatisfiable(query.get());
     }
 
     @Override
     public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, Consumer<TreeNode> markRelevant) {
+        // The session is only used for this view and is discarded afterwards.
+        computeViewNodes(v, markRelevant, newSession());
+    }
+
+    private <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, Consumer<TreeNode> markRelevant, final Session session) {
         markRelevant.accept(v);
 
         for (final TreeNode c : v.getChildren()) {
             // If the child is an artifact it has the same presence condition as we do, so it is also included in the view.
-            if (c.isArtifact() || test(c)) {
-                computeViewNodes(c, markRelevant);
+            if (c.isArtifact() || session.test(c)) {
+                computeViewNodes(c, markRelevant, session);
             }
         }
     }
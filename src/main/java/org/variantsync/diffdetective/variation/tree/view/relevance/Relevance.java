@@ -32,6 +32,16 @@ public interface Relevance extends Predicate<VariationNode<?, ?>> {
         computeViewNodesCheckAll(this, v, markRelevant);
     }
 
+    /**
+     * Same as {@link #computeViewNodes(VariationNode, Consumer)} but may use the given index of the
+     * tree below {@code v} to avoid testing every node.
+     * The default implementation ignores the index.
+     * @param index an index whose {@link RelevanceIndex#getRoot() root} is {@code v}
+     */
+    default <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(final TreeNode v, final RelevanceIndex<TreeNode> index, final Consumer<TreeNode> markRelevant) {
+        computeViewNodes(v, markRelevant);
+    }
+
     /**
      * Marks all nodes that should be contained within a view on the given tree.
      * In particular, this function checks each node in the given tree v on relevance.
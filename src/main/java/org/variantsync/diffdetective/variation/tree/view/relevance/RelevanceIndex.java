@@ -0,0 +1,102 @@
+package org.variantsync.diffdetective.variation.tree.view.relevance;
+
+import org.prop4j.Node;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.VariationDiffIndex;
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted indices of the nodes of a variation tree, which allow relevance predicates to start
+ * from the matching nodes instead of testing every node of the tree.
+ * <ul>
+ *     <li>The feature index maps each feature to all nodes whose {@link VariationNode#getFormula() formula}
+ *     contains that feature. The features of the presence condition of a node are exactly the
+ *     features of the formulas of the node and its ancestors, so {@link Trace} only needs to mark
+ *     the subtrees of these nodes.
+ *     <li>The artifact index maps each line of an artifact to all artifacts containing that line,
+ *     which are exactly the nodes found by {@link Search}.
+ * </ul>
+ * Each index is built lazily by a single traversal when it is queried for the first time.
+ *
+ * <p>An index is a snapshot of the tree at the time the index was built and must not be used
+ * after the tree was modified. {@link VariationDiffIndex#getRelevanceIndex} provides an index of
+ * each projection of a {@link VariationDiff} which is rebuilt automatically after modifications.
+ *
+ * @param <T> the type of the nodes of the indexed tree
+ */
+public final class RelevanceIndex<T extends VariationNode<T, ?>> {
+    private final T root;
+    private Map<String, List<T>> nodesByFeature;
+    private Map<String, List<T>> artifactsByLine;
+
+    private RelevanceIndex(final T root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates an index of the tree below {@code root}. No node is inspected until the index is
+     * queried.
+     */
+    public static <T extends VariationNode<T, ?>> RelevanceIndex<T> of(final T root) {
+        return new RelevanceIndex<>(root);
+    }
+
+    /** Returns the root of the indexed tree. */
+    public T getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns all nodes whose formula contains the given feature in preorder.
+     * The returned list is unmodifiable.
+     */
+    public List<T> getNodesWithFeature(final String feature) {
+        if (nodesByFeature == null) {
+            final Map<String, List<T>> index = new HashMap<>();
+            root.forAllPreorder(node -> {
+                final Node formula = node.getFormula();
+                if (formula != null) {
+                    for (final String f : formula.getUniqueContainedFeatures()) {
+                        index.computeIfAbsent(f, x -> new ArrayList<>()).add(node);
+                    }
+                }
+            });
+            nodesByFeature = index;
+        }
+        return lookup(nodesByFeature, feature);
+    }
+
+    /**
+     * Returns all artifacts which contain the given line in preorder.
+     * The returned list is unmodifiable.
+     */
+    public List<T> getArtifactsWithLine(final String line) {
+        if (artifactsByLine == null) {
+            final Map<String, List<T>> index = new HashMap<>();
+            root.forAllPreorder(node -> {
+                if (node.isArtifact()) {
+                    for (final String l : node.getLabel().getLines()) {
+                        final List<T> artifacts = index.computeIfAbsent(l, x -> new ArrayList<>());
+                        // An artifact may contain the same line multiple times.
+                        if (artifacts.isEmpty() || artifacts.get(artifacts.size() - 1) != node) {
+                            artifacts.add(node);
+                        }
+                    }
+                }
+            });
+            artifactsByLine = index;
+        }
+        return lookup(artifactsByLine, line);
+    }
+
+    private List<T> lookup(final Map<String, List<T>> index, final String key) {
+        final List<T> nodes = index.get(key);
+        return nodes == null ? List.of() : Collections.unmodifiableList(nodes);
+    }
+}
@@ -2,6 +2,8 @@ package org.variantsync.diffdetective.variation.tree.view.relevance;
 
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.function.Consumer;
+
 /**
  * Relevance predicate that searches for implementation artifacts in a variation tree.
  * This relevance predicate is the implementation of Equation 7 in our SPLC'23 paper.
@@ -16,6 +18,25 @@ public record Search(String artifact) implements Relevance {
         return false;
     }
 
+    /**
+     * Marks the same nodes as {@link #computeViewNodes(VariationNode, Consumer)} but only visits the
+     * artifacts containing the searched artifact and their ancestors.
+     */
+    @Override
+    public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, RelevanceIndex<TreeNode> index, Consumer<TreeNode> markRelevant) {
+        if (index.getRoot() != v) {
+            computeViewNodes(v, markRelevant);
+            return;
+        }
+
+        for (final TreeNode artifact : index.getArtifactsWithLine(artifact())) {
+            // As in computeViewNodesCheckAll, the root of the traversal itself is never tested.
+            if (artifact != v) {
+                artifact.forMeAndMyAncestors(markRelevant);
+            }
+        }
+    }
+
     @Override
     public String parametersToString() {
         return artifact();
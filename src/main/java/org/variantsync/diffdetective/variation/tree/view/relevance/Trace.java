@@ -2,6 +2,12 @@ package org.variantsync.diffdetective.variation.tree.view.relevance;
 
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * Relevance predicate that traces a certain feature syntactically within a variation tree.
  * This relevance predicate is the implementation of Equation 6 in our SPLC'23 paper.
@@ -14,6 +20,64 @@ public record Trace(String featureName) implements Relevance {
         );
     }
 
+    /**
+     * Marks the same nodes as {@link #computeViewNodes(VariationNode, Consumer)} but only visits the
+     * subtrees of nodes whose formula contains the traced feature and their ancestors.
+     */
+    @Override
+    public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, RelevanceIndex<TreeNode> index, Consumer<TreeNode> markRelevant) {
+        if (index.getRoot() != v) {
+            computeViewNodes(v, markRelevant);
+            return;
+        }
+
+        // The features of a presence condition are the features of the formulas on the path to
+        // the root. So if v is traced, the whole tree is traced. Otherwise, exactly the subtrees of
+        // all nodes whose formula contains the feature are traced.
+        if (test(v)) {
+            markSubtree(v, v, markRelevant);
+            return;
+        }
+
+        final List<TreeNode> tracing = index.getNodesWithFeature(featureName());
+        final Set<TreeNode> tracingSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        tracingSet.addAll(tracing);
+        for (final TreeNode node : tracing) {
+            // Nodes below another traced node were already marked with the subtree of that node.
+            if (!hasAncestorIn(node, tracingSet)) {
+                markSubtree(node, v, markRelevant);
+            }
+        }
+    }
+
+    /**
+     * Marks all nodes in the subtree of {@code node} and their ancestors.
+     * As in {@link Relevance#computeViewNodesCheckAll}, the root of the traversal {@code v} is only
+     * marked as ancestor of another node.
+     */
+    private static <TreeNode extends VariationNode<TreeNode, ?>> void markSubtree(final TreeNode node, final TreeNode v, final Consumer<TreeNode> markRelevant) {
+        node.forAllPreorder(c -> {
+            if (c != v) {
+                markRelevant.accept(c);
+            }
+        });
+
+        if (node != v) {
+            node.getParent().forMeAndMyAncestors(markRelevant);
+        } else if (!node.isLeaf()) {
+            node.forMeAndMyAncestors(markRelevant);
+        }
+    }
+
+    private static <TreeNode extends VariationNode<TreeNode, ?>> boolean hasAncestorIn(final TreeNode node, final Set<TreeNode> nodes) {
+        for (TreeNode ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (nodes.contains(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String parametersToString() {
         return featureName();
@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.variantsync.diffdetective.analysis.strategies.AnalyzeAndExportAsynchronously;
+import org.variantsync.diffdetective.analysis.strategies.AnalyzeAndExportAsynchronously.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * For testing the asynchronous export of analysis strategies.
+ */
+public class AnalysisStrategyTest {
+    private static byte[] commitOutput(int commit) {
+        return ("t # " + commit + "\r\nv 1 root\r\n\r\n\r\n").repeat(commit % 7).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decompress(final Path file, final Compression compression) throws IOException {
+        try (InputStream input = switch (compression) {
+            case NONE -> Files.newInputStream(file);
+            case GZIP -> new GZIPInputStream(Files.newInputStream(file));
+            case DEFLATE -> new InflaterInputStream(Files.newInputStream(file));
+        }) {
+            return input.readAllBytes();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Compression.class)
+    public void writesAllCommitsInOrder(Compression compression, @TempDir Path tempDir) throws IOException {
+        // Tiny buffers force many hand overs and make the analysis wait for the writer.
+        final var strategy = new AnalyzeAndExportAsynchronously(16, 2, compression);
+        final var expected = new ByteArrayOutputStream();
+
+        // The strategy may be restarted for multiple batches.
+        for (int batch = 0; batch < 2; ++batch) {
+            final Path outputPath = tempDir.resolve("batch" + batch + ".lg");
+            expected.reset();
+
+            strategy.start(null, outputPath);
+            for (int commit = 0; commit < 1000; ++commit) {
+                try (OutputStream destination = strategy.onCommit(null)) {
+                    destination.write(commitOutput(commit));
+                }
+                expected.writeBytes(commitOutput(commit));
+            }
+            strategy.end();
+
+            final Path outputFile = strategy.getOutputFile(outputPath);
+            assertTrue(outputFile.toString().endsWith(".lg" + compression.getFileExtension()));
+            assertArrayEquals(expected.toByteArray(), decompress(outputFile, compression));
+        }
+    }
+
+    private static void analyze(final AnalyzeAndExportAsynchronously strategy, final Path outputPath) throws IOException {
+        strategy.start(null, outputPath);
+        for (int commit = 0; commit < 1000; ++commit) {
+            try (OutputStream destination = strategy.onCommit(null)) {
+                destination.write(commitOutput(commit));
+            }
+        }
+    }
+
+    @Test
+    public void reportsFailedWrites(@TempDir Path tempDir) throws IOException {
+        final var strategy = new AnalyzeAndExportAsynchronously(16, 2, Compression.NONE);
+
+        // The output file can't be opened because it is a directory.
+        analyze(strategy, tempDir);
+        assertThrows(UncheckedIOException.class, strategy::end);
+
+        // Every write fails because the device is full.
+        final Path full = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(full));
+        analyze(strategy, full);
+        assertThrows(UncheckedIOException.class, strategy::end);
+
+        // A failure doesn't affect a restarted analysis.
+        analyze(strategy, tempDir.resolve("restarted.lg"));
+        strategy.end();
+    }
+}
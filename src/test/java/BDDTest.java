@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.Test;
+import org.prop4j.AtMost;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.BDD;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.experiments.performance.SATBenchmark;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.equivalent;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.implies;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.or;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class BDDTest {
+    private static final Node A = var("A");
+    private static final Node B = var("B");
+    private static final Node C = var("C");
+
+    @Test
+    public void equivalentFormulasAreIdentical() {
+        final BDD bdd = new BDD(BDD.DEFAULT_NODE_LIMIT);
+        assertEquals(
+                bdd.fromNode(and(A, or(B, C))),
+                bdd.fromNode(or(and(C, A), and(A, B))));
+        assertEquals(
+                bdd.fromNode(implies(A, B)),
+                bdd.fromNode(or(negate(A), B)));
+        assertEquals(BDD.TRUE, bdd.fromNode(or(A, negate(A))));
+        assertEquals(BDD.FALSE, bdd.fromNode(and(equivalent(A, B), A, negate(B))));
+        assertNotEquals(bdd.fromNode(and(A, B)), bdd.fromNode(or(A, B)));
+    }
+
+    @Test
+    public void agreesWithDNF() {
+        final Random random = new Random(7);
+        final BDD bdd = new BDD(BDD.DEFAULT_NODE_LIMIT);
+        for (int i = 0; i < 500; ++i) {
+            final Node formula = SATBenchmark.randomFormula(random, 1 + random.nextInt(20), 6);
+            assertEquals(
+                    SAT.checkSATviaDNF(FixTrueFalse.EliminateTrueAndFalse(formula)),
+                    bdd.fromNode(formula) != BDD.FALSE,
+                    formula::toString);
+        }
+    }
+
+    @Test
+    public void nodeLimit() {
+        final BDD bdd = new BDD(4);
+        assertThrows(BDD.NodeLimitExceededException.class, () -> bdd.fromNode(or(and(A, B), and(B, C), and(A, C))));
+        assertEquals(1, bdd.getNumberOfExceededLimits());
+
+        bdd.clear();
+        assertEquals(2, bdd.size());
+        assertNotEquals(BDD.FALSE, bdd.fromNode(negate(A)));
+    }
+
+    @Test
+    public void cooccurrenceOrder() {
+        final List<Object> order = BDD.orderByCooccurrence(List.of(and(A, B), and(A, C), or(A, B)));
+        assertEquals(List.of("A", "B", "C"), order);
+
+        final BDD bdd = new BDD(BDD.DEFAULT_NODE_LIMIT);
+        bdd.seedVariableOrder(order);
+        assertEquals(order, bdd.getVariableOrder());
+    }
+
+    @Test
+    public void satFallsBackWhenEnabled() {
+        SAT.setUseBDDs(true);
+        try {
+            assertTrue(SAT.equivalent(and(A, or(B, C)), or(and(A, B), and(A, C))));
+            assertTrue(SAT.implies(and(A, B), A));
+            assertFalse(SAT.implies(A, and(A, B)));
+            assertFalse(SAT.isSatisfiable(and(A, negate(A))));
+
+            // Operators unsupported by BDDs are checked by a SAT solver instead.
+            final Node atMostOne = new AtMost(1, A, B, C);
+            assertNull(SAT.checkSATviaBDD(FixTrueFalse.EliminateTrueAndFalse(atMostOne)));
+            assertFalse(SAT.isSatisfiable(and(atMostOne, A, B)));
+            assertTrue(SAT.implies(and(atMostOne, A), negate(B)));
+            assertFalse(SAT.equivalent(atMostOne, negate(A)));
+        } finally {
+            SAT.setUseBDDs(false);
+        }
+    }
+}
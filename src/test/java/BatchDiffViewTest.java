@@ -0,0 +1,153 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.view.BatchDiffView;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+import org.variantsync.diffdetective.variation.tree.view.relevance.TraceSup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class BatchDiffViewTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    /** A relevance with its own view node computation, which only includes the root. */
+    private record RootOnly() implements Relevance {
+        @Override
+        public boolean test(VariationNode<?, ?> v) {
+            return true;
+        }
+
+        @Override
+        public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, Consumer<TreeNode> markRelevant) {
+            markRelevant.accept(v);
+        }
+
+        @Override
+        public String parametersToString() {
+            return "";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "root";
+        }
+    }
+
+    private static List<Relevance> relevances(final VariationDiff<DiffLinesLabel> d) {
+        final Set<String> features = new LinkedHashSet<>();
+        final Set<String> artifacts = new LinkedHashSet<>();
+        final List<Node> deselectedPCs = new ArrayList<>();
+        d.forAll(node -> {
+            if (node.isArtifact()) {
+                artifacts.addAll(node.getLabel().getLines());
+                node.getDiffType().forAllTimesOfExistence(t -> deselectedPCs.add(negate(node.getPresenceCondition(t))));
+            } else if (node.isConditionalAnnotation()) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+
+        final List<Relevance> relevances = new ArrayList<>();
+        features.forEach(f -> relevances.add(new Trace(f)));
+        features.forEach(f -> relevances.add(new TraceSup(var(f))));
+        artifacts.forEach(a -> relevances.add(new Search(a)));
+        deselectedPCs.forEach(pc -> relevances.add(new Configure(FixTrueFalse.EliminateTrueAndFalse(pc))));
+        relevances.add(new Trace("DoesNotExist"));
+        relevances.add(new RootOnly());
+        return relevances;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain"
+    })
+    void agreesWithSingleRelevances(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+        final List<Relevance> relevances = relevances(d);
+        final BatchDiffView<DiffLinesLabel> batch = BatchDiffView.compute(d, relevances);
+        assertEquals(relevances, batch.getRelevances());
+
+        for (int i = 0; i < relevances.size(); ++i) {
+            final Relevance rho = relevances.get(i);
+            final BiPredicate<Time, Projection<DiffLinesLabel>> expected = DiffView.computeWhenNodesAreRelevant(d, rho);
+            final BiPredicate<Time, Projection<DiffLinesLabel>> actual = batch.inView(i);
+            d.forAll(node -> node.getDiffType().forAllTimesOfExistence(t -> assertEquals(
+                    expected.test(t, node.projection(t)),
+                    actual.test(t, node.projection(t)),
+                    () -> rho + " disagrees on " + node + " at " + t)));
+        }
+
+        final List<VariationDiff<DiffLinesLabel>> views = batch.optimized();
+        assertEquals(relevances.size(), views.size());
+        for (int i = 0; i < relevances.size(); ++i) {
+            assertTrue(DiffView.optimized(d, relevances.get(i)).isSameAs(views.get(i)), relevances.get(i)::toString);
+        }
+    }
+
+    @Test
+    void concurrentViewGeneration() throws IOException, DiffParseException, InterruptedException, ExecutionException {
+        final Path file = resDir.resolve("runningexampleInDomain.diff");
+        // The relevances are collected on a separate copy, so no presence condition of d is memoized.
+        final List<Relevance> relevances = relevances(VariationDiff.fromFile(file, VariationDiffParseOptions.Default));
+
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(file, VariationDiffParseOptions.Default);
+        final List<BatchDiffView<DiffLinesLabel>> batches = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            batches.add(BatchDiffView.compute(d, relevances));
+        }
+
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<List<VariationDiff<DiffLinesLabel>>>> results = new ArrayList<>();
+            for (final BatchDiffView<DiffLinesLabel> batch : batches) {
+                results.add(threads.submit(() -> batch.optimized()));
+            }
+
+            final List<List<VariationDiff<DiffLinesLabel>>> views = new ArrayList<>();
+            for (final Future<List<VariationDiff<DiffLinesLabel>>> result : results) {
+                views.add(result.get());
+            }
+
+            for (int i = 0; i < relevances.size(); ++i) {
+                final VariationDiff<DiffLinesLabel> expected = DiffView.optimized(d, relevances.get(i));
+                for (final List<VariationDiff<DiffLinesLabel>> viewsOfBatch : views) {
+                    assertTrue(expected.isSameAs(viewsOfBatch.get(i)), relevances.get(i)::toString);
+                }
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
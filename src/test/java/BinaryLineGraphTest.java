@@ -0,0 +1,94 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.serialize.*;
+import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.DefaultEdgeLabelFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.LabelOnlyDiffNodeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.CommitDiffVariationDiffLabelFormat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * For testing the binary encoding of line graphs.
+ */
+public class BinaryLineGraphTest {
+    private final static LineGraphImportOptions<DiffLinesLabel> IMPORT_OPTIONS = new LineGraphImportOptions<>(
+            GraphFormat.VARIATION_DIFF,
+            new CommitDiffVariationDiffLabelFormat(),
+            new LabelOnlyDiffNodeFormat<>(),
+            new DefaultEdgeLabelFormat<>()
+    );
+    private final static LineGraphExportOptions<DiffLinesLabel> EXPORT_OPTIONS = new LineGraphExportOptions<>(
+            IMPORT_OPTIONS
+    );
+
+    public static Stream<Path> testCases() throws IOException {
+        return Files.list(Paths.get("src/test/resources/line_graph")).filter(p -> p.toString().endsWith(".lg"));
+    }
+
+    private static byte[] export(final List<VariationDiff<DiffLinesLabel>> variationDiffs, final LineGraphEncoding encoding) throws IOException {
+        final var output = new ByteArrayOutputStream();
+        LineGraphExport.toLineGraphFormat(variationDiffs, EXPORT_OPTIONS.withEncoding(encoding), output);
+        return output.toByteArray();
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void roundTrip(Path testFile) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> variationDiffs = LineGraphImport.fromFile(testFile, IMPORT_OPTIONS);
+        final byte[] text = export(variationDiffs, LineGraphEncoding.TEXT);
+        final byte[] binary = export(variationDiffs, LineGraphEncoding.BINARY);
+        assertTrue(binary.length < text.length);
+
+        // Importing the binary encoding yields the same variation diffs.
+        final List<VariationDiff<DiffLinesLabel>> imported = LineGraphImport.fromBinaryLineGraph(
+                new ByteArrayInputStream(binary),
+                testFile,
+                IMPORT_OPTIONS.withEncoding(LineGraphEncoding.BINARY)
+        );
+        imported.forEach(VariationDiff::assertConsistency);
+        assertArrayEquals(text, export(imported, LineGraphEncoding.TEXT));
+
+        // Converting between both encodings yields the same files as exporting in each encoding.
+        final var convertedToBinary = new ByteArrayOutputStream();
+        try (var textReader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text), StandardCharsets.UTF_8))) {
+            LineGraphConverter.textToBinary(textReader, new BinaryLineGraphWriter(convertedToBinary));
+        }
+        assertArrayEquals(binary, convertedToBinary.toByteArray());
+
+        final var convertedToText = new ByteArrayOutputStream();
+        try (Writer textWriter = new OutputStreamWriter(convertedToText, StandardCharsets.UTF_8)) {
+            LineGraphConverter.binaryToText(new BinaryLineGraphReader(new ByteArrayInputStream(binary)), textWriter);
+        }
+        assertArrayEquals(text, convertedToText.toByteArray());
+
+        // Skipping trees ends at the same positions as reading them.
+        final var reading = new BinaryLineGraphReader(new ByteArrayInputStream(binary));
+        final var skipping = new BinaryLineGraphReader(new ByteArrayInputStream(binary));
+        int trees = 0;
+        while (reading.next()) {
+            assertTrue(skipping.skip());
+            assertEquals(reading.getPosition(), skipping.getPosition());
+            ++trees;
+        }
+        assertEquals(variationDiffs.size(), trees);
+        assertEquals(binary.length, reading.getPosition());
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.editclass.proposed.ProposedEditClasses;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.compact.CompactVariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactVariationDiffTest {
+    private final static Path testDir = Constants.RESOURCE_DIR.resolve("patterns");
+
+    private static VariationDiff<DiffLinesLabel> load() throws IOException, DiffParseException {
+        return VariationDiff.fromFile(testDir.resolve("elementary.diff"), new VariationDiffParseOptions(false, true));
+    }
+
+    @Test
+    public void roundTrip() throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> diff = load();
+        final CompactVariationDiff<DiffLinesLabel> compact = CompactVariationDiff.fromVariationDiff(diff);
+
+        assertEquals(diff.computeSize(), compact.size());
+        assertTrue(diff.isSameAs(compact.toVariationDiff()));
+        compact.toVariationDiff().assertConsistency();
+    }
+
+    @Test
+    public void editClassesAndPresenceConditions() throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> diff = load();
+        final List<DiffNode<DiffLinesLabel>> nodes = diff.computeAllNodes();
+        final CompactVariationDiff<DiffLinesLabel> compact = CompactVariationDiff.fromVariationDiff(diff);
+
+        compact.forAll(i -> {
+            final DiffNode<DiffLinesLabel> node = nodes.get(i);
+            assertEquals(node.getDiffType(), compact.getDiffType(i));
+            assertEquals(node.getLinesInDiff(), compact.getLinesInDiff(i));
+
+            node.getDiffType().forAllTimesOfExistence(time ->
+                    assertEquals(node.getPresenceCondition(time), compact.getPresenceCondition(i, time)));
+
+            if (node.isArtifact()) {
+                assertEquals(node.getLabel().toString(), ProposedEditClasses.Instance.match(compact, i).getName());
+            }
+        });
+    }
+
+    @Test
+    public void traversalVisitsEachNodeOnce() throws IOException, DiffParseException {
+        final CompactVariationDiff<DiffLinesLabel> compact = CompactVariationDiff.fromVariationDiff(load());
+        final int[] visits = new int[compact.size()];
+        compact.traverse((traversal, node) -> {
+            ++visits[node];
+            traversal.visitChildrenOf(node);
+        });
+
+        for (final int v : visits) {
+            assertEquals(1, v);
+        }
+    }
+}
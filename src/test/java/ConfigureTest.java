@@ -0,0 +1,109 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.FeatureModelConstraints;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.implies;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class ConfigureTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain",
+            "emacsbug1"
+    })
+    void agreesWithSAT(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+
+        final Set<String> features = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.isConditionalAnnotation()) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+
+        final List<Node> configurations = new ArrayList<>();
+        configurations.add(FixTrueFalse.True);
+        configurations.add(FixTrueFalse.False);
+        for (final String feature : features) {
+            configurations.add(var(feature));
+            configurations.add(negate(var(feature)));
+        }
+        final List<Node> literals = new ArrayList<>();
+        for (final String feature : features) {
+            literals.add(literals.size() % 2 == 0 ? var(feature) : negate(var(feature)));
+            configurations.add(and(literals.toArray(Node[]::new)));
+        }
+
+        // A constraint relating the first two features (or none if there are less).
+        final List<String> featureList = new ArrayList<>(features);
+        final Node constraint = featureList.size() < 2
+                ? FixTrueFalse.True
+                : implies(var(featureList.get(0)), negate(var(featureList.get(1))));
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(constraint);
+
+        for (final Node configuration : configurations) {
+            final Configure configure = new Configure(configuration);
+            final Configure constrained = new Configure(FixTrueFalse.EliminateTrueAndFalse(configuration), constraints);
+            for (final Time t : Time.values()) {
+                final List<Projection<DiffLinesLabel>> nodes = new ArrayList<>();
+                d.getRoot().projection(t).forAllPreorder(nodes::add);
+
+                // Nodes are tested in preorder and in reverse order within one session, so
+                // presence conditions are built from known and unknown ancestors.
+                final Configure.Session preorder = configure.newSession();
+                final Configure.Session reverse = configure.newSession();
+                final Configure.Session constrainedSession = constrained.newSession();
+                for (int i = 0; i < nodes.size(); ++i) {
+                    final Projection<DiffLinesLabel> node = nodes.get(i);
+                    final boolean expected = SAT.isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(
+                            and(configuration, node.getPresenceCondition())
+                    ));
+                    assertEquals(expected, configure.test(node), () -> configure + " on " + node);
+                    assertEquals(expected, preorder.test(node), () -> configure + " on " + node);
+                    // Tested twice to check the cached results as well.
+                    assertEquals(expected, preorder.test(node), () -> configure + " on " + node);
+
+                    final boolean expectedConstrained = SAT.isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(
+                            and(constraint, configuration, node.getPresenceCondition())
+                    ));
+                    assertEquals(expectedConstrained, constrained.test(node), () -> constrained + " on " + node);
+                    assertEquals(expectedConstrained, constrainedSession.test(node), () -> constrained + " on " + node);
+
+                    final Projection<DiffLinesLabel> reverseNode = nodes.get(nodes.size() - 1 - i);
+                    assertEquals(
+                            SAT.isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(and(configuration, reverseNode.getPresenceCondition()))),
+                            reverse.test(reverseNode),
+                            () -> configure + " on " + reverseNode);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.DiffNodeArena;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiffNodeArenaTest {
+    private final static Path testDir = Constants.RESOURCE_DIR.resolve("patterns");
+
+    @Test
+    public void recycledNodesYieldEqualDiffs() throws IOException, DiffParseException {
+        final VariationDiffParseOptions options = new VariationDiffParseOptions(false, true);
+        final DiffNodeArena arena = DiffNodeArena.forCurrentThread();
+
+        // Parse twice to ensure that the second parse reuses the nodes of the first one.
+        for (int i = 0; i < 2; ++i) {
+            final String patch = Files.readString(testDir.resolve("elementary.diff"));
+            final VariationDiff<DiffLinesLabel> expected = VariationDiffParser.createVariationDiff(patch, options);
+
+            final DiffNodeArena.Region region = arena.newRegion();
+            final VariationDiff<DiffLinesLabel> actual = VariationDiffParser.createVariationDiff(patch, options, region);
+            actual.assertConsistency();
+            assertSame(expected, actual);
+
+            region.release();
+            assertThrows(IllegalStateException.class, region::newLabel);
+        }
+
+        assertTrue(arena.getReusedNodes() > 0);
+    }
+
+    /**
+     * Compares node by node because labels do not implement structural equality.
+     */
+    private static void assertSame(VariationDiff<DiffLinesLabel> expected, VariationDiff<DiffLinesLabel> actual) {
+        final List<DiffNode<DiffLinesLabel>> expectedNodes = expected.computeAllNodes();
+        final List<DiffNode<DiffLinesLabel>> actualNodes = actual.computeAllNodes();
+        assertEquals(expectedNodes.size(), actualNodes.size());
+
+        for (int i = 0; i < expectedNodes.size(); ++i) {
+            final DiffNode<DiffLinesLabel> e = expectedNodes.get(i);
+            final DiffNode<DiffLinesLabel> a = actualNodes.get(i);
+            assertEquals(e.toString(), a.toString());
+            assertEquals(e.getFormula(), a.getFormula());
+            assertEquals(e.getLabel().getDiffLines(), a.getLabel().getDiffLines());
+            for (final Time time : Time.values()) {
+                assertEquals(
+                        e.getChildOrder(time).stream().map(expectedNodes::indexOf).toList(),
+                        a.getChildOrder(time).stream().map(actualNodes::indexOf).toList());
+            }
+        }
+    }
+}
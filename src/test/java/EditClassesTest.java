@@ -1,4 +1,5 @@
 import org.junit.jupiter.api.Test;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
@@ -17,12 +18,17 @@ public class EditClassesTest {
     public void testAtomics() throws IOException, DiffParseException {
         final Path path = testDir.resolve("elementary.diff");
         final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(path, new VariationDiffParseOptions(false, true));
+        final SolverSession session = new SolverSession();
         t.forAll(node -> {
             if (node.isArtifact()) {
                 assertEquals(
                         node.getLabel().toString(),
                         ProposedEditClasses.Instance.match(node).getName()
                 );
+                assertEquals(
+                        node.getLabel().toString(),
+                        ProposedEditClasses.Instance.match(node, session).getName()
+                );
             }
         });
     }
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import org.prop4j.AtMost;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.FeatureModelConstraints;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
+import org.variantsync.diffdetective.experiments.performance.SATBenchmark;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.implies;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.or;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class FeatureModelConstraintsTest {
+    private static final Node A = var("A");
+    private static final Node B = var("B");
+    private static final Node C = var("C");
+
+    @Test
+    public void queriesRespectConstraints() {
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(and(implies(A, B), or(B, C)));
+        assertEquals(2, constraints.getNumberOfClauses());
+        assertEquals(3, constraints.getNumberOfVariables());
+
+        assertTrue(SAT.isSatisfiable(and(A, negate(B))));
+        assertFalse(constraints.isSatisfiable(and(A, negate(B))));
+        assertFalse(constraints.isSatisfiable(and(negate(B), negate(C))));
+        assertTrue(constraints.isSatisfiable(and(A, var("D"))));
+
+        assertFalse(SAT.implies(A, B));
+        assertTrue(constraints.implies(A, B));
+        assertTrue(constraints.equivalent(negate(B), and(C, negate(B))));
+        assertFalse(constraints.implies(B, A));
+    }
+
+    @Test
+    public void sessionsShareConstraints() {
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(implies(A, B));
+        final SolverSession constrained = new SolverSession(constraints);
+        final SolverSession unconstrained = new SolverSession();
+        for (int i = 0; i < 2; ++i) {
+            assertTrue(constrained.implies(and(A, C), B));
+            assertFalse(unconstrained.implies(and(A, C), B));
+        }
+    }
+
+    @Test
+    public void unsatisfiableConstraints() {
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(and(A, negate(A)));
+        assertFalse(constraints.isSatisfiable(FixTrueFalse.True));
+        assertFalse(constraints.isSatisfiable(B));
+        assertTrue(constraints.implies(B, C));
+    }
+
+    @Test
+    public void agreesWithConjunction() {
+        final Random random = new Random(11);
+        final Node model = SATBenchmark.randomFormula(random, 6, 4);
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(model);
+        for (int i = 0; i < 300; ++i) {
+            final Node formula = SATBenchmark.randomFormula(random, 1 + random.nextInt(12), 4);
+            assertEquals(
+                    SAT.isSatisfiable(and(model, formula)),
+                    constraints.isSatisfiable(formula),
+                    formula::toString);
+        }
+    }
+
+    @Test
+    public void nonCNFConstraintsAreEncodedLinearly() {
+        // The CNF of this disjunction has 2^40 clauses.
+        final int n = 40;
+        final List<Node> terms = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            terms.add(and(var("X" + i), var("Y" + i)));
+        }
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(or(terms.toArray(Node[]::new)));
+        assertEquals(2 * n, constraints.getNumberOfVariables());
+        assertEquals(n, constraints.getNumberOfAuxiliaryVariables());
+        assertEquals(2 * n + 1, constraints.getNumberOfClauses());
+
+        final List<Node> noneButLast = new ArrayList<>();
+        for (int i = 0; i < n - 1; ++i) {
+            noneButLast.add(negate(var("X" + i)));
+        }
+        final Node allButLastDeselected = and(noneButLast.toArray(Node[]::new));
+        assertTrue(constraints.implies(allButLastDeselected, and(var("X" + (n - 1)), var("Y" + (n - 1)))));
+        assertFalse(constraints.isSatisfiable(and(allButLastDeselected, negate(var("Y" + (n - 1))))));
+        assertTrue(constraints.isSatisfiable(and(negate(var("X0")), negate(var("Y1")))));
+    }
+
+    @Test
+    public void cardinalityConstraints() {
+        // an alternative group as created for feature models
+        final FeatureModelConstraints constraints = new FeatureModelConstraints(and(
+                implies(A, or(B, C, var("D"))),
+                new AtMost(1, B, C, var("D"))
+        ));
+        assertTrue(constraints.isSatisfiable(and(A, C)));
+        assertFalse(constraints.isSatisfiable(and(B, C)));
+        assertTrue(constraints.implies(and(A, negate(B), negate(C)), var("D")));
+    }
+}
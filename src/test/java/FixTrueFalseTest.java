@@ -1,5 +1,7 @@
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.prop4j.AtMost;
 import org.prop4j.Literal;
 import org.prop4j.Node;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
@@ -7,6 +9,7 @@ import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.variantsync.diffdetective.util.fide.FixTrueFalse.False;
 import static org.variantsync.diffdetective.util.fide.FixTrueFalse.True;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
@@ -60,4 +63,35 @@ public class FixTrueFalseTest {
     public void test(TestCase testCase) {
         assertEquals(FixTrueFalse.EliminateTrueAndFalse(testCase.formula).get(), testCase.expectedResult);
     }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void inputRemainsUnchanged(TestCase testCase) {
+        final Node copy = testCase.formula.clone();
+        FixTrueFalse.EliminateTrueAndFalse(testCase.formula);
+        assertEquals(copy, testCase.formula);
+        assertEquals(
+                FixTrueFalse.EliminateTrueAndFalseInplace(copy).get(),
+                FixTrueFalse.EliminateTrueAndFalse(testCase.formula).get());
+    }
+
+    @Test
+    public void sharesSubformulas() {
+        assertSame(SomeIrreducible, FixTrueFalse.EliminateTrueAndFalse(SomeIrreducible).get());
+
+        final Node result = FixTrueFalse.EliminateTrueAndFalse(or(and(SomeIrreducible, True), C)).get();
+        assertEquals(or(SomeIrreducible, C), result);
+        assertSame(SomeIrreducible, result.getChildren()[0]);
+    }
+
+    @Test
+    public void copiesOtherOperatorsShallowly() {
+        final Node atMost = new AtMost(1, SomeIrreducible, and(True, C));
+        final Node result = FixTrueFalse.EliminateTrueAndFalse(atMost).get();
+
+        assertEquals(new AtMost(1, SomeIrreducible, C), result);
+        assertEquals(1, ((AtMost) result).max);
+        assertSame(SomeIrreducible, result.getChildren()[0]);
+        assertEquals(new AtMost(1, SomeIrreducible, and(True, C)), atMost);
+    }
 }
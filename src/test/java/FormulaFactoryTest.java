@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.FormulaFactory;
+import org.variantsync.diffdetective.analysis.logic.InternedFormula;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.implies;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.or;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class FormulaFactoryTest {
+    private static final Node A = var("A");
+    private static final Node B = var("B");
+    private static final Node C = var("C");
+
+    @Test
+    public void structurallyEqualFormulasAreIdentical() {
+        final FormulaFactory f = new FormulaFactory();
+
+        final InternedFormula x = f.fromNode(and(A, or(B, negate(C))));
+        final InternedFormula y = f.fromNode(and(or(negate(C), B), var("A")));
+        assertSame(x, y);
+        assertEquals(x.hashCode(), y.hashCode());
+
+        assertSame(f.fromNode(A), f.fromNode(and(A, A)));
+        assertSame(f.fromNode(A), f.fromNode(negate(negate(A))));
+        assertSame(f.fromNode(and(A, B, C)), f.fromNode(and(A, and(B, C))));
+        assertNotSame(f.fromNode(and(A, B)), f.fromNode(or(A, B)));
+    }
+
+    @Test
+    public void lookupsDontConsumeIds() {
+        final FormulaFactory f = new FormulaFactory();
+
+        final InternedFormula x = f.fromNode(and(A, or(B, negate(C))));
+        for (int i = 0; i < 1000; ++i) {
+            assertSame(x, f.fromNode(and(A, or(B, negate(C)))));
+        }
+
+        // Every formula created so far has a dense id (true, false, A, B, C, -C, B | -C and x).
+        assertEquals(7, x.getId());
+        final InternedFormula y = f.and(x, f.variable("D"));
+        assertEquals(9, y.getId());
+        assertTrue(x.getId() < y.getId());
+    }
+
+    @Test
+    public void constantsAreFolded() {
+        final FormulaFactory f = new FormulaFactory();
+
+        assertSame(f.True, f.fromNode(or(A, negate(A))));
+        assertSame(f.False, f.fromNode(and(A, FixTrueFalse.False)));
+        assertSame(f.fromNode(B), f.fromNode(and(B, FixTrueFalse.True, var("1"))));
+        assertSame(f.True, f.fromNode(implies(A, A)));
+        assertEquals(0, f.False.numberOfLiterals());
+    }
+
+    @Test
+    public void conversionToProp4jPreservesSemantics() {
+        final FormulaFactory f = new FormulaFactory();
+        final Node formula = and(A, or(implies(B, C), negate(and(A, C))));
+        final InternedFormula interned = f.fromNode(formula);
+
+        assertTrue(SAT.equivalent(formula, interned.toNode()));
+        assertSame(interned, f.fromNode(interned.toNode()));
+        assertEquals(3, f.getNumberOfVariables());
+        assertEquals("A", f.getVariableName(f.getVariableId("A")));
+        assertTrue(SAT.implies(interned, f.variable("A")));
+        assertFalse(SAT.equivalent(interned, f.variable("B")));
+    }
+
+    @Test
+    public void formulasOfOtherFactoriesAreRejected() {
+        final FormulaFactory f = new FormulaFactory();
+        final FormulaFactory g = new FormulaFactory();
+        assertThrows(IllegalArgumentException.class, () -> f.and(f.variable("A"), g.variable("A")));
+    }
+}
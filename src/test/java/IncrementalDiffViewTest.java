@@ -0,0 +1,95 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.diff.view.IncrementalDiffView;
+import org.variantsync.diffdetective.variation.tree.view.relevance.AnyOf;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class IncrementalDiffViewTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    private static void assertIsViewOf(
+            final VariationDiff<DiffLinesLabel> d,
+            final Relevance rho,
+            final IncrementalDiffView<DiffLinesLabel> view
+    ) {
+        view.getView().assertConsistency();
+        assertTrue(DiffView.optimized(d, rho).isSameAs(view.getView()), rho::toString);
+        assertEquals(rho.toString(), view.getRelevance().toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain"
+    })
+    void agreesWithRecomputation(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+
+        final Set<String> features = new LinkedHashSet<>();
+        final Set<String> artifacts = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.isArtifact()) {
+                artifacts.addAll(node.getLabel().getLines());
+            } else if (node.isConditionalAnnotation()) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+
+        final IncrementalDiffView<DiffLinesLabel> view = new IncrementalDiffView<>(d, new Trace("DoesNotExist"));
+        assertIsViewOf(d, new Trace("DoesNotExist"), view);
+
+        // Trace one feature after another.
+        Relevance traced = view.getRelevance();
+        for (final String feature : features) {
+            view.extend(new Trace(feature));
+            traced = new AnyOf(List.of(traced, new Trace(feature)));
+            assertIsViewOf(d, traced, view);
+        }
+        assertEquals(0, view.update(traced));
+
+        // Switch to searches.
+        for (final String artifact : artifacts) {
+            view.update(new Search(artifact));
+            assertIsViewOf(d, new Search(artifact), view);
+        }
+
+        // Strengthen a configuration step by step.
+        final List<Node> literals = new ArrayList<>();
+        view.update(new Configure(FixTrueFalse.True));
+        assertIsViewOf(d, new Configure(FixTrueFalse.True), view);
+        for (final String feature : features) {
+            literals.add(literals.size() % 2 == 0 ? var(feature) : negate(var(feature)));
+            final Configure stronger = new Configure(FixTrueFalse.EliminateTrueAndFalse(and(literals.toArray(Node[]::new))));
+            view.restrict(stronger);
+            assertIsViewOf(d, stronger, view);
+        }
+    }
+}
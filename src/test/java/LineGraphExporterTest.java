@@ -0,0 +1,116 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.mining.formats.DebugMiningDiffNodeFormat;
+import org.variantsync.diffdetective.mining.formats.DirectedEdgeLabelFormat;
+import org.variantsync.diffdetective.mining.formats.ReleaseMiningDiffNodeFormat;
+import org.variantsync.diffdetective.util.StringUtils;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.serialize.Format;
+import org.variantsync.diffdetective.variation.diff.serialize.GraphFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.LineGraphExport;
+import org.variantsync.diffdetective.variation.diff.serialize.LineGraphExportOptions;
+import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.ChildOrderEdgeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.DefaultEdgeLabelFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.EdgeLabelFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.FullNodeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.LabelOnlyDiffNodeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.LineNumberFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.RenameRootNodeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.TypeDiffNodeFormat;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.IndexedTreeFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * For testing that the text line graph export produces exactly the same bytes as printing each
+ * line with a {@link PrintStream}.
+ */
+public class LineGraphExporterTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    private static final String NON_ASCII_DIFF = """
+             #if A
+            -  int größe = 0; // ∀ 😀
+            +  int groesse = 0; // \uD800
+             #endif
+            """;
+
+    public static Stream<LineGraphExportOptions<DiffLinesLabel>> formats() {
+        final var treeFormat = new IndexedTreeFormat();
+        final var miningNodeFormat = new ReleaseMiningDiffNodeFormat();
+        return Stream.of(
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, new LabelOnlyDiffNodeFormat<>(), new DefaultEdgeLabelFormat<>()),
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, new FullNodeFormat(), new ChildOrderEdgeFormat<>()),
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, new TypeDiffNodeFormat<>(), new ChildOrderEdgeFormat<>()),
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, new RenameRootNodeFormat<>(new LineNumberFormat<>()), new DefaultEdgeLabelFormat<>()),
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, new DebugMiningDiffNodeFormat(), new DirectedEdgeLabelFormat(new DebugMiningDiffNodeFormat(), true, EdgeLabelFormat.Direction.ChildToParent)),
+                new LineGraphExportOptions<>(GraphFormat.VARIATION_DIFF, treeFormat, miningNodeFormat, new DirectedEdgeLabelFormat(miningNodeFormat, false, EdgeLabelFormat.Direction.ParentToChild))
+        );
+    }
+
+    private static List<VariationDiff<DiffLinesLabel>> variationDiffs() throws IOException, DiffParseException {
+        final List<VariationDiff<DiffLinesLabel>> variationDiffs = new ArrayList<>();
+        try (var files = Files.list(resDir)) {
+            for (final Path file : files.sorted().toList()) {
+                variationDiffs.add(VariationDiff.fromFile(file, VariationDiffParseOptions.Default));
+            }
+        }
+        variationDiffs.add(VariationDiff.fromDiff(NON_ASCII_DIFF, VariationDiffParseOptions.Default));
+        return variationDiffs;
+    }
+
+    /**
+     * The text export as it was implemented with a {@link PrintStream} for each tree.
+     */
+    private static byte[] printLineGraph(final List<VariationDiff<DiffLinesLabel>> variationDiffs, final LineGraphExportOptions<DiffLinesLabel> options) {
+        final var format = new Format<>(options.nodeFormat(), options.edgeFormat());
+        final var output = new ByteArrayOutputStream();
+
+        for (final VariationDiff<DiffLinesLabel> variationDiff : variationDiffs) {
+            output.writeBytes((options.treeFormat().toLineGraphLine(variationDiff.getSource()) + StringUtils.LINEBREAK).getBytes());
+
+            final var printStream = new PrintStream(output);
+            format.forEachNode(variationDiff, node ->
+                    printStream.println("v " + node.getID() + " " + options.nodeFormat().toLabel(node))
+            );
+            format.forEachEdge(variationDiff, edge -> {
+                printStream.print("e " + edge.from().getID() + " " + edge.to().getID() + " ");
+                printStream.print(edge.style().lineGraphType());
+                printStream.print(options.edgeFormat().labelOf(edge));
+                printStream.println();
+            });
+            printStream.flush();
+
+            output.writeBytes((StringUtils.LINEBREAK + StringUtils.LINEBREAK).getBytes());
+        }
+
+        return output.toByteArray();
+    }
+
+    @ParameterizedTest
+    @MethodSource("formats")
+    public void sameBytesAsPrinting(LineGraphExportOptions<DiffLinesLabel> options) throws IOException, DiffParseException {
+        final List<VariationDiff<DiffLinesLabel>> variationDiffs = variationDiffs();
+
+        final var treeFormat = (IndexedTreeFormat) options.treeFormat();
+
+        treeFormat.reset();
+        final var exported = new ByteArrayOutputStream();
+        LineGraphExport.toLineGraphFormat(variationDiffs, options, exported);
+
+        treeFormat.reset();
+        assertArrayEquals(printLineGraph(variationDiffs, options), exported.toByteArray());
+    }
+}
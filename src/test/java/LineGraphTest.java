@@ -1,6 +1,7 @@
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.mining.postprocessing.Postprocessor;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.serialize.*;
@@ -9,9 +10,11 @@ import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.LabelOn
 import org.variantsync.diffdetective.variation.diff.serialize.treeformat.CommitDiffVariationDiffLabelFormat;
 import org.variantsync.diffdetective.util.IO;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -67,6 +70,38 @@ public class LineGraphTest {
         }
     }
 
+    /**
+     * Test that lazily importing line graphs in parallel yields the same trees in the same order.
+     */
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void lazyImport(Path testFile) throws IOException {
+        final List<VariationDiff<DiffLinesLabel>> expected = LineGraphImport.fromFile(testFile, IMPORT_OPTIONS);
+        final List<VariationDiff<DiffLinesLabel>> actual;
+        try (var variationDiffs = LineGraphImport.streamFiles(List.of(testFile, testFile), IMPORT_OPTIONS)) {
+            actual = variationDiffs.toList();
+        }
+        assertConsistencyForAll(actual);
+
+        final String expectedLineGraph = toLineGraph(expected);
+        assertEquals(expectedLineGraph + expectedLineGraph, toLineGraph(actual));
+
+        // Postprocessing a parallel stream counts the same filtered trees as postprocessing a list.
+        final Postprocessor.Result<DiffLinesLabel> expectedResult = Postprocessor.<DiffLinesLabel>Default().postprocess(expected);
+        final Postprocessor.Result<DiffLinesLabel> actualResult;
+        try (var variationDiffs = LineGraphImport.streamFiles(List.of(testFile), IMPORT_OPTIONS)) {
+            actualResult = Postprocessor.<DiffLinesLabel>Default().postprocess(variationDiffs);
+        }
+        assertEquals(expectedResult.filterCounts(), actualResult.filterCounts());
+        assertEquals(toLineGraph(expectedResult.processedTrees()), toLineGraph(actualResult.processedTrees()));
+    }
+
+    private static String toLineGraph(final List<VariationDiff<DiffLinesLabel>> variationDiffs) throws IOException {
+        final var output = new ByteArrayOutputStream();
+        LineGraphExport.toLineGraphFormat(variationDiffs, EXPORT_OPTIONS, output);
+        return output.toString();
+    }
+
     /**
      * Check consistency of {@link VariationDiff VariationDiffs}.
      *
@@ -1,18 +1,29 @@
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.prop4j.Node;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.UniqueViewsAlgorithm;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
@@ -93,4 +104,79 @@ public class PCTest {
            }
         });
     }
+
+    @Test
+    public void memoizedPresenceConditionsAreInvalidated() throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(testDir.resolve(a.file), new VariationDiffParseOptions(false, true));
+        final DiffNode<DiffLinesLabel> node = t.computeAllNodesThat(n -> n.isArtifact() && n.getLabel().toString().trim().equals("1")).get(0);
+
+        final Node pc = node.getPresenceCondition(AFTER);
+        assertTrue(SAT.equivalent(pc, and(A, B)));
+        assertSame(pc, node.getPresenceCondition(AFTER));
+
+        node.drop(AFTER);
+        t.getRoot().addChild(node, AFTER);
+        assertTrue(SAT.equivalent(node.getPresenceCondition(AFTER), FixTrueFalse.True));
+        assertTrue(SAT.equivalent(node.getPresenceCondition(BEFORE), A));
+    }
+
+    @Test
+    public void memoizedPresenceConditionsAreInvalidatedPerTree() throws Exception {
+        final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(testDir.resolve(a.file), new VariationDiffParseOptions(false, true));
+        final DiffNode<DiffLinesLabel> node = t.computeAllNodesThat(n -> n.isArtifact() && n.getLabel().toString().trim().equals("1")).get(0);
+        final Node pc = node.getPresenceCondition(AFTER);
+
+        // Parsing, copying and modifying other diffs keeps the memo.
+        final VariationDiff<DiffLinesLabel> copy = t.deepCopy();
+        copy.computeArtifactNodes().get(0).drop();
+        VariationDiff.fromFile(testDir.resolve(a.file), new VariationDiffParseOptions(false, true));
+        assertSame(pc, node.getPresenceCondition(AFTER));
+
+        // Modifications on other threads invalidate the memo.
+        final Thread modifier = new Thread(() -> {
+            node.drop(AFTER);
+            t.getRoot().addChild(node, AFTER);
+        });
+        modifier.start();
+        modifier.join();
+        assertTrue(SAT.equivalent(node.getPresenceCondition(AFTER), FixTrueFalse.True));
+    }
+
+    @Test
+    public void uniqueViewsDontModifyMemoizedPresenceConditions() throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(testDir.resolve(a.file), new VariationDiffParseOptions(false, true));
+        final Map<DiffNode<DiffLinesLabel>, String> presenceConditions = new HashMap<>();
+        t.forAll(node -> presenceConditions.put(node, node.getPresenceCondition(node.getDiffType().existsAtTime(AFTER) ? AFTER : BEFORE).toString()));
+
+        UniqueViewsAlgorithm.getUniquePartialConfigs(t, false);
+
+        t.forAll(node -> assertEquals(
+                presenceConditions.get(node),
+                node.getPresenceCondition(node.getDiffType().existsAtTime(AFTER) ? AFTER : BEFORE).toString()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void evaluatePresenceConditions(final TestCase testCase) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(testDir.resolve(testCase.file), new VariationDiffParseOptions(false, true));
+        final List<String> features = List.of("A", "B", "C", "D", "E");
+        final ConfigurationMatrix configurations = ConfigurationMatrix.random(features, 100, new Random(0));
+
+        for (final Time time : Time.values()) {
+            final Map<DiffNode<DiffLinesLabel>, BitSet> presenceConditions = t.evaluatePresenceConditions(time, configurations);
+            assertEquals(t.count(node -> node.getDiffType().existsAtTime(time)), presenceConditions.size());
+
+            presenceConditions.forEach((node, pc) -> {
+                for (int i = 0; i < configurations.size(); ++i) {
+                    final Map<Object, Boolean> assignment = new HashMap<>();
+                    assignment.put(FixTrueFalse.True.var, true);
+                    assignment.put(FixTrueFalse.False.var, false);
+                    for (final String feature : features) {
+                        assignment.put(feature, configurations.isSelected(i, feature));
+                    }
+                    assertEquals(node.getPresenceCondition(time).getValue(assignment), pc.get(i), node::toString);
+                }
+            });
+        }
+    }
 }
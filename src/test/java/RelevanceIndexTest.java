@@ -0,0 +1,79 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.VariationNode;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.RelevanceIndex;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RelevanceIndexTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    private static <T extends VariationNode<T, ?>> void assertSameViewNodes(final Relevance rho, final T v) {
+        final Set<T> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Relevance.computeViewNodesCheckAll(rho, v, expected::add);
+
+        final Set<T> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+        rho.computeViewNodes(v, RelevanceIndex.of(v), actual::add);
+
+        assertEquals(expected, actual, () -> rho + " below " + v);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain",
+            "emacsbug1"
+    })
+    void agreesWithCheckingAllNodes(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+
+        final Set<String> features = new LinkedHashSet<>();
+        final Set<String> artifacts = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.isArtifact()) {
+                artifacts.addAll(node.getLabel().getLines());
+            } else if (node.getFormula() != null) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+
+        final List<Relevance> relevances = new ArrayList<>();
+        features.forEach(f -> relevances.add(new Trace(f)));
+        artifacts.forEach(a -> relevances.add(new Search(a)));
+        relevances.add(new Trace("DoesNotExist"));
+        relevances.add(new Search("DoesNotExist"));
+
+        for (final Time t : Time.values()) {
+            // Query the whole projection as well as each of its subtrees.
+            final List<Projection<DiffLinesLabel>> roots = new ArrayList<>();
+            d.getRoot().projection(t).forAllPreorder(roots::add);
+            for (final Relevance rho : relevances) {
+                for (final Projection<DiffLinesLabel> root : roots) {
+                    assertSameViewNodes(rho, root);
+                }
+                assertSameViewNodes(rho, d.project(t).root());
+            }
+        }
+    }
+}
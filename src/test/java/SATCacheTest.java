@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SATCache;
+import org.variantsync.diffdetective.analysis.logic.SATCache.Query;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.equivalent;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.or;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class SATCacheTest {
+    private static final Node A = var("A");
+    private static final Node B = var("B");
+    private static final Node C = var("C");
+
+    @Test
+    public void canonicalFormIgnoresOperandOrder() {
+        assertEquals(
+                FormulaUtils.canonicalForm(and(A, or(B, C), negate(C))),
+                FormulaUtils.canonicalForm(and(negate(C), and(or(C, B), A))));
+        assertEquals(
+                FormulaUtils.canonicalForm(equivalent(A, or(B, B))),
+                FormulaUtils.canonicalForm(equivalent(B, A)));
+        assertNotEquals(
+                FormulaUtils.canonicalForm(and(A, B)),
+                FormulaUtils.canonicalForm(or(A, B)));
+        assertNotEquals(
+                FormulaUtils.canonicalForm(A),
+                FormulaUtils.canonicalForm(negate(A)));
+    }
+
+    @Test
+    public void canonicalFormIsUnambiguous() {
+        // Variable names containing the syntax of the canonical form must not be confused with operators.
+        assertNotEquals(
+                FormulaUtils.canonicalForm(and(var("A,1:B"))),
+                FormulaUtils.canonicalForm(and(A, B)));
+        assertNotEquals(
+                FormulaUtils.canonicalForm(new Literal("-A", true)),
+                FormulaUtils.canonicalForm(negate(A)));
+    }
+
+    @Test
+    public void cacheCountsHitsAndMisses() {
+        final SATCache cache = new SATCache(16);
+        final AtomicInteger solverCalls = new AtomicInteger();
+
+        for (int i = 0; i < 3; ++i) {
+            assertTrue(cache.isSatisfiable(Query.SATISFIABLE, and(A, B), () -> solverCalls.incrementAndGet() > 0));
+            assertTrue(cache.isSatisfiable(Query.IMPLIES, and(B, A), () -> solverCalls.incrementAndGet() > 0));
+        }
+
+        assertEquals(1, solverCalls.get());
+        final SATCache.Statistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getHits(Query.SATISFIABLE));
+        assertEquals(1, statistics.getMisses(Query.SATISFIABLE));
+        assertEquals(3, statistics.getHits(Query.IMPLIES));
+        assertEquals(0, statistics.getMisses(Query.IMPLIES));
+        assertEquals(5.0 / 6.0, statistics.getHitRate(), 1e-9);
+
+        final SATCache.Statistics parsed = new SATCache.Statistics();
+        final LinkedHashMap<String, String> snapshot = new LinkedHashMap<>();
+        for (final Map.Entry<String, ?> entry : statistics.snapshot().entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().toString());
+        }
+        parsed.setFromSnapshot(snapshot);
+        parsed.append(statistics);
+        assertEquals(4, parsed.getHits(Query.SATISFIABLE));
+        assertEquals(6, parsed.getHits(Query.IMPLIES));
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        final SATCache cache = new SATCache(8);
+        for (int i = 0; i < 100; ++i) {
+            cache.isSatisfiable(Query.SATISFIABLE, var("V" + i), () -> true);
+            assertTrue(cache.size() <= cache.getCapacity());
+        }
+        assertTrue(cache.getStatistics().getEvictions() > 0);
+    }
+
+    @Test
+    public void smallSessionQueriesUseCache() {
+        final Node left = and(A, or(B, negate(C)));
+        final Node right = or(A, C);
+
+        final SolverSession first = new SolverSession();
+        assertEquals(SAT.implies(left, right), first.implies(left, right));
+        assertEquals(SAT.isSatisfiable(and(left, negate(right))), first.isSatisfiable(and(left, negate(right))));
+
+        // A new session answers the same small queries from the cache without starting a solver.
+        final SolverSession second = new SolverSession();
+        assertEquals(SAT.implies(left, right), second.implies(left, right));
+        assertEquals(SAT.isSatisfiable(and(left, negate(right))), second.isSatisfiable(and(left, negate(right))));
+        assertEquals(0, second.getNumberOfQueries());
+    }
+}
@@ -1,14 +1,32 @@
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.prop4j.AtLeast;
+import org.prop4j.AtMost;
+import org.prop4j.Choose;
 import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.CompiledFormula;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
+import org.variantsync.diffdetective.analysis.logic.FormulaFactory;
+import org.variantsync.diffdetective.analysis.logic.PlaistedGreenbaum;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.SATPortfolio;
+import org.variantsync.diffdetective.analysis.logic.SemanticFingerprint;
+import org.variantsync.diffdetective.analysis.logic.SolverSession;
 import org.variantsync.diffdetective.analysis.logic.Tseytin;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.equivalent;
@@ -22,6 +40,8 @@ public class SATTest {
     private static final Node B = var("B");
     private static final Node C = var("C");
     private static final Node D = var("D");
+    /** Shared by all tests to check that queries do not influence each other. */
+    private static final SolverSession session = new SolverSession();
 
     public static List<Node> tautologyTestCases() {
         return List.of(
@@ -64,6 +84,14 @@ public class SATTest {
         return SAT.checkSATviaSat4J(FixTrueFalse.EliminateTrueAndFalse(Tseytin.toEquivalentCNF(formula)));
     }
 
+    public static boolean isSatisfiablePlaistedGreenbaum(final Node formula) {
+        return PlaistedGreenbaum.isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(formula));
+    }
+
+    public static boolean isSatisfiableLazyDNF(final Node formula) {
+        return SAT.checkSATviaLazyDNF(FixTrueFalse.EliminateTrueAndFalse(formula), Integer.MAX_VALUE);
+    }
+
     public static boolean isSatisfiableDNF(final Node formula) {
         return SAT.checkSATviaDNF(FixTrueFalse.EliminateTrueAndFalse(formula));
     }
@@ -75,6 +103,10 @@ public class SATTest {
         assertTrue(isSatisfiableDNF(formula), formula.toString());
         assertTrue(isSatisfiableNoTseytin(formula), formula.toString());
         assertTrue(isSatisfiableAlwaysTseytin(formula), formula.toString());
+        assertTrue(isSatisfiablePlaistedGreenbaum(formula), formula.toString());
+        assertTrue(isSatisfiableLazyDNF(formula), formula.toString());
+        assertTrue(SAT.isSatisfiable(FormulaFactory.Default.fromNode(formula)), formula.toString());
+        assertTrue(session.isSatisfiable(formula), formula.toString());
     }
 
     @ParameterizedTest
@@ -97,6 +129,12 @@ public class SATTest {
                 isSatisfiableAlwaysTseytin(no),
                 "Expected SAT(tseytin(" + no + ")) = SAT(" + Tseytin.toEquisatisfiableCNF(no) + ") = false but got true."
         );
+        assertFalse(isSatisfiablePlaistedGreenbaum(no), no.toString());
+        assertFalse(isSatisfiableLazyDNF(no), no.toString());
+        assertTrue(SAT.isTautology(FormulaFactory.Default.fromNode(formula)), formula.toString());
+        assertFalse(session.isSatisfiable(no), no.toString());
+        assertTrue(session.implies(FixTrueFalse.True, formula), formula.toString());
+        assertTrue(session.equivalent(formula, FixTrueFalse.True), formula.toString());
     }
 
     @ParameterizedTest
@@ -106,5 +144,157 @@ public class SATTest {
         assertFalse(isSatisfiableDNF(formula), formula.toString());
         assertFalse(isSatisfiableNoTseytin(formula), formula.toString());
         assertFalse(isSatisfiableAlwaysTseytin(formula), formula.toString());
+        assertFalse(isSatisfiablePlaistedGreenbaum(formula), formula.toString());
+        assertFalse(isSatisfiableLazyDNF(formula), formula.toString());
+        assertFalse(SAT.isSatisfiable(FormulaFactory.Default.fromNode(formula)), formula.toString());
+        assertFalse(session.isSatisfiable(formula), formula.toString());
+        assertTrue(session.implies(formula, A), formula.toString());
+    }
+
+    private static Node randomFormula(final Random random, final int literals) {
+        if (literals == 1) {
+            final Node literal = var("F" + random.nextInt(4));
+            return random.nextBoolean() ? negate(literal) : literal;
+        }
+
+        final int left = 1 + random.nextInt(literals - 1);
+        final Node a = randomFormula(random, left);
+        final Node b = randomFormula(random, literals - left);
+        return switch (random.nextInt(5)) {
+            case 0 -> negate(and(a, b));
+            case 1 -> or(a, b);
+            case 2 -> implies(a, b);
+            case 3 -> equivalent(a, b);
+            default -> and(a, b);
+        };
+    }
+
+    @Test
+    public void testPlaistedGreenbaumAgreesWithDNF() {
+        final Random random = new Random(0);
+        for (int i = 0; i < 500; ++i) {
+            final Node formula = randomFormula(random, 1 + random.nextInt(8));
+            assertEquals(isSatisfiableDNF(formula), isSatisfiablePlaistedGreenbaum(formula), formula.toString());
+            assertEquals(isSatisfiableDNF(formula), isSatisfiableLazyDNF(formula), formula.toString());
+        }
+    }
+
+    /** Wraps random formulas into cardinality operators, which are supported by prop4j. */
+    private static Node randomCardinalityFormula(final Random random) {
+        final Node[] operands = new Node[2 + random.nextInt(3)];
+        for (int j = 0; j < operands.length; ++j) {
+            operands[j] = randomFormula(random, 1 + random.nextInt(3));
+        }
+        final int k = random.nextInt(operands.length);
+        final Node cardinality = switch (random.nextInt(3)) {
+            case 0 -> new AtMost(k, operands);
+            case 1 -> new AtLeast(k, operands);
+            default -> new Choose(k, operands);
+        };
+        return switch (random.nextInt(3)) {
+            case 0 -> cardinality;
+            case 1 -> negate(cardinality);
+            default -> and(randomFormula(random, 2), cardinality);
+        };
+    }
+
+    @Test
+    public void testPlaistedGreenbaumSupportsCardinalities() {
+        final Random random = new Random(2);
+        for (int i = 0; i < 300; ++i) {
+            final Node formula = randomCardinalityFormula(random);
+            assertEquals(isSatisfiableDNF(formula), isSatisfiablePlaistedGreenbaum(formula), formula.toString());
+        }
+
+        // Cardinality operators are not supported by the lazy DNF, which escalates instead.
+        final Node small = and(new AtMost(1, var("A"), var("B")), var("A"), var("B"));
+        assertNull(SAT.checkSATviaLazyDNF(FixTrueFalse.EliminateTrueAndFalse(small), Integer.MAX_VALUE));
+        assertFalse(SAT.isSatisfiable(small));
+
+        // Too many literals for the DNF, so the formula is encoded with PlaistedGreenbaum.
+        final Node[] features = new Node[SAT.DNF_THRESHOLD];
+        for (int i = 0; i < features.length; ++i) {
+            features[i] = var("F" + i);
+        }
+        final Node alternative = and(new AtMost(1, features), or(features));
+        assertTrue(SAT.isSatisfiable(alternative));
+        assertFalse(SAT.isSatisfiable(and(alternative, features[0], features[1])));
+        assertTrue(SAT.implies(and(alternative, features[0]), negate(features[1])));
+    }
+
+    @Test
+    public void testPortfolioAgreesWithDNF() {
+        final SATPortfolio portfolio = new SATPortfolio(2, 6);
+        final Random random = new Random(1);
+        for (int i = 0; i < 500; ++i) {
+            final Node formula = randomFormula(random, 1 + random.nextInt(8));
+            assertEquals(
+                    isSatisfiableDNF(formula),
+                    portfolio.isSatisfiable(FixTrueFalse.EliminateTrueAndFalse(formula)),
+                    formula.toString());
+        }
+
+        final SATPortfolio.Statistics statistics = portfolio.getStatistics();
+        assertTrue(statistics.getRaces() > 0);
+        for (final SATPortfolio.Strategy strategy : SATPortfolio.Strategy.values()) {
+            assertTrue(statistics.getInvocations(strategy) > 0, strategy.toString());
+        }
+    }
+
+    @Test
+    public void testEquivalentFormulasHaveEqualFingerprints() {
+        final Random random = new Random(2);
+        final SemanticFingerprint fingerprints = SemanticFingerprint.Default;
+        for (int i = 0; i < 500; ++i) {
+            final Node a = randomFormula(random, 1 + random.nextInt(6));
+            final Node b = randomFormula(random, 1 + random.nextInt(6));
+            if (!fingerprints.of(a).equals(fingerprints.of(b))) {
+                assertFalse(SAT.equivalent(a, b), () -> a + " and " + b);
+            }
+        }
+
+        assertEquals(fingerprints.of(and(A, or(B, C))), fingerprints.of(or(and(C, A), and(A, B))));
+        assertEquals(fingerprints.of(FixTrueFalse.False), fingerprints.of(and(A, negate(A))));
+        assertNull(fingerprints.of(new AtMost(1, A, B)));
+    }
+
+    @Test
+    public void testRemoveSemanticDuplicates() {
+        final List<Node> formulas = new ArrayList<>(List.of(
+                and(A, B),
+                or(A, B),
+                and(B, A),
+                negate(or(negate(A), negate(B))),
+                implies(A, B),
+                or(negate(A), B),
+                and(A, negate(A)),
+                FixTrueFalse.False,
+                or(B, A)
+        ));
+        FormulaUtils.removeSemanticDuplicates(formulas);
+        assertEquals(List.of(and(A, B), or(A, B), implies(A, B), and(A, negate(A))), formulas);
+    }
+
+    @Test
+    public void testCompiledFormula() {
+        final Random random = new Random(3);
+        final List<String> features = List.of("F0", "F1", "F2", "F3");
+        final ConfigurationMatrix configurations = ConfigurationMatrix.random(features, 300, random);
+        for (int i = 0; i < 200; ++i) {
+            final Node formula = randomFormula(random, 1 + random.nextInt(6));
+            final BitSet satisfied = CompiledFormula.compile(formula).evaluate(configurations);
+            for (int c = 0; c < configurations.size(); ++c) {
+                final Map<Object, Boolean> assignment = new HashMap<>();
+                for (final String feature : features) {
+                    assignment.put(feature, configurations.isSelected(c, feature));
+                }
+                assertEquals(formula.getValue(assignment), satisfied.get(c), formula::toString);
+            }
+            assertTrue(satisfied.length() <= configurations.size());
+        }
+
+        final CompiledFormula xor = CompiledFormula.compile(negate(equivalent(A, B)));
+        assertEquals(List.of("A", "B"), xor.getVariables());
+        assertEquals(0b0110L, xor.evaluate(0b1010L, 0b1100L));
     }
 }
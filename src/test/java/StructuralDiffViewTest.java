@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.experiments.views.Main;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class StructuralDiffViewTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "const",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain",
+            "emacsbug1"
+    })
+    void agreesWithNaive(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), Main.VARIATION_DIFF_PARSE_OPTIONS);
+
+        final Set<String> features = new LinkedHashSet<>();
+        final Set<String> artifacts = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.isArtifact()) {
+                artifacts.addAll(node.getLabel().getLines());
+            } else if (node.isConditionalAnnotation()) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+
+        final List<Relevance> relevances = new ArrayList<>();
+        relevances.add(new Configure(FixTrueFalse.True));
+        for (final String feature : features) {
+            relevances.add(new Trace(feature));
+            relevances.add(new Configure(var(feature)));
+            relevances.add(new Configure(negate(var(feature))));
+        }
+        artifacts.forEach(a -> relevances.add(new Search(a)));
+
+        for (final Relevance rho : relevances) {
+            final VariationDiff<DiffLinesLabel> structuralView = DiffView.structural(d, rho);
+            structuralView.assertConsistency();
+            DiffView.validateStructural(DiffView.naive(d, rho), structuralView);
+        }
+
+        // Without any filtering, the view has the same projections as the original variation diff.
+        DiffView.validateStructural(d, DiffView.structural(d, new Configure(FixTrueFalse.True)));
+    }
+
+    @Test
+    void keepsAlignmentOfOriginalDiff() throws IOException, DiffParseException {
+        // Only the condition of the outer annotation changed, so its #endif remains unchanged.
+        // Text-based differencing instead matches this #endif with the one of the inner annotation.
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve("1.diff"), Main.VARIATION_DIFF_PARSE_OPTIONS);
+        final Relevance all = new Configure(FixTrueFalse.True);
+
+        assertTrue(DiffView.validateStructural(d, DiffView.structural(d, all)));
+        assertFalse(DiffView.validateStructural(DiffView.naive(d, all), DiffView.structural(d, all)));
+    }
+}
@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+import org.prop4j.And;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.logic.UniqueViewEnumerator;
+import org.variantsync.diffdetective.analysis.logic.UniqueViewsAlgorithm;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.experiments.performance.SATBenchmark;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class UniqueViewEnumeratorTest {
+    /** The algorithm used by {@code UniqueViewsAlgorithm} before the enumerator. */
+    private static List<Node> powerset(final List<Node> formulas) {
+        final List<Node> views = new ArrayList<>();
+        for (int subset = 0; subset < 1 << formulas.size(); ++subset) {
+            final List<Node> conjunction = new ArrayList<>();
+            for (int i = 0; i < formulas.size(); ++i) {
+                if ((subset & (1 << i)) != 0) {
+                    conjunction.add(formulas.get(i));
+                }
+            }
+            final Node view = new And(conjunction).toCNF(false);
+            if (SAT.isSatisfiable(view)) {
+                views.add(view);
+            }
+        }
+        FormulaUtils.removeSemanticDuplicates(views);
+        return views;
+    }
+
+    @Test
+    public void agreesWithPowerset() {
+        final Random random = new Random(5);
+        for (int i = 0; i < 100; ++i) {
+            final List<Node> formulas = new ArrayList<>();
+            for (int j = random.nextInt(7); j > 0; --j) {
+                formulas.add(SATBenchmark.randomFormula(random, 1 + random.nextInt(4), 4));
+            }
+
+            final List<Node> expected = powerset(formulas);
+            final List<Node> actual = new ArrayList<>();
+            final UniqueViewEnumerator enumerator = new UniqueViewEnumerator(formulas, false);
+            enumerator.forEachRemaining(actual::add);
+
+            assertFalse(enumerator.isBudgetExhausted());
+            assertEquals(expected.size(), actual.size(), formulas::toString);
+            for (final Node view : expected) {
+                assertTrue(actual.stream().anyMatch(v -> SAT.equivalent(v, view)), () -> view + " is missing for " + formulas);
+            }
+        }
+    }
+
+    @Test
+    public void manyIndependentFormulas() {
+        final List<Node> formulas = new ArrayList<>();
+        for (int i = 0; i < 40; ++i) {
+            formulas.add(var("F" + i));
+        }
+
+        final UniqueViewEnumerator enumerator = new UniqueViewEnumerator(formulas, false, 1000, Duration.ofMinutes(1));
+        assertEquals(1000, enumerator.stream().count());
+        assertTrue(enumerator.isBudgetExhausted());
+        assertEquals(1, enumerator.getNumberOfTypes());
+    }
+
+    /** A diff inserting one artifact for each of {@code n} independent features. */
+    private static VariationDiff<?> independentInsertions(final int n) throws DiffParseException {
+        final StringBuilder diff = new StringBuilder();
+        for (int i = 0; i < n; ++i) {
+            diff.append("+#if F").append(i).append("\n");
+            diff.append("+  artifact").append(i).append("\n");
+            diff.append("+#endif\n");
+        }
+        return VariationDiff.fromDiff(diff.toString(), VariationDiffParseOptions.Default);
+    }
+
+    @Test
+    public void eagerViewsRespectBudget() throws DiffParseException {
+        final List<Node> views = UniqueViewsAlgorithm.getUniquePartialConfigs(independentInsertions(3), false);
+        assertNotNull(views);
+        assertEquals(1 << 3, views.size());
+
+        // 2^20 views exceed the budget, so the incomplete result is not returned.
+        final VariationDiff<?> large = independentInsertions(20);
+        assertNull(UniqueViewsAlgorithm.getUniquePartialConfigs(large, false, 1000, Duration.ofMinutes(1)));
+
+        final UniqueViewEnumerator enumerator = UniqueViewsAlgorithm.enumerateUniquePartialConfigs(large, false, 1000, Duration.ofMinutes(1));
+        assertEquals(1000, enumerator.stream().count());
+        assertTrue(enumerator.isBudgetExhausted());
+    }
+}
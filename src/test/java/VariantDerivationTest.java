@@ -0,0 +1,153 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.ConfigurationMatrix;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.tree.VariationTree;
+import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
+import org.variantsync.diffdetective.variation.tree.view.TreeView;
+import org.variantsync.diffdetective.variation.tree.view.VariantDerivation;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.and;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.var;
+
+public class VariantDerivationTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    private static Set<String> features(final VariationDiff<DiffLinesLabel> d) {
+        final Set<String> features = new LinkedHashSet<>();
+        d.forAll(node -> {
+            if (node.isConditionalAnnotation()) {
+                features.addAll(node.getFormula().getUniqueContainedFeatures());
+            }
+        });
+        features.remove(FixTrueFalse.True.var.toString());
+        features.remove(FixTrueFalse.False.var.toString());
+        return features;
+    }
+
+    /** All configurations of up to six features or 64 random configurations otherwise. */
+    private static ConfigurationMatrix configurations(final Set<String> features) {
+        if (features.size() > 6) {
+            return ConfigurationMatrix.random(features, 64, new Random(42));
+        }
+
+        final List<String> featureList = new ArrayList<>(features);
+        final ConfigurationMatrix configurations = new ConfigurationMatrix(1 << features.size());
+        for (int i = 0; i < configurations.size(); ++i) {
+            for (int f = 0; f < featureList.size(); ++f) {
+                configurations.set(i, featureList.get(f), (i & (1 << f)) != 0);
+            }
+        }
+        return configurations;
+    }
+
+    private static Configure configure(final Set<String> features, final ConfigurationMatrix configurations, final int i) {
+        if (features.isEmpty()) {
+            return new Configure(FixTrueFalse.True);
+        }
+        return new Configure(and(features.stream()
+                .map(f -> configurations.isSelected(i, f) ? var(f) : negate(var(f)))
+                .toArray(Node[]::new)));
+    }
+
+    private static String sourceCode(final VariationTreeNode<DiffLinesLabel> root) {
+        final StringBuilder b = new StringBuilder();
+        root.printSourceCode(b);
+        return b.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "const",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain",
+            "emacsbug1"
+    })
+    void agreesWithConfigure(final String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+        final Set<String> features = features(d);
+        final ConfigurationMatrix configurations = configurations(features);
+
+        for (final Time time : Time.values()) {
+            final VariationTree<DiffLinesLabel> t = d.project(time);
+            final VariantDerivation<VariationTreeNode<DiffLinesLabel>, DiffLinesLabel> variants = VariantDerivation.derive(t.root(), configurations);
+
+            final List<Set<VariationTreeNode<DiffLinesLabel>>> viewNodes = new ArrayList<>();
+            for (int i = 0; i < configurations.size(); ++i) {
+                final Configure rho = configure(features, configurations, i);
+
+                // The same nodes are included as in the view of Configure.
+                final Set<VariationTreeNode<DiffLinesLabel>> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+                rho.computeViewNodes(t.root(), expected::add);
+                final Set<VariationTreeNode<DiffLinesLabel>> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+                final int variant = variants.getVariant(i);
+                t.root().forAllPreorder(node -> {
+                    if (variants.isIncluded(node, variant)) {
+                        actual.add(node);
+                    }
+                });
+                assertEquals(expected, actual, rho::toString);
+                viewNodes.add(expected);
+
+                // The variants are the same as the views.
+                final VariationTree<DiffLinesLabel> view = t.deepCopy();
+                TreeView.treeInline(view, rho);
+                final String expectedSourceCode = sourceCode(view.root());
+                final StringBuilder actualSourceCode = new StringBuilder();
+                variants.printSourceCode(variant, actualSourceCode);
+                assertEquals(expectedSourceCode, actualSourceCode.toString());
+                assertEquals(expectedSourceCode, sourceCode(variants.toVariationTree(variant)));
+                assertTrue(variants.getConfigurationsOf(variant).get(i));
+            }
+
+            // Configurations share a variant iff they include the same nodes.
+            for (int i = 0; i < configurations.size(); ++i) {
+                for (int j = 0; j < configurations.size(); ++j) {
+                    assertEquals(
+                            viewNodes.get(i).equals(viewNodes.get(j)),
+                            variants.getVariant(i) == variants.getVariant(j)
+                    );
+                }
+            }
+        }
+
+        // Each configuration has exactly one view on the diff.
+        final BitSet covered = new BitSet(configurations.size());
+        DiffView.variants(d, configurations, (configurationsOfView, view) -> {
+            assertFalse(covered.intersects(configurationsOfView));
+            covered.or(configurationsOfView);
+            view.assertConsistency();
+
+            for (int i = configurationsOfView.nextSetBit(0); i >= 0; i = configurationsOfView.nextSetBit(i + 1)) {
+                assertTrue(DiffView.optimized(d, configure(features, configurations, i)).isSameAs(view));
+            }
+        });
+        assertEquals(configurations.size(), covered.cardinality());
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.LineRange;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.VariationDiffIndex;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VariationDiffIndexTest {
+    private final static Path testDir = Constants.RESOURCE_DIR.resolve("diffs").resolve("parser");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"01", "05", "11", "12"})
+    public void indexAgreesWithTraversal(String testCase) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> diff = VariationDiff.fromFile(
+                testDir.resolve(testCase + ".diff"),
+                VariationDiffParseOptions.Default);
+        final List<DiffNode<DiffLinesLabel>> nodes = diff.computeAllNodes();
+        final VariationDiffIndex<DiffLinesLabel> index = diff.getIndex();
+
+        for (final DiffNode<DiffLinesLabel> node : nodes) {
+            assertSame(node, diff.getNodeWithID(node.getID()));
+        }
+
+        for (final NodeType type : NodeType.values()) {
+            assertEquals(diff.computeAllNodesThat(n -> n.getNodeType() == type), index.getNodesOfType(type));
+        }
+
+        final int lastLine = nodes.stream().mapToInt(n -> n.getLinesInDiff().toExclusive()).max().orElse(0);
+        for (int from = 0; from <= lastLine; ++from) {
+            for (int to = from + 1; to <= lastLine + 1; to += 3) {
+                final LineRange query = LineRange.FromInclToExcl(from, to);
+                final List<DiffNode<DiffLinesLabel>> expected = nodes.stream()
+                        .filter(n -> n.getLinesInDiff().fromInclusive() < n.getLinesInDiff().toExclusive())
+                        .filter(n -> n.getLinesInDiff().fromInclusive() < query.toExclusive()
+                                && query.fromInclusive() < n.getLinesInDiff().toExclusive())
+                        .sorted(Comparator.comparingInt(n -> n.getLinesInDiff().fromInclusive()))
+                        .toList();
+                final List<DiffNode<DiffLinesLabel>> actual = index.getNodesOverlapping(query);
+                assertEquals(expected.size(), actual.size());
+                assertTrue(actual.containsAll(expected));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"01"})
+    public void modificationsInvalidateIndex(String testCase) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> diff = VariationDiff.fromFile(
+                testDir.resolve(testCase + ".diff"),
+                VariationDiffParseOptions.Default);
+        final VariationDiffIndex<DiffLinesLabel> index = diff.getIndex();
+        assertTrue(index.isUpToDate());
+        assertSame(index, diff.getIndex());
+
+        final DiffNode<DiffLinesLabel> artifact = index.getNodesOfType(NodeType.ARTIFACT).get(0);
+        artifact.drop();
+        assertFalse(index.isUpToDate());
+        assertNull(diff.getNodeWithID(artifact.getID()));
+
+        artifact.getDiffType().forAllTimesOfExistence(time -> diff.getRoot().addChild(artifact, time));
+        assertSame(artifact, diff.getNodeWithID(artifact.getID()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"05"})
+    public void otherDiffsDontInvalidateIndex(String testCase) throws Exception {
+        final VariationDiff<DiffLinesLabel> diff = VariationDiff.fromFile(
+                testDir.resolve(testCase + ".diff"),
+                VariationDiffParseOptions.Default);
+        final VariationDiffIndex<DiffLinesLabel> index = diff.getIndex();
+
+        // Parsing, copying and modifying other diffs on this thread.
+        final VariationDiff<DiffLinesLabel> other = VariationDiff.fromFile(
+                testDir.resolve(testCase + ".diff"),
+                VariationDiffParseOptions.Default);
+        final VariationDiff<DiffLinesLabel> copy = diff.deepCopy();
+        other.computeArtifactNodes().get(0).drop();
+        copy.computeArtifactNodes().get(0).drop();
+        assertTrue(index.isUpToDate());
+        assertSame(index, diff.getIndex());
+
+        // Modifications of the indexed diff on another thread.
+        final DiffNode<DiffLinesLabel> artifact = index.getNodesOfType(NodeType.ARTIFACT).get(0);
+        final Thread modifier = new Thread(artifact::drop);
+        modifier.start();
+        modifier.join();
+        assertFalse(index.isUpToDate());
+        assertNull(diff.getNodeWithID(artifact.getID()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"05", "12"})
+    public void interleavedModificationsAndLookups(String testCase) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> diff = VariationDiff.fromFile(
+                testDir.resolve(testCase + ".diff"),
+                VariationDiffParseOptions.Default);
+        final List<DiffNode<DiffLinesLabel>> artifacts = diff.computeArtifactNodes();
+
+        // Move each artifact to the root and look it up in between, as when patching a diff.
+        for (final DiffNode<DiffLinesLabel> artifact : artifacts) {
+            assertSame(artifact, diff.getNodeWithID(artifact.getID()));
+            artifact.drop();
+            assertNull(diff.getNodeWithID(artifact.getID()));
+            artifact.getDiffType().forAllTimesOfExistence(time -> diff.getRoot().insertChild(artifact, 0, time));
+            assertSame(artifact, diff.getNodeWithID(artifact.getID()));
+        }
+        diff.assertConsistency();
+
+        // Repeated lookups without modifications use an up-to-date index.
+        for (final DiffNode<DiffLinesLabel> artifact : artifacts) {
+            assertSame(artifact, diff.getNodeWithID(artifact.getID()));
+        }
+        assertTrue(diff.getIndex().isUpToDate());
+        assertSame(diff.getIndex(), diff.getIndex());
+    }
+}